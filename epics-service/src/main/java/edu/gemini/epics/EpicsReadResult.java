@@ -0,0 +1,50 @@
+package edu.gemini.epics;
+
+import com.google.common.base.Preconditions;
+import gov.aps.jca.dbr.DBR;
+
+/**
+ * The outcome of reading one channel with {@link EpicsReader#readChannels}: either the DBR that
+ * was read or the exception that prevented reading it
+ */
+public final class EpicsReadResult {
+    private final DBR dbr;
+    private final Exception error;
+
+    private EpicsReadResult(DBR dbr, Exception error) {
+        this.dbr = dbr;
+        this.error = error;
+    }
+
+    public static EpicsReadResult success(DBR dbr) {
+        return new EpicsReadResult(dbr, null);
+    }
+
+    public static EpicsReadResult failure(Exception error) {
+        Preconditions.checkArgument(error != null, "The error of a failed read cannot be null");
+        return new EpicsReadResult(null, error);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    /**
+     * @return The value read, or null if the read failed
+     */
+    public DBR getDBR() {
+        return dbr;
+    }
+
+    /**
+     * @return The reason the read failed, or null if it succeeded
+     */
+    public Exception getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return isSuccess() ? "EpicsReadResult{dbr=" + dbr + '}' : "EpicsReadResult{error=" + error + '}';
+    }
+}
@@ -1,6 +1,11 @@
 package edu.gemini.epics;
 
 import gov.aps.jca.CAException;
+import gov.aps.jca.TimeoutException;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Interface to access an epics channel
@@ -32,4 +37,26 @@ public interface EpicsReader {
     ReadOnlyClientEpicsChannel<?> getChannelAsync(String channelName);
 
     void destroyChannel(ReadOnlyClientEpicsChannel<?> channel) throws CAException;
+
+    /**
+     * Reads the current value of several channels. Implementations can send the requests for all
+     * the channels together, instead of waiting for each one in turn.
+     * <p/>
+     * A channel that cannot be read doesn't prevent the others from being read, its error is
+     * reported in its result instead.
+     *
+     * @param channels Channels obtained from this reader
+     * @return The result of reading each channel, by channel name, in the order of the channels
+     */
+    default Map<String, EpicsReadResult> readChannels(Collection<? extends ReadOnlyClientEpicsChannel<?>> channels) {
+        Map<String, EpicsReadResult> results = new LinkedHashMap<String, EpicsReadResult>();
+        for (ReadOnlyClientEpicsChannel<?> channel : channels) {
+            try {
+                results.put(channel.getName(), EpicsReadResult.success(channel.getDBR()));
+            } catch (CAException | TimeoutException | RuntimeException e) {
+                results.put(channel.getName(), EpicsReadResult.failure(e));
+            }
+        }
+        return results;
+    }
 }
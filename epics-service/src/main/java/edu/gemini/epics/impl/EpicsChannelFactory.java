@@ -3,6 +3,7 @@ package edu.gemini.epics.impl;
 import com.cosylab.epics.caj.CAJChannel;
 import com.cosylab.epics.caj.CAJContext;
 import com.google.common.base.Preconditions;
+import edu.gemini.epics.EpicsReadResult;
 import edu.gemini.epics.ReadOnlyClientEpicsChannel;
 import edu.gemini.epics.EpicsException;
 import edu.gemini.epics.JCAContextController;
@@ -19,7 +20,16 @@ import gov.aps.jca.event.*;
 //import java.util.IdentityHashMap;
 //import java.util.concurrent.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -201,10 +211,7 @@ class EpicsChannelFactory {
             //Check that the channel enum values match the enum class values
             DBR_LABELS_Enum labels;
             try {
-                synchronized (_ctx) {
-                    labels = (DBR_LABELS_Enum) cajChannel.get(DBRType.LABELS_ENUM, 1);
-                    _ctx.pendIO(timeout);
-                }
+                labels = (DBR_LABELS_Enum) ReadOnlyEpicsChannelImpl.get(cajChannel, DBRType.LABELS_ENUM, 1, timeout);
             } catch (CAException e) {
                 throw new EpicsException("Enum values cannot be retrieved for Epics channel " + channelName, e);
             } catch (TimeoutException e) {
@@ -258,6 +265,98 @@ class EpicsChannelFactory {
         channel.destroy();
     }
 
+    /**
+     * Reads all the channels with a single flush of the requests, and waits at most the IO timeout
+     * for the replies. Channels that time out are read again, up to the configured read retries.
+     */
+    protected Map<String, EpicsReadResult> _readChannels(Collection<? extends ReadOnlyClientEpicsChannel<?>> channels) {
+        ConcurrentMap<String, EpicsReadResult> results = new ConcurrentHashMap<String, EpicsReadResult>();
+        List<ReadOnlyClientEpicsChannel<?>> pending = new ArrayList<ReadOnlyClientEpicsChannel<?>>(channels);
+        for (int i = 0; !pending.isEmpty() && i <= readRetries; i++) {
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            if (i > 0) {
+                LOG.warning("Reading " + pending.size() + " channels again after a timeout, retry " + i);
+            }
+            pending = readBatch(pending, results);
+        }
+        for (ReadOnlyClientEpicsChannel<?> channel : pending) {
+            LOG.warning("Channel " + channel.getName() + " read failed, timeout");
+            results.putIfAbsent(channel.getName(),
+                    EpicsReadResult.failure(new TimeoutException("Timeout reading channel " + channel.getName())));
+        }
+
+        Map<String, EpicsReadResult> ordered = new LinkedHashMap<String, EpicsReadResult>();
+        for (ReadOnlyClientEpicsChannel<?> channel : channels) {
+            ordered.put(channel.getName(), results.get(channel.getName()));
+        }
+        return ordered;
+    }
+
+    /**
+     * Sends a get request for each channel and waits for the replies
+     *
+     * @return The channels that didn't reply in time
+     */
+    private List<ReadOnlyClientEpicsChannel<?>> readBatch(List<ReadOnlyClientEpicsChannel<?>> channels,
+                                                          final ConcurrentMap<String, EpicsReadResult> results) {
+        final CountDownLatch replies = new CountDownLatch(channels.size());
+        for (ReadOnlyClientEpicsChannel<?> channel : channels) {
+            final String name = channel.getName();
+            if (!(channel instanceof ReadOnlyEpicsChannelImpl)) {
+                // Not one of ours, it can only be read on its own
+                try {
+                    results.put(name, EpicsReadResult.success(channel.getDBR()));
+                } catch (CAException | TimeoutException | RuntimeException e) {
+                    results.put(name, EpicsReadResult.failure(e));
+                }
+                replies.countDown();
+                continue;
+            }
+            CAJChannel cajChannel = ((ReadOnlyEpicsChannelImpl<?>) channel).channel;
+            if (cajChannel.getConnectionState() != Channel.ConnectionState.CONNECTED) {
+                results.put(name, EpicsReadResult.failure(new IllegalStateException("Channel " + name + " is not connected")));
+                replies.countDown();
+                continue;
+            }
+            try {
+                cajChannel.get(cajChannel.getFieldType(), cajChannel.getElementCount(), new GetListener() {
+                    @Override
+                    public void getCompleted(GetEvent ev) {
+                        if (ev.getStatus().isSuccessful()) {
+                            results.putIfAbsent(name, EpicsReadResult.success(ev.getDBR()));
+                        } else {
+                            results.putIfAbsent(name, EpicsReadResult.failure(
+                                    new CAException("Channel " + name + " read failed: " + ev.getStatus())));
+                        }
+                        replies.countDown();
+                    }
+                });
+            } catch (CAException | IllegalStateException e) {
+                results.put(name, EpicsReadResult.failure(e));
+                replies.countDown();
+            }
+        }
+
+        try {
+            _ctx.flushIO();
+            replies.await((long) (timeout * 1000), TimeUnit.MILLISECONDS);
+        } catch (CAException e) {
+            LOG.log(Level.WARNING, "Error sending read requests", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        List<ReadOnlyClientEpicsChannel<?>> timedOut = new ArrayList<ReadOnlyClientEpicsChannel<?>>();
+        for (ReadOnlyClientEpicsChannel<?> channel : channels) {
+            if (!results.containsKey(channel.getName())) {
+                timedOut.add(channel);
+            }
+        }
+        return timedOut;
+    }
+
     private CAJChannel bindChannelAsync(String channel, ConnectionListener listener) throws EpicsException {
         try {
             return addNewChannel(channel, true, listener);
@@ -300,10 +399,18 @@ class EpicsChannelFactory {
                 });
             }
         } else {
-            synchronized (_ctx) {
-                epicsChannel = (CAJChannel) _ctx.createChannel(channelName);
-                _ctx.pendIO(timeout);
-            }
+            // Wait only for this channel to connect, other channels can be bound at the same time
+            final CompletableFuture<Void> connected = new CompletableFuture<Void>();
+            epicsChannel = (CAJChannel) _ctx.createChannel(channelName, new ConnectionListener() {
+                @Override
+                public void connectionChanged(ConnectionEvent ev) {
+                    if (ev.isConnected()) {
+                        connected.complete(null);
+                    }
+                }
+            });
+            _ctx.flushIO();
+            awaitConnection(epicsChannel, connected);
             if (epicsChannel.getConnectionState() != Channel.ConnectionState.CONNECTED) {
                 throw new IllegalStateException("Channel " + channelName + " cannot be connected");
             }
@@ -311,4 +418,35 @@ class EpicsChannelFactory {
 
         return epicsChannel;
     }
+
+    private void awaitConnection(CAJChannel epicsChannel, CompletableFuture<Void> connected) throws TimeoutException {
+        if (epicsChannel.getConnectionState() == Channel.ConnectionState.CONNECTED) {
+            return;
+        }
+        try {
+            if (timeout > 0) {
+                connected.get((long) (timeout * 1000), TimeUnit.MILLISECONDS);
+            } else {
+                connected.get();
+            }
+        } catch (java.util.concurrent.TimeoutException e) {
+            destroyQuietly(epicsChannel);
+            throw new TimeoutException("Timeout connecting to channel " + epicsChannel.getName());
+        } catch (ExecutionException e) {
+            destroyQuietly(epicsChannel);
+            throw new IllegalStateException("Channel " + epicsChannel.getName() + " cannot be connected", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            destroyQuietly(epicsChannel);
+            throw new TimeoutException("Interrupted while connecting to channel " + epicsChannel.getName());
+        }
+    }
+
+    private void destroyQuietly(CAJChannel epicsChannel) {
+        try {
+            epicsChannel.destroy();
+        } catch (CAException e) {
+            LOG.log(Level.WARNING, e.getMessage(), e);
+        }
+    }
 }
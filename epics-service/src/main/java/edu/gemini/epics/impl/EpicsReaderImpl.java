@@ -1,10 +1,14 @@
 package edu.gemini.epics.impl;
 
 import edu.gemini.epics.EpicsReader;
+import edu.gemini.epics.EpicsReadResult;
 import edu.gemini.epics.JCAContextController;
 import edu.gemini.epics.ReadOnlyClientEpicsChannel;
 import gov.aps.jca.CAException;
 
+import java.util.Collection;
+import java.util.Map;
+
 /**
  * Class EpicsReaderImpl
  *
@@ -65,4 +69,9 @@ public class EpicsReaderImpl extends EpicsChannelFactory implements EpicsReader
         _destroyChannel(channel);
     }
 
+    @Override
+    public Map<String, EpicsReadResult> readChannels(Collection<? extends ReadOnlyClientEpicsChannel<?>> channels) {
+        return _readChannels(channels);
+    }
+
 }
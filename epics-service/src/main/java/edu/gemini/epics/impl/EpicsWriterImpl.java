@@ -1,11 +1,15 @@
 package edu.gemini.epics.impl;
 
 import edu.gemini.epics.EpicsWriter;
+import edu.gemini.epics.EpicsReadResult;
 import edu.gemini.epics.JCAContextController;
 import edu.gemini.epics.ReadOnlyClientEpicsChannel;
 import edu.gemini.epics.ReadWriteClientEpicsChannel;
 import gov.aps.jca.CAException;
 
+import java.util.Collection;
+import java.util.Map;
+
 /**
  * Class EpicsWriterImpl
  *
@@ -63,4 +67,9 @@ public class EpicsWriterImpl extends EpicsChannelFactory implements EpicsWriter
         _destroyChannel(channel);
     }
 
+    @Override
+    public Map<String, EpicsReadResult> readChannels(Collection<? extends ReadOnlyClientEpicsChannel<?>> channels) {
+        return _readChannels(channels);
+    }
+
 }
@@ -11,12 +11,17 @@ import gov.aps.jca.Channel;
 import gov.aps.jca.Monitor;
 import gov.aps.jca.TimeoutException;
 import gov.aps.jca.dbr.*;
+import gov.aps.jca.event.GetEvent;
+import gov.aps.jca.event.GetListener;
 import gov.aps.jca.event.MonitorEvent;
 import gov.aps.jca.event.MonitorListener;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 /**
@@ -44,14 +49,11 @@ public class ReadOnlyEpicsChannelImpl<T> implements ReadOnlyClientEpicsChannel<T
         boolean success = false;
         for(int i = 0; !success && i<=retries; i++) {
             try {
-                synchronized (channel.getContext()) {
-                    dbr = channel.get();
-                    channel.getContext().pendIO(timeout);
-                }
+                dbr = get(channel, channel.getFieldType(), channel.getElementCount(), timeout);
                 success = true;
             } catch(TimeoutException e) {
                 if (i == retries) {
-                    LOG.warning("Channel " + channel.getName() + " read failed, pendIO timeout");
+                    LOG.warning("Channel " + channel.getName() + " read failed, timeout");
                     throw e;
                 }
                 else Thread.yield();
@@ -62,6 +64,35 @@ public class ReadOnlyEpicsChannelImpl<T> implements ReadOnlyClientEpicsChannel<T
         return dbr;
     }
 
+    /**
+     * Reads a channel without blocking the rest of the context. Each request waits only for its
+     * own reply, so a slow IOC doesn't hold up reads of other channels.
+     */
+    static DBR get(final CAJChannel channel, DBRType type, int count, double timeout) throws CAException, TimeoutException {
+        final CompletableFuture<DBR> reply = new CompletableFuture<DBR>();
+        channel.get(type, count, new GetListener() {
+            @Override
+            public void getCompleted(GetEvent ev) {
+                if (ev.getStatus().isSuccessful()) {
+                    reply.complete(ev.getDBR());
+                } else {
+                    reply.completeExceptionally(new CAException("Channel " + channel.getName() + " read failed: " + ev.getStatus()));
+                }
+            }
+        });
+        channel.getContext().flushIO();
+        try {
+            return timeout > 0 ? reply.get((long) (timeout * 1000), TimeUnit.MILLISECONDS) : reply.get();
+        } catch (java.util.concurrent.TimeoutException e) {
+            throw new TimeoutException("Timeout reading channel " + channel.getName());
+        } catch (ExecutionException e) {
+            throw (CAException) e.getCause();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TimeoutException("Interrupted while reading channel " + channel.getName());
+        }
+    }
+
     @Override
     public List<T> getAll() throws CAException, TimeoutException {
         return mapValues(DbrUtil.extractValues(getDBR()));
@@ -29,10 +29,8 @@ public class ReadWriteEpicsEnumChannel<T extends Enum<T>> extends ReadOnlyEpicsE
         for (int i = 0; i < values.size(); i++) {
             arr[i] = values.get(i).toString();
         }
-        synchronized (channel.getContext()) {
-            channel.put(arr);
+        channel.put(arr);
 
-            channel.getContext().flushIO();
-        }
+        channel.getContext().flushIO();
     }
 }
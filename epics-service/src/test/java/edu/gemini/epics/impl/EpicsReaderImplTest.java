@@ -0,0 +1,139 @@
+package edu.gemini.epics.impl;
+
+import com.cosylab.epics.caj.CAJChannel;
+import com.cosylab.epics.caj.CAJContext;
+import com.google.common.collect.ImmutableList;
+import edu.gemini.epics.EpicsReadResult;
+import edu.gemini.epics.JCAContextController;
+import edu.gemini.epics.ReadOnlyClientEpicsChannel;
+import gov.aps.jca.CAStatus;
+import gov.aps.jca.Channel;
+import gov.aps.jca.TimeoutException;
+import gov.aps.jca.dbr.DBR;
+import gov.aps.jca.dbr.DBRType;
+import gov.aps.jca.dbr.DBR_Double;
+import gov.aps.jca.event.GetEvent;
+import gov.aps.jca.event.GetListener;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+public class EpicsReaderImplTest {
+    private CAJContext jcaContext;
+    private EpicsReaderImpl epicsReader;
+
+    @Before
+    public void setUp() {
+        JCAContextController contextController = mock(JCAContextController.class);
+        jcaContext = mock(CAJContext.class);
+        when(contextController.getJCAContext()).thenReturn(jcaContext);
+        when(contextController.timeout()).thenReturn(0.1);
+        when(contextController.readRetries()).thenReturn(1);
+
+        epicsReader = new EpicsReaderImpl(contextController);
+    }
+
+    private CAJChannel mockChannel(String name, Channel.ConnectionState state) {
+        CAJChannel channel = mock(CAJChannel.class);
+        when(channel.getName()).thenReturn(name);
+        when(channel.getContext()).thenReturn(jcaContext);
+        when(channel.getConnectionState()).thenReturn(state);
+        when(channel.getFieldType()).thenReturn(DBRType.DOUBLE);
+        when(channel.getElementCount()).thenReturn(1);
+        return channel;
+    }
+
+    private void replyWith(final CAJChannel channel, final DBR dbr, final CAStatus status) throws Exception {
+        doAnswer(invocation -> {
+            GetListener listener = invocation.getArgument(2);
+            listener.getCompleted(new GetEvent(channel, dbr, status));
+            return null;
+        }).when(channel).get(any(), anyInt(), any(GetListener.class));
+    }
+
+    @Test
+    public void testReadChannelsSendsAllRequestsInOneFlush() throws Exception {
+        DBR first = new DBR_Double(new double[]{1.0});
+        DBR second = new DBR_Double(new double[]{2.0});
+        CAJChannel channel1 = mockChannel("tst:ch1", Channel.ConnectionState.CONNECTED);
+        CAJChannel channel2 = mockChannel("tst:ch2", Channel.ConnectionState.CONNECTED);
+        replyWith(channel1, first, CAStatus.NORMAL);
+        replyWith(channel2, second, CAStatus.NORMAL);
+
+        Map<String, EpicsReadResult> results = epicsReader.readChannels(ImmutableList.of(
+                new ReadOnlyEpicsChannelImpl<Double>(channel1, 0.1, 0),
+                new ReadOnlyEpicsChannelImpl<Double>(channel2, 0.1, 0)));
+
+        assertEquals(ImmutableList.of("tst:ch1", "tst:ch2"), ImmutableList.copyOf(results.keySet()));
+        assertSame(first, results.get("tst:ch1").getDBR());
+        assertSame(second, results.get("tst:ch2").getDBR());
+        verify(jcaContext, times(1)).flushIO();
+        verify(jcaContext, never()).pendIO(anyDouble());
+    }
+
+    @Test
+    public void testReadChannelsReportsErrorsPerChannel() throws Exception {
+        DBR value = new DBR_Double(new double[]{1.0});
+        CAJChannel good = mockChannel("tst:good", Channel.ConnectionState.CONNECTED);
+        CAJChannel failed = mockChannel("tst:failed", Channel.ConnectionState.CONNECTED);
+        CAJChannel disconnected = mockChannel("tst:disconnected", Channel.ConnectionState.DISCONNECTED);
+        CAJChannel silent = mockChannel("tst:silent", Channel.ConnectionState.CONNECTED);
+        replyWith(good, value, CAStatus.NORMAL);
+        replyWith(failed, null, CAStatus.GETFAIL);
+
+        Map<String, EpicsReadResult> results = epicsReader.readChannels(ImmutableList.of(
+                new ReadOnlyEpicsChannelImpl<Double>(good, 0.1, 0),
+                new ReadOnlyEpicsChannelImpl<Double>(failed, 0.1, 0),
+                new ReadOnlyEpicsChannelImpl<Double>(disconnected, 0.1, 0),
+                new ReadOnlyEpicsChannelImpl<Double>(silent, 0.1, 0)));
+
+        assertTrue(results.get("tst:good").isSuccess());
+        assertFalse(results.get("tst:failed").isSuccess());
+        assertTrue(results.get("tst:disconnected").getError() instanceof IllegalStateException);
+        assertTrue(results.get("tst:silent").getError() instanceof TimeoutException);
+        // The channel that didn't answer is retried once
+        verify(silent, times(2)).get(any(), anyInt(), any(GetListener.class));
+        verify(disconnected, never()).get(any(), anyInt(), any(GetListener.class));
+    }
+
+    @Test
+    public void testReadChannelsReadsOtherChannelsOneByOne() throws Exception {
+        DBR value = new DBR_Double(new double[]{1.0});
+        ReadOnlyClientEpicsChannel<?> channel = mock(ReadOnlyClientEpicsChannel.class);
+        when(channel.getName()).thenReturn("tst:other");
+        doReturn(value).when(channel).getDBR();
+
+        Map<String, EpicsReadResult> results = epicsReader.readChannels(ImmutableList.of(channel));
+
+        assertSame(value, results.get("tst:other").getDBR());
+    }
+
+    @Test
+    public void testGetDBRWaitsOnlyForItsOwnReply() throws Exception {
+        DBR value = new DBR_Double(new double[]{1.0});
+        CAJChannel channel = mockChannel("tst:ch1", Channel.ConnectionState.CONNECTED);
+        replyWith(channel, value, CAStatus.NORMAL);
+
+        assertSame(value, new ReadOnlyEpicsChannelImpl<Double>(channel, 0.1, 0).getDBR());
+        verify(jcaContext, never()).pendIO(anyDouble());
+    }
+
+    @Test(expected = TimeoutException.class)
+    public void testGetDBRTimesOutAfterRetries() throws Exception {
+        CAJChannel channel = mockChannel("tst:silent", Channel.ConnectionState.CONNECTED);
+        try {
+            new ReadOnlyEpicsChannelImpl<Double>(channel, 0.1, 1).getDBR();
+        } finally {
+            verify(channel, times(2)).get(any(), anyInt(), any(GetListener.class));
+        }
+    }
+}
@@ -8,13 +8,12 @@ import fs2.Stream
 import scala.concurrent.duration._
 
 import edu.gemini.aspen.gds.configuration.GdsConfiguration
-import edu.gemini.aspen.gds.fits.FitsFileProcessor
+import edu.gemini.aspen.gds.fits.{ FitsFileProcessor, FitsTransferRequest, FitsTransferScheduler }
 import edu.gemini.aspen.gds.keywords._
 import edu.gemini.aspen.gds.observations.{ ObservationManager, ObservationStateEvent }
 import edu.gemini.aspen.gds.seqexec.SeqexecServer
-import edu.gemini.aspen.giapi.data.DataLabel
 import edu.gemini.aspen.giapi.status.StatusDatabaseService
-import edu.gemini.epics.EpicsReader
+import edu.gemini.epics.{ EpicsObserver, EpicsReader }
 
 object Main {
   val stream: Stream[IO, Unit] =
@@ -23,31 +22,53 @@ object Main {
   def run(
     config:         GdsConfiguration,
     epicsReaderRef: RefSource[IO, Option[EpicsReader]],
+    epicsObsRef:    RefSource[IO, Option[EpicsObserver]],
     statusDbRef:    RefSource[IO, Option[StatusDatabaseService]],
     obsStateQ:      Queue[IO, ObservationStateEvent]
-  ): IO[Unit] =
-    for {
-      fitsQ        <- Queue.unbounded[IO, (DataLabel, List[CollectedKeyword])]
-      keywordConfig = config.keywords
-      kwMgr        <- KeywordManager[IO](
-                        config.keywordRetries,
-                        EpicsKeywordCollector(epicsReaderRef, keywordConfig),
-                        StatusKeywordCollector(statusDbRef, keywordConfig),
-                        PropertyKeywordCollector(keywordConfig),
-                        ConstantKeywordCollector(keywordConfig)
-                      )
-      obsMgr       <- ObservationManager(config.observation, kwMgr, obsStateQ, fitsQ)
-      fitsProcessor = FitsFileProcessor[IO](config.fitsConfig, keywordConfig)
-      seqexecServer = Stream.eval(SeqexecServer(obsStateQ, config.seqexecHost, config.seqexecPort))
-      obsPurge      = Stream
-                        .fixedDelay[IO](config.observation.cleanupRate)
-                        .foreach(_ => obsStateQ.offer(ObservationStateEvent.PurgeStale))
-      obsProcess    = Stream
-                        .fromQueueUnterminated(obsStateQ)
-                        .foreach(obsMgr.process)
-      fitsProcess   = Stream.fromQueueUnterminated(fitsQ).foreach { case (dl, kwl) =>
-                        fitsProcessor.processFile(dl, kwl)
-                      }
-      app          <- Stream(seqexecServer, obsPurge, obsProcess, fitsProcess).parJoinUnbounded.compile.drain
-    } yield app
+  ): IO[Unit] = {
+    val epicsChannels = EpicsKeywordCollector.channelNames(config.keywords)
+    // Released when the GDS is stopped, which cancels the fiber running this.
+    val epics         = for {
+      pool  <- EpicsChannelPool[IO](epicsReaderRef, epicsChannels, config.epicsConfig)
+      cache <- if (config.epicsConfig.useMonitors)
+                 EpicsSnapshotCache[IO](epicsObsRef, epicsChannels, config.epicsConfig.maxStaleness)
+                   .map(_.some)
+               else Resource.pure[IO, Option[EpicsSnapshotCache[IO]]](none)
+    } yield (pool, cache)
+    epics.use { case (epicsPool, epicsCache) =>
+      for {
+        fitsQ        <- Queue.unbounded[IO, FitsTransferRequest]
+        keywordConfig = config.keywords
+        kwMgr        <- KeywordManager[IO](
+                          config.keywordRetries,
+                          EpicsKeywordCollector(epicsReaderRef, epicsPool, epicsCache, keywordConfig),
+                          StatusKeywordCollector(statusDbRef, keywordConfig),
+                          PropertyKeywordCollector(keywordConfig),
+                          ConstantKeywordCollector(keywordConfig)
+                        )
+        obsMgr       <- ObservationManager(config.observation, kwMgr, obsStateQ, fitsQ)
+        fitsProcessor = FitsFileProcessor[IO](config.fitsConfig, keywordConfig)
+        fitsScheduler <- FitsTransferScheduler[IO](config.fitsConfig, fitsProcessor)
+        seqexecServer = Stream.eval(
+                          SeqexecServer(obsStateQ, fitsScheduler.metrics, config.seqexecHost, config.seqexecPort)
+                        )
+        obsPurge      = Stream
+                          .fixedDelay[IO](config.observation.cleanupRate)
+                          .foreach(_ => obsStateQ.offer(ObservationStateEvent.PurgeStale))
+        epicsMaint    = (Stream.emit(()) ++ Stream.fixedDelay[IO](config.epicsConfig.channelCheckRate))
+                          .foreach(_ =>
+                            epicsPool.maintain >> epicsCache.traverse_(_.maintain)
+                          )
+        obsProcess    = Stream
+                          .fromQueueUnterminated(obsStateQ)
+                          .foreach(obsMgr.process)
+        fitsQueue     = Stream.fromQueueUnterminated(fitsQ).foreach(fitsScheduler.submit)
+        fitsProcess   = Stream.eval(fitsScheduler.run)
+        app          <- Stream(seqexecServer, obsPurge, epicsMaint, obsProcess, fitsQueue, fitsProcess)
+                          .parJoinUnbounded
+                          .compile
+                          .drain
+      } yield app
+    }
+  }
 }
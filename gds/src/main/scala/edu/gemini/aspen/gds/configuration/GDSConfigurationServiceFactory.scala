@@ -67,6 +67,10 @@ class GDSConfigurationServiceFactory(
     val seqexecPort    = asPort(props, "seqexec.server.port")
     val seqexecHost    = asHost(props, "seqexec.server.host")
     val fitsDelOrig    = asBool(props, "fits.deleteOriginal")
+    val fitsZeroCopy   = asBool(props, "fits.zeroCopy")
+    val fitsInPlace    = asBool(props, "fits.updateInPlace")
+    val fitsParallel   = asPosInt(props, "fits.transfer.parallelism")
+    val fitsPerFs      = asPosInt(props, "fits.transfer.perFileSystem")
 
     val configValidated = (keywordConfig,
                            cleanupRate,
@@ -82,15 +86,22 @@ class GDSConfigurationServiceFactory(
                            fitsAddSuffix,
                            fitsSetOwner(props),
                            fitsSetPermissions(props),
-                           fitsDelOrig
-    ).mapN { case (kc, cr, lf, er, es, kr, ks, sp, sh, fsd, fdd, fas, fso, fsp, fdo) =>
-      GdsConfiguration(kc,
-                       ObservationConfig(cr, lf, RetryConfig(er, es)),
-                       RetryConfig(kr, ks),
-                       sp,
-                       sh,
-                       FitsConfig(fsd, fdd, fas, fso, fsp, fdo)
-      )
+                           fitsDelOrig,
+                           fitsZeroCopy,
+                           fitsInPlace,
+                           fitsParallel,
+                           fitsPerFs,
+                           epicsConfig(props)
+    ).mapN {
+      case (kc, cr, lf, er, es, kr, ks, sp, sh, fsd, fdd, fas, fso, fsp, fdo, fzc, fip, fpl, fpf, ec) =>
+        GdsConfiguration(kc,
+                         ObservationConfig(cr, lf, RetryConfig(er, es)),
+                         RetryConfig(kr, ks),
+                         sp,
+                         sh,
+                         FitsConfig(fsd, fdd, fas, fso, fsp, fdo, fzc, fip, fpl, fpf),
+                         ec
+        )
     }
 
     configValidated match {
@@ -193,6 +204,14 @@ class GDSConfigurationServiceFactory(
       } else none.validNec
     }
 
+  private def epicsConfig(props: Map[String, _]): ValidatedNec[String, EpicsConfig] =
+    (asDuration(props, "epics.channels.connectionTimeout"),
+     asDuration(props, "epics.channels.idleTimeout"),
+     asDuration(props, "epics.channels.checkRate"),
+     asBool(props, "epics.monitors.enabled"),
+     asDuration(props, "epics.monitors.maxStaleness")
+    ).mapN(EpicsConfig.apply)
+
   private def logErrors(errors: NonEmptyChain[String]): Unit = {
     val message =
       if (errors.length === 1)
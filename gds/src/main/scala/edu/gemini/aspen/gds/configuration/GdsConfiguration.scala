@@ -14,12 +14,24 @@ final case class ObservationConfig(
 final case class SetOwnerConfig(owner: String, useSudo: Boolean)
 final case class SetPermissionsConfig(permissions: String, useSudo: Boolean)
 final case class FitsConfig(
-  sourceDir:      Path,
-  destDir:        Path,
-  addSuffix:      Boolean,
-  setOwner:       Option[SetOwnerConfig],
-  setPermissions: Option[SetPermissionsConfig],
-  deleteOriginal: Boolean
+  sourceDir:                 Path,
+  destDir:                   Path,
+  addSuffix:                 Boolean,
+  setOwner:                  Option[SetOwnerConfig],
+  setPermissions:            Option[SetPermissionsConfig],
+  deleteOriginal:            Boolean,
+  zeroCopy:                  Boolean,
+  updateInPlace:             Boolean,
+  maxParallelTransfers:      Int,
+  maxTransfersPerFileSystem: Int
+)
+
+final case class EpicsConfig(
+  connectionTimeout:  FiniteDuration,
+  channelIdleTimeout: FiniteDuration,
+  channelCheckRate:   FiniteDuration,
+  useMonitors:        Boolean,
+  maxStaleness:       FiniteDuration
 )
 
 final case class RetryConfig(retries: Int, sleep: FiniteDuration)
@@ -29,5 +41,6 @@ final case class GdsConfiguration(
   keywordRetries: RetryConfig,
   seqexecPort:    Port,
   seqexecHost:    Host,
-  fitsConfig:     FitsConfig
+  fitsConfig:     FitsConfig,
+  epicsConfig:    EpicsConfig
 )
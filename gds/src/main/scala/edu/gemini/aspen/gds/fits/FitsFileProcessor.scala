@@ -1,7 +1,6 @@
 package edu.gemini.aspen.gds.fits
 
-import cats.effect.Async
-import cats.effect.Clock
+import cats.effect.{ Async, Clock, Ref }
 import cats.syntax.all._
 import com.google.common.io.{ Files => GFiles }
 import edu.gemini.aspen.gds.configuration.{
@@ -14,10 +13,13 @@ import edu.gemini.aspen.gds.keywords.CollectedKeyword
 import edu.gemini.aspen.gds.model.KeywordSource
 import edu.gemini.aspen.gds.syntax.all._
 import edu.gemini.aspen.gds.transfer.FitsFileTransferrer
-import edu.gemini.aspen.giapi.data.DataLabel
+import edu.gemini.aspen.giapi.data.{ DataLabel, ObservationEvent }
 import fs2.io.file.{ Files => Fs2Files }
 import fs2.io.file.Path
+import java.nio.file.{ Files => JFiles }
+import java.nio.file.attribute.{ PosixFileAttributeView, PosixFilePermission, PosixFilePermissions }
 import java.util.logging.Logger
+import scala.jdk.CollectionConverters._
 import scala.concurrent.duration._
 import scala.sys.process._
 
@@ -28,6 +30,42 @@ sealed trait FitsFileProcessor[F[_]] {
 object FitsFileProcessor {
   private val logger = Logger.getLogger(this.getClass.getName)
 
+  private type KeywordKey = (String, KeywordSource, Option[ObservationEvent])
+
+  private final case class CardPlan(
+    item:         KeywordConfigurationItem,
+    eventKey:     KeywordKey,
+    anyEventKey:  KeywordKey,
+    defaultValue: Either[String, FitsValue]
+  )
+
+  // The first occurrence of each keyword, with its position in the list.
+  private def indexKeywords(
+    keywords: List[CollectedKeyword]
+  ): Map[KeywordKey, (Int, CollectedKeyword)] =
+    keywords.zipWithIndex.foldLeft(Map.empty[KeywordKey, (Int, CollectedKeyword)]) {
+      case (m, (kw, i)) =>
+        val key = (kw.keyword.key, kw.keywordSource, kw.event)
+        if (m.contains(key)) m else m.updated(key, (i, kw))
+    }
+
+  private val octalPermissions = "0?([0-7]{3})".r
+
+  // The octal (`0644`) or symbolic (`rw-r--r--`) form of the permissions. Special bits are not
+  // supported.
+  def posixPermissions(permissions: String): Option[Set[PosixFilePermission]] =
+    permissions.trim match {
+      case octalPermissions(digits) =>
+        val symbolic = digits.toList.flatMap { d =>
+          List(4 -> 'r', 2 -> 'w', 1 -> 'x').map { case (bit, c) =>
+            if (((d - '0') & bit) != 0) c else '-'
+          }
+        }
+        posixPermissions(symbolic.mkString)
+      case symbolic                 =>
+        scala.util.Try(PosixFilePermissions.fromString(symbolic).asScala.toSet).toOption
+    }
+
   def apply[F[_]: Async: Fs2Files](
     fitsConfig:     FitsConfig,
     keywordConfigs: List[KeywordConfigurationItem]
@@ -38,6 +76,16 @@ object FitsFileProcessor {
           .forSource(KeywordSource.Instrument)
           .groupMap(_.index.index)(_.keyword.key)
 
+      // Everything about each non-instrument keyword that doesn't depend on the observation.
+      val cardPlan: List[CardPlan] =
+        keywordConfigs.nonInstrument.map(item =>
+          CardPlan(item,
+                   (item.keyword.key, item.keywordSource, item.event.some),
+                   (item.keyword.key, item.keywordSource, none),
+                   item.defaultValue
+          )
+        )
+
       def processFile(dataLabel: DataLabel, keywords: List[CollectedKeyword]): F[Unit] = {
         val inFileName  = dataLabel.getName
         val outFileName =
@@ -46,17 +94,21 @@ object FitsFileProcessor {
           else dataLabel.getName
 
         val result = for {
-          _      <- logger.infoF(s"Preparing to transfer FITS file $outFileName")
-          source  = fitsConfig.sourceDir.resolve(inFileName)
-          dest   <- safeDestinationFile(fitsConfig.destDir, outFileName)
-          cards  <- processKeywordsToCards(keywords)
-          t1     <- Clock[F].realTime
-          c      <- FitsFileTransferrer.transfer(source, dest, requiredKeywords, cards)
-          t2     <- Clock[F].realTime
-          _      <- logger.infoF(s"FITS file $dest transfer of $c bytes completed in ${t2-t1}.")
-          _      <- setPermissions(dest, fitsConfig.setPermissions)
-          _      <- setOwner(dest, fitsConfig.setOwner)
-          _      <- deleteOriginal(source, fitsConfig.deleteOriginal)
+          _        <- logger.infoF(s"Preparing to transfer FITS file $outFileName")
+          source    = fitsConfig.sourceDir.resolve(inFileName)
+          dest     <- safeDestinationFile(fitsConfig.destDir, outFileName)
+          cards    <- processKeywordsToCards(keywords)
+          fallback <- Ref.of[F, List[Path => F[Unit]]](Nil)
+          setAttrs  = (p: Path) => setAttributes(p).flatMap(fallback.set)
+          t1       <- Clock[F].realTime
+          moved    <- updateInPlace(source, dest, cards, setAttrs)
+          c        <- moved.fold(transfer(source, dest, cards, setAttrs))(_.pure[F])
+          t2       <- Clock[F].realTime
+          _        <- logger.infoF(s"FITS file $dest transfer of $c bytes completed in ${t2-t1}.")
+          _        <- fallback.get.flatMap(_.traverse_(_(dest)))
+          _        <- timed(s"Deleting original FITS file $source")(
+                        deleteOriginal(source, fitsConfig.deleteOriginal && moved.isEmpty)
+                      )
         } yield ()
         result.handleErrorWith(e =>
           logger.severeF(
@@ -66,6 +118,27 @@ object FitsFileProcessor {
         )
       }
 
+      // The original is only modified if it is going to be deleted anyway.
+      def updateInPlace(
+        source: Path,
+        dest:   Path,
+        cards:  Map[Int, List[FitsHeaderCard]],
+        before: Path => F[Unit]
+      ): F[Option[Long]] =
+        if (fitsConfig.updateInPlace && fitsConfig.deleteOriginal)
+          FitsFileTransferrer.updateInPlace(source, dest, requiredKeywords, cards, before)
+        else none[Long].pure[F]
+
+      def transfer(
+        source: Path,
+        dest:   Path,
+        cards:  Map[Int, List[FitsHeaderCard]],
+        before: Path => F[Unit]
+      ): F[Long] =
+        if (fitsConfig.zeroCopy)
+          FitsFileTransferrer.transferZeroCopy(source, dest, requiredKeywords, cards, before)
+        else FitsFileTransferrer.transfer(source, dest, requiredKeywords, cards, before)
+
       def safeDestinationFile(dir: Path, name: String): F[Path] = {
         val fullPath  = dir.resolve(name)
         for {
@@ -91,45 +164,41 @@ object FitsFileProcessor {
 
       def processKeywordsToCards(
         keywords: List[CollectedKeyword]
-      ): F[Map[Int, List[FitsHeaderCard]]] =
-        keywordConfigs.nonInstrument.traverse(item => processItem(item, keywords)).map { otuples =>
+      ): F[Map[Int, List[FitsHeaderCard]]] = {
+        val index = indexKeywords(keywords)
+        cardPlan.traverse(plan => processItem(plan, index)).map { otuples =>
           val tuples = otuples.collect { case Some(tuple) => tuple }
           tuples.groupMap(_._1)(_._2)
         }
+      }
 
       def processItem(
-        item:     KeywordConfigurationItem,
-        keywords: List[CollectedKeyword]
+        plan:  CardPlan,
+        index: Map[KeywordKey, (Int, CollectedKeyword)]
       ): F[Option[(Int, FitsHeaderCard)]] =
         for {
-          ocard <- getHeaderCard(item, keywords)
-          tuple  = ocard.map((item.index.index, _))
+          ocard <- getHeaderCard(plan, index)
+          tuple  = ocard.map((plan.item.index.index, _))
         } yield tuple
 
+      // The first collected keyword for the item's event, or without an event (only happens for
+      // Seqexec), as a search of the whole list would find.
       def getHeaderCard(
-        item:     KeywordConfigurationItem,
-        keywords: List[CollectedKeyword]
+        plan:  CardPlan,
+        index: Map[KeywordKey, (Int, CollectedKeyword)]
       ): F[Option[FitsHeaderCard]] =
-        keywords.find(ckw =>
-          ckw.keyword === item.keyword && ckw.keywordSource === item.keywordSource && eventMatches(
-            ckw,
-            item
-          )
-        ) match {
-          case Some(keyword) => handleCollectedValue(item, keyword)
-          case None          => handleMissing(item)
+        (index.get(plan.eventKey), index.get(plan.anyEventKey)) match {
+          case (Some((i, kw)), Some((j, _))) if i < j => handleCollectedValue(plan, kw)
+          case (_, Some((_, kw)))                     => handleCollectedValue(plan, kw)
+          case (Some((_, kw)), None)                  => handleCollectedValue(plan, kw)
+          case (None, None)                           => handleMissing(plan)
         }
 
-      def eventMatches(keyword: CollectedKeyword, item: KeywordConfigurationItem): Boolean =
-        keyword.event match {
-          case Some(event) => event === item.event
-          case None        => true // only happens for Seqexec
-        }
-
-      def handleMissing(item: KeywordConfigurationItem): F[Option[FitsHeaderCard]] =
+      def handleMissing(plan: CardPlan): F[Option[FitsHeaderCard]] = {
+        val item = plan.item
         if (item.isMandatory) logError(item, "Mandatory keyword was not collected") >> none.pure
         else
-          item.defaultValue
+          plan.defaultValue
             .fold(
               e =>
                 logError(item,
@@ -137,11 +206,13 @@ object FitsFileProcessor {
                 ) >> none.pure,
               toHeaderCard(item, _).some.pure
             )
+      }
 
       def handleCollectedValue(
-        item:    KeywordConfigurationItem,
+        plan:    CardPlan,
         keyword: CollectedKeyword
-      ): F[Option[FitsHeaderCard]] =
+      ): F[Option[FitsHeaderCard]] = {
+        val item = plan.item
         keyword match {
           case CollectedKeyword.Value(_, _, _, value)   =>
             toHeaderCard(item, value).some.pure
@@ -152,11 +223,12 @@ object FitsFileProcessor {
               logError(item, s"The constant value is bad: $message") >> none.pure
             else
               logWarning(item, s"Collection error, using default: $message") >>
-                item.defaultValue
+                plan.defaultValue
                   .fold(e => logError(item, s"Default value is bad: $e") >> none.pure,
                         toHeaderCard(item, _).some.pure
                   )
         }
+      }
 
       def toHeaderCard(
         item:  KeywordConfigurationItem,
@@ -173,20 +245,88 @@ object FitsFileProcessor {
       def formatMessage(item: KeywordConfigurationItem, msg: String): String =
         s"Keyword: ${item.keyword.key}: $msg"
 
-      def setOwner(dest: Path, config: Option[SetOwnerConfig]): F[Unit] = config match {
-        case Some(c) =>
-          val cmd = s"${if (c.useSudo) "sudo " else ""}chown ${c.owner} $dest"
+      def timed[A](step: String)(fa: F[A]): F[A] =
+        Clock[F].timed(fa).flatMap { case (t, a) =>
+          logger.infoF(s"$step took ${t.toMillis}ms.").as(a)
+        }
+
+      // Sets the configured permissions and owner of `file`, which is still in a temporary
+      // location, without starting any processes. Whatever couldn't be set this way is returned, to
+      // be retried on the final file with the `chmod`/`chown` command, run with `sudo` when that is
+      // configured.
+      def setAttributes(file: Path): F[List[Path => F[Unit]]] = {
+        val permissions = fitsConfig.setPermissions.flatTraverse { c =>
+          timed(s"Setting permissions of `$file` to `${c.permissions}`")(
+            setPermissionsNatively(file, c.permissions)
+          ).flatMap(ok =>
+            fallbackFor(ok, c.useSudo, s"permissions of `$file`")(setPermissions(_, c))
+          )
+        }
+        val owner       = fitsConfig.setOwner.flatTraverse { c =>
+          timed(s"Changing ownership of `$file` to `${c.owner}`")(setOwnerNatively(file, c.owner))
+            .flatMap(ok => fallbackFor(ok, c.useSudo, s"ownership of `$file`")(setOwner(_, c)))
+        }
+        (permissions, owner).mapN(_.toList ++ _.toList)
+      }
+
+      def fallbackFor(ok: Boolean, useSudo: Boolean, what: String)(
+        command: Path => F[Unit]
+      ): F[Option[Path => F[Unit]]] =
+        if (ok) none[Path => F[Unit]].pure[F]
+        else {
+          val using = if (useSudo) "sudo" else "the command"
+          logger.warningF(s"Failed to set $what directly, will use $using.").as(command.some)
+        }
+
+      def setPermissionsNatively(file: Path, permissions: String): F[Boolean] =
+        posixPermissions(permissions) match {
+          case Some(perms) =>
+            Async[F]
+              .blocking(JFiles.setPosixFilePermissions(file.toNioPath, perms.asJava))
+              .as(true)
+              .handleErrorWith(e =>
+                logger.warningF(s"Unable to set permissions of `$file`: ${e.getMessage}").as(false)
+              )
+          case None        =>
+            logger.warningF(s"Permissions `$permissions` can only be set with chmod.").as(false)
+        }
+
+      // Accepts `user`, `user:group` and `:group`, like chown.
+      def setOwnerNatively(file: Path, owner: String): F[Boolean] = {
+        val (user, group) = owner.split(":", 2) match {
+          case Array(u, g) => (u, g)
+          case _           => (owner, "")
+        }
+        Async[F]
+          .blocking {
+            val nioPath = file.toNioPath
+            val lookup  = nioPath.getFileSystem.getUserPrincipalLookupService
+            if (user.nonEmpty) JFiles.setOwner(nioPath, lookup.lookupPrincipalByName(user))
+            if (group.nonEmpty)
+              JFiles
+                .getFileAttributeView(nioPath, classOf[PosixFileAttributeView])
+                .setGroup(lookup.lookupPrincipalByGroupName(group))
+          }
+          .as(true)
+          .handleErrorWith(e =>
+            logger.warningF(s"Unable to change ownership of `$file`: ${e.getMessage}").as(false)
+          )
+      }
+
+      def setOwner(dest: Path, c: SetOwnerConfig): F[Unit] = {
+        val cmd = s"${if (c.useSudo) "sudo " else ""}chown ${c.owner} $dest"
+        timed(s"Changing ownership of `$dest` with `$cmd`") {
           for {
             _ <- logger.infoF(s"Changing ownership of `$dest` to `${c.owner}` with command: $cmd")
             b <- runCommand(cmd)
             _ <- if (b) Async[F].unit else logger.severeF(s"Failed to change ownership of `$dest`")
           } yield ()
-        case None    => Async[F].unit
+        }
       }
 
-      def setPermissions(dest: Path, config: Option[SetPermissionsConfig]): F[Unit] = config match {
-        case Some(c) =>
-          val cmd = s"${if (c.useSudo) "sudo " else ""}chmod ${c.permissions} $dest"
+      def setPermissions(dest: Path, c: SetPermissionsConfig): F[Unit] = {
+        val cmd = s"${if (c.useSudo) "sudo " else ""}chmod ${c.permissions} $dest"
+        timed(s"Changing permissions of `$dest` with `$cmd`") {
           for {
             _ <- logger.infoF(
                    s"Changing permissions of `$dest` to `${c.permissions}` with command: $cmd"
@@ -194,7 +334,7 @@ object FitsFileProcessor {
             b <- runCommand(cmd)
             _ <- if (b) Async[F].unit else logger.severeF(s"Failed to change permissions of `$dest`")
           } yield ()
-        case None    => Async[F].unit
+        }
       }
 
       def deleteOriginal(file: Path, deleteIt: Boolean): F[Unit] =
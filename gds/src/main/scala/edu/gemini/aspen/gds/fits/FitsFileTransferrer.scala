@@ -2,26 +2,30 @@ package edu.gemini.aspen.gds.transfer
 
 import cats._
 import cats.data._
-import cats.effect.{ Async, Ref, Sync }
+import cats.effect.{ Async, Ref, Resource, Sync }
 import cats.syntax.all._
 import edu.gemini.aspen.gds.fits._
 import edu.gemini.aspen.gds.syntax.all._
 import fs2._
 import fs2.io.file.{ CopyFlag, CopyFlags, Files, Flags, Path }
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.{ Files => JFiles, StandardOpenOption }
 import java.util.logging.Logger
+import scala.annotation.tailrec
 
 object FitsFileTransferrer {
   private val logger = Logger.getLogger(this.getClass.getName)
 
-  val RecordLength      = 2880
-  val HeaderLength      = 80
-  val Space: Byte       = 32
+  val RecordLength      = FitsHeader.RecordLength
+  val HeaderLength      = FitsHeader.CardLength
+  val Space: Byte       = FitsHeader.Space
   val MaxCardsPerHeader = 2000 // arbitrary number to prevent reading a huge, but bad, file.
 
-  final case class HeaderRow(keyword: String, card: Chain[Byte])
+  // Header records are kept as read until END is found, and only then copied into a FitsHeader.
   final case class ParserState(
     headerCount:   Int,
-    currentHeader: Option[Chain[HeaderRow]],
+    currentHeader: Option[Chain[Chunk[Byte]]],
     invalidFile:   Boolean
   )
 
@@ -29,54 +33,33 @@ object FitsFileTransferrer {
     val empty = ParserState(0, None, false)
   }
 
-  val simpleHeader             = "SIMPLE".toCharArray().map(_.toByte)
-  val extensionHeader          = "XTENSION".toCharArray().map(_.toByte)
-  val blankHeader: Chain[Byte] = Chain.fromSeq(List.fill(HeaderLength)(Space))
-  val abandoned                = "The file will be copied but no further processing will be performed."
-
-  private def matchesArray(chunk: Chunk[Byte], ray: Array[Byte]): Boolean =
-    chunk.size >= ray.length &&
-      ray.zipWithIndex.forall { case (b, idx) => b === chunk(idx) }
-
-  private def isHeader(chunk: Chunk[Byte]): Boolean =
-    matchesArray(chunk, simpleHeader) || matchesArray(chunk, extensionHeader)
+  // Result of reading a header directly from a FileChannel.
+  sealed trait HeaderRead extends Product with Serializable
+  object HeaderRead {
+    final case class Complete(header: FitsHeader, dataStart: Long)                        extends HeaderRead
+    final case class Abandoned(records: Chain[Chunk[Byte]], resumeAt: Long, msg: String) extends HeaderRead
+  }
 
-  private def extractKeyword(chunk: Chunk[Byte]): String =
-    chunk.take(8).toList.map(_.toChar).mkString.trim()
+  // A header found when planning an in-place update, and its new records if it gets new cards.
+  final case class PlannedHeader(
+    header:      FitsHeader,
+    position:    Long,
+    replacement: Option[Array[Byte]]
+  )
 
-  private def headerRecords(headers: Chain[HeaderRow]): Chunk[Byte] = {
-    val actualHeaders: Chain[Byte] = headers.flatMap(_.card)
-    val overflow                   = actualHeaders.length % RecordLength
-    val extra                      =
-      if (overflow > 0) Chain.fromSeq(List.fill(RecordLength - overflow.toInt)(Space))
-      else Chain.empty[Byte]
-    Chunk.chain(actualHeaders ++ extra)
-  }
+  val abandoned = "The file will be copied but no further processing will be performed."
 
-  private def parseHeaderChunk(chunk: Chunk[Byte]): (Chain[HeaderRow], Boolean) = {
-    def loop(c: Chunk[Byte], hs: Chain[HeaderRow]): (Chain[HeaderRow], Boolean) =
-      if (c.isEmpty) (hs, false)
-      else {
-        val keyword     = extractKeyword(c)
-        val (hdr, rest) = c.splitAt(HeaderLength)
-        val newHs       = hs :+ HeaderRow(keyword, hdr.toChain)
-        if (keyword === "END") (newHs, true)
-        else {
-          loop(rest, newHs)
-        }
-      }
-    loop(chunk, Chain.empty)
-  }
+  private def tooManyCards(records: Chain[Chunk[Byte]]): Boolean =
+    records.length * FitsHeader.CardsPerRecord > MaxCardsPerHeader
 
-  private def validateHeaders[F[_]](
+  private def validateHeaders(
     headerNumber: Int,
-    headers:      Chain[HeaderRow],
+    header:       FitsHeader,
     required:     Map[Int, List[String]]
   ): ValidatedNec[String, Unit] =
     required.get(headerNumber).fold(().validNec[String]) { requiredKeyWords =>
-      val keywords = headers.map(_.keyword)
       requiredKeyWords
-        .map(key => if (keywords.contains(key)) ().validNec else key.invalidNec)
+        .map(key => if (header.contains(key)) ().validNec else key.invalidNec)
         .sequence
         .void
         .leftMap(es =>
@@ -84,35 +67,48 @@ object FitsFileTransferrer {
         )
     }
 
-  private def addHeaders[F[_]](
+  private def withAdditional(
     headerNumber: Int,
-    headers:      Chain[HeaderRow],
+    header:       FitsHeader,
     additional:   Map[Int, List[FitsHeaderCard]]
-  ): Chain[HeaderRow] =
-    additional.get(headerNumber).fold(headers) { newHeaders =>
-      // Chain doesn't have `splitAt`. Maybe it's not the best data structure to use here.
-      val asList      = headers.toList
-      val (head, end) = asList.splitAt(asList.length - 1)
-      val newRows     = newHeaders.map(h => HeaderRow(h.keyword.key, h.bytes))
-      Chain.fromSeq(head) ++ Chain.fromSeq(newRows) ++ Chain.fromSeq(end)
-    }
+  ): Chunk[Byte] =
+    Chunk.array(header.withCards(additional.getOrElse(headerNumber, Nil)))
+
+  private def validate(pred: => Boolean, errorMsg: String): ValidatedNec[String, Unit] =
+    if (pred) ().validNec else errorMsg.invalidNec
+
+  private def logOnError[F[_]: Sync, A](valid: ValidatedNec[String, A]): F[Unit] =
+    valid.fold(_.map(e => logger.severeF(e)).sequence.void, _ => Applicative[F].unit)
+
+  private def validateHeaderCount(
+    headerCount: Int,
+    required:    Map[Int, List[String]],
+    additional:  Map[Int, List[FitsHeaderCard]]
+  ): ValidatedNec[String, Unit] = {
+    val maxRequired   = required.keySet.fold(0)(Math.max) + 1
+    val reqCountValid = validate(
+      maxRequired <= headerCount,
+      s"Only found $headerCount headers but config has required headers for $maxRequired"
+    )
+    val maxAdditional = additional.keySet.fold(0)(Math.max) + 1
+    val addCountValid = validate(
+      maxAdditional <= headerCount,
+      s"Only found $headerCount headers but config has additional headers for $maxAdditional"
+    )
+    (reqCountValid, addCountValid).tupled.void
+  }
 
   private def fitsPipe[F[_]: Sync](
     required:   Map[Int, List[String]],
     additional: Map[Int, List[FitsHeaderCard]]
   ): Pipe[F, Byte, Byte] = {
-    def validate(pred: => Boolean, errorMsg: String): ValidatedNec[String, Unit] =
-      if (pred) ().validNec else errorMsg.invalidNec
-
-    def logOnError[A](valid: ValidatedNec[String, A]) =
-      valid.fold(_.map(e => logger.severeF(e)).sequence.void, _ => Applicative[F].unit)
-
     def drainStateHeaders(state: ParserState) = state.currentHeader match {
-      case Some(hs) => outputHeaders(hs)
-      case None     => Pull.done
+      case Some(records) => outputRecords(records)
+      case None          => Pull.done
     }
 
-    def outputHeaders(headers: Chain[HeaderRow]) = Pull.output(headerRecords(headers))
+    def outputRecords(records: Chain[Chunk[Byte]]): Pull[F, Byte, Unit] =
+      records.foldLeft[Pull[F, Byte, Unit]](Pull.done)(_ >> Pull.output(_))
 
     def go(s: Stream[F, Byte], state: ParserState): Pull[F, Byte, Unit] =
       s.pull.unconsN(RecordLength, true).flatMap {
@@ -126,26 +122,26 @@ object FitsFileTransferrer {
             ) >> drainStateHeaders(state) >>
               Pull.output(hd) >> go(tl, state.copy(invalidFile = true))
           else {
-            if (isHeader(hd) || state.currentHeader.nonEmpty) {
-              val (newHeaders, done) = parseHeaderChunk(hd)
-              val allHeaders         = state.currentHeader.fold(newHeaders)(_ ++ newHeaders)
-              if (done) {
+            if (FitsHeader.isHeaderStart(hd) || state.currentHeader.nonEmpty) {
+              val records = state.currentHeader.fold(Chain.one(hd))(_ :+ hd)
+              if (FitsHeader.endCard(hd) >= 0) {
+                val header               = FitsHeader.fromRecords(records)
                 val missingHeaderLogging =
-                  logOnError(validateHeaders(state.headerCount, allHeaders, required))
-                val withAdditional       = addHeaders(state.headerCount, allHeaders, additional)
+                  logOnError[F, Unit](validateHeaders(state.headerCount, header, required))
+                val newRecords           = withAdditional(state.headerCount, header, additional)
                 val newState             = state.copy(headerCount = state.headerCount + 1, None)
-                Pull.eval(missingHeaderLogging) >> outputHeaders(withAdditional) >> go(tl, newState)
-              } else if (allHeaders.length > MaxCardsPerHeader)
+                Pull.eval(missingHeaderLogging) >> Pull.output(newRecords) >> go(tl, newState)
+              } else if (tooManyCards(records))
                 // make sure we don't read in a whole file if a header doesn't end with an "END"
                 Pull.eval(
                   logger.severeF(
                     s"Header ${state.headerCount} exceeded $MaxCardsPerHeader cards. $abandoned"
                   )
-                ) >> outputHeaders(allHeaders) >> go(
+                ) >> outputRecords(records) >> go(
                   tl,
                   state.copy(currentHeader = none, invalidFile = true)
                 )
-              else go(tl, state.copy(currentHeader = allHeaders.some))
+              else go(tl, state.copy(currentHeader = records.some))
             } else { // not in a header
               if (state.headerCount === 0)
                 Pull.eval(
@@ -155,27 +151,305 @@ object FitsFileTransferrer {
             }
           }
         case None           =>
-          val nonTermValid  =
+          val nonTermValid =
             validate(state.currentHeader.isEmpty,
                      s"Invalid FITS file - header ${state.headerCount} did not terminate."
             )
-          val maxRequired   = required.keySet.fold(0)(Math.max) + 1
-          val reqCountValid = validate(
-            maxRequired <= state.headerCount,
-            s"Only found ${state.headerCount} headers but config has required headers for $maxRequired"
-          )
-          val maxAdditional = additional.keySet.fold(0)(Math.max) + 1
-          val addCountValid = validate(
-            maxAdditional <= state.headerCount,
-            s"Only found ${state.headerCount} headers but config has additional headers for $maxAdditional"
-          )
-          val errorF        = logOnError((nonTermValid, reqCountValid, addCountValid).tupled)
+          val countValid   = validateHeaderCount(state.headerCount, required, additional)
+          val errorF       = logOnError[F, Unit]((nonTermValid, countValid).tupled.void)
 
           Pull.eval(errorF) >> drainStateHeaders(state)
       }
     in => go(in, ParserState.empty).stream
   }
 
+  // Size of the data unit following a header, including the padding to a full record.
+  // See section 4.4.1 of the FITS standard.
+  private def dataUnitLength(headerNumber: Int, header: FitsHeader): Either[String, Long] = {
+    def required(key: String): Either[String, Long] =
+      header
+        .valueOf(key)
+        .flatMap(_.toLongOption)
+        .toRight(s"Header $headerNumber is missing a valid value for $key")
+
+    def optional(key: String, default: Long): Either[String, Long] =
+      header.valueOf(key).fold(default.asRight[String])(v =>
+        v.toLongOption.toRight(s"Header $headerNumber has an invalid value for $key: $v")
+      )
+
+    for {
+      bitpix <- required("BITPIX")
+      naxis  <- required("NAXIS")
+      axes   <- (1L to naxis).toList.traverse(i => required(s"NAXIS$i"))
+      pcount <- optional("PCOUNT", 0L)
+      gcount <- optional("GCOUNT", 1L)
+    } yield {
+      // Random groups have NAXIS1 = 0, and it is not included in the size.
+      val randomGroups = header.valueOf("GROUPS").contains("T") && axes.headOption.contains(0L)
+      val dimensions   = if (randomGroups) axes.drop(1) else axes
+      val size         =
+        if (naxis === 0L) 0L else Math.abs(bitpix) / 8 * gcount * (pcount + dimensions.product)
+      val overflow     = size % RecordLength
+      if (overflow === 0L) size else size + RecordLength - overflow
+    }
+  }
+
+  private def channel[F[_]: Sync](
+    path:    Path,
+    options: StandardOpenOption*
+  ): Resource[F, FileChannel] =
+    Resource.fromAutoCloseable(Sync[F].blocking(FileChannel.open(path.toNioPath, options: _*)))
+
+  // Reads up to a full record. The result will be smaller than a record only at the end of the file.
+  private def readRecord(in: FileChannel, position: Long): Chunk[Byte] = {
+    val buffer = ByteBuffer.allocate(RecordLength)
+    @tailrec
+    def fill(pos: Long): Unit =
+      if (buffer.hasRemaining) {
+        val n = in.read(buffer, pos)
+        if (n > 0) fill(pos + n)
+      }
+    fill(position)
+    Chunk.array(buffer.array(), 0, buffer.position())
+  }
+
+  private def writeFully(out: FileChannel, bytes: Chunk[Byte]): Long = {
+    val buffer = bytes.toByteBuffer
+    @tailrec
+    def drain(): Unit =
+      if (buffer.hasRemaining) {
+        out.write(buffer)
+        drain()
+      }
+    drain()
+    bytes.size.toLong
+  }
+
+  // `transferTo` lets the kernel copy the bytes (copy_file_range/sendfile) without going
+  // through the heap. It can transfer fewer bytes than requested, so loop until done.
+  private def transferFully(in: FileChannel, position: Long, count: Long, out: FileChannel): Long = {
+    @tailrec
+    def go(pos: Long, remaining: Long, total: Long): Long =
+      if (remaining <= 0) total
+      else {
+        val n = in.transferTo(pos, remaining, out)
+        if (n <= 0) total
+        else go(pos + n, remaining - n, total + n)
+      }
+    go(position, count, 0L)
+  }
+
+  // Reads the rest of a header starting with `record`, which was read from `pos`.
+  private def readHeader[F[_]: Sync](
+    in:     FileChannel,
+    pos:    Long,
+    record: Chunk[Byte],
+    acc:    Chain[Chunk[Byte]]
+  ): F[HeaderRead] = {
+    val records = acc :+ record
+    val next    = pos + RecordLength
+    def result(r: HeaderRead): F[HeaderRead] = r.pure[F]
+    if (FitsHeader.endCard(record) >= 0)
+      result(HeaderRead.Complete(FitsHeader.fromRecords(records), next))
+    else if (tooManyCards(records))
+      result(HeaderRead.Abandoned(records, next, s"exceeded $MaxCardsPerHeader cards."))
+    else
+      Sync[F].blocking(readRecord(in, next)).flatMap { r =>
+        if (r.size === RecordLength) readHeader(in, next, r, records)
+        else if (r.isEmpty) result(HeaderRead.Abandoned(records, next, "did not terminate."))
+        else result(HeaderRead.Abandoned(records, next, "has an incorrect record size."))
+      }
+  }
+
+  // Only the header records are read into memory. The data units are copied by the kernel.
+  private def zeroCopyHdus[F[_]: Sync](
+    in:         FileChannel,
+    out:        FileChannel,
+    required:   Map[Int, List[String]],
+    additional: Map[Int, List[FitsHeaderCard]]
+  ): F[Long] = {
+    def copyRest(from: Long, written: Long): F[Long] =
+      Sync[F].blocking(transferFully(in, from, in.size() - from, out)).map(written + _)
+
+    def abandon(msg: String, records: Chain[Chunk[Byte]], from: Long, written: Long): F[Long] =
+      for {
+        _ <- logger.severeF(s"$msg $abandoned")
+        h <- Sync[F].blocking(records.foldLeft(0L)(_ + writeFully(out, _)))
+        w <- copyRest(from, written + h)
+      } yield w
+
+    def go(pos: Long, headerCount: Int, written: Long): F[(Int, Long)] =
+      Sync[F].blocking(readRecord(in, pos)).flatMap { record =>
+        if (record.isEmpty) (headerCount, written).pure[F]
+        else if (record.size =!= RecordLength)
+          abandon("Invalid FITS file - incorrect record size.", Chain.empty, pos, written)
+            .map((headerCount, _))
+        else if (!FitsHeader.isHeaderStart(record)) {
+          val msg =
+            if (headerCount === 0) "Invalid FITS file - no initial header."
+            else s"Invalid FITS file - expected header $headerCount at byte $pos."
+          abandon(msg, Chain.empty, pos, written).map((headerCount, _))
+        } else
+          readHeader(in, pos, record, Chain.empty).flatMap {
+            case HeaderRead.Abandoned(records, resumeAt, msg) =>
+              abandon(s"Invalid FITS file - header $headerCount $msg", records, resumeAt, written)
+                .map((headerCount + 1, _))
+            case HeaderRead.Complete(header, dataStart)       =>
+              val newRecords = withAdditional(headerCount, header, additional)
+              val validation = logOnError[F, Unit](validateHeaders(headerCount, header, required))
+              dataUnitLength(headerCount, header) match {
+                case Left(msg)     =>
+                  validation >>
+                    abandon(msg, Chain.one(newRecords), dataStart, written).map((headerCount + 1, _))
+                case Right(length) =>
+                  for {
+                    _ <- validation
+                    h <- Sync[F].blocking(writeFully(out, newRecords))
+                    d <- Sync[F].blocking(transferFully(in, dataStart, length, out))
+                    _ <- if (d < length)
+                           logger.severeF(
+                             s"Invalid FITS file - data unit $headerCount has $d of $length bytes."
+                           )
+                         else Applicative[F].unit
+                    r <- go(dataStart + d, headerCount + 1, written + h + d)
+                  } yield r
+              }
+          }
+      }
+
+    go(0L, 0, 0L).flatMap { case (headerCount, written) =>
+      logOnError[F, Unit](validateHeaderCount(headerCount, required, additional)).as(written)
+    }
+  }
+
+  private def writeFullyAt(out: FileChannel, position: Long, bytes: Array[Byte]): Unit = {
+    val buffer = ByteBuffer.wrap(bytes)
+    @tailrec
+    def drain(written: Long): Unit =
+      if (buffer.hasRemaining) drain(written + out.write(buffer, position + written))
+    drain(0L)
+  }
+
+  // Reads all the headers and checks that the additional cards fit in each of them. Nothing is
+  // logged, since the file will be copied by `transfer` if the update can't be done in place.
+  private def planInPlace[F[_]: Sync](
+    in:         FileChannel,
+    additional: Map[Int, List[FitsHeaderCard]]
+  ): F[Option[List[PlannedHeader]]] = {
+    val unusable = none[List[PlannedHeader]].pure[F]
+
+    def go(size: Long, pos: Long, headerCount: Int, acc: List[PlannedHeader]): F[Option[List[PlannedHeader]]] =
+      Sync[F].blocking(readRecord(in, pos)).flatMap { record =>
+        if (record.isEmpty) acc.reverse.some.pure[F]
+        else if (record.size =!= RecordLength || !FitsHeader.isHeaderStart(record)) unusable
+        else
+          readHeader(in, pos, record, Chain.empty).flatMap {
+            case HeaderRead.Abandoned(_, _, _)          => unusable
+            case HeaderRead.Complete(header, dataStart) =>
+              val planned = for {
+                length      <- dataUnitLength(headerCount, header).toOption
+                if dataStart + length <= size
+                replacement <- additional
+                                 .get(headerCount)
+                                 .traverse(header.withCardsWithin(header.recordCount, _))
+              } yield (PlannedHeader(header, pos, replacement), dataStart + length)
+              planned.fold(unusable) { case (p, next) =>
+                go(size, next, headerCount + 1, p :: acc)
+              }
+          }
+      }
+
+    Sync[F].blocking(in.size()).flatMap(go(_, 0L, 0, Nil))
+  }
+
+  private def readFullyAt(in: FileChannel, position: Long, length: Int): Array[Byte] = {
+    val buffer = ByteBuffer.allocate(length)
+    @tailrec
+    def fill(pos: Long): Unit =
+      if (buffer.hasRemaining) {
+        val n = in.read(buffer, pos)
+        if (n > 0) fill(pos + n)
+      }
+    fill(position)
+    buffer.array()
+  }
+
+  // A rename within a file system is atomic, so readers never see a partial file at `output`.
+  private def sameFileStore[F[_]: Sync](input: Path, output: Path): F[Boolean] =
+    Sync[F]
+      .blocking(
+        JFiles.getFileStore(input.toNioPath) ==
+          JFiles.getFileStore(output.toNioPath.toAbsolutePath.getParent)
+      )
+      .handleError(_ => false)
+
+  /**
+   * Adds the additional cards by rewriting the header records of `input` in place, and then renames
+   * it to `output`. This is only possible if both are on the same file system and every header that
+   * gets new cards has enough blank space left in its records. Otherwise, `input` is left untouched
+   * and the result is None. If the rename fails, the original header records are written back and
+   * the result is also None. `beforeMove` is run on the updated file before it is renamed.
+   */
+  def updateInPlace[F[_]: Async: Files](
+    input:             Path,
+    output:            Path,
+    requiredHeaders:   Map[Int, List[String]],
+    additionalHeaders: Map[Int, List[FitsHeaderCard]],
+    beforeMove:        Path => F[Unit]
+  ): F[Option[Long]] =
+    sameFileStore(input, output).flatMap {
+      case false =>
+        logger.infoF(s"$input and $output are on different file systems, not updating in place.")
+          .as(none[Long])
+      case true  =>
+        channel[F](input, StandardOpenOption.READ, StandardOpenOption.WRITE)
+          .use { ch =>
+            planInPlace(ch, additionalHeaders).flatMap {
+              case None          =>
+                logger.infoF(s"Not enough header space to update $input in place.")
+                  .as(none[(Long, List[(Long, Array[Byte])])])
+              case Some(planned) =>
+                for {
+                  _         <- planned.zipWithIndex.traverse_ { case (p, idx) =>
+                                 logOnError[F, Unit](validateHeaders(idx, p.header, requiredHeaders))
+                               }
+                  _         <- logOnError[F, Unit](
+                                 validateHeaderCount(planned.length, requiredHeaders, additionalHeaders)
+                               )
+                  _         <- logger.infoF(s"Updating the headers of $input in place")
+                  originals <- Sync[F].blocking {
+                                 val originals = planned.flatMap(p =>
+                                   p.replacement.map(r => (p.position, readFullyAt(ch, p.position, r.length)))
+                                 )
+                                 planned.foreach(p => p.replacement.foreach(writeFullyAt(ch, p.position, _)))
+                                 ch.force(false)
+                                 originals
+                               }
+                  size      <- Sync[F].blocking(ch.size())
+                } yield (size, originals).some
+            }
+          }
+          .flatMap {
+            case Some((size, originals)) =>
+              (beforeMove(input) >> logger.infoF(s"Move $input to $output") >>
+                Files[F].move(input, output, CopyFlags(CopyFlag.AtomicMove))).as(size.some)
+                .handleErrorWith(e =>
+                  logger.warningF(
+                    s"Unable to move $input to $output: ${e.getMessage}. Restoring its headers, it will be copied instead."
+                  ) >> restore(input, originals).as(none[Long])
+                )
+            case None                    => none[Long].pure[F]
+          }
+    }
+
+  private def restore[F[_]: Sync](input: Path, originals: List[(Long, Array[Byte])]): F[Unit] =
+    channel[F](input, StandardOpenOption.WRITE).use(ch =>
+      Sync[F].blocking {
+        originals.foreach { case (position, bytes) => writeFullyAt(ch, position, bytes) }
+        ch.force(false)
+      }
+    )
+
   private def deleteIfExists[F[_]: Async: Files](output: Path): F[Unit] =
     Files[F].exists(output).flatMap {
       case true  =>
@@ -191,30 +465,61 @@ object FitsFileTransferrer {
   ): Stream[F, Byte] =
     input.through(fitsPipe(requiredHeaders, additionalHeaders))
 
-  def transfer[F[_]: Async: Files](
-    input:             Path,
-    output:            Path,
-    requiredHeaders:   Map[Int, List[String]],
-    additionalHeaders: Map[Int, List[FitsHeaderCard]]
+  private def viaTempFile[F[_]: Async: Files](output: Path, beforeMove: Path => F[Unit])(
+    write: Path => F[Long]
   ): F[Long] =
     for {
       _    <- deleteIfExists(output)
       tmp  <-
         Files[F].createTempFile(output.parent, "gds", "_fits", None)
       _    <- logger.infoF(s"Start with a tmp file at $tmp")
-      ref  <- Ref.of(0L)
-      _    <- stream(
-                Files[F].readAll(input, chunkSize = RecordLength, flags = Flags.Read),
-                requiredHeaders,
-                additionalHeaders
-              ).chunks
-                .evalTap(c => ref.update(_ + c.size))
-                .unchunks
-                .through(Files[F].writeAll(tmp))
-                .compile
-                .drain
+      size <- write(tmp)
+      _    <- beforeMove(tmp)
       _    <- logger.infoF(s"Move $tmp to $output")
       _    <- Files[F].move(tmp, output, CopyFlags(CopyFlag.AtomicMove))
-      size <- ref.get
     } yield size
+
+  def transfer[F[_]: Async: Files](
+    input:             Path,
+    output:            Path,
+    requiredHeaders:   Map[Int, List[String]],
+    additionalHeaders: Map[Int, List[FitsHeaderCard]],
+    beforeMove:        Path => F[Unit]
+  ): F[Long] =
+    viaTempFile(output, beforeMove) { tmp =>
+      for {
+        ref  <- Ref.of[F, Long](0L)
+        _    <- stream(
+                  Files[F].readAll(input, chunkSize = RecordLength, flags = Flags.Read),
+                  requiredHeaders,
+                  additionalHeaders
+                ).chunks
+                  .evalTap(c => ref.update(_ + c.size))
+                  .unchunks
+                  .through(Files[F].writeAll(tmp))
+                  .compile
+                  .drain
+        size <- ref.get
+      } yield size
+    }
+
+  /**
+   * Same result as `transfer`, but only the header records go through the heap. Each data unit
+   * is located from the NAXIS/BITPIX/PCOUNT/GCOUNT keywords of its header and copied with
+   * `FileChannel.transferTo`. If the file turns out to be invalid, the rest of it is copied
+   * unchanged, as `transfer` does.
+   */
+  def transferZeroCopy[F[_]: Async: Files](
+    input:             Path,
+    output:            Path,
+    requiredHeaders:   Map[Int, List[String]],
+    additionalHeaders: Map[Int, List[FitsHeaderCard]],
+    beforeMove:        Path => F[Unit]
+  ): F[Long] =
+    viaTempFile(output, beforeMove) { tmp =>
+      (channel[F](input, StandardOpenOption.READ), channel[F](tmp, StandardOpenOption.WRITE)).tupled
+        .use { case (in, out) =>
+          zeroCopyHdus(in, out, requiredHeaders, additionalHeaders)
+        }
+    }
 }
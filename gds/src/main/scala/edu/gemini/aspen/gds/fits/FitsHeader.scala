@@ -0,0 +1,142 @@
+package edu.gemini.aspen.gds.fits
+
+import cats.data.Chain
+import fs2.Chunk
+import java.nio.charset.StandardCharsets
+import scala.annotation.tailrec
+
+/**
+ * The cards of a FITS header, up to and including END, stored in a single array of bytes. Cards
+ * are looked up by index and keywords are compared byte by byte, so nothing is allocated per card.
+ */
+final class FitsHeader private (bytes: Array[Byte], val cardCount: Int) {
+  import FitsHeader._
+
+  def keyword(card: Int): String =
+    new String(bytes, card * CardLength, KeywordLength, StandardCharsets.US_ASCII).trim
+
+  def indexOf(keyword: String): Int = {
+    @tailrec
+    def go(card: Int): Int =
+      if (card >= cardCount) -1
+      else if (keywordMatches(bytes, card * CardLength, keyword)) card
+      else go(card + 1)
+    go(0)
+  }
+
+  def contains(keyword: String): Boolean = indexOf(keyword) >= 0
+
+  // The value of a fixed format card, with any comment removed.
+  def value(card: Int): String =
+    new String(bytes, card * CardLength + ValueStart, CardLength - ValueStart, StandardCharsets.US_ASCII)
+      .takeWhile(_ != '/')
+      .trim
+
+  def valueOf(keyword: String): Option[String] = {
+    val card = indexOf(keyword)
+    if (card < 0) None else Some(value(card))
+  }
+
+  def isBlank(card: Int): Boolean = {
+    val start = card * CardLength
+    @tailrec
+    def go(i: Int): Boolean =
+      if (i >= CardLength) true
+      else if (bytes(start + i) != Space) false
+      else go(i + 1)
+    go(0)
+  }
+
+  def recordCount: Int = recordsFor(cardCount)
+
+  /** The header records, with `additional` inserted before END. */
+  def withCards(additional: List[FitsHeaderCard]): Array[Byte] =
+    build(cardCount - 1, additional, recordsFor(cardCount + additional.length))
+
+  /**
+   * The header records with `additional` inserted before END, using exactly `records` records.
+   * Blank cards just before END are reused. None if the cards don't fit.
+   */
+  def withCardsWithin(records: Int, additional: List[FitsHeaderCard]): Option[Array[Byte]] = {
+    @tailrec
+    def lastUsed(card: Int): Int = if (card > 0 && isBlank(card - 1)) lastUsed(card - 1) else card
+    val keep = lastUsed(cardCount - 1)
+    if (keep + additional.length + 1 <= records * CardsPerRecord)
+      Some(build(keep, additional, records))
+    else None
+  }
+
+  // The first `keep` cards, the additional cards, END and blank padding up to `records` records.
+  private def build(keep: Int, additional: List[FitsHeaderCard], records: Int): Array[Byte] = {
+    val out = Array.fill[Byte](records * RecordLength)(Space)
+    System.arraycopy(bytes, 0, out, 0, keep * CardLength)
+    val endOffset = additional.foldLeft(keep * CardLength) { (offset, card) =>
+      System.arraycopy(card.bytes, 0, out, offset, CardLength)
+      offset + CardLength
+    }
+    System.arraycopy(bytes, (cardCount - 1) * CardLength, out, endOffset, CardLength)
+    out
+  }
+}
+
+object FitsHeader {
+  val RecordLength   = 2880
+  val CardLength     = 80
+  val CardsPerRecord = RecordLength / CardLength
+  val KeywordLength  = 8
+  val ValueStart     = 10
+  val Space: Byte    = 32
+
+  private val Simple    = "SIMPLE"
+  private val Extension = "XTENSION"
+  private val End       = "END"
+
+  def recordsFor(cards: Int): Int = (cards + CardsPerRecord - 1) / CardsPerRecord
+
+  // Keywords are left justified and padded with spaces.
+  private def keywordMatches(bytes: Array[Byte], offset: Int, keyword: String): Boolean = {
+    @tailrec
+    def go(i: Int): Boolean =
+      if (i >= KeywordLength) true
+      else {
+        val expected = if (i < keyword.length) keyword.charAt(i).toByte else Space
+        if (bytes(offset + i) != expected) false else go(i + 1)
+      }
+    keyword.length <= KeywordLength && go(0)
+  }
+
+  private def chunkStartsWith(chunk: Chunk[Byte], prefix: String): Boolean = {
+    @tailrec
+    def go(i: Int): Boolean =
+      if (i >= prefix.length) true
+      else if (chunk(i) != prefix.charAt(i).toByte) false
+      else go(i + 1)
+    chunk.size >= prefix.length && go(0)
+  }
+
+  /** Whether the record is the start of a primary header or an extension. */
+  def isHeaderStart(record: Chunk[Byte]): Boolean =
+    chunkStartsWith(record, Simple) || chunkStartsWith(record, Extension)
+
+  /** Index of the END card in a record, or -1 if there isn't one. */
+  def endCard(record: Chunk[Byte]): Int = {
+    val slice = record.toArraySlice
+    @tailrec
+    def go(card: Int): Int =
+      if ((card + 1) * CardLength > slice.length) -1
+      else if (keywordMatches(slice.values, slice.offset + card * CardLength, End)) card
+      else go(card + 1)
+    go(0)
+  }
+
+  /** Builds a header from its records. The last one must contain the END card. */
+  def fromRecords(records: Chain[Chunk[Byte]]): FitsHeader = {
+    val bytes     = new Array[Byte](records.foldLeft(0)(_ + _.size))
+    val last      = records.foldLeft(0) { (offset, record) =>
+      record.copyToArray(bytes, offset)
+      offset + record.size
+    } - RecordLength
+    val cardCount = last / CardLength + records.lastOption.fold(0)(endCard) + 1
+    new FitsHeader(bytes, cardCount)
+  }
+}
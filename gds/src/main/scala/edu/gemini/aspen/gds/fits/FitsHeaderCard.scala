@@ -1,6 +1,6 @@
 package edu.gemini.aspen.gds.fits
 
-import cats.data.Chain
+import java.nio.charset.StandardCharsets
 
 final case class FitsHeaderCard(
   keyword: FitsKeyword,
@@ -9,13 +9,13 @@ final case class FitsHeaderCard(
   format:  Option[String]
 ) {
 
-  def bytes: Chain[Byte] = {
+  def bytes: Array[Byte] = {
     val kw          = keyword.key.padTo(8, ' ').take(8)
     val valueString = value.fitsString(format)
     val base        = s"$kw= $valueString"
     val withComment = comment.fold(base)(cmnt => s"$base / $cmnt")
     val fullStr     = withComment.padTo(80, ' ').take(80)
 
-    Chain.fromSeq(fullStr.toList.map(_.toByte))
+    fullStr.getBytes(StandardCharsets.US_ASCII)
   }
 }
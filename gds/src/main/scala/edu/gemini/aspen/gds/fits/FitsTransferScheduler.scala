@@ -0,0 +1,147 @@
+package edu.gemini.aspen.gds.fits
+
+import cats.Order
+import cats.effect.{ Async, Clock, Ref, Sync }
+import cats.effect.std.{ PQueue, Semaphore }
+import cats.effect.syntax.all._
+import cats.syntax.all._
+import edu.gemini.aspen.gds.configuration.FitsConfig
+import edu.gemini.aspen.gds.keywords.CollectedKeyword
+import edu.gemini.aspen.gds.syntax.all._
+import edu.gemini.aspen.giapi.data.DataLabel
+import fs2.Stream
+import java.nio.file.{ FileStore, Files => JFiles }
+import java.util.logging.Logger
+import scala.concurrent.duration._
+
+final case class FitsTransferRequest(
+  dataLabel:        DataLabel,
+  keywords:         List[CollectedKeyword],
+  observationStart: FiniteDuration
+)
+
+final case class FitsTransferMetrics(
+  queued:      Int,
+  inFlight:    Int,
+  completed:   Long,
+  lastLatency: FiniteDuration,
+  maxLatency:  FiniteDuration
+)
+
+object FitsTransferMetrics {
+  val empty = FitsTransferMetrics(0, 0, 0L, Duration.Zero, Duration.Zero)
+}
+
+/**
+ * Runs up to `fits.transfer.parallelism` FITS file transfers at once. Waiting transfers are
+ * started oldest observation first, and each transfer also needs a permit from the I/O budget of
+ * the file systems it reads from and writes to.
+ */
+sealed trait FitsTransferScheduler[F[_]] {
+  def submit(request: FitsTransferRequest): F[Unit]
+
+  // Runs the transfers. Never completes.
+  def run: F[Unit]
+
+  // Served by the seqexec server at `gds-seqexec/fits-transfers`.
+  def metrics: F[FitsTransferMetrics]
+}
+
+object FitsTransferScheduler {
+  private val logger = Logger.getLogger(this.getClass.getName)
+
+  // The sequence number keeps the submission order for observations that started at the same time.
+  private final case class Pending(
+    request:   FitsTransferRequest,
+    sequence:  Long,
+    submitted: FiniteDuration
+  )
+
+  private implicit val pendingOrder: Order[Pending] =
+    Order.by(p => (p.request.observationStart.toNanos, p.sequence))
+
+  def apply[F[_]: Async](
+    config:    FitsConfig,
+    processor: FitsFileProcessor[F]
+  ): F[FitsTransferScheduler[F]] =
+    for {
+      pending  <- PQueue.unbounded[F, Pending]
+      sequence <- Ref.of[F, Long](0L)
+      stats    <- Ref.of[F, FitsTransferMetrics](FitsTransferMetrics.empty)
+      budgets  <- Ref.of[F, Map[FileStore, Semaphore[F]]](Map.empty)
+    } yield new FitsTransferScheduler[F] {
+      def submit(request: FitsTransferRequest): F[Unit] =
+        for {
+          seq <- sequence.getAndUpdate(_ + 1)
+          now <- Clock[F].realTime
+          _   <- pending.offer(Pending(request, seq, now))
+          n   <- pending.size
+          _   <- logger.infoF(s"Queued FITS transfer for ${request.dataLabel}, $n waiting.")
+        } yield ()
+
+      def run: F[Unit] =
+        Stream
+          .emit(Stream.repeatEval(pending.take.flatMap(transfer)))
+          .repeatN(config.maxParallelTransfers.toLong)
+          .parJoinUnbounded
+          .compile
+          .drain
+
+      def metrics: F[FitsTransferMetrics] =
+        (pending.size, stats.get).mapN((n, m) => m.copy(queued = n))
+
+      def budget(store: FileStore): F[Semaphore[F]] =
+        budgets.get.map(_.get(store)).flatMap {
+          case Some(semaphore) => semaphore.pure[F]
+          case None            =>
+            Semaphore[F](config.maxTransfersPerFileSystem.toLong).flatMap(semaphore =>
+              budgets.modify(m =>
+                m.get(store).fold((m.updated(store, semaphore), semaphore))(existing => (m, existing))
+              )
+            )
+        }
+
+      // The file systems of the file to transfer and of the destination directory.
+      def fileStores(dataLabel: DataLabel): F[List[FileStore]] =
+        Sync[F]
+          .blocking(
+            List(config.sourceDir.resolve(dataLabel.getName), config.destDir)
+              .map(p => JFiles.getFileStore(p.toNioPath))
+              .distinct
+          )
+          .handleErrorWith(e =>
+            logger
+              .warningF(s"Unable to determine the file systems used by $dataLabel: ${e.getMessage}")
+              .as(Nil)
+          )
+
+      // Only the budgets of the file systems the transfer uses are taken. The permits are always
+      // acquired in the same order, so transfers can't deadlock.
+      def withBudget[A](dataLabel: DataLabel)(fa: F[A]): F[A] =
+        fileStores(dataLabel)
+          .flatMap(_.sortBy(_.toString).traverse(budget))
+          .flatMap(_.foldRight(fa)((semaphore, acc) => semaphore.permit.surround(acc)))
+
+      def transfer(p: Pending): F[Unit] = {
+        val dataLabel = p.request.dataLabel
+        for {
+          _       <- stats.update(m => m.copy(inFlight = m.inFlight + 1))
+          started <- Clock[F].realTime
+          _       <- withBudget(dataLabel)(processor.processFile(dataLabel, p.request.keywords))
+                       .guarantee(stats.update(m => m.copy(inFlight = m.inFlight - 1)))
+          now     <- Clock[F].realTime
+          latency  = now - p.submitted
+          _       <- stats.update(m =>
+                       m.copy(completed = m.completed + 1,
+                              lastLatency = latency,
+                              maxLatency = m.maxLatency.max(latency)
+                       )
+                     )
+          m       <- metrics
+          _       <- logger.infoF(
+                       s"FITS transfer for $dataLabel finished in ${latency.toMillis}ms, of which ${(started - p.submitted).toMillis}ms queued. ${m.queued} waiting, ${m.inFlight} in flight."
+                     )
+        } yield ()
+      }
+    }
+}
@@ -0,0 +1,192 @@
+package edu.gemini.aspen.gds.keywords
+
+import cats.effect.{ Async, Clock, Ref, Resource }
+import cats.effect.std.Semaphore
+import cats.effect.kernel.RefSource
+import cats.syntax.all._
+import edu.gemini.aspen.gds.configuration.EpicsConfig
+import edu.gemini.aspen.gds.syntax.all._
+import edu.gemini.epics.{ EpicsReader, ReadOnlyClientEpicsChannel }
+import java.util.logging.Logger
+import scala.concurrent.duration._
+
+/**
+ * Keeps the EPICS channels used for keywords connected between observations, instead of creating
+ * a new channel for every read. Channels are created for every configured channel name when an
+ * EpicsReader becomes available, replaced if they can't be reconnected, and destroyed after being
+ * unused for `epics.channels.idleTimeout` or when the pool is released.
+ */
+trait EpicsChannelPool[F[_]] {
+  import EpicsChannelPool.AnyChannel
+
+  def channel(reader: EpicsReader, channelName: String): F[AnyChannel]
+
+  // Connects the configured channels when the reader changes, and evicts idle channels.
+  def maintain: F[Unit]
+}
+
+object EpicsChannelPool {
+  private val logger = Logger.getLogger(this.getClass.getName)
+
+  type AnyChannel = ReadOnlyClientEpicsChannel[_]
+
+  final case class PooledChannel(
+    reader:   EpicsReader,
+    channel:  AnyChannel,
+    lastUsed: FiniteDuration
+  )
+
+  final case class PoolState(reader: Option[EpicsReader], channels: Map[String, PooledChannel])
+
+  // All the pooled channels are destroyed when the resource is released.
+  def apply[F[_]](
+    readerRef:    RefSource[F, Option[EpicsReader]],
+    channelNames: Set[String],
+    config:       EpicsConfig
+  )(implicit F: Async[F]): Resource[F, EpicsChannelPool[F]] =
+    Resource
+      .make(
+        (Ref.of[F, PoolState](PoolState(none, Map.empty)), Semaphore[F](1)).tupled
+      ) { case (state, lock) =>
+        lock.permit.surround(
+          state.getAndSet(PoolState(none, Map.empty)).flatMap { s =>
+            (s.channels.values.toList.traverse_(destroy[F]) >>
+              logger.infoF(s"Closed ${s.channels.size} EPICS channels."))
+              .whenA(s.channels.nonEmpty)
+          }
+        )
+      }
+      .map { case (state, lock) => pool(state, lock, readerRef, channelNames, config) }
+
+  private def destroy[F[_]](pooled: PooledChannel)(implicit F: Async[F]): F[Unit] =
+    F.blocking(pooled.reader.destroyChannel(pooled.channel))
+      .handleErrorWith(e =>
+        logger.warningF(
+          s"Error destroying EPICS channel ${pooled.channel.getName}: ${e.getMessage}"
+        )
+      )
+
+  private def pool[F[_]](
+    state:        Ref[F, PoolState],
+    lock:         Semaphore[F],
+    readerRef:    RefSource[F, Option[EpicsReader]],
+    channelNames: Set[String],
+    config:       EpicsConfig
+  )(implicit F: Async[F]): EpicsChannelPool[F] =
+    new EpicsChannelPool[F] {
+      def channel(reader: EpicsReader, channelName: String): F[AnyChannel] =
+        acquire(reader, channelName).flatMap { case (ch, created) =>
+          awaitConnection(ch).flatMap { connected =>
+            if (connected || created) F.pure[AnyChannel](ch)
+            else
+              logger.warningF(s"EPICS channel $channelName lost its connection, reconnecting.") >>
+                replace(reader, channelName, ch).flatTap(awaitConnection)
+          }
+        }
+
+      def maintain: F[Unit] =
+        for {
+          oreader <- readerRef.get
+          now     <- Clock[F].realTime
+          _       <- exclusive(state.get.flatMap { s =>
+                       if (sameReader(s.reader, oreader)) evictIdle(s, now)
+                       else connectAll(s, oreader, now)
+                     })
+        } yield ()
+
+      // Channels are created and stored in one step, so they are destroyed when the pool is released.
+      def exclusive[A](fa: F[A]): F[A] =
+        lock.permit.surround(F.uncancelable(_ => fa))
+
+      def sameReader(a: Option[EpicsReader], b: Option[EpicsReader]): Boolean =
+        (a, b) match {
+          case (Some(x), Some(y)) => x eq y
+          case (None, None)       => true
+          case _                  => false
+        }
+
+      // The pooled channel if there is one for this reader, or a new one. Also true if it is new.
+      def acquire(
+        reader:      EpicsReader,
+        channelName: String
+      ): F[(AnyChannel, Boolean)] =
+        exclusive(for {
+          now    <- Clock[F].realTime
+          pooled <- state.get.map(_.channels.get(channelName))
+          result <- pooled match {
+                      case Some(p) if p.reader eq reader => (p.channel, false).pure[F]
+                      case other                         =>
+                        other.traverse_(destroy) >> create(reader, channelName).map((_, true))
+                    }
+          _      <- store(PooledChannel(reader, result._1, now), channelName)
+        } yield result)
+
+      def replace(
+        reader:      EpicsReader,
+        channelName: String,
+        lost:        AnyChannel
+      ): F[AnyChannel] =
+        exclusive(for {
+          now    <- Clock[F].realTime
+          pooled <- state.get.map(_.channels.get(channelName))
+          ch     <- pooled match {
+                      // Someone else already replaced it.
+                      case Some(p) if (p.reader eq reader) && !(p.channel eq lost) =>
+                        p.channel.pure[F]
+                      case other                                                   =>
+                        other.traverse_(destroy) >> create(reader, channelName)
+                    }
+          _      <- store(PooledChannel(reader, ch, now), channelName)
+        } yield ch)
+
+      def store(pooled: PooledChannel, channelName: String): F[Unit] =
+        state.update(s => s.copy(channels = s.channels.updated(channelName, pooled)))
+
+      // Channels already created with the new reader by `channel` are kept.
+      def connectAll(s: PoolState, oreader: Option[EpicsReader], now: FiniteDuration): F[Unit] = {
+        val (current, old) =
+          s.channels.partition { case (_, p) => oreader.exists(_ eq p.reader) }
+        for {
+          _       <- old.values.toList.traverse_(destroy)
+          _       <- logger.infoF(
+                       oreader.fold("EpicsReader not available, EPICS channels closed.")(_ =>
+                         s"Connecting ${channelNames.size} EPICS channels."
+                       )
+                     )
+          created <- oreader.fold(List.empty[(String, PooledChannel)].pure[F]) { reader =>
+                       (channelNames -- current.keySet).toList
+                         .traverse(name =>
+                           create(reader, name).map(ch => name -> PooledChannel(reader, ch, now))
+                         )
+                     }
+          _       <- state.set(PoolState(oreader, current ++ created))
+        } yield ()
+      }
+
+      def evictIdle(s: PoolState, now: FiniteDuration): F[Unit] = {
+        val (idle, active) = s.channels.partition { case (_, p) =>
+          now - p.lastUsed > config.channelIdleTimeout
+        }
+        (idle.values.toList.traverse_(destroy) >>
+          state.set(s.copy(channels = active)) >>
+          logger.infoF(s"Closed ${idle.size} idle EPICS channels: ${idle.keys.mkString(", ")}"))
+          .whenA(idle.nonEmpty)
+      }
+
+      def create(reader: EpicsReader, channelName: String): F[AnyChannel] =
+        F.blocking(reader.getChannelAsync(channelName))
+
+      def destroy(pooled: PooledChannel): F[Unit] = EpicsChannelPool.destroy(pooled)
+
+      // Channels are created asynchronously, so a new channel needs some time to connect.
+      def awaitConnection(ch: AnyChannel): F[Boolean] = {
+        val interval = 50.milliseconds
+        def go(remaining: FiniteDuration): F[Boolean] =
+          F.delay(ch.isValid).flatMap { valid =>
+            if (valid || remaining <= Duration.Zero) valid.pure[F]
+            else F.sleep(interval) >> go(remaining - interval)
+          }
+        go(config.connectionTimeout)
+      }
+    }
+}
@@ -3,19 +3,27 @@ package edu.gemini.aspen.gds.keywords
 import cats.effect.kernel.{ Async, RefSource }
 import cats.effect.syntax.all._
 import cats.syntax.all._
-import edu.gemini.epics.EpicsReader
+import edu.gemini.epics.{ EpicsReadResult, EpicsReader }
+import edu.gemini.epics.api.DbrUtil
 import edu.gemini.aspen.gds.configuration.KeywordConfigurationItem
 import edu.gemini.aspen.gds.model.{ GdsError, KeywordSource }
 import edu.gemini.aspen.gds.syntax.all._
 import edu.gemini.aspen.giapi.data.ObservationEvent
+import java.time.Instant
 import java.util.logging.Logger
 import edu.gemini.aspen.gds.fits.FitsValue
+import scala.jdk.CollectionConverters._
 
 object EpicsKeywordCollector {
   private val logger = Logger.getLogger(this.getClass.getName)
 
+  def channelNames(config: List[KeywordConfigurationItem]): Set[String] =
+    config.forSource(KeywordSource.Epics).map(_.channel.name).toSet
+
   def apply[F[_]](
     readerRef:  RefSource[F, Option[EpicsReader]],
+    pool:       EpicsChannelPool[F],
+    snapshots:  Option[EpicsSnapshotCache[F]],
     config:     List[KeywordConfigurationItem]
   )(implicit F: Async[F]): KeywordCollector[F] = {
 
@@ -38,63 +46,104 @@ object EpicsKeywordCollector {
         configMap.get(event) match {
           case None             => F.unit
           case Some(channelMap) =>
-            channelMap.toList
-              .parTraverseN(10) { case (c, l) =>
-                // Increment the counter for each channel, then start collection on a fiber.
-                // This is probably not cancellation safe because of the `start`.
-                count.incr >> getForChannel(c, l, event, count, adder).start
+            // Increment the counter for each channel, then start collection on a fiber.
+            // This is probably not cancellation safe because of the `start`.
+            val channels = channelMap.toList
+            count.incr.replicateA_(channels.length) >>
+              collectChannels(channels, event, count, adder).start.void
+        }
+
+      // Channels with a recent monitor value use it, the rest are read together in one batch.
+      def collectChannels(
+        channels: List[(String, List[KeywordConfigurationItem])],
+        event:    ObservationEvent,
+        count:    Count[F],
+        adder:    CollectedKeyword => F[Unit]
+      ): F[Unit] =
+        for {
+          _       <- channels.traverse_ { case (channelName, items) =>
+                       logger.infoF(
+                         s"Collecting ${items.length} EPICS keywords for channel $channelName, event $event: ${items
+                           .map(_.keyword.key)
+                           .mkString(", ")}"
+                       )
+                     }
+          lookups <- channels.traverse { case (channelName, items) =>
+                       snapshots
+                         .flatTraverse(_.get(channelName))
+                         .map(_.toLeft((channelName, items)).left.map(s => (channelName, items, s)))
+                     }
+          (cached, toRead) = lookups.partitionMap(identity)
+          _       <- cached.traverse_ { case (channelName, items, s) =>
+                       val time = Instant.ofEpochMilli(s.timestamp.toMillis)
+                       addKeywords(items, count, adder)(
+                         logger.infoF(s"Using the EPICS monitor value of $channelName from $time") >>
+                           processChannelData(s.values, items)
+                       )
+                     }
+          _       <- readChannels(toRead, count, adder).whenA(toRead.nonEmpty)
+        } yield ()
+
+      def readChannels(
+        channels: List[(String, List[KeywordConfigurationItem])],
+        count:    Count[F],
+        adder:    CollectedKeyword => F[Unit]
+      ): F[Unit] =
+        readerRef.get.flatMap {
+          case Some(reader) => readBatch(reader, channels, count, adder)
+          case None         =>
+            logger.warningF("EpicsReader service not available") >>
+              channels.traverse_ { case (_, items) =>
+                addKeywords(items, count, adder)(
+                  F.raiseError[List[CollectedKeyword]](
+                    GdsError(
+                      s"EpicsReader service not available"
+                    )
+                  )
+                )
               }
-              .void
         }
 
-      def getForChannel(
-        channelName: String,
-        items:       List[KeywordConfigurationItem],
-        event:       ObservationEvent,
-        count:       Count[F],
-        adder:       CollectedKeyword => F[Unit]
-      ): F[Unit] = {
-        val keywordsF = for {
-          _        <-
-            logger.infoF(
-              s"Collecting ${items.length} EPICS keywords for channel $channelName, event $event: ${items
-                .map(_.keyword.key)
-                .mkString(", ")}"
-            )
-          oreader  <- readerRef.get
-          keywords <- oreader match {
-                        case Some(reader) => getAndReadChannel(reader, channelName, items)
-                        case None         =>
-                          logger.warningF("EpicsReader service not available") >>
-                            F.raiseError[List[CollectedKeyword]](
-                              GdsError(
-                                s"EpicsReader service not available"
-                              )
-                            )
-                      }
-        } yield keywords
+      // All the requests are sent before waiting for any reply.
+      def readBatch(
+        reader:   EpicsReader,
+        channels: List[(String, List[KeywordConfigurationItem])],
+        count:    Count[F],
+        adder:    CollectedKeyword => F[Unit]
+      ): F[Unit] =
+        for {
+          pooled  <- channels.parTraverseN(10) { case (channelName, items) =>
+                       pool.channel(reader, channelName).attempt.map((channelName, items, _))
+                     }
+          valid    = pooled.collect { case (_, _, Right(ch)) if ch.isValid => ch }
+          results <- if (valid.isEmpty) Map.empty[String, EpicsReadResult].pure[F]
+                     else F.blocking(reader.readChannels(valid.asJava).asScala.toMap)
+          _       <- pooled.traverse_ { case (channelName, items, channel) =>
+                       addKeywords(items, count, adder)(
+                         F.fromEither(channel) >> (results.get(channelName) match {
+                           case None                       =>
+                             allBad(items, s"Epics channel $channelName not valid").pure[F]
+                           case Some(r) if !r.isSuccess    =>
+                             allBad(items, r.getError.getMessage).pure[F]
+                           case Some(r) if r.getDBR == null =>
+                             allBad(items, s"Epics channel $channelName returned null").pure[F]
+                           case Some(r)                    =>
+                             F.delay(DbrUtil.extractValues(r.getDBR))
+                               .flatMap(processChannelData(_, items))
+                         })
+                       )
+                     }
+        } yield ()
+
+      def addKeywords(
+        items: List[KeywordConfigurationItem],
+        count: Count[F],
+        adder: CollectedKeyword => F[Unit]
+      )(keywordsF: F[List[CollectedKeyword]]): F[Unit] =
         keywordsF
           .handleError(e => allBad(items, e.getMessage))
           .flatMap(_.traverse(kw => logger.infoF(s"Collected $kw") >> adder(kw)))
           .void >> count.decr
-      }
-
-      def getAndReadChannel(
-        reader:      EpicsReader,
-        channelName: String,
-        items:       List[KeywordConfigurationItem]
-      ): F[List[CollectedKeyword]] =
-        F.blocking(reader.getChannelAsync(channelName))
-          .flatMap { channel =>
-            if (!channel.isValid)
-              allBad(items, s"Epics channel $channelName not valid").pure
-            else
-              F.blocking(Option(channel.getAll())).flatMap {
-                case None       =>
-                  allBad(items, s"Epics channel $channelName returned null").pure
-                case Some(data) => processChannelData(data, items)
-              }
-          }
 
       def processChannelData(
         data:  java.util.List[_],
@@ -0,0 +1,96 @@
+package edu.gemini.aspen.gds.keywords
+
+import cats.effect.{ Async, Ref, Resource }
+import cats.effect.kernel.RefSource
+import cats.syntax.all._
+import edu.gemini.aspen.gds.syntax.all._
+import edu.gemini.epics.EpicsObserver
+import edu.gemini.epics.api.EpicsClient
+import java.util.concurrent.ConcurrentHashMap
+import java.util.logging.Logger
+import scala.concurrent.duration._
+import scala.jdk.CollectionConverters._
+
+/**
+ * The latest value of every configured EPICS channel, kept up to date by monitors registered with
+ * the EpicsObserver, so keyword values can be read without a channel access round trip. Values
+ * that haven't been updated for longer than `epics.monitors.maxStaleness` are not used.
+ */
+trait EpicsSnapshotCache[F[_]] {
+  import EpicsSnapshotCache.Snapshot
+
+  def get(channelName: String): F[Option[Snapshot]]
+
+  // Registers the monitors with the current EpicsObserver, if it has changed.
+  def maintain: F[Unit]
+}
+
+object EpicsSnapshotCache {
+  private val logger = Logger.getLogger(this.getClass.getName)
+
+  final case class Snapshot(values: java.util.List[_], timestamp: FiniteDuration)
+
+  // Updated from the channel access threads.
+  private class SnapshotClient extends EpicsClient {
+    val snapshots = new ConcurrentHashMap[String, Snapshot]()
+
+    override def valueChanged[T](channel: String, values: java.util.List[T]): Unit =
+      Option(values).foreach { v =>
+        val now = System.currentTimeMillis.millis
+        snapshots.put(channel, Snapshot(new java.util.ArrayList[T](v), now))
+      }
+
+    override def connected(): Unit = ()
+
+    override def disconnected(): Unit = snapshots.clear()
+  }
+
+  private def unregister[F[_]](current: Option[(EpicsObserver, SnapshotClient)])(implicit
+    F: Async[F]
+  ): F[Unit] =
+    current.traverse_ { case (observer, client) =>
+      F.blocking(observer.unregisterEpicsClient(client))
+    }
+
+  // The monitors are unregistered when the resource is released.
+  def apply[F[_]](
+    observerRef:  RefSource[F, Option[EpicsObserver]],
+    channelNames: Set[String],
+    maxStaleness: FiniteDuration
+  )(implicit F: Async[F]): Resource[F, EpicsSnapshotCache[F]] =
+    Resource
+      .make(Ref.of[F, Option[(EpicsObserver, SnapshotClient)]](none))(
+        _.getAndSet(none).flatMap(unregister[F])
+      )
+      .map { registered =>
+        new EpicsSnapshotCache[F] {
+          def get(channelName: String): F[Option[Snapshot]] =
+            for {
+              current <- registered.get
+              now     <- F.realTime
+            } yield current
+              .flatMap { case (_, client) => Option(client.snapshots.get(channelName)) }
+              .filter(s => now - s.timestamp <= maxStaleness)
+
+          // Registering and storing the client is one step, so the release always unregisters it.
+          def maintain: F[Unit] =
+            (observerRef.get, registered.get).tupled.flatMap {
+              case (Some(observer), Some((old, _))) if observer eq old => F.unit
+              case (oobserver, current)                                =>
+                F.uncancelable { _ =>
+                  for {
+                    _      <- unregister(current)
+                    client <- oobserver.traverse { observer =>
+                                val client = new SnapshotClient
+                                logger.infoF(s"Monitoring ${channelNames.size} EPICS channels.") >>
+                                  F.blocking(
+                                    observer.registerEpicsClient(client, channelNames.toList.asJava)
+                                  ).as((observer, client))
+                              }
+                    _      <- registered.set(client)
+                  } yield ()
+                }
+            }
+        }
+      }
+}
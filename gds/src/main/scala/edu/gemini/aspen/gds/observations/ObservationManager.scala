@@ -5,7 +5,8 @@ import cats.effect.std.MapRef
 import cats.effect.std.QueueSink
 import cats.syntax.all._
 import edu.gemini.aspen.gds.configuration.ObservationConfig
-import edu.gemini.aspen.gds.keywords.{ CollectedKeyword, KeywordManager }
+import edu.gemini.aspen.gds.fits.FitsTransferRequest
+import edu.gemini.aspen.gds.keywords.KeywordManager
 import edu.gemini.aspen.gds.observations.ObservationStateEvent._
 import edu.gemini.aspen.gds.syntax.all._
 import edu.gemini.aspen.giapi.data.DataLabel
@@ -23,7 +24,7 @@ object ObservationManager {
     config:         ObservationConfig,
     keywordManager: KeywordManager[F],
     obsStateQ:      QueueSink[F, ObservationStateEvent],
-    fitsQ:          QueueSink[F, (DataLabel, List[CollectedKeyword])]
+    fitsQ:          QueueSink[F, FitsTransferRequest]
   )(implicit F: Async[F]): F[ObservationManager[F]] =
     Ref.of(Map[DataLabel, ObservationItem[F]]()).map { refOfMap =>
       val mapref = MapRef.fromSingleImmutableMapRef(refOfMap)
@@ -34,7 +35,7 @@ object ObservationManager {
           now <- Clock[F].realTime
           fsm <-
             ObservationFSM(config.eventRetries, dataLabel, obsStateQ)
-          item = ObservationItem(fsm, now + config.lifespan)
+          item = ObservationItem(fsm, now, now + config.lifespan)
           _   <- mapref.setKeyValue(dataLabel, item)
           _   <- keywordManager.initialize(dataLabel)
         } yield item
@@ -86,12 +87,12 @@ object ObservationManager {
             case e @ Step(dataLabel) => withObsItem(dataLabel, e)(_.fsm.step)
 
             case e @ Complete(dataLabel) =>
-              withObsItem(dataLabel, e) { _ =>
+              withObsItem(dataLabel, e) { item =>
                 for {
                   kws <- keywordManager.get(dataLabel)
                   _   <-
                     logger.infoF(s"Got these keywords for $dataLabel:\n\t${kws.mkString("\n\t")}")
-                  _   <- fitsQ.offer((dataLabel, kws))
+                  _   <- fitsQ.offer(FitsTransferRequest(dataLabel, kws, item.started))
                   _   <- obsStateQ.offer(Delete(dataLabel))
                 } yield ()
               }
@@ -135,6 +136,7 @@ object ObservationManager {
 
   final case class ObservationItem[F[_]](
     fsm:        ObservationFSM[F],
+    started:    FiniteDuration,
     expiration: FiniteDuration
   )
 }
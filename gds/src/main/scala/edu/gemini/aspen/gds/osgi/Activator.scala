@@ -10,7 +10,7 @@ import edu.gemini.aspen.gds.observations.ObservationStateEvent
 import edu.gemini.aspen.giapi.data.{ DataLabel, ObservationEvent, ObservationEventHandler }
 import edu.gemini.aspen.giapi.status.StatusDatabaseService
 import edu.gemini.aspen.gmp.services.PropertyHolder
-import edu.gemini.epics.EpicsReader
+import edu.gemini.epics.{ EpicsObserver, EpicsReader }
 import java.util
 import java.util.logging.Logger
 import edu.gemini.util.osgi.Tracker
@@ -29,11 +29,13 @@ class Activator extends BundleActivator {
   private var fiber: Option[FiberIO[Unit]]                             = None
   private var observationStateEventQ: Queue[IO, ObservationStateEvent] = null
   private var epicsReaderRef: Ref[IO, Option[EpicsReader]]             = null
+  private var epicsObserverRef: Ref[IO, Option[EpicsObserver]]         = null
   private var statusDbRef: Ref[IO, Option[StatusDatabaseService]]      = null
   private var configDeferred: Ref[IO, Option[GdsConfiguration]]        = null
 
   // The option bit for the trackers is odd...Does tracking fail at times?
   var epicsTracker: Option[ServiceTracker[EpicsReader, Unit]]                     = None
+  var epicsObsTracker: Option[ServiceTracker[EpicsObserver, Unit]]                = None
   var statusTracker: Option[ServiceTracker[StatusDatabaseService, Unit]]          = None
   var propTracker: Option[ServiceTracker[PropertyHolder, ServiceRegistration[_]]] = None
   var obsEventSvc: Option[ServiceRegistration[_]]                                 = None
@@ -41,11 +43,13 @@ class Activator extends BundleActivator {
   private def setIOVars(
     obsStateQ: Queue[IO, ObservationStateEvent],
     epicsRef:  Ref[IO, Option[EpicsReader]],
+    epicsObs:  Ref[IO, Option[EpicsObserver]],
     statusRef: Ref[IO, Option[StatusDatabaseService]],
     configDef: Ref[IO, Option[GdsConfiguration]]
   ): Unit = {
     observationStateEventQ = obsStateQ
     epicsReaderRef = epicsRef
+    epicsObserverRef = epicsObs
     statusDbRef = statusRef
     configDeferred = configDef
   }
@@ -56,9 +60,10 @@ class Activator extends BundleActivator {
     val makeIOVars = for {
       obsStateQ <- Queue.unbounded[IO, ObservationStateEvent]
       epicsRef  <- Ref.of[IO, Option[EpicsReader]](none[EpicsReader])
+      epicsObs  <- Ref.of[IO, Option[EpicsObserver]](none)
       statusRef <- Ref.of[IO, Option[StatusDatabaseService]](none)
       configDef <- Ref.of[IO, Option[GdsConfiguration]](none)
-      _          = setIOVars(obsStateQ, epicsRef, statusRef, configDef)
+      _          = setIOVars(obsStateQ, epicsRef, epicsObs, statusRef, configDef)
     } yield ()
 
     makeIOVars.unsafeRunSync()
@@ -70,6 +75,13 @@ class Activator extends BundleActivator {
     })
     epicsTracker.foreach(_.open(true))
 
+    epicsObsTracker = Option(Tracker.track[EpicsObserver, Unit](context) { eobs =>
+      epicsObserverRef.set(eobs.some).unsafeRunSync()
+    } { _ =>
+      epicsObserverRef.set(none).unsafeRunSync()
+    })
+    epicsObsTracker.foreach(_.open(true))
+
     statusTracker = Option(Tracker.track[StatusDatabaseService, Unit](context) { sds =>
       statusDbRef.set(sds.some).unsafeRunSync()
     } { _ =>
@@ -116,7 +128,7 @@ class Activator extends BundleActivator {
           context.getBundle().stop()
         }.void
       case Right(Some(config))   =>
-        Main.run(config, epicsReaderRef, statusDbRef, observationStateEventQ)
+        Main.run(config, epicsReaderRef, epicsObserverRef, statusDbRef, observationStateEventQ)
     }
 
     val resource = Resource.make(run.start)(_.cancel)
@@ -133,6 +145,8 @@ class Activator extends BundleActivator {
     fiber = None
     epicsTracker.foreach(_.close())
     epicsTracker = None
+    epicsObsTracker.foreach(_.close())
+    epicsObsTracker = None
     statusTracker.foreach(_.close())
     statusTracker = None
     propTracker.foreach(_.close())
@@ -2,7 +2,7 @@ package edu.gemini.aspen.gds.seqexec
 
 import edu.gemini.aspen.gds.fits._
 import edu.gemini.aspen.giapi.data.DataLabel
-import io.circe.{ Decoder, HCursor }
+import io.circe.{ Decoder, Encoder, HCursor }
 import scala.util.Try
 
 private[seqexec] final case class KeywordValue(keyword: FitsKeyword, value: FitsValue)
@@ -66,3 +66,11 @@ object Decoders {
         } yield DataLabelRequest(dl)
     }
 }
+
+object Encoders {
+  implicit val fitsTransferMetricsEncoder: Encoder[FitsTransferMetrics] =
+    Encoder.forProduct5("queued", "in_flight", "completed", "last_latency_ms", "max_latency_ms")(
+      (m: FitsTransferMetrics) =>
+        (m.queued, m.inFlight, m.completed, m.lastLatency.toMillis, m.maxLatency.toMillis)
+    )
+}
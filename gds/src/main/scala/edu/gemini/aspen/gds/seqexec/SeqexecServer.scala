@@ -5,6 +5,8 @@ import cats.effect.std.QueueSink
 import cats.syntax.all._
 import com.comcast.ip4s.Host
 import com.comcast.ip4s.Port
+import io.circe.syntax._
+import edu.gemini.aspen.gds.fits.FitsTransferMetrics
 import edu.gemini.aspen.gds.keywords.CollectedKeyword
 import edu.gemini.aspen.gds.model.KeywordSource
 import edu.gemini.aspen.gds.observations.ObservationStateEvent
@@ -17,6 +19,7 @@ import org.http4s.ember.server._
 import org.http4s.server.Router
 
 import Decoders._
+import Encoders._
 
 object SeqexecServer {
 
@@ -26,9 +29,10 @@ object SeqexecServer {
   implicit val dlrEntityDecoder = jsonOf[IO, DataLabelRequest]
 
   def apply(
-    obsStateQ: QueueSink[IO, ObservationStateEvent],
-    host:      Host,
-    port:      Port
+    obsStateQ:     QueueSink[IO, ObservationStateEvent],
+    fitsTransfers: IO[FitsTransferMetrics],
+    host:          Host,
+    port:          Port
   ): IO[Unit] = {
     def kwv2Collected(kwv: KeywordValue) =
       CollectedKeyword.Value(kwv.keyword, KeywordSource.SeqExec, none, kwv.value)
@@ -66,6 +70,8 @@ object SeqexecServer {
               obsStateQ.offer(Abort(cor.dataLabel))
             ok  <- Ok("Success")
           } yield ok
+        case GET -> Root / "fits-transfers"           =>
+          fitsTransfers.flatMap(m => Ok(m.asJson))
       }
 
     val httpApp = Router("gds-seqexec" -> service).orNotFound
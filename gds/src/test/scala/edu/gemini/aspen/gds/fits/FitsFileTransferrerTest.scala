@@ -0,0 +1,128 @@
+package edu.gemini.aspen.gds.transfer
+
+import cats.effect.IO
+import cats.effect.unsafe.implicits.global
+import edu.gemini.aspen.gds.fits.{ FitsHeaderCard, FitsKeyword, FitsValue }
+import fs2.io.file.Path
+import java.nio.charset.StandardCharsets
+import java.nio.file.{ Files => JFiles }
+import org.junit.Assert._
+import org.junit.Test
+
+class FitsFileTransferrerTest {
+  private val RecordLength = FitsFileTransferrer.RecordLength
+
+  private def card(keyword: String, value: String): String = f"$keyword%-8s= $value%20s".padTo(80, ' ')
+
+  private def padded(bytes: Array[Byte], fill: Byte): Array[Byte] = {
+    val overflow = bytes.length % RecordLength
+    if (overflow == 0) bytes else bytes ++ Array.fill[Byte](RecordLength - overflow)(fill)
+  }
+
+  private def header(cards: String*): Array[Byte] =
+    padded((cards :+ "END".padTo(80, ' ')).mkString.getBytes(StandardCharsets.US_ASCII), ' '.toByte)
+
+  private def data(length: Int): Array[Byte] =
+    padded(Array.tabulate[Byte](length)(i => (i % 251).toByte), 0)
+
+  // A primary image and an image extension
+  private val fitsFile: Array[Byte] =
+    header(card("SIMPLE", "T"),
+           card("BITPIX", "16"),
+           card("NAXIS", "2"),
+           card("NAXIS1", "100"),
+           card("NAXIS2", "50"),
+           card("EXTEND", "T")
+    ) ++ data(100 * 50 * 2) ++
+      header(card("XTENSION", "'IMAGE   '"),
+             card("BITPIX", "-32"),
+             card("NAXIS", "1"),
+             card("NAXIS1", "1000"),
+             card("PCOUNT", "0"),
+             card("GCOUNT", "1")
+      ) ++ data(1000 * 4)
+
+  private def headerCard(keyword: String, value: FitsValue): FitsHeaderCard =
+    FitsHeaderCard(FitsKeyword.unsafeFromString(keyword), value, Some("added"), None)
+
+  private val required   = Map(0 -> List("BITPIX"), 1 -> List("BITPIX"))
+  private val additional = Map(
+    0 -> List(headerCard("OBSID", FitsValue.stringValue("GS-2026")),
+              headerCard("EXPTIME", FitsValue.doubleValue(30.0))
+    ),
+    1 -> List(headerCard("EXTVER", FitsValue.intValue(1)))
+  )
+
+  private def transferBoth(input: Array[Byte]): (Array[Byte], Array[Byte]) = {
+    val dir  = JFiles.createTempDirectory("gds-transfer")
+    val in   = Path.fromNioPath(JFiles.write(dir.resolve("in.fits"), input))
+    val out1 = dir.resolve("stream.fits")
+    val out2 = dir.resolve("zerocopy.fits")
+    val io   = for {
+      _ <- FitsFileTransferrer.transfer[IO](in,
+                                            Path.fromNioPath(out1),
+                                            required,
+                                            additional,
+                                            _ => IO.unit
+           )
+      _ <- FitsFileTransferrer.transferZeroCopy[IO](in,
+                                                    Path.fromNioPath(out2),
+                                                    required,
+                                                    additional,
+                                                    _ => IO.unit
+           )
+    } yield (JFiles.readAllBytes(out1), JFiles.readAllBytes(out2))
+    io.unsafeRunSync()
+  }
+
+  @Test
+  def zeroCopyWritesTheSameBytes(): Unit = {
+    val (streamed, zeroCopied) = transferBoth(fitsFile)
+    assertArrayEquals(streamed, zeroCopied)
+    assertTrue(new String(zeroCopied, StandardCharsets.US_ASCII).contains("OBSID   = 'GS-2026 '"))
+    // The data units are unchanged
+    assertArrayEquals(fitsFile.takeRight(2 * RecordLength), zeroCopied.takeRight(2 * RecordLength))
+  }
+
+  @Test
+  def zeroCopyWritesTheSameBytesForATruncatedFile(): Unit = {
+    val truncated              = fitsFile.dropRight(RecordLength)
+    val (streamed, zeroCopied) = transferBoth(truncated)
+    assertArrayEquals(streamed, zeroCopied)
+  }
+
+  private def updateInPlace(in: java.nio.file.Path, out: java.nio.file.Path): Option[Long] =
+    FitsFileTransferrer
+      .updateInPlace[IO](Path.fromNioPath(in),
+                         Path.fromNioPath(out),
+                         required,
+                         additional,
+                         _ => IO.unit
+      )
+      .unsafeRunSync()
+
+  @Test
+  def updateInPlaceRenamesTheUpdatedFile(): Unit = {
+    val dir = JFiles.createTempDirectory("gds-in-place")
+    val in  = JFiles.write(dir.resolve("in.fits"), fitsFile)
+    val out = dir.resolve("out.fits")
+
+    assertEquals(Some(fitsFile.length.toLong), updateInPlace(in, out))
+    assertFalse(JFiles.exists(in))
+    val updated = JFiles.readAllBytes(out)
+    assertEquals(fitsFile.length.toLong, updated.length.toLong)
+    assertTrue(new String(updated, StandardCharsets.US_ASCII).contains("EXTVER  ="))
+  }
+
+  @Test
+  def updateInPlaceRestoresTheOriginalIfTheMoveFails(): Unit = {
+    val dir = JFiles.createTempDirectory("gds-in-place")
+    val in  = JFiles.write(dir.resolve("in.fits"), fitsFile)
+    // A file can't be renamed over a directory that isn't empty
+    val out = JFiles.createDirectory(dir.resolve("out.fits"))
+    JFiles.write(out.resolve("other"), Array[Byte](1))
+
+    assertEquals(None, updateInPlace(in, out))
+    assertArrayEquals(fitsFile, JFiles.readAllBytes(in))
+  }
+}
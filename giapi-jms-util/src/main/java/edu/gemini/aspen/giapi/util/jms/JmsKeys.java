@@ -37,6 +37,9 @@ public class JmsKeys {
 
     //Status Keys
     public final static String GMP_STATUS_DESTINATION_PREFIX = GMP_PREFIX + GMP_SEPARATOR + "STATUS" + GMP_SEPARATOR;
+    public final static String GMP_STATUS_BATCH_DESTINATION = GMP_STATUS_DESTINATION_PREFIX + "BATCH";
+    public final static String GMP_STATUS_FORMAT_PROPERTY = "STATUS_FORMAT";
+    public final static String GMP_STATUS_PRODUCER_PROPERTY = "STATUS_PRODUCER";
 
     //Heartbeat Keys
     public final static String GMP_HEARTBEAT_DESTINATION = GMP_PREFIX + GMP_SEPARATOR + "HEARTBEAT";
@@ -49,8 +52,17 @@ public class JmsKeys {
     public final static String GW_STATUS_REQUEST_DESTINATION = GW_PREFIX + GMP_SEPARATOR + "STATUS_REQUEST";
     public final static String GW_STATUS_REQUEST_TYPE_PROPERTY = "STATUS_REQUEST_TYPE";
     public final static String GW_STATUS_REQUEST_TYPE_ITEM = "STATUS_REQUEST_TYPE_ITEM";
+    public final static String GW_STATUS_REQUEST_TYPE_ITEMS = "STATUS_REQUEST_TYPE_ITEMS";
     public final static String GW_STATUS_REQUEST_TYPE_NAMES = "STATUS_REQUEST_TYPE_NAMES";
     public final static String GW_STATUS_REQUEST_TYPE_ALL = "STATUS_REQUEST_TYPE_ALL";
+    public final static String GW_STATUS_REQUEST_TYPE_HISTORY = "STATUS_REQUEST_TYPE_HISTORY";
+    public final static String GW_STATUS_REQUEST_SINCE_PROPERTY = "STATUS_REQUEST_SINCE";
+    public final static String GW_STATUS_REQUEST_TYPE_PREFIX = "STATUS_REQUEST_TYPE_PREFIX";
+    public final static String GW_STATUS_REQUEST_TYPE_PATTERN = "STATUS_REQUEST_TYPE_PATTERN";
+    public final static String GW_STATUS_REQUEST_TYPE_CHANGES = "STATUS_REQUEST_TYPE_CHANGES";
+    public final static String GW_STATUS_REQUEST_VERSION_PROPERTY = "STATUS_REQUEST_VERSION";
+    public final static String GW_STATUS_REQUEST_PREFIX_PROPERTY = "STATUS_REQUEST_PREFIX";
+    public final static String GW_STATUS_REQUEST_MAX_ITEMS_PROPERTY = "STATUS_REQUEST_MAX_ITEMS";
 
 
     //Gateway Command Keys
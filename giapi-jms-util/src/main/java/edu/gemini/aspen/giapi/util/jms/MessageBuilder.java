@@ -11,6 +11,7 @@ import edu.gemini.aspen.giapi.commands.HandlerResponse;
 import edu.gemini.aspen.giapi.commands.SequenceCommand;
 import edu.gemini.aspen.giapi.data.DataLabel;
 import edu.gemini.aspen.giapi.data.ObservationEvent;
+import edu.gemini.aspen.giapi.status.StatusChanges;
 import edu.gemini.aspen.giapi.status.StatusItem;
 import edu.gemini.aspen.giapi.status.StatusVisitor;
 import edu.gemini.aspen.giapi.util.jms.status.StatusItemParser;
@@ -249,6 +250,76 @@ public final class MessageBuilder {
         return bm;
     }
 
+    /**
+     * Builds a message with several status items. Unlike
+     * {@link #buildMultipleStatusItemsMessage(Session, Collection)} the count is
+     * always written, so an empty result can be told apart from no reply
+     */
+    public static Message buildStatusItemsMessage(Session session, Collection<? extends StatusItem> items) throws JMSException {
+
+        BytesMessage bm = session.createBytesMessage();
+
+        StatusVisitor serializer = new StatusSerializerVisitor(bm);
+        bm.writeInt(items.size());
+        try {
+            for (StatusItem item : items) {
+                item.accept(serializer);
+            }
+        } catch (JMSException e) {
+            throw e;
+        } catch (Exception e) {
+            //this shouldn't happen, since the serializer only throws JMS Exceptions.
+            LOG.log(Level.SEVERE, "Received unexpected exception ", e);
+        }
+
+        return bm;
+    }
+
+    /**
+     * Builds a message with the status items changed since a version of the
+     * database. The message contains the new version, whether the changes are
+     * complete and the items
+     */
+    public static Message buildStatusChangesMessage(Session session, StatusChanges changes) throws JMSException {
+
+        BytesMessage bm = session.createBytesMessage();
+        bm.writeLong(changes.getEpoch());
+        bm.writeLong(changes.getVersion());
+        bm.writeBoolean(changes.isComplete());
+
+        StatusVisitor serializer = new StatusSerializerVisitor(bm);
+        bm.writeInt(changes.getItems().size());
+        try {
+            for (StatusItem item : changes.getItems()) {
+                item.accept(serializer);
+            }
+        } catch (JMSException e) {
+            throw e;
+        } catch (Exception e) {
+            //this shouldn't happen, since the serializer only throws JMS Exceptions.
+            LOG.log(Level.SEVERE, "Received unexpected exception ", e);
+        }
+
+        return bm;
+    }
+
+    public static StatusChanges buildStatusChanges(Message m) throws JMSException {
+        if (!(m instanceof BytesMessage)) {
+            return null;
+        }
+
+        BytesMessage bm = (BytesMessage) m;
+        long epoch = bm.readLong();
+        long version = bm.readLong();
+        boolean complete = bm.readBoolean();
+        List<StatusItem> items = new ArrayList<StatusItem>();
+        int count = bm.readInt();
+        for (int i = 0; i < count; i++) {
+            items.add(StatusItemParser.parse(bm));
+        }
+        return new StatusChanges(epoch, version, items, complete);
+    }
+
     public static Message buildObsEventMessage(Session session, ObservationEvent obsEvent, DataLabel label) throws JMSException {
 
         Message msg = session.createMessage();
@@ -0,0 +1,140 @@
+package edu.gemini.aspen.giapi.util.jms.status;
+
+import edu.gemini.aspen.giapi.status.StatusItem;
+import edu.gemini.aspen.giapi.status.impl.BasicStatus;
+
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * The status items decoded from a batch message. Numeric values and timestamps
+ * are kept in primitive arrays and can be read without creating status items,
+ * a batch can be reused to decode several messages.
+ */
+public final class StatusBatch {
+    private int _size = 0;
+    private String[] _names = new String[16];
+    private byte[] _tags = new byte[16];
+    private long[] _longValues = new long[16];
+    private double[] _doubleValues = new double[16];
+    private Object[] _objectValues = new Object[16];
+    private long[] _timestamps = new long[16];
+
+    /**
+     * @return the number of items in the batch
+     */
+    public int size() {
+        return _size;
+    }
+
+    public String getName(int index) {
+        checkIndex(index);
+        return _names[index];
+    }
+
+    /**
+     * @return the timestamp of an item in milliseconds since the epoch
+     */
+    public long getTimestamp(int index) {
+        checkIndex(index);
+        return _timestamps[index];
+    }
+
+    /**
+     * @return whether the value of an item can be read with {@link #getDoubleValue(int)}
+     */
+    public boolean isNumeric(int index) {
+        checkIndex(index);
+        byte tag = _tags[index];
+        return tag == StatusBatchFormat.INT || tag == StatusBatchFormat.DOUBLE || tag == StatusBatchFormat.FLOAT;
+    }
+
+    /**
+     * @return the value of a numeric item
+     * @throws IllegalStateException if the item is not numeric
+     */
+    public double getDoubleValue(int index) {
+        if (!isNumeric(index)) {
+            throw new IllegalStateException("Status item " + _names[index] + " is not numeric");
+        }
+        return _tags[index] == StatusBatchFormat.INT ? _longValues[index] : _doubleValues[index];
+    }
+
+    /**
+     * @return the value of an item, boxed if it is numeric
+     */
+    public Object getValue(int index) {
+        checkIndex(index);
+        switch (_tags[index]) {
+            case StatusBatchFormat.INT:
+                return (int) _longValues[index];
+            case StatusBatchFormat.DOUBLE:
+                return _doubleValues[index];
+            case StatusBatchFormat.FLOAT:
+                return (float) _doubleValues[index];
+            case StatusBatchFormat.STRING:
+                return _objectValues[index];
+            default:
+                return ((StatusItem<?>) _objectValues[index]).getValue();
+        }
+    }
+
+    /**
+     * @return a status item with the content of the item at the given position
+     */
+    @SuppressWarnings("unchecked")
+    public <T> StatusItem<T> getItem(int index) {
+        checkIndex(index);
+        if (_tags[index] == StatusBatchFormat.ITEM) {
+            return (StatusItem<T>) _objectValues[index];
+        }
+        return new BasicStatus<T>(_names[index], (T) getValue(index), new Date(_timestamps[index]));
+    }
+
+    void clear() {
+        Arrays.fill(_objectValues, 0, _size, null);
+        _size = 0;
+    }
+
+    void addLong(String name, byte tag, long value, long timestamp) {
+        int index = add(name, tag, timestamp);
+        _longValues[index] = value;
+    }
+
+    void addDouble(String name, byte tag, double value, long timestamp) {
+        int index = add(name, tag, timestamp);
+        _doubleValues[index] = value;
+    }
+
+    void addString(String name, String value, long timestamp) {
+        int index = add(name, StatusBatchFormat.STRING, timestamp);
+        _objectValues[index] = value;
+    }
+
+    void addItem(StatusItem<?> item) {
+        int index = add(item.getName(), StatusBatchFormat.ITEM, item.getTimestamp().getTime());
+        _objectValues[index] = item;
+    }
+
+    private int add(String name, byte tag, long timestamp) {
+        if (_size == _names.length) {
+            int capacity = _size * 2;
+            _names = Arrays.copyOf(_names, capacity);
+            _tags = Arrays.copyOf(_tags, capacity);
+            _longValues = Arrays.copyOf(_longValues, capacity);
+            _doubleValues = Arrays.copyOf(_doubleValues, capacity);
+            _objectValues = Arrays.copyOf(_objectValues, capacity);
+            _timestamps = Arrays.copyOf(_timestamps, capacity);
+        }
+        _names[_size] = name;
+        _tags[_size] = tag;
+        _timestamps[_size] = timestamp;
+        return _size++;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= _size) {
+            throw new IndexOutOfBoundsException("Index " + index + ", size " + _size);
+        }
+    }
+}
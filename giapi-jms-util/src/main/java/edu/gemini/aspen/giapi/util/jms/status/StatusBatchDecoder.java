@@ -0,0 +1,145 @@
+package edu.gemini.aspen.giapi.util.jms.status;
+
+import edu.gemini.aspen.giapi.status.StatusItem;
+import edu.gemini.aspen.giapi.util.jms.JmsKeys;
+
+import javax.jms.BytesMessage;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Decodes the messages built by {@link StatusBatchEncoder}, keeping the
+ * dictionary of names of each producer.
+ * <br>
+ * Items whose name has not been defined yet, e.g. because the consumer started
+ * after the producer, are skipped until the producer repeats its dictionary,
+ * see {@link StatusBatchEncoder}
+ */
+public class StatusBatchDecoder {
+    private static final Logger LOG = Logger.getLogger(StatusBatchDecoder.class.getName());
+
+    private final Map<String, Dictionary> _dictionaries = new HashMap<String, Dictionary>();
+    private long _skippedItems = 0;
+
+    private static final class Dictionary {
+        private final long session;
+        private String[] names = new String[64];
+
+        private Dictionary(long session) {
+            this.session = session;
+        }
+
+        private void define(int id, String name) {
+            if (id >= names.length) {
+                names = Arrays.copyOf(names, Math.max(names.length * 2, id + 1));
+            }
+            names[id] = name;
+        }
+
+        private String nameOf(int id) {
+            return id >= 0 && id < names.length ? names[id] : null;
+        }
+    }
+
+    /**
+     * @return whether the message is a status batch, otherwise it is a single status item
+     */
+    public static boolean isStatusBatch(Message m) throws JMSException {
+        return m instanceof BytesMessage && m.propertyExists(JmsKeys.GMP_STATUS_FORMAT_PROPERTY);
+    }
+
+    /**
+     * Decodes a status batch message into a new batch
+     */
+    public StatusBatch decode(BytesMessage bm) throws JMSException {
+        StatusBatch batch = new StatusBatch();
+        decode(bm, batch);
+        return batch;
+    }
+
+    /**
+     * Decodes a status batch message replacing the content of the given batch
+     *
+     * @throws IllegalArgumentException if the message is not a batch in a known format
+     * @throws JMSException if there is a problem reading the message
+     */
+    public synchronized void decode(BytesMessage bm, StatusBatch batch) throws JMSException {
+        if (!isStatusBatch(bm) || bm.getIntProperty(JmsKeys.GMP_STATUS_FORMAT_PROPERTY) != StatusBatchFormat.VERSION) {
+            throw new IllegalArgumentException("Message is not a status batch of version " + StatusBatchFormat.VERSION);
+        }
+        batch.clear();
+        int version = bm.readByte();
+        if (version != StatusBatchFormat.VERSION) {
+            throw new IllegalArgumentException("Unknown status batch version " + version);
+        }
+        Dictionary dictionary = dictionaryFor(bm.getStringProperty(JmsKeys.GMP_STATUS_PRODUCER_PROPERTY), bm.readLong());
+
+        int definitions = bm.readInt();
+        for (int i = 0; i < definitions; i++) {
+            dictionary.define(bm.readInt(), bm.readUTF());
+        }
+
+        int count = bm.readInt();
+        for (int i = 0; i < count; i++) {
+            byte tag = bm.readByte();
+            if (tag == StatusBatchFormat.ITEM) {
+                StatusItem<?> item = StatusItemParser.parse(bm);
+                batch.addItem(item);
+                continue;
+            }
+            String name = dictionary.nameOf(bm.readInt());
+            long longValue = 0;
+            double doubleValue = 0;
+            String stringValue = null;
+            switch (tag) {
+                case StatusBatchFormat.INT:
+                    longValue = bm.readInt();
+                    break;
+                case StatusBatchFormat.DOUBLE:
+                    doubleValue = bm.readDouble();
+                    break;
+                case StatusBatchFormat.FLOAT:
+                    doubleValue = bm.readFloat();
+                    break;
+                case StatusBatchFormat.STRING:
+                    stringValue = bm.readUTF();
+                    break;
+                default:
+                    throw new IllegalArgumentException("No Status Type associated to code " + tag);
+            }
+            long timestamp = bm.readLong();
+            if (name == null) {
+                _skippedItems++;
+            } else if (tag == StatusBatchFormat.INT) {
+                batch.addLong(name, tag, longValue, timestamp);
+            } else if (tag == StatusBatchFormat.STRING) {
+                batch.addString(name, stringValue, timestamp);
+            } else {
+                batch.addDouble(name, tag, doubleValue, timestamp);
+            }
+        }
+    }
+
+    private Dictionary dictionaryFor(String producer, long session) {
+        Dictionary dictionary = _dictionaries.get(producer);
+        if (dictionary == null || dictionary.session != session) {
+            if (dictionary != null) {
+                LOG.info("Status producer " + producer + " restarted, discarding its names");
+            }
+            dictionary = new Dictionary(session);
+            _dictionaries.put(producer, dictionary);
+        }
+        return dictionary;
+    }
+
+    /**
+     * @return the number of items skipped because their name was unknown
+     */
+    public synchronized long getSkippedItems() {
+        return _skippedItems;
+    }
+}
@@ -0,0 +1,178 @@
+package edu.gemini.aspen.giapi.util.jms.status;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Ticker;
+import edu.gemini.aspen.giapi.status.AlarmStatusItem;
+import edu.gemini.aspen.giapi.status.HealthStatusItem;
+import edu.gemini.aspen.giapi.status.StatusItem;
+import edu.gemini.aspen.giapi.util.jms.JmsKeys;
+
+import javax.jms.BytesMessage;
+import javax.jms.JMSException;
+import javax.jms.Session;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Packs many status items in one compact message, see {@link StatusBatchFormat}.
+ * <br>
+ * Each name is given an id the first time it is sent, afterwards only the id is
+ * written. The whole dictionary is repeated every few batches, and at least
+ * every few seconds for producers that send batches seldom, so consumers that
+ * start after the producer learn the names they missed.
+ */
+public class StatusBatchEncoder {
+    private static final Logger LOG = Logger.getLogger(StatusBatchEncoder.class.getName());
+    private static final int DEFAULT_DICTIONARY_INTERVAL = 100;
+    private static final long DEFAULT_DICTIONARY_PERIOD_MS = 10000;
+
+    private final String _producer;
+    private final int _dictionaryInterval;
+    private final long _dictionaryPeriodNanos;
+    private final Ticker _ticker;
+    private final long _session = ThreadLocalRandom.current().nextLong();
+
+    private final Map<String, Integer> _ids = new HashMap<String, Integer>();
+    private final List<String> _names = new ArrayList<String>();
+    private int _batchesSinceDictionary = 0;
+    private long _lastDictionaryTime;
+
+    /**
+     * @param producer unique name of the producer, consumers keep a dictionary per producer
+     */
+    public StatusBatchEncoder(String producer) {
+        this(producer, DEFAULT_DICTIONARY_INTERVAL);
+    }
+
+    /**
+     * @param producer unique name of the producer, consumers keep a dictionary per producer
+     * @param dictionaryInterval number of batches between repetitions of the whole dictionary
+     */
+    public StatusBatchEncoder(String producer, int dictionaryInterval) {
+        this(producer, dictionaryInterval, DEFAULT_DICTIONARY_PERIOD_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param producer unique name of the producer, consumers keep a dictionary per producer
+     * @param dictionaryInterval number of batches between repetitions of the whole dictionary
+     * @param dictionaryPeriod longest time between repetitions of the whole dictionary
+     */
+    public StatusBatchEncoder(String producer, int dictionaryInterval, long dictionaryPeriod, TimeUnit unit) {
+        this(producer, dictionaryInterval, dictionaryPeriod, unit, Ticker.systemTicker());
+    }
+
+    StatusBatchEncoder(String producer, int dictionaryInterval, long dictionaryPeriod, TimeUnit unit, Ticker ticker) {
+        Preconditions.checkArgument(producer != null, "Producer cannot be null");
+        Preconditions.checkArgument(dictionaryInterval > 0, "Dictionary interval must be positive");
+        Preconditions.checkArgument(dictionaryPeriod > 0, "Dictionary period must be positive");
+        _producer = producer;
+        _dictionaryInterval = dictionaryInterval;
+        _dictionaryPeriodNanos = unit.toNanos(dictionaryPeriod);
+        _ticker = ticker;
+        _lastDictionaryTime = ticker.read();
+    }
+
+    /**
+     * Builds a message containing all the given status items
+     *
+     * @param session the JMS session used to create the message
+     * @param items the status items, items whose values can't be serialized are skipped
+     * @return a BytesMessage with the status items
+     * @throws JMSException if there is a problem writing the message
+     */
+    public synchronized BytesMessage encode(Session session, Collection<? extends StatusItem> items) throws JMSException {
+        List<StatusItem> encodable = new ArrayList<StatusItem>(items.size());
+        int firstNewId = _names.size();
+        for (StatusItem item : items) {
+            if (tagOf(item) < 0) {
+                LOG.warning("Cannot serialize the value of status item " + item);
+                continue;
+            }
+            encodable.add(item);
+            if (tagOf(item) != StatusBatchFormat.ITEM && !_ids.containsKey(item.getName())) {
+                _ids.put(item.getName(), _names.size());
+                _names.add(item.getName());
+            }
+        }
+
+        BytesMessage bm = session.createBytesMessage();
+        bm.setIntProperty(JmsKeys.GMP_STATUS_FORMAT_PROPERTY, StatusBatchFormat.VERSION);
+        bm.setStringProperty(JmsKeys.GMP_STATUS_PRODUCER_PROPERTY, _producer);
+        bm.writeByte((byte) StatusBatchFormat.VERSION);
+        bm.writeLong(_session);
+
+        long now = _ticker.read();
+        if (++_batchesSinceDictionary >= _dictionaryInterval || now - _lastDictionaryTime >= _dictionaryPeriodNanos) {
+            firstNewId = 0;
+            _batchesSinceDictionary = 0;
+            _lastDictionaryTime = now;
+        }
+        bm.writeInt(_names.size() - firstNewId);
+        for (int id = firstNewId; id < _names.size(); id++) {
+            bm.writeInt(id);
+            bm.writeUTF(_names.get(id));
+        }
+
+        bm.writeInt(encodable.size());
+        StatusSerializerVisitor serializer = new StatusSerializerVisitor(bm);
+        for (StatusItem item : encodable) {
+            byte tag = tagOf(item);
+            bm.writeByte(tag);
+            if (tag == StatusBatchFormat.ITEM) {
+                writeItem(serializer, item);
+                continue;
+            }
+            bm.writeInt(_ids.get(item.getName()));
+            switch (tag) {
+                case StatusBatchFormat.INT:
+                    bm.writeInt((Integer) item.getValue());
+                    break;
+                case StatusBatchFormat.DOUBLE:
+                    bm.writeDouble((Double) item.getValue());
+                    break;
+                case StatusBatchFormat.FLOAT:
+                    bm.writeFloat((Float) item.getValue());
+                    break;
+                default:
+                    bm.writeUTF((String) item.getValue());
+            }
+            bm.writeLong(item.getTimestamp().getTime());
+        }
+        return bm;
+    }
+
+    private static byte tagOf(StatusItem item) {
+        Object value = item.getValue();
+        if (!(value instanceof Integer || value instanceof Double || value instanceof Float || value instanceof String)) {
+            return item instanceof HealthStatusItem ? StatusBatchFormat.ITEM : -1;
+        } else if (item instanceof AlarmStatusItem) {
+            return StatusBatchFormat.ITEM;
+        } else if (value instanceof Integer) {
+            return StatusBatchFormat.INT;
+        } else if (value instanceof Double) {
+            return StatusBatchFormat.DOUBLE;
+        } else if (value instanceof Float) {
+            return StatusBatchFormat.FLOAT;
+        } else {
+            return StatusBatchFormat.STRING;
+        }
+    }
+
+    private static void writeItem(StatusSerializerVisitor serializer, StatusItem item) throws JMSException {
+        try {
+            item.accept(serializer);
+        } catch (JMSException e) {
+            throw e;
+        } catch (Exception e) {
+            //this shouldn't happen, since the serializer only throws JMS Exceptions.
+            LOG.log(Level.SEVERE, "Received unexpected exception ", e);
+        }
+    }
+}
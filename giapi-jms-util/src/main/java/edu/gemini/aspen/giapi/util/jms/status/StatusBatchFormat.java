@@ -0,0 +1,31 @@
+package edu.gemini.aspen.giapi.util.jms.status;
+
+/**
+ * Layout of the compact status batch messages.
+ * <br>
+ * The messages carry the {@link edu.gemini.aspen.giapi.util.jms.JmsKeys#GMP_STATUS_FORMAT_PROPERTY}
+ * and {@link edu.gemini.aspen.giapi.util.jms.JmsKeys#GMP_STATUS_PRODUCER_PROPERTY} properties,
+ * messages without them use the one item per message format of {@link StatusSerializerVisitor}.
+ * The body contains:
+ * <pre>
+ * byte  version
+ * long  producer session, changes when the producer restarts
+ * int   number of name definitions, followed by (int id, UTF name) for each
+ * int   number of items, followed by each item
+ * </pre>
+ * Each item starts with a tag byte. Basic items are followed by the id of their
+ * name, the value and the timestamp; other items are written as in the one item
+ * per message format.
+ */
+final class StatusBatchFormat {
+    static final int VERSION = 1;
+
+    static final byte INT = 0;
+    static final byte DOUBLE = 1;
+    static final byte FLOAT = 2;
+    static final byte STRING = 3;
+    static final byte ITEM = 9;
+
+    private StatusBatchFormat() {
+    }
+}
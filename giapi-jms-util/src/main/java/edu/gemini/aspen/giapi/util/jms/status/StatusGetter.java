@@ -1,5 +1,6 @@
 package edu.gemini.aspen.giapi.util.jms.status;
 
+import edu.gemini.aspen.giapi.status.StatusChanges;
 import edu.gemini.aspen.giapi.status.StatusItem;
 import edu.gemini.aspen.giapi.util.jms.JmsKeys;
 import edu.gemini.aspen.giapi.util.jms.MessageBuilder;
@@ -9,77 +10,259 @@ import edu.gemini.jms.api.DestinationType;
 
 import javax.jms.*;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
 
 /**
- *
+ * Requests status information to the status gateway.
+ * <br>
+ * All the replies arrive on one temporary queue created when JMS starts and are
+ * matched to their requests by correlation ID, so several threads can have
+ * requests pending at the same time. The replies are received on a session of
+ * their own, while the requests are built and sent on the main session one
+ * thread at a time
  */
 public class StatusGetter extends BaseMessageProducer {
 
+    private static final long REPLY_TIMEOUT = 1000; //1000 msec to answer.
+
+    private final ConcurrentHashMap<String, CompletableFuture<Message>> _pendingReplies = new ConcurrentHashMap<String, CompletableFuture<Message>>();
+    private final AtomicLong _lastCorrelationID = new AtomicLong();
+    //Guards the use of _session and _producer by the callers
+    private final Object _sessionLock = new Object();
+    private Session _replySession;
+    private TemporaryQueue _replyQueue;
+    private MessageConsumer _replyConsumer;
+
     public StatusGetter(String clientName) {
         super(clientName, new DestinationData(JmsKeys.GW_STATUS_REQUEST_DESTINATION, DestinationType.TOPIC));
     }
 
+    @Override
+    protected void constructJmsObject(Destination d) throws JMSException {
+        super.constructJmsObject(d);
+        //create a consumer to receive all the answers, the listener runs on the thread of its session
+        _replySession = openSession();
+        _replyQueue = _replySession.createTemporaryQueue();
+        _replyConsumer = _replySession.createConsumer(_replyQueue);
+        _replyConsumer.setMessageListener(new MessageListener() {
+            @Override
+            public void onMessage(Message message) {
+                onReply(message);
+            }
+        });
+    }
+
+    @Override
+    protected void destroyJmsObject() throws JMSException {
+        if (_replyConsumer != null) {
+            _replyConsumer.close();
+        }
+        if (_replyQueue != null) {
+            _replyQueue.delete();
+        }
+        if (_replySession != null) {
+            closeSession(_replySession);
+        }
+        //don't keep the callers waiting for replies that won't arrive
+        for (CompletableFuture<Message> pendingReply : _pendingReplies.values()) {
+            pendingReply.complete(null);
+        }
+        super.destroyJmsObject();
+    }
+
+    private void onReply(Message reply) {
+        try {
+            String correlationID = reply.getJMSCorrelationID();
+            CompletableFuture<Message> pendingReply = correlationID != null ? _pendingReplies.remove(correlationID) : removeOnlyPendingReply();
+            if (pendingReply != null) {
+                pendingReply.complete(reply);
+            } else {
+                LOG.fine("Discarding status reply without a pending request: " + correlationID);
+            }
+        } catch (JMSException e) {
+            LOG.log(Level.WARNING, "Problem receiving status reply", e);
+        }
+    }
+
+    /**
+     * A reply without a correlation ID can only be matched when there is just
+     * one request waiting
+     */
+    private CompletableFuture<Message> removeOnlyPendingReply() {
+        Iterator<Map.Entry<String, CompletableFuture<Message>>> pending = _pendingReplies.entrySet().iterator();
+        if (!pending.hasNext()) {
+            return null;
+        }
+        Map.Entry<String, CompletableFuture<Message>> onlyPending = pending.next();
+        if (pending.hasNext()) {
+            return null;
+        }
+        return _pendingReplies.remove(onlyPending.getKey(), onlyPending.getValue()) ? onlyPending.getValue() : null;
+    }
+
+    private Message createMessage() throws JMSException {
+        synchronized (_sessionLock) {
+            return _session.createMessage();
+        }
+    }
+
+    private TextMessage createTextMessage() throws JMSException {
+        synchronized (_sessionLock) {
+            return _session.createTextMessage();
+        }
+    }
+
+    private BytesMessage createBytesMessage() throws JMSException {
+        synchronized (_sessionLock) {
+            return _session.createBytesMessage();
+        }
+    }
+
+    /**
+     * Sends a request and waits for its reply
+     *
+     * @return the reply or <code>null</code> if there was none in time
+     */
+    private Message request(Message m) throws JMSException {
+        String correlationID = String.valueOf(_lastCorrelationID.incrementAndGet());
+        m.setJMSCorrelationID(correlationID);
+        m.setJMSReplyTo(_replyQueue);
+
+        CompletableFuture<Message> reply = new CompletableFuture<Message>();
+        _pendingReplies.put(correlationID, reply);
+        try {
+            //sendStatusItem the message
+            synchronized (_sessionLock) {
+                _producer.send(m);
+            }
+            return reply.get(REPLY_TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            //the replies are never completed exceptionally
+            return null;
+        } finally {
+            _pendingReplies.remove(correlationID);
+        }
+    }
+
     public <T> StatusItem<T> getStatusItem(String statusName) throws JMSException {
         //request the value
-        TextMessage m = _session.createTextMessage();
+        TextMessage m = createTextMessage();
         m.setStringProperty(JmsKeys.GW_STATUS_REQUEST_TYPE_PROPERTY, JmsKeys.GW_STATUS_REQUEST_TYPE_ITEM);
         m.setText(statusName);
 
+        return MessageBuilder.buildStatusItem(request(m));
+    }
 
-        //create a consumer to receive the answer
-        Destination tempQueue = _session.createTemporaryQueue();
-        m.setJMSReplyTo(tempQueue);
-        MessageConsumer tempConsumer = _session.createConsumer(tempQueue);
-
-        //sendStatusItem the message
-        _producer.send(m);
-
-        Message reply = tempConsumer.receive(1000); //1000 msec to answer.
-
-        tempConsumer.close();
+    /**
+     * Requests several status items in one round trip
+     *
+     * @param statusNames names of the status items
+     * @return the status items that exist, or <code>null</code> if there was no reply
+     */
+    public Collection<StatusItem> getStatusItems(Collection<String> statusNames) throws JMSException {
+        //request the values
+        BytesMessage m = createBytesMessage();
+        m.setStringProperty(JmsKeys.GW_STATUS_REQUEST_TYPE_PROPERTY, JmsKeys.GW_STATUS_REQUEST_TYPE_ITEMS);
+        m.writeInt(statusNames.size());
+        for (String statusName : statusNames) {
+            m.writeUTF(statusName);
+        }
 
-        return MessageBuilder.buildStatusItem(reply);
+        return MessageBuilder.buildMultipleStatusItems(request(m));
     }
 
     public Collection<StatusItem> getAllStatusItems() throws JMSException {
         //request the value
-        Message m = _session.createMessage();
+        Message m = createMessage();
         m.setStringProperty(JmsKeys.GW_STATUS_REQUEST_TYPE_PROPERTY, JmsKeys.GW_STATUS_REQUEST_TYPE_ALL);
 
+        return MessageBuilder.buildMultipleStatusItems(request(m));
+    }
 
-        //create a consumer to receive the answer
-        Destination tempQueue = _session.createTemporaryQueue();
-        m.setJMSReplyTo(tempQueue);
-        MessageConsumer tempConsumer = _session.createConsumer(tempQueue);
-
-        //sendStatusItem the message
-        _producer.send(m);
+    /**
+     * Requests the status items under a config path, e.g. gpi:ao
+     *
+     * @param prefix whole segments at the start of the names
+     */
+    public Collection<StatusItem> getStatusItemsByPrefix(String prefix) throws JMSException {
+        return queryStatusItems(JmsKeys.GW_STATUS_REQUEST_TYPE_PREFIX, prefix);
+    }
 
-        Message reply = tempConsumer.receive(1000); //1000 msec to answer.
+    /**
+     * Requests the status items whose names match a pattern of config path segments
+     * where * matches any one segment, e.g. gpi:*:temp
+     *
+     * @param pattern the pattern to match
+     */
+    public Collection<StatusItem> getStatusItemsByPattern(String pattern) throws JMSException {
+        return queryStatusItems(JmsKeys.GW_STATUS_REQUEST_TYPE_PATTERN, pattern);
+    }
 
-        tempConsumer.close();
+    private Collection<StatusItem> queryStatusItems(String requestType, String query) throws JMSException {
+        //request the value
+        TextMessage m = createTextMessage();
+        m.setStringProperty(JmsKeys.GW_STATUS_REQUEST_TYPE_PROPERTY, requestType);
+        m.setText(query);
 
-        return MessageBuilder.buildMultipleStatusItems(reply);
+        return MessageBuilder.buildMultipleStatusItems(request(m));
     }
 
-    public Set<String> getStatusNames() throws JMSException {
+    /**
+     * Requests the values a status item had at or after the given time, oldest first.
+     * The history is empty if the database doesn't keep one
+     *
+     * @param statusName name of the status item
+     * @param since time in milliseconds since the epoch
+     */
+    public Collection<StatusItem> getStatusHistory(String statusName, long since) throws JMSException {
         //request the value
-        Message m = _session.createMessage();
-        m.setStringProperty(JmsKeys.GW_STATUS_REQUEST_TYPE_PROPERTY, JmsKeys.GW_STATUS_REQUEST_TYPE_NAMES);
+        TextMessage m = createTextMessage();
+        m.setStringProperty(JmsKeys.GW_STATUS_REQUEST_TYPE_PROPERTY, JmsKeys.GW_STATUS_REQUEST_TYPE_HISTORY);
+        m.setLongProperty(JmsKeys.GW_STATUS_REQUEST_SINCE_PROPERTY, since);
+        m.setText(statusName);
 
-        //create a consumer to receive the answer
-        Destination tempQueue = _session.createTemporaryQueue();
-        m.setJMSReplyTo(tempQueue);
-        MessageConsumer tempConsumer = _session.createConsumer(tempQueue);
+        return MessageBuilder.buildMultipleStatusItems(request(m));
+    }
 
-        //sendStatusItem the message
-        _producer.send(m);
+    /**
+     * Requests the status items updated after a version of the status database
+     *
+     * @param version  version returned by a previous request, 0 to get all the items
+     * @param prefix   whole segments at the start of the names, empty for all the items
+     * @param maxItems maximum number of items in the reply
+     * @return the changes, or <code>null</code> if there was no reply
+     */
+    public StatusChanges getChangedSince(long version, String prefix, int maxItems) throws JMSException {
+        //request the value
+        Message m = createMessage();
+        m.setStringProperty(JmsKeys.GW_STATUS_REQUEST_TYPE_PROPERTY, JmsKeys.GW_STATUS_REQUEST_TYPE_CHANGES);
+        m.setLongProperty(JmsKeys.GW_STATUS_REQUEST_VERSION_PROPERTY, version);
+        m.setStringProperty(JmsKeys.GW_STATUS_REQUEST_PREFIX_PROPERTY, prefix);
+        m.setIntProperty(JmsKeys.GW_STATUS_REQUEST_MAX_ITEMS_PROPERTY, maxItems);
 
-        Message reply = tempConsumer.receive(1000); //1000 msec to answer.
+        return MessageBuilder.buildStatusChanges(request(m));
+    }
+
+    public Set<String> getStatusNames() throws JMSException {
+        //request the value
+        Message m = createMessage();
+        m.setStringProperty(JmsKeys.GW_STATUS_REQUEST_TYPE_PROPERTY, JmsKeys.GW_STATUS_REQUEST_TYPE_NAMES);
 
-        tempConsumer.close();
-        Set<String> names = MessageBuilder.buildStatusNames(reply);
+        Set<String> names = MessageBuilder.buildStatusNames(request(m));
         return names;
     }
 }
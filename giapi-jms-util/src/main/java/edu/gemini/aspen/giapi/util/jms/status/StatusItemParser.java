@@ -4,8 +4,6 @@ import edu.gemini.aspen.giapi.status.StatusItem;
 
 import javax.jms.BytesMessage;
 import javax.jms.JMSException;
-import java.util.Map;
-import java.util.HashMap;
 
 /**
  * Contains definition of different parsers to construct different types
@@ -79,11 +77,19 @@ public enum StatusItemParser {
     private StatusParser _parser;
 
 
-    private static Map<Integer, StatusItemParser> _types = new HashMap<>();
+    /**
+     * The parsers indexed by their code
+     */
+    private static final StatusItemParser[] _types;
 
     static {
+        int maxCode = 0;
+        for (StatusItemParser itemParser : StatusItemParser.values()) {
+            maxCode = Math.max(maxCode, itemParser._code);
+        }
+        _types = new StatusItemParser[maxCode + 1];
         for (StatusItemParser itemParser : StatusItemParser.values()) {
-            _types.put(itemParser._code, itemParser);
+            _types[itemParser._code] = itemParser;
         }
     }
 
@@ -102,7 +108,7 @@ public enum StatusItemParser {
     public static <T> StatusItem<T> parse(BytesMessage bm) throws IllegalArgumentException, JMSException {
         if (bm.getBodyLength() < 1) return null; // no content
         int code = bm.readByte();
-        StatusItemParser itemParser = _types.get(code);
+        StatusItemParser itemParser = code >= 0 && code < _types.length ? _types[code] : null;
         if (itemParser == null) throw new IllegalArgumentException("No Status Type associated to code " + code);
         return itemParser.parseStatus(bm);
     }
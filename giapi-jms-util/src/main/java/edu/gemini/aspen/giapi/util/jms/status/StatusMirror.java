@@ -0,0 +1,98 @@
+package edu.gemini.aspen.giapi.util.jms.status;
+
+import com.google.common.base.Preconditions;
+import edu.gemini.aspen.giapi.status.StatusChanges;
+import edu.gemini.aspen.giapi.status.StatusItem;
+
+import javax.jms.JMSException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * A local copy of the status items of the status database, or of those under a
+ * config path.
+ * <br>
+ * Each refresh only transfers the items updated since the previous one, the
+ * first refresh gets all the items in pages of a limited size. When the status
+ * database restarts, which changes its epoch, all the items are copied again
+ */
+public class StatusMirror {
+    private static final Logger LOG = Logger.getLogger(StatusMirror.class.getName());
+
+    private final StatusGetter _getter;
+    private final String _prefix;
+    private final int _pageSize;
+
+    private final ConcurrentHashMap<String, StatusItem> _items = new ConcurrentHashMap<String, StatusItem>();
+    private long _epoch = 0;
+    private long _version = 0;
+
+    /**
+     * @param getter   the getter used to send the requests
+     * @param prefix   config path of the items to copy, e.g. gpi:ao, empty for all the items
+     * @param pageSize maximum number of items received per request
+     */
+    public StatusMirror(StatusGetter getter, String prefix, int pageSize) {
+        Preconditions.checkArgument(getter != null, "Status getter cannot be null");
+        Preconditions.checkArgument(pageSize > 0, "Page size must be positive");
+        _getter = getter;
+        _prefix = prefix == null ? "" : prefix;
+        _pageSize = pageSize;
+    }
+
+    /**
+     * Brings the copy up to date
+     *
+     * @return the items that changed since the previous refresh
+     * @throws JMSException if there is a problem sending the requests
+     */
+    public synchronized List<StatusItem> refresh() throws JMSException {
+        List<StatusItem> changed = new ArrayList<StatusItem>();
+        while (true) {
+            StatusChanges changes = _getter.getChangedSince(_version, _prefix, _pageSize);
+            if (changes == null) {
+                LOG.warning("No reply to the status changes request, the copy may be incomplete");
+                return changed;
+            }
+            if (changes.getEpoch() != _epoch || changes.getVersion() < _version) {
+                _epoch = changes.getEpoch();
+                if (_version != 0) {
+                    // The status database restarted, the changes are relative to another version
+                    LOG.info("Status database restarted at version " + changes.getVersion() + ", copying all the items again");
+                    _items.clear();
+                    changed.clear();
+                    _version = 0;
+                    continue;
+                }
+            }
+            for (StatusItem item : changes.getItems()) {
+                _items.put(item.getName(), item);
+            }
+            changed.addAll(changes.getItems());
+            _version = changes.getVersion();
+            if (changes.isComplete()) {
+                return changed;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> StatusItem<T> getStatusItem(String name) {
+        return _items.get(name);
+    }
+
+    public Collection<StatusItem> getAll() {
+        return Collections.unmodifiableCollection(_items.values());
+    }
+
+    /**
+     * @return the version of the status database the copy is up to date with
+     */
+    public synchronized long getVersion() {
+        return _version;
+    }
+}
@@ -8,8 +8,10 @@ import edu.gemini.aspen.giapi.commands.Configuration;
 import edu.gemini.aspen.giapi.commands.DefaultConfiguration;
 import edu.gemini.aspen.giapi.commands.HandlerResponse;
 import edu.gemini.aspen.giapi.commands.SequenceCommand;
+import edu.gemini.aspen.giapi.status.StatusChanges;
 import edu.gemini.aspen.giapi.status.StatusItem;
 import edu.gemini.aspen.giapi.status.impl.BasicStatus;
+import org.apache.activemq.command.ActiveMQBytesMessage;
 import org.apache.activemq.command.ActiveMQMapMessage;
 import org.junit.Before;
 import org.junit.Test;
@@ -177,6 +179,52 @@ public class MessageBuilderTest {
         assertTrue(MessageBuilder.InvalidActivityMessage("msg").contains("msg"));
     }
 
+    @Test
+    public void testBuildEmptyStatusItemsMessage() throws JMSException {
+        BytesMessage mockedMessage = mock(BytesMessage.class);
+        when(_mockedSession.createBytesMessage()).thenReturn(mockedMessage);
+
+        MessageBuilder.buildStatusItemsMessage(_mockedSession, new ArrayList<StatusItem>());
+
+        verify(mockedMessage).writeInt(0);
+    }
+
+    @Test
+    public void testBuildStatusItemsMessage() throws JMSException {
+        List<StatusItem> history = new ArrayList<StatusItem>();
+        history.add(new BasicStatus<Integer>("X.val1", 1, new Date(1000)));
+        history.add(new BasicStatus<Integer>("X.val1", 2, new Date(2000)));
+
+        BytesMessage mockedMessage = mock(BytesMessage.class);
+        when(_mockedSession.createBytesMessage()).thenReturn(mockedMessage);
+
+        MessageBuilder.buildStatusItemsMessage(_mockedSession, history);
+
+        InOrder inOrder = inOrder(mockedMessage);
+        inOrder.verify(mockedMessage).writeInt(2);
+        inOrder.verify(mockedMessage).writeInt(1);
+        inOrder.verify(mockedMessage).writeLong(1000);
+        inOrder.verify(mockedMessage).writeInt(2);
+        inOrder.verify(mockedMessage).writeLong(2000);
+    }
+
+    @Test
+    public void testStatusChangesRoundTrip() throws JMSException {
+        List<StatusItem> items = new ArrayList<StatusItem>();
+        items.add(new BasicStatus<Integer>("X.val1", 1, new Date(1000)));
+        items.add(new BasicStatus<String>("X.val2", "value", new Date(2000)));
+        when(_mockedSession.createBytesMessage()).thenReturn(new ActiveMQBytesMessage());
+
+        ActiveMQBytesMessage message = (ActiveMQBytesMessage) MessageBuilder.buildStatusChangesMessage(_mockedSession, new StatusChanges(7, 12, items, false));
+        message.reset();
+        StatusChanges changes = MessageBuilder.buildStatusChanges(message);
+
+        assertEquals(7, changes.getEpoch());
+        assertEquals(12, changes.getVersion());
+        assertFalse(changes.isComplete());
+        assertEquals(items, changes.getItems());
+    }
+
     @Test
     public void testBuildStatusNames() throws JMSException {
         BytesMessage m = mock(BytesMessage.class);
@@ -0,0 +1,200 @@
+package edu.gemini.aspen.giapi.util.jms.status;
+
+import com.google.common.base.Ticker;
+import edu.gemini.aspen.giapi.status.AlarmCause;
+import edu.gemini.aspen.giapi.status.AlarmSeverity;
+import edu.gemini.aspen.giapi.status.AlarmState;
+import edu.gemini.aspen.giapi.status.StatusItem;
+import edu.gemini.aspen.giapi.status.impl.AlarmStatus;
+import edu.gemini.aspen.giapi.status.impl.BasicStatus;
+import edu.gemini.aspen.giapi.util.jms.MessageBuilder;
+import org.apache.activemq.command.ActiveMQBytesMessage;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.jms.BytesMessage;
+import javax.jms.JMSException;
+import javax.jms.Session;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class StatusBatchCodecTest {
+    private static final Logger LOG = Logger.getLogger(StatusBatchCodecTest.class.getName());
+
+    private Session session;
+
+    @Before
+    public void setUp() throws JMSException {
+        session = mock(Session.class);
+        when(session.createBytesMessage()).thenAnswer(invocation -> new ActiveMQBytesMessage());
+    }
+
+    private BytesMessage encode(StatusBatchEncoder encoder, List<? extends StatusItem> items) throws JMSException {
+        ActiveMQBytesMessage message = (ActiveMQBytesMessage) encoder.encode(session, items);
+        message.reset();
+        return message;
+    }
+
+    @Test
+    public void testRoundTrip() throws JMSException {
+        List<StatusItem> items = new ArrayList<StatusItem>();
+        items.add(new BasicStatus<Integer>("gpi:int", 3, new Date(1000)));
+        items.add(new BasicStatus<Double>("gpi:double", 2.5, new Date(1001)));
+        items.add(new BasicStatus<Float>("gpi:float", 1.5f, new Date(1002)));
+        items.add(new BasicStatus<String>("gpi:string", "value", new Date(1003)));
+        items.add(new AlarmStatus<Integer>("gpi:alarm", 1, new Date(1004), new AlarmState(AlarmSeverity.ALARM_WARNING, AlarmCause.ALARM_CAUSE_HI, "high")));
+
+        BytesMessage message = encode(new StatusBatchEncoder("producer"), items);
+        assertTrue(StatusBatchDecoder.isStatusBatch(message));
+        StatusBatch batch = new StatusBatchDecoder().decode(message);
+
+        assertEquals(items.size(), batch.size());
+        for (int i = 0; i < items.size(); i++) {
+            assertEquals(items.get(i), batch.getItem(i));
+        }
+        assertTrue(batch.getItem(4) instanceof AlarmStatus);
+        assertEquals(3.0, batch.getDoubleValue(0), 0);
+        assertEquals(1000, batch.getTimestamp(0));
+        assertFalse(batch.isNumeric(3));
+    }
+
+    @Test
+    public void testSingleItemMessagesAreNotBatches() throws JMSException {
+        when(session.createBytesMessage()).thenReturn(new ActiveMQBytesMessage());
+        assertFalse(StatusBatchDecoder.isStatusBatch(MessageBuilder.buildStatusItemMessage(session, new BasicStatus<Integer>("gpi:int", 3))));
+    }
+
+    @Test
+    public void testNamesAreOnlySentOnce() throws JMSException {
+        StatusBatchEncoder encoder = new StatusBatchEncoder("producer");
+        StatusBatchDecoder decoder = new StatusBatchDecoder();
+        List<StatusItem<Double>> items = Collections.singletonList(new BasicStatus<Double>("gpi:a:rather:long:status:item:name", 1.0));
+
+        BytesMessage first = encode(encoder, items);
+        BytesMessage second = encode(encoder, items);
+        assertTrue(second.getBodyLength() < first.getBodyLength());
+
+        decoder.decode(first);
+        StatusBatch batch = decoder.decode(second);
+        assertEquals("gpi:a:rather:long:status:item:name", batch.getName(0));
+    }
+
+    @Test
+    public void testLateConsumerLearnsTheNamesWhenTheDictionaryIsRepeated() throws JMSException {
+        StatusBatchEncoder encoder = new StatusBatchEncoder("producer", 3);
+        List<StatusItem<Integer>> items = Collections.singletonList(new BasicStatus<Integer>("gpi:int", 1));
+        encode(encoder, items);
+
+        StatusBatchDecoder lateDecoder = new StatusBatchDecoder();
+        assertEquals(0, lateDecoder.decode(encode(encoder, items)).size());
+        assertEquals(1, lateDecoder.getSkippedItems());
+
+        StatusBatch batch = lateDecoder.decode(encode(encoder, items));
+        assertEquals(1, batch.size());
+        assertEquals("gpi:int", batch.getName(0));
+    }
+
+    @Test
+    public void testDictionaryIsRepeatedAfterThePeriod() throws JMSException {
+        final AtomicLong time = new AtomicLong();
+        StatusBatchEncoder encoder = new StatusBatchEncoder("producer", 100, 10, TimeUnit.SECONDS, new Ticker() {
+            @Override
+            public long read() {
+                return time.get();
+            }
+        });
+        List<StatusItem<Integer>> items = Collections.singletonList(new BasicStatus<Integer>("gpi:int", 1));
+        encode(encoder, items);
+
+        StatusBatchDecoder lateDecoder = new StatusBatchDecoder();
+        assertEquals(0, lateDecoder.decode(encode(encoder, items)).size());
+
+        time.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        StatusBatch batch = lateDecoder.decode(encode(encoder, items));
+        assertEquals(1, batch.size());
+        assertEquals("gpi:int", batch.getName(0));
+    }
+
+    @Test
+    public void testRestartedProducerResetsTheNames() throws JMSException {
+        StatusBatchDecoder decoder = new StatusBatchDecoder();
+        decoder.decode(encode(new StatusBatchEncoder("producer"), Collections.singletonList(new BasicStatus<Integer>("gpi:a", 1))));
+
+        StatusBatch batch = decoder.decode(encode(new StatusBatchEncoder("producer"), Collections.singletonList(new BasicStatus<Integer>("gpi:b", 2))));
+
+        assertEquals("gpi:b", batch.getName(0));
+    }
+
+    @Test
+    public void testUnsupportedValuesAreSkipped() throws JMSException {
+        List<StatusItem> items = new ArrayList<StatusItem>();
+        items.add(new BasicStatus<Long>("gpi:long", 1L));
+        items.add(new BasicStatus<Integer>("gpi:int", 1));
+
+        StatusBatch batch = new StatusBatchDecoder().decode(encode(new StatusBatchEncoder("producer"), items));
+
+        assertEquals(1, batch.size());
+        assertEquals("gpi:int", batch.getName(0));
+    }
+
+    /**
+     * Compares the size and decoding time of sending items one per message against batches
+     */
+    @Test
+    public void testBatchesAreSmallerAndFasterToDecode() throws JMSException {
+        int names = 1000;
+        int rounds = 200;
+        List<StatusItem<Double>> items = new ArrayList<StatusItem<Double>>();
+        for (int i = 0; i < names; i++) {
+            items.add(new BasicStatus<Double>("gpi:instrument:subsystem:status" + i, (double) i));
+        }
+
+        List<BytesMessage> singleMessages = new ArrayList<BytesMessage>();
+        long singleBytes = 0;
+        for (StatusItem<Double> item : items) {
+            ActiveMQBytesMessage message = (ActiveMQBytesMessage) MessageBuilder.buildStatusItemMessage(session, item);
+            message.reset();
+            singleBytes += message.getBodyLength();
+            singleMessages.add(message);
+        }
+        StatusBatchEncoder encoder = new StatusBatchEncoder("producer");
+        StatusBatchDecoder decoder = new StatusBatchDecoder();
+        decoder.decode(encode(encoder, items));
+        ActiveMQBytesMessage batchMessage = (ActiveMQBytesMessage) encode(encoder, items);
+        long batchBytes = batchMessage.getBodyLength();
+
+        long singleTime = 0;
+        long batchTime = 0;
+        StatusBatch batch = new StatusBatch();
+        for (int round = 0; round < rounds; round++) {
+            long start = System.nanoTime();
+            for (BytesMessage message : singleMessages) {
+                message.reset();
+                assertNotNull(MessageBuilder.buildStatusItem(message));
+            }
+            singleTime += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            batchMessage.reset();
+            decoder.decode(batchMessage, batch);
+            for (int i = 0; i < batch.size(); i++) {
+                assertEquals(i, batch.getDoubleValue(i), 0);
+            }
+            batchTime += System.nanoTime() - start;
+        }
+
+        LOG.info("Status items one per message: " + singleBytes + " bytes, " + singleTime / 1000000 + " [ms] to decode " + rounds + " times; " +
+                "batched: " + batchBytes + " bytes, " + batchTime / 1000000 + " [ms]");
+        assertEquals(names, batch.size());
+        assertTrue(batchBytes < singleBytes);
+    }
+}
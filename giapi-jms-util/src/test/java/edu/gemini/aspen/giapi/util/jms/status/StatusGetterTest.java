@@ -1,17 +1,42 @@
 package edu.gemini.aspen.giapi.util.jms.status;
 
+import edu.gemini.aspen.giapi.status.StatusItem;
+import edu.gemini.aspen.giapi.status.impl.BasicStatus;
+import edu.gemini.aspen.giapi.util.jms.JmsKeys;
+import edu.gemini.aspen.giapi.util.jms.MessageBuilder;
 import edu.gemini.jms.api.JmsProvider;
+import org.apache.activemq.command.ActiveMQBytesMessage;
+import org.apache.activemq.command.ActiveMQTempQueue;
+import org.apache.activemq.command.ActiveMQTextMessage;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 
 import javax.jms.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.AdditionalMatchers.or;
 import static org.mockito.Mockito.*;
 
 public class StatusGetterTest {
-    @Test
-    public void testGetStatusNames() throws JMSException {
+    private Session session;
+    private Session replySession;
+    private TemporaryQueue tempQueue;
+    private MessageProducer producer;
+    private MessageConsumer consumer;
+
+    private StatusGetter startGetter() throws JMSException {
         StatusGetter statusGetter = new StatusGetter("Test getter");
         JmsProvider provider = mock(JmsProvider.class);
         ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
@@ -20,25 +45,202 @@ public class StatusGetterTest {
         Connection connection = mock(Connection.class);
         when(connectionFactory.createConnection()).thenReturn(connection);
 
-        Session session = mock(Session.class);
-        when(connection.createSession(anyBoolean(), anyInt())).thenReturn(session);
+        session = mock(Session.class);
+        replySession = mock(Session.class);
+        when(connection.createSession(anyBoolean(), anyInt())).thenReturn(session, replySession);
 
         Queue queue = mock(Queue.class);
         when(session.createQueue(anyString())).thenReturn(queue);
-        TemporaryQueue tempQueue = mock(TemporaryQueue.class);
-        when(session.createTemporaryQueue()).thenReturn(tempQueue);
         Topic topic = mock(Topic.class);
         when(session.createTopic(anyString())).thenReturn(topic);
 
         Message message = mock(Message.class);
         when(session.createMessage()).thenReturn(message);
-        MessageProducer producer = mock(MessageProducer.class);
+        when(session.createTextMessage()).thenAnswer(invocation -> new ActiveMQTextMessage());
+        when(session.createBytesMessage()).thenAnswer(invocation -> new ActiveMQBytesMessage());
+        producer = mock(MessageProducer.class);
         when(session.createProducer(or(any(Destination.class), isNull()))).thenReturn(producer);
-        MessageConsumer consumer = mock(MessageConsumer.class);
-        when(session.createConsumer(any(Destination.class))).thenReturn(consumer);
+
+        tempQueue = spy(new ActiveMQTempQueue("replies"));
+        doNothing().when(tempQueue).delete();
+        when(replySession.createTemporaryQueue()).thenReturn(tempQueue);
+        consumer = mock(MessageConsumer.class);
+        when(replySession.createConsumer(any(Destination.class))).thenReturn(consumer);
 
         statusGetter.startJms(provider);
+        return statusGetter;
+    }
+
+    private MessageListener replyListener() throws JMSException {
+        ArgumentCaptor<MessageListener> listener = ArgumentCaptor.forClass(MessageListener.class);
+        verify(consumer).setMessageListener(listener.capture());
+        return listener.getValue();
+    }
+
+    private static Message reply(Message request, List<StatusItem> items) throws JMSException {
+        Session replySession = mock(Session.class);
+        when(replySession.createBytesMessage()).thenReturn(new ActiveMQBytesMessage());
+        ActiveMQBytesMessage reply = (ActiveMQBytesMessage) MessageBuilder.buildStatusItemsMessage(replySession, items);
+        reply.setJMSCorrelationID(request.getJMSCorrelationID());
+        reply.reset();
+        return reply;
+    }
+
+    private static Message reply(Message request, StatusItem item) throws JMSException {
+        Session replySession = mock(Session.class);
+        when(replySession.createBytesMessage()).thenReturn(new ActiveMQBytesMessage());
+        ActiveMQBytesMessage reply = (ActiveMQBytesMessage) MessageBuilder.buildStatusItemMessage(replySession, item);
+        reply.setJMSCorrelationID(request.getJMSCorrelationID());
+        reply.reset();
+        return reply;
+    }
+
+    @Test
+    public void testGetStatusNames() throws JMSException {
+        StatusGetter statusGetter = startGetter();
 
         assertTrue(statusGetter.getStatusNames().isEmpty());
     }
+
+    @Test
+    public void testRepliesShareOneConsumer() throws JMSException {
+        StatusGetter statusGetter = startGetter();
+        MessageListener listener = replyListener();
+        doAnswer(invocation -> {
+            Message request = invocation.getArgument(0);
+            listener.onMessage(reply(request, new BasicStatus<Integer>(((TextMessage) request).getText(), 1)));
+            return null;
+        }).when(producer).send(any(Message.class));
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("gpi:" + i, statusGetter.getStatusItem("gpi:" + i).getName());
+        }
+
+        verify(replySession, times(1)).createTemporaryQueue();
+        verify(replySession, times(1)).createConsumer(any(Destination.class));
+        // The replies are received on their own session
+        verify(session, never()).createConsumer(any(Destination.class));
+    }
+
+    @Test
+    public void testStopDeletesTheReplyQueue() throws JMSException {
+        StatusGetter statusGetter = startGetter();
+
+        statusGetter.stopJms();
+
+        InOrder inOrder = inOrder(consumer, tempQueue, replySession);
+        inOrder.verify(consumer).close();
+        inOrder.verify(tempQueue).delete();
+        inOrder.verify(replySession).close();
+    }
+
+    @Test
+    public void testUncorrelatedReplyToTheOnlyPendingRequest() throws JMSException {
+        StatusGetter statusGetter = startGetter();
+        MessageListener listener = replyListener();
+        doAnswer(invocation -> {
+            Message reply = reply(invocation.getArgument(0), new BasicStatus<Integer>("gpi:a", 1));
+            reply.setJMSCorrelationID(null);
+            listener.onMessage(reply);
+            return null;
+        }).when(producer).send(any(Message.class));
+
+        assertEquals("gpi:a", statusGetter.getStatusItem("gpi:a").getName());
+    }
+
+    @Test
+    public void testMissingStatusItem() throws JMSException {
+        StatusGetter statusGetter = startGetter();
+        MessageListener listener = replyListener();
+        doAnswer(invocation -> {
+            listener.onMessage(reply(invocation.getArgument(0), (StatusItem) null));
+            return null;
+        }).when(producer).send(any(Message.class));
+
+        assertNull(statusGetter.getStatusItem("gpi:missing"));
+    }
+
+    @Test
+    public void testGetStatusItemsInOneRequest() throws JMSException {
+        StatusGetter statusGetter = startGetter();
+        MessageListener listener = replyListener();
+        doAnswer(invocation -> {
+            BytesMessage request = invocation.getArgument(0);
+            assertEquals(JmsKeys.GW_STATUS_REQUEST_TYPE_ITEMS, request.getStringProperty(JmsKeys.GW_STATUS_REQUEST_TYPE_PROPERTY));
+            ((ActiveMQBytesMessage) request).reset();
+            List<StatusItem> items = new ArrayList<StatusItem>();
+            int count = request.readInt();
+            for (int i = 0; i < count; i++) {
+                items.add(new BasicStatus<Integer>(request.readUTF(), i));
+            }
+            listener.onMessage(reply(request, items));
+            return null;
+        }).when(producer).send(any(Message.class));
+
+        List<String> names = new ArrayList<String>();
+        names.add("gpi:a");
+        names.add("gpi:b");
+        Collection<StatusItem> items = statusGetter.getStatusItems(names);
+
+        assertEquals(2, items.size());
+        verify(producer, times(1)).send(any(Message.class));
+    }
+
+    @Test
+    public void testPendingRequestsAreMatchedByCorrelationID() throws Exception {
+        StatusGetter statusGetter = startGetter();
+        MessageListener listener = replyListener();
+        BlockingQueue<TextMessage> requests = new LinkedBlockingQueue<TextMessage>();
+        doAnswer(invocation -> {
+            requests.add(invocation.getArgument(0));
+            return null;
+        }).when(producer).send(any(Message.class));
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<StatusItem<Integer>> a = executor.submit(() -> statusGetter.<Integer>getStatusItem("gpi:a"));
+            Future<StatusItem<Integer>> b = executor.submit(() -> statusGetter.<Integer>getStatusItem("gpi:b"));
+            TextMessage first = requests.poll(1, TimeUnit.SECONDS);
+            TextMessage second = requests.poll(1, TimeUnit.SECONDS);
+
+            // Reply in the opposite order
+            listener.onMessage(reply(second, new BasicStatus<Integer>(second.getText(), 2)));
+            listener.onMessage(reply(first, new BasicStatus<Integer>(first.getText(), 1)));
+
+            assertEquals("gpi:a", a.get().getName());
+            assertEquals("gpi:b", b.get().getName());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testBatchRequestGetsAllTheItems() throws Exception {
+        StatusGetter statusGetter = startGetter();
+        MessageListener listener = replyListener();
+        doAnswer(invocation -> {
+            BytesMessage request = invocation.getArgument(0);
+            ((ActiveMQBytesMessage) request).reset();
+            List<StatusItem> items = new ArrayList<StatusItem>();
+            int count = request.readInt();
+            for (int i = 0; i < count; i++) {
+                items.add(new BasicStatus<Integer>(request.readUTF(), 1));
+            }
+            listener.onMessage(reply(request, items));
+            return null;
+        }).when(producer).send(any(Message.class));
+
+        List<String> names = new ArrayList<String>();
+        for (int i = 0; i < 100; i++) {
+            names.add("gpi:item" + i);
+        }
+        Collection<StatusItem> items = statusGetter.getStatusItems(names);
+
+        verify(producer, times(1)).send(any(Message.class));
+        List<String> received = new ArrayList<String>();
+        for (StatusItem item : items) {
+            received.add(item.getName());
+        }
+        assertEquals(names, received);
+    }
 }
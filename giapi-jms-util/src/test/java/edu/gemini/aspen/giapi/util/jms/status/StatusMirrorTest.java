@@ -0,0 +1,102 @@
+package edu.gemini.aspen.giapi.util.jms.status;
+
+import edu.gemini.aspen.giapi.status.StatusChanges;
+import edu.gemini.aspen.giapi.status.StatusItem;
+import edu.gemini.aspen.giapi.status.impl.BasicStatus;
+import org.junit.Test;
+
+import javax.jms.JMSException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class StatusMirrorTest {
+    private final StatusItem itemA = new BasicStatus<Integer>("gpi:a", 1);
+    private final StatusItem itemB = new BasicStatus<Integer>("gpi:b", 1);
+    private final StatusItem newerItemA = new BasicStatus<Integer>("gpi:a", 2);
+
+    private static StatusChanges changes(long version, boolean complete, StatusItem... items) {
+        return changes(1, version, complete, items);
+    }
+
+    private static StatusChanges changes(long epoch, long version, boolean complete, StatusItem... items) {
+        return new StatusChanges(epoch, version, Arrays.asList(items), complete);
+    }
+
+    @Test
+    public void testFirstRefreshIsPaged() throws JMSException {
+        StatusGetter getter = mock(StatusGetter.class);
+        when(getter.getChangedSince(0, "gpi:", 1)).thenReturn(changes(1, false, itemA));
+        when(getter.getChangedSince(1, "gpi:", 1)).thenReturn(changes(2, true, itemB));
+        StatusMirror mirror = new StatusMirror(getter, "gpi:", 1);
+
+        List<StatusItem> changed = mirror.refresh();
+
+        assertEquals(Arrays.asList(itemA, itemB), changed);
+        assertEquals(2, mirror.getVersion());
+        assertEquals(2, mirror.getAll().size());
+    }
+
+    @Test
+    public void testRefreshOnlyGetsTheChanges() throws JMSException {
+        StatusGetter getter = mock(StatusGetter.class);
+        when(getter.getChangedSince(0, "", 10)).thenReturn(changes(2, true, itemA, itemB));
+        when(getter.getChangedSince(2, "", 10)).thenReturn(changes(3, true, newerItemA));
+        StatusMirror mirror = new StatusMirror(getter, null, 10);
+        mirror.refresh();
+
+        List<StatusItem> changed = mirror.refresh();
+
+        assertEquals(Collections.singletonList(newerItemA), changed);
+        assertEquals(newerItemA, mirror.getStatusItem("gpi:a"));
+        assertEquals(2, mirror.getAll().size());
+    }
+
+    @Test
+    public void testRestartedDatabaseIsCopiedAgain() throws JMSException {
+        StatusGetter getter = mock(StatusGetter.class);
+        when(getter.getChangedSince(0, "", 10)).thenReturn(changes(5, true, itemA, itemB), changes(1, true, newerItemA));
+        when(getter.getChangedSince(5, "", 10)).thenReturn(changes(1, true));
+        StatusMirror mirror = new StatusMirror(getter, "", 10);
+        mirror.refresh();
+
+        List<StatusItem> changed = mirror.refresh();
+
+        assertEquals(Collections.singletonList(newerItemA), changed);
+        assertEquals(1, mirror.getVersion());
+        assertNull(mirror.getStatusItem("gpi:b"));
+    }
+
+    @Test
+    public void testNewEpochIsCopiedAgain() throws JMSException {
+        StatusGetter getter = mock(StatusGetter.class);
+        when(getter.getChangedSince(0, "", 10)).thenReturn(changes(1, 2, true, itemA, itemB), changes(2, 7, true, newerItemA));
+        // The restarted database has already gone past the version of the copy
+        when(getter.getChangedSince(2, "", 10)).thenReturn(changes(2, 7, true, newerItemA));
+        StatusMirror mirror = new StatusMirror(getter, "", 10);
+        mirror.refresh();
+
+        List<StatusItem> changed = mirror.refresh();
+
+        assertEquals(Collections.singletonList(newerItemA), changed);
+        assertEquals(7, mirror.getVersion());
+        assertNull(mirror.getStatusItem("gpi:b"));
+    }
+
+    @Test
+    public void testNoReplyKeepsTheCopy() throws JMSException {
+        StatusGetter getter = mock(StatusGetter.class);
+        when(getter.getChangedSince(0, "", 10)).thenReturn(changes(2, true, itemA, itemB));
+        StatusMirror mirror = new StatusMirror(getter, "", 10);
+        mirror.refresh();
+
+        assertTrue(mirror.refresh().isEmpty());
+        assertEquals(2, mirror.getVersion());
+    }
+}
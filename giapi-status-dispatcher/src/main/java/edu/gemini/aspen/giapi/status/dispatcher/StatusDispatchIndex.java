@@ -0,0 +1,179 @@
+package edu.gemini.aspen.giapi.status.dispatcher;
+
+import com.google.common.collect.ImmutableList;
+import edu.gemini.aspen.giapi.commands.ConfigPath;
+import edu.gemini.aspen.giapi.status.dispatcher.filters.ConfigPathFilter;
+import edu.gemini.aspen.giapi.status.dispatcher.filters.ListFilter;
+import edu.gemini.aspen.giapi.status.dispatcher.filters.RegexFilter;
+import edu.gemini.aspen.giapi.status.dispatcher.filters.TimedListFilter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An immutable index of the handlers registered in the {@link StatusDispatcher}.
+ * <br>
+ * The filters known to depend only on the item name are indexed: a {@link ListFilter}
+ * by its names, a {@link ConfigPathFilter} by its path and a {@link RegexFilter} is
+ * evaluated once per item name. The handlers for a name are resolved the first time
+ * an item with that name arrives and kept until the index is replaced.
+ * <br>
+ * Other filters, e.g. the stateful {@link TimedListFilter}, are still called for
+ * every item, but a {@link TimedListFilter} is only called for the names in its list.
+ */
+final class StatusDispatchIndex {
+    private static final int MAX_CACHED_NAMES = 100000;
+    static final StatusDispatchIndex EMPTY = new StatusDispatchIndex(ImmutableList.<FilteredStatusHandler>of());
+
+    /**
+     * A registered handler with the filter it had when it was registered
+     */
+    static final class Entry {
+        private final FilteredStatusHandler handler;
+        private final StatusItemFilter filter;
+        private final int order;
+
+        private Entry(FilteredStatusHandler handler, StatusItemFilter filter, int order) {
+            this.handler = handler;
+            this.filter = filter;
+            this.order = order;
+        }
+
+        FilteredStatusHandler getHandler() {
+            return handler;
+        }
+
+        StatusItemFilter getFilter() {
+            return filter;
+        }
+
+        /**
+         * @return true if the filter has to be called to know if the item is accepted
+         */
+        boolean requiresMatch() {
+            return !isNameFilter(filter);
+        }
+    }
+
+    private static final Comparator<Entry> REGISTRATION_ORDER = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry e1, Entry e2) {
+            return Integer.compare(e1.order, e2.order);
+        }
+    };
+
+    private final List<FilteredStatusHandler> handlers;
+    private final Map<String, List<Entry>> byName = new HashMap<String, List<Entry>>();
+    private final Map<ConfigPath, List<Entry>> byPath = new HashMap<ConfigPath, List<Entry>>();
+    private final List<Entry> byRegex = new ArrayList<Entry>();
+    private final List<Entry> unindexed = new ArrayList<Entry>();
+    private final ConcurrentMap<String, List<Entry>> resolved = new ConcurrentHashMap<String, List<Entry>>();
+
+    private StatusDispatchIndex(List<FilteredStatusHandler> handlers) {
+        this.handlers = handlers;
+        int order = 0;
+        for (FilteredStatusHandler handler : handlers) {
+            index(new Entry(handler, handler.getFilter(), order++));
+        }
+    }
+
+    // Only the exact filter classes are trusted to depend on the name alone, a subclass could override match
+    private static boolean isNameFilter(StatusItemFilter filter) {
+        return filter.getClass() == ListFilter.class
+                || filter.getClass() == ConfigPathFilter.class
+                || filter.getClass() == RegexFilter.class;
+    }
+
+    private void index(Entry entry) {
+        StatusItemFilter filter = entry.filter;
+        if (filter.getClass() == ListFilter.class || filter.getClass() == TimedListFilter.class) {
+            for (String name : ((ListFilter) filter).getNames()) {
+                add(byName, name, entry);
+            }
+        } else if (filter.getClass() == ConfigPathFilter.class) {
+            add(byPath, ((ConfigPathFilter) filter).getConfigPath(), entry);
+        } else if (filter.getClass() == RegexFilter.class) {
+            byRegex.add(entry);
+        } else {
+            unindexed.add(entry);
+        }
+    }
+
+    private static <K> void add(Map<K, List<Entry>> index, K key, Entry entry) {
+        List<Entry> entries = index.get(key);
+        if (entries == null) {
+            entries = new ArrayList<Entry>();
+            index.put(key, entries);
+        }
+        entries.add(entry);
+    }
+
+    /**
+     * @return a new index with the given handler added
+     */
+    StatusDispatchIndex withHandler(FilteredStatusHandler handler) {
+        return new StatusDispatchIndex(ImmutableList.<FilteredStatusHandler>builder().addAll(handlers).add(handler).build());
+    }
+
+    /**
+     * @return a new index without the given handler, or this index if it wasn't registered
+     */
+    StatusDispatchIndex withoutHandler(FilteredStatusHandler handler) {
+        List<FilteredStatusHandler> newHandlers = new ArrayList<FilteredStatusHandler>(handlers);
+        if (!newHandlers.remove(handler)) {
+            return this;
+        }
+        return new StatusDispatchIndex(ImmutableList.copyOf(newHandlers));
+    }
+
+    List<FilteredStatusHandler> getHandlers() {
+        return handlers;
+    }
+
+    /**
+     * Returns the handlers that may accept items with the given name in registration order.
+     * Entries that {@link Entry#requiresMatch()} must still check the item with their filter
+     */
+    List<Entry> entriesFor(String name) {
+        List<Entry> entries = resolved.get(name);
+        if (entries == null) {
+            entries = resolve(name);
+            if (resolved.size() < MAX_CACHED_NAMES) {
+                resolved.putIfAbsent(name, entries);
+            }
+        }
+        return entries;
+    }
+
+    private List<Entry> resolve(String name) {
+        List<Entry> entries = new ArrayList<Entry>(unindexed);
+        List<Entry> named = byName.get(name);
+        if (named != null) {
+            entries.addAll(named);
+        }
+        if (!byPath.isEmpty()) {
+            for (ConfigPath path = new ConfigPath(name); !path.equals(ConfigPath.EMPTY_PATH); path = path.getParent()) {
+                List<Entry> inPath = byPath.get(path);
+                if (inPath != null) {
+                    entries.addAll(inPath);
+                }
+            }
+        }
+        for (Entry entry : byRegex) {
+            if (((RegexFilter) entry.filter).matches(name)) {
+                entries.add(entry);
+            }
+        }
+        if (entries.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Collections.sort(entries, REGISTRATION_ORDER);
+        return ImmutableList.copyOf(entries);
+    }
+}
@@ -3,9 +3,7 @@ package edu.gemini.aspen.giapi.status.dispatcher;
 import edu.gemini.aspen.giapi.status.StatusHandler;
 import edu.gemini.aspen.giapi.status.StatusItem;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -21,14 +19,17 @@ import java.util.logging.Logger;
  * The Status Dispatcher will map status items names to specific handlers to
  * be invoked. It will provide mechanisms for client code to register these
  * handlers and associate them with particular status items.
+ * <br>
+ * The registered handlers are kept in an immutable index that is replaced when
+ * a handler is bound or unbound, so updates are dispatched without locking and
+ * only reach the handlers whose filters can match the item. The filter of a
+ * handler is read once, when it is bound.
  */
 public class StatusDispatcher implements StatusHandler {
 
     private final static Logger LOG = Logger.getLogger(StatusDispatcher.class.getName());
 
-    private final List<FilteredStatusHandler> _handlers = new ArrayList<FilteredStatusHandler>();
-
-    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock(true);
+    private volatile StatusDispatchIndex _index = StatusDispatchIndex.EMPTY;
 
     @Override
     public String getName() {
@@ -37,10 +38,10 @@ public class StatusDispatcher implements StatusHandler {
 
     @Override
     public <T> void update(StatusItem<T> item) {
-        for (FilteredStatusHandler handler : _handlers) {
-            if (handler.getFilter().match(item)) {
+        for (StatusDispatchIndex.Entry entry : _index.entriesFor(item.getName())) {
+            if (!entry.requiresMatch() || entry.getFilter().match(item)) {
                 try {
-                    handler.update(item);
+                    entry.getHandler().update(item);
                 } catch (Exception ex) {
                     LOG.log(Level.SEVERE, "Exception updating a FilteredStatusHandler", ex);
                 }
@@ -48,20 +49,23 @@ public class StatusDispatcher implements StatusHandler {
         }
     }
 
-    public void bindStatusHandler(FilteredStatusHandler handler) {
-        lock.writeLock().lock();
-        _handlers.add(handler);
-        lock.writeLock().unlock();
+    public synchronized void bindStatusHandler(FilteredStatusHandler handler) {
+        _index = _index.withHandler(handler);
         LOG.info("Status Handler Registered at Dispatcher: " + handler);
     }
 
-    public void unbindStatusHandler(FilteredStatusHandler handler) {
-        lock.writeLock().lock();
-        _handlers.remove(handler);
-        lock.writeLock().unlock();
+    public synchronized void unbindStatusHandler(FilteredStatusHandler handler) {
+        _index = _index.withoutHandler(handler);
         LOG.info("Removed Status Handler from Dispatcher: " + handler);
     }
 
+    /**
+     * @return the handlers currently registered, in registration order
+     */
+    public List<FilteredStatusHandler> getStatusHandlers() {
+        return _index.getHandlers();
+    }
+
     @Override
     public String toString() {
         return "StatusDispatcher";
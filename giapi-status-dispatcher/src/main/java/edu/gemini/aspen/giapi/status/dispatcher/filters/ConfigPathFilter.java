@@ -27,6 +27,13 @@ public class ConfigPathFilter implements StatusItemFilter {
         this.configPath = new ConfigPath(filter);
     }
 
+    /**
+     * @return the path whose items are matched by this filter
+     */
+    public ConfigPath getConfigPath() {
+        return configPath;
+    }
+
     @Override
     public boolean match(StatusItem item) {
         for (ConfigPath path = new ConfigPath(item.getName()); !path.equals(ConfigPath.EMPTY_PATH); path = path.getParent()) {
@@ -4,6 +4,7 @@ import edu.gemini.aspen.giapi.status.StatusItem;
 import edu.gemini.aspen.giapi.status.dispatcher.StatusItemFilter;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -20,6 +21,13 @@ public class ListFilter implements StatusItemFilter {
         this.filters = new HashSet<String>(Arrays.asList(filters));
     }
 
+    /**
+     * @return the names of the status items matched by this filter
+     */
+    public Set<String> getNames() {
+        return Collections.unmodifiableSet(filters);
+    }
+
     @Override
     public boolean match(StatusItem item) {
         return filters.contains(item.getName());
@@ -33,7 +33,15 @@ public class RegexFilter implements StatusItemFilter {
 
     @Override
     public boolean match(StatusItem item) {
-        return p.matcher(item.getName()).matches();
+        return matches(item.getName());
+    }
+
+    /**
+     * @param name of a status item
+     * @return true if the given name matches the pattern of this filter
+     */
+    public boolean matches(String name) {
+        return p.matcher(name).matches();
     }
 
     @Override
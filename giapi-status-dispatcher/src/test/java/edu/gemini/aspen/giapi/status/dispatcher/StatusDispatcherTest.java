@@ -0,0 +1,180 @@
+package edu.gemini.aspen.giapi.status.dispatcher;
+
+import com.google.common.collect.ImmutableList;
+import edu.gemini.aspen.giapi.status.StatusItem;
+import edu.gemini.aspen.giapi.status.dispatcher.filters.ConfigPathFilter;
+import edu.gemini.aspen.giapi.status.dispatcher.filters.ListFilter;
+import edu.gemini.aspen.giapi.status.dispatcher.filters.RegexFilter;
+import edu.gemini.aspen.giapi.status.impl.BasicStatus;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class StatusDispatcherTest {
+    private StatusDispatcher dispatcher;
+    private List<String> updates;
+
+    @Before
+    public void setUp() {
+        dispatcher = new StatusDispatcher();
+        updates = new ArrayList<String>();
+    }
+
+    private class RecordingHandler implements FilteredStatusHandler {
+        private final String name;
+        private final StatusItemFilter filter;
+        private int count = 0;
+
+        private RecordingHandler(String name, StatusItemFilter filter) {
+            this.name = name;
+            this.filter = filter;
+        }
+
+        @Override
+        public StatusItemFilter getFilter() {
+            return filter;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public <T> void update(StatusItem<T> item) {
+            updates.add(name);
+            count++;
+        }
+    }
+
+    private void update(String name) {
+        dispatcher.update(new BasicStatus<String>(name, "value"));
+    }
+
+    @Test
+    public void testHandlersAreCalledInRegistrationOrder() {
+        dispatcher.bindStatusHandler(new RecordingHandler("regex", new RegexFilter("gpi:a.*")));
+        dispatcher.bindStatusHandler(new RecordingHandler("path", new ConfigPathFilter("gpi:a")));
+        dispatcher.bindStatusHandler(new RecordingHandler("list", new ListFilter("gpi:a:b.1")));
+        dispatcher.bindStatusHandler(new RecordingHandler("other path", new ConfigPathFilter("gpi:b")));
+        dispatcher.bindStatusHandler(new RecordingHandler("root", new ConfigPathFilter("gpi")));
+
+        update("gpi:a:b.1");
+        assertEquals(ImmutableList.of("regex", "path", "list", "root"), updates);
+
+        // The second time the handlers come from the cache
+        updates.clear();
+        update("gpi:a:b.1");
+        assertEquals(ImmutableList.of("regex", "path", "list", "root"), updates);
+    }
+
+    @Test
+    public void testUnindexedFiltersAreCalledForEveryItem() {
+        dispatcher.bindStatusHandler(new RecordingHandler("value", new StatusItemFilter() {
+            @Override
+            public boolean match(StatusItem item) {
+                return "on".equals(item.getValue());
+            }
+        }));
+
+        update("gpi:a");
+        dispatcher.update(new BasicStatus<String>("gpi:a", "on"));
+
+        assertEquals(ImmutableList.of("value"), updates);
+    }
+
+    @Test
+    public void testUnbindReplacesTheIndex() {
+        RecordingHandler handler = new RecordingHandler("path", new ConfigPathFilter("gpi:a"));
+        dispatcher.bindStatusHandler(handler);
+        update("gpi:a:b");
+
+        dispatcher.unbindStatusHandler(handler);
+        update("gpi:a:b");
+
+        assertEquals(1, handler.count);
+        assertTrue(dispatcher.getStatusHandlers().isEmpty());
+    }
+
+    @Test
+    public void testFailingHandlerDoesNotStopDispatching() {
+        dispatcher.bindStatusHandler(new RecordingHandler("failing", new ListFilter("gpi:a")) {
+            @Override
+            public <T> void update(StatusItem<T> item) {
+                throw new IllegalStateException();
+            }
+        });
+        dispatcher.bindStatusHandler(new RecordingHandler("working", new ListFilter("gpi:a")));
+
+        update("gpi:a");
+
+        assertEquals(ImmutableList.of("working"), updates);
+    }
+
+    private List<String> handlersOf(String name) {
+        updates.clear();
+        update(name);
+        return ImmutableList.copyOf(updates);
+    }
+
+    @Test
+    public void testExactPrefixAndWildcardFilters() {
+        dispatcher.bindStatusHandler(new RecordingHandler("exact", new ListFilter("gpi:a:b.1", "gpi:c")));
+        dispatcher.bindStatusHandler(new RecordingHandler("prefix", new ConfigPathFilter("gpi:a")));
+        dispatcher.bindStatusHandler(new RecordingHandler("wildcard", new RegexFilter("gpi:.*\\.2")));
+
+        // The second round gets the handlers from the cache
+        for (int i = 0; i < 2; i++) {
+            assertEquals(ImmutableList.of("exact", "prefix"), handlersOf("gpi:a:b.1"));
+            assertEquals(ImmutableList.of("prefix", "wildcard"), handlersOf("gpi:a:b.2"));
+            assertEquals(ImmutableList.of("exact"), handlersOf("gpi:c"));
+            assertEquals(ImmutableList.of("wildcard"), handlersOf("gpi:d.2"));
+            // A prefix matches whole path elements only
+            assertEquals(ImmutableList.of(), handlersOf("gpi:ab:c.1"));
+            assertEquals(ImmutableList.of(), handlersOf("gpi:d"));
+        }
+    }
+
+    /**
+     * The indexed dispatch calls the same handlers as evaluating every filter for each item
+     */
+    @Test
+    public void testIndexedDispatchMatchesEveryFilter() {
+        int handlers = 60;
+        List<RecordingHandler> registered = new ArrayList<RecordingHandler>();
+        for (int i = 0; i < handlers; i++) {
+            StatusItemFilter filter;
+            switch (i % 3) {
+                case 0:
+                    filter = new ConfigPathFilter("gpi:s" + (i / 2));
+                    break;
+                case 1:
+                    filter = new ListFilter("gpi:s" + (i / 2) + ":item.1", "gpi:s" + (i / 2) + ":item.2");
+                    break;
+                default:
+                    filter = new RegexFilter("gpi:s" + (i / 2) + ":item\\.[0-9]");
+            }
+            RecordingHandler handler = new RecordingHandler("handler " + i, filter);
+            registered.add(handler);
+            dispatcher.bindStatusHandler(handler);
+        }
+
+        for (int i = 0; i < 10 * handlers; i++) {
+            StatusItem<String> item = new BasicStatus<String>("gpi:s" + (i % handlers) + ":item." + (i / handlers), "value");
+            List<String> expected = new ArrayList<String>();
+            for (RecordingHandler handler : registered) {
+                if (handler.getFilter().match(item)) {
+                    expected.add(handler.getName());
+                }
+            }
+            updates.clear();
+            dispatcher.update(item);
+            assertEquals(item.getName(), expected, updates);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package edu.gemini.aspen.giapi.statusservice;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import edu.gemini.aspen.giapi.status.StatusHandler;
+import edu.gemini.aspen.giapi.status.StatusItem;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Delivers only the latest value of each status item to a handler.
+ * <br>
+ * An update is held for at most the max staleness; the updates with the same
+ * name that arrive meanwhile replace it. This bounds the number of updates the
+ * handler processes per item during a burst to one per max staleness period.
+ * The items are delivered on a thread of their own in the order their names
+ * first became pending
+ */
+final class CoalescingStatusHandler implements StatusDelivery {
+    private static final Logger LOG = Logger.getLogger(CoalescingStatusHandler.class.getName());
+
+    /**
+     * How long a drain waits for the flush in progress, in milliseconds
+     */
+    private static final long DRAIN_TIMEOUT = 1000;
+
+    private final StatusHandler _handler;
+    private final long _maxStaleness;
+    private final ScheduledExecutorService _flusher;
+    private final Runnable _flush = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    // The fields below are guarded by this
+    private final Map<String, PendingItem> _pending = new LinkedHashMap<String, PendingItem>();
+    private boolean _flushScheduled = false;
+    private long _delivered = 0;
+    private long _coalesced = 0;
+    private long _lastLag = 0;
+    private long _maxLag = 0;
+
+    private static final class PendingItem {
+        private final StatusItem<?> item;
+        private final long pendingSince;
+
+        private PendingItem(StatusItem<?> item, long pendingSince) {
+            this.item = item;
+            this.pendingSince = pendingSince;
+        }
+    }
+
+    /**
+     * @param handler the handler to pass the latest values to
+     * @param maxStaleness maximum time in milliseconds an update is held, 0 delivers them as soon as possible
+     */
+    CoalescingStatusHandler(StatusHandler handler, long maxStaleness) {
+        Preconditions.checkArgument(handler != null, "Status handler cannot be null");
+        Preconditions.checkArgument(maxStaleness >= 0, "Max staleness cannot be negative");
+        _handler = handler;
+        _maxStaleness = maxStaleness;
+        _flusher = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("Coalesced status delivery to " + String.valueOf(handler.getName()).replace("%", "%%")).setDaemon(true).build());
+    }
+
+    @Override
+    public void start() {
+    }
+
+    @Override
+    public synchronized void stop() {
+        _flusher.shutdownNow();
+    }
+
+    @Override
+    public void drain() {
+        stop();
+        try {
+            if (!_flusher.awaitTermination(DRAIN_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                LOG.warning("Coalesced status delivery to " + getName() + " didn't stop in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    @Override
+    public StatusHandler getHandler() {
+        return _handler;
+    }
+
+    @Override
+    public String getName() {
+        return _handler.getName();
+    }
+
+    @Override
+    public synchronized <T> void update(StatusItem<T> item) {
+        PendingItem replaced = _pending.get(item.getName());
+        if (replaced != null) {
+            _pending.put(item.getName(), new PendingItem(item, replaced.pendingSince));
+            _coalesced++;
+        } else {
+            _pending.put(item.getName(), new PendingItem(item, System.nanoTime()));
+        }
+        if (!_flushScheduled && !_flusher.isShutdown()) {
+            _flusher.schedule(_flush, _maxStaleness, TimeUnit.MILLISECONDS);
+            _flushScheduled = true;
+        }
+    }
+
+    private void flush() {
+        List<PendingItem> items;
+        synchronized (this) {
+            items = new ArrayList<PendingItem>(_pending.values());
+            _pending.clear();
+            _flushScheduled = false;
+        }
+        for (PendingItem pendingItem : items) {
+            recordLag(pendingItem);
+            try {
+                _handler.update(pendingItem.item);
+            } catch (Exception ex) {
+                LOG.log(Level.SEVERE, "Exception updating a StatusHandler", ex);
+            }
+        }
+    }
+
+    private synchronized void recordLag(PendingItem item) {
+        _lastLag = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - item.pendingSince);
+        _maxLag = Math.max(_maxLag, _lastLag);
+        _delivered++;
+    }
+
+    @Override
+    public synchronized StatusHandlerMetrics getMetrics() {
+        return new StatusHandlerMetrics(getName(), _pending.size(), _delivered, 0, _coalesced, _lastLag, _maxLag);
+    }
+
+    @Override
+    public String toString() {
+        return "Coalesced " + _handler;
+    }
+}
@@ -0,0 +1,17 @@
+package edu.gemini.aspen.giapi.statusservice;
+
+/**
+ * What to do with the status items of a handler that doesn't keep up with
+ * asynchronous delivery and whose queue is full
+ */
+public enum OverflowPolicy {
+    /**
+     * The oldest queued item is discarded to make room for the new one
+     */
+    DROP_OLDEST,
+    /**
+     * A queued item is discarded for a newer item with the same name, which is queued
+     * last. If the queue is full of different names the oldest one is discarded
+     */
+    COALESCE_BY_NAME
+}
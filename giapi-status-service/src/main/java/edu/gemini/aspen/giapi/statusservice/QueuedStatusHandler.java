@@ -0,0 +1,247 @@
+package edu.gemini.aspen.giapi.statusservice;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import edu.gemini.aspen.giapi.status.StatusHandler;
+import edu.gemini.aspen.giapi.status.StatusItem;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Delivers status items to a handler from a bounded queue on a thread of its own,
+ * so the caller of {@link #update(StatusItem)} never waits for the handler.
+ * <br>
+ * Items are delivered in arrival order. Only when the queue is full are items
+ * dropped or coalesced, according to the {@link OverflowPolicy}
+ */
+final class QueuedStatusHandler implements StatusDelivery {
+    private static final Logger LOG = Logger.getLogger(QueuedStatusHandler.class.getName());
+
+    /**
+     * How long a drain waits for the item being delivered, in milliseconds
+     */
+    private static final long DRAIN_TIMEOUT = 1000;
+
+    private final StatusHandler _handler;
+    private final int _capacity;
+    private final OverflowPolicy _policy;
+    private final ExecutorService _worker;
+
+    /**
+     * The queued items in arrival order, keyed by arrival sequence
+     */
+    private final Map<Long, QueuedItem> _queue = new LinkedHashMap<Long, QueuedItem>();
+
+    /**
+     * The sequence of the latest queued item of each name, when coalescing
+     */
+    private final Map<String, Long> _queuedNames = new HashMap<String, Long>();
+    private final Lock _lock = new ReentrantLock();
+    private final Condition _notEmpty = _lock.newCondition();
+    private long _sequence = 0;
+    private boolean _draining = false;
+
+    private long _delivered = 0;
+    private long _dropped = 0;
+    private long _coalesced = 0;
+    private long _lastLag = 0;
+    private long _maxLag = 0;
+
+    private static final class QueuedItem {
+        private final long sequence;
+        private final StatusItem<?> item;
+        private final long enqueueTime;
+
+        private QueuedItem(long sequence, StatusItem<?> item, long enqueueTime) {
+            this.sequence = sequence;
+            this.item = item;
+            this.enqueueTime = enqueueTime;
+        }
+    }
+
+    QueuedStatusHandler(StatusHandler handler, int capacity, OverflowPolicy policy) {
+        Preconditions.checkArgument(handler != null, "Status handler cannot be null");
+        Preconditions.checkArgument(capacity > 0, "Queue capacity must be positive");
+        Preconditions.checkArgument(policy != null, "Overflow policy cannot be null");
+        _handler = handler;
+        _capacity = capacity;
+        _policy = policy;
+        _worker = Executors.newSingleThreadExecutor(
+                new ThreadFactoryBuilder().setNameFormat("Status delivery to " + String.valueOf(handler.getName()).replace("%", "%%")).setDaemon(true).build());
+    }
+
+    @Override
+    public void start() {
+        _worker.submit(new Runnable() {
+            @Override
+            public void run() {
+                deliverQueuedItems();
+            }
+        });
+    }
+
+    @Override
+    public void stop() {
+        _worker.shutdownNow();
+    }
+
+    @Override
+    public void drain() {
+        _lock.lock();
+        try {
+            _draining = true;
+            _notEmpty.signal();
+        } finally {
+            _lock.unlock();
+        }
+        _worker.shutdown();
+        try {
+            if (!_worker.awaitTermination(DRAIN_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                dropQueuedItems();
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            dropQueuedItems();
+            return;
+        }
+        // The worker is gone, so the remaining items are passed in order and never concurrently
+        QueuedItem next;
+        while ((next = pollQueuedItem()) != null) {
+            deliver(next);
+        }
+    }
+
+    private void dropQueuedItems() {
+        _worker.shutdownNow();
+        _lock.lock();
+        try {
+            LOG.warning("Status delivery to " + getName() + " didn't stop in time, " + _queue.size() + " items dropped");
+            _dropped += _queue.size();
+            _queue.clear();
+            _queuedNames.clear();
+        } finally {
+            _lock.unlock();
+        }
+    }
+
+    private QueuedItem pollQueuedItem() {
+        _lock.lock();
+        try {
+            if (_queue.isEmpty()) {
+                return null;
+            }
+            QueuedItem next = _queue.values().iterator().next();
+            removeQueued(next);
+            recordLag(next);
+            return next;
+        } finally {
+            _lock.unlock();
+        }
+    }
+
+    @Override
+    public StatusHandler getHandler() {
+        return _handler;
+    }
+
+    @Override
+    public String getName() {
+        return _handler.getName();
+    }
+
+    @Override
+    public <T> void update(StatusItem<T> item) {
+        _lock.lock();
+        try {
+            if (_queue.size() >= _capacity) {
+                // The replaced item is dropped and the new one queued last, so the
+                // items are still delivered in the order of their latest update
+                Long replaced = _policy == OverflowPolicy.COALESCE_BY_NAME ? _queuedNames.get(item.getName()) : null;
+                if (replaced != null) {
+                    removeQueued(_queue.get(replaced));
+                    _coalesced++;
+                } else {
+                    removeQueued(_queue.values().iterator().next());
+                    _dropped++;
+                }
+            }
+            QueuedItem queuedItem = new QueuedItem(_sequence++, item, System.nanoTime());
+            _queue.put(queuedItem.sequence, queuedItem);
+            if (_policy == OverflowPolicy.COALESCE_BY_NAME) {
+                _queuedNames.put(item.getName(), queuedItem.sequence);
+            }
+            _notEmpty.signal();
+        } finally {
+            _lock.unlock();
+        }
+    }
+
+    private void removeQueued(QueuedItem queuedItem) {
+        _queue.remove(queuedItem.sequence);
+        _queuedNames.remove(queuedItem.item.getName(), queuedItem.sequence);
+    }
+
+    private void deliverQueuedItems() {
+        while (!Thread.currentThread().isInterrupted()) {
+            QueuedItem next;
+            _lock.lock();
+            try {
+                while (_queue.isEmpty() && !_draining) {
+                    _notEmpty.await();
+                }
+                if (_draining) {
+                    return;
+                }
+                next = _queue.values().iterator().next();
+                removeQueued(next);
+                recordLag(next);
+            } catch (InterruptedException e) {
+                LOG.fine("Status delivery to " + getName() + " stopped");
+                return;
+            } finally {
+                _lock.unlock();
+            }
+            deliver(next);
+        }
+    }
+
+    private void deliver(QueuedItem queuedItem) {
+        try {
+            _handler.update(queuedItem.item);
+        } catch (Exception ex) {
+            LOG.log(Level.SEVERE, "Exception updating a StatusHandler", ex);
+        }
+    }
+
+    private void recordLag(QueuedItem item) {
+        _lastLag = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - item.enqueueTime);
+        _maxLag = Math.max(_maxLag, _lastLag);
+        _delivered++;
+    }
+
+    @Override
+    public StatusHandlerMetrics getMetrics() {
+        _lock.lock();
+        try {
+            return new StatusHandlerMetrics(getName(), _queue.size(), _delivered, _dropped, _coalesced, _lastLag, _maxLag);
+        } finally {
+            _lock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Queued " + _handler;
+    }
+}
@@ -0,0 +1,25 @@
+package edu.gemini.aspen.giapi.statusservice;
+
+import edu.gemini.aspen.giapi.status.StatusHandler;
+
+/**
+ * Passes the status items received by the {@link StatusHandlerAggregate} to a
+ * handler on a thread of its own
+ */
+interface StatusDelivery extends StatusHandler {
+    void start();
+
+    void stop();
+
+    /**
+     * Stops the delivery, passing the items still waiting to the handler on the calling thread
+     */
+    void drain();
+
+    /**
+     * @return the handler the items are delivered to
+     */
+    StatusHandler getHandler();
+
+    StatusHandlerMetrics getMetrics();
+}
@@ -1,9 +1,13 @@
 package edu.gemini.aspen.giapi.statusservice;
 
+import com.google.common.base.Preconditions;
 import edu.gemini.aspen.giapi.status.StatusHandler;
 import edu.gemini.aspen.giapi.status.StatusItem;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -16,14 +20,82 @@ import java.util.logging.Logger;
  * in all the status items for which the Status Service is registered.
  * Filtering/processing of status item is delegated to the status handlers
  * themselves.
- *
+ * <br>
+ * By default the handlers are called one after the other on the thread that
+ * receives the update. With asynchronous delivery each handler gets its own
+ * bounded queue and thread, so a slow handler doesn't delay the reception of
+ * status items nor the other handlers. Each configuration asks for a delivery
+ * mode of its own, and the handlers are delivered asynchronously while any of
+ * them asks for it.
+ * <br>
+ * Handlers that only need the latest value of each item can be bound with a max
+ * staleness, then the updates of an item that arrive within that period are
+ * coalesced and only the newest one is delivered.
  */
 public class StatusHandlerAggregate implements StatusHandler, HandlerAggregate {
     private static final Logger LOG = Logger.getLogger(StatusHandlerAggregate.class.getName());
     private static final String STATUS_HANDLER_NAME = "Status Handler Manager";
 
+    /**
+     * Property of a StatusHandler service with the max staleness in milliseconds, if present
+     * the handler is bound to receive coalesced updates
+     */
+    public static final String MAX_STALENESS_PROPERTY = "statusMaxStaleness";
+
     private final List<StatusHandler> _statusHandlers = new CopyOnWriteArrayList<>();
 
+    /**
+     * What is called on update, either the handlers themselves or their queues
+     */
+    private final List<StatusHandler> _deliveries = new CopyOnWriteArrayList<>();
+
+    /**
+     * The max staleness of the handlers that receive coalesced updates
+     */
+    private final Map<StatusHandler, Long> _maxStaleness = new HashMap<>();
+
+    /**
+     * The asynchronous delivery asked for by each configuration
+     */
+    private final Map<String, AsynchronousDelivery> _asynchronousRequests = new HashMap<>();
+
+    /**
+     * The delivery in use, or null if the handlers are called synchronously
+     */
+    private AsynchronousDelivery _asynchronous = null;
+
+    private static final class AsynchronousDelivery {
+        private final int queueCapacity;
+        private final OverflowPolicy overflowPolicy;
+
+        private AsynchronousDelivery(int queueCapacity, OverflowPolicy overflowPolicy) {
+            this.queueCapacity = queueCapacity;
+            this.overflowPolicy = overflowPolicy;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            AsynchronousDelivery that = (AsynchronousDelivery) o;
+            return queueCapacity == that.queueCapacity && overflowPolicy == that.overflowPolicy;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * queueCapacity + overflowPolicy.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return "queue capacity " + queueCapacity + ", overflow policy " + overflowPolicy;
+        }
+    }
+
     @Override
     public String getName() {
         return STATUS_HANDLER_NAME;
@@ -31,7 +103,7 @@ public class StatusHandlerAggregate implements StatusHandler, HandlerAggregate {
 
     @Override
     public <T> void update(StatusItem<T> item) {
-        for (StatusHandler handler: _statusHandlers) {
+        for (StatusHandler handler: _deliveries) {
             try {
                 handler.update(item);
             } catch (Exception ex) {
@@ -40,17 +112,164 @@ public class StatusHandlerAggregate implements StatusHandler, HandlerAggregate {
         }
     }
 
-    public void bindStatusHandler(StatusHandler handler) {
+    public synchronized void bindStatusHandler(StatusHandler handler) {
         _statusHandlers.add(handler);
+        _deliveries.add(deliveryFor(handler));
         LOG.info("Status Handler Registered: " + handler);
     }
 
-    public void unbindStatusHandler(StatusHandler handler) {
+    /**
+     * Binds a handler that only receives the latest value of each status item
+     *
+     * @param handler the status handler
+     * @param maxStaleness maximum time in milliseconds an update is held to be coalesced with newer ones
+     */
+    public synchronized void bindCoalescedStatusHandler(StatusHandler handler, long maxStaleness) {
+        Preconditions.checkArgument(maxStaleness >= 0, "Max staleness cannot be negative");
+        _statusHandlers.add(handler);
+        _maxStaleness.put(handler, maxStaleness);
+        _deliveries.add(deliveryFor(handler));
+        LOG.info("Status Handler Registered with max staleness " + maxStaleness + " [ms]: " + handler);
+    }
+
+    public synchronized void unbindStatusHandler(StatusHandler handler) {
         _statusHandlers.remove(handler);
+        if (!_statusHandlers.contains(handler)) {
+            _maxStaleness.remove(handler);
+        }
+        for (StatusHandler delivery : _deliveries) {
+            if (delivery.equals(handler) || (delivery instanceof StatusDelivery && ((StatusDelivery) delivery).getHandler().equals(handler))) {
+                _deliveries.remove(delivery);
+                stopDelivery(delivery);
+                break;
+            }
+        }
         LOG.info("Removed Status Handler: " + handler);
     }
 
-    public void cleanHandlers() {
+    public synchronized void cleanHandlers() {
         _statusHandlers.clear();
+        _maxStaleness.clear();
+        stopDeliveries();
+    }
+
+    /**
+     * Asks for each handler to receive the status items from a queue of its own. When
+     * several configurations ask for it the largest queue is used, and the items are
+     * only coalesced if all of them ask for it
+     *
+     * @param configuration the configuration asking for it
+     * @param queueCapacity maximum number of items waiting for a handler
+     * @param overflowPolicy what to do when a handler's queue is full
+     */
+    public synchronized void setAsynchronousDelivery(String configuration, int queueCapacity, OverflowPolicy overflowPolicy) {
+        Preconditions.checkArgument(configuration != null, "Configuration cannot be null");
+        Preconditions.checkArgument(queueCapacity > 0, "Queue capacity must be positive");
+        Preconditions.checkArgument(overflowPolicy != null, "Overflow policy cannot be null");
+        _asynchronousRequests.put(configuration, new AsynchronousDelivery(queueCapacity, overflowPolicy));
+        updateDelivery();
+    }
+
+    /**
+     * Withdraws the asynchronous delivery asked for by a configuration. The handlers are
+     * called on the thread receiving the status items, the default, once no configuration
+     * asks for asynchronous delivery
+     *
+     * @param configuration the configuration that asked for it
+     */
+    public synchronized void setSynchronousDelivery(String configuration) {
+        _asynchronousRequests.remove(configuration);
+        updateDelivery();
+    }
+
+    private void updateDelivery() {
+        AsynchronousDelivery delivery = null;
+        if (!_asynchronousRequests.isEmpty()) {
+            int queueCapacity = 0;
+            OverflowPolicy overflowPolicy = OverflowPolicy.COALESCE_BY_NAME;
+            for (AsynchronousDelivery request : _asynchronousRequests.values()) {
+                queueCapacity = Math.max(queueCapacity, request.queueCapacity);
+                if (request.overflowPolicy == OverflowPolicy.DROP_OLDEST) {
+                    overflowPolicy = OverflowPolicy.DROP_OLDEST;
+                }
+            }
+            delivery = new AsynchronousDelivery(queueCapacity, overflowPolicy);
+        }
+        if (delivery == null ? _asynchronous != null : !delivery.equals(_asynchronous)) {
+            _asynchronous = delivery;
+            resetDeliveries();
+            LOG.info(delivery == null ? "Status items delivered synchronously" : "Status items delivered asynchronously, " + delivery);
+        }
+    }
+
+    /**
+     * @return the delivery metrics of each handler not called synchronously
+     */
+    public List<StatusHandlerMetrics> getDeliveryMetrics() {
+        List<StatusHandlerMetrics> metrics = new ArrayList<>();
+        for (StatusHandler delivery : _deliveries) {
+            if (delivery instanceof StatusDelivery) {
+                metrics.add(((StatusDelivery) delivery).getMetrics());
+            }
+        }
+        return metrics;
+    }
+
+    private StatusHandler deliveryFor(StatusHandler handler) {
+        StatusHandler delivery = newDeliveryFor(handler);
+        startDelivery(delivery);
+        return delivery;
+    }
+
+    private StatusHandler newDeliveryFor(StatusHandler handler) {
+        if (_maxStaleness.containsKey(handler)) {
+            return new CoalescingStatusHandler(handler, _maxStaleness.get(handler));
+        } else if (_asynchronous != null) {
+            return new QueuedStatusHandler(handler, _asynchronous.queueCapacity, _asynchronous.overflowPolicy);
+        } else {
+            return handler;
+        }
+    }
+
+    /**
+     * Replaces the delivery of each handler in place, so the updates arriving meanwhile
+     * always find every handler. The items waiting in an old delivery are passed to the
+     * handler before the new one starts, keeping them in order
+     */
+    private void resetDeliveries() {
+        for (int i = 0; i < _deliveries.size(); i++) {
+            StatusHandler oldDelivery = _deliveries.get(i);
+            StatusHandler handler = oldDelivery instanceof StatusDelivery ? ((StatusDelivery) oldDelivery).getHandler() : oldDelivery;
+            if (_maxStaleness.containsKey(handler)) {
+                // Coalesced handlers don't depend on the asynchronous delivery
+                continue;
+            }
+            StatusHandler newDelivery = newDeliveryFor(handler);
+            _deliveries.set(i, newDelivery);
+            if (oldDelivery instanceof StatusDelivery) {
+                ((StatusDelivery) oldDelivery).drain();
+            }
+            startDelivery(newDelivery);
+        }
+    }
+
+    private void startDelivery(StatusHandler delivery) {
+        if (delivery instanceof StatusDelivery) {
+            ((StatusDelivery) delivery).start();
+        }
+    }
+
+    private void stopDeliveries() {
+        List<StatusHandler> deliveries = new ArrayList<>(_deliveries);
+        _deliveries.clear();
+        for (StatusHandler delivery : deliveries) {
+            stopDelivery(delivery);
+        }
+    }
+
+    private void stopDelivery(StatusHandler delivery) {
+        if (delivery instanceof StatusDelivery) {
+            ((StatusDelivery) delivery).stop();
+        }
     }
 }
@@ -0,0 +1,87 @@
+package edu.gemini.aspen.giapi.statusservice;
+
+/**
+ * A snapshot of the asynchronous delivery of status items to one handler
+ */
+public final class StatusHandlerMetrics {
+    private final String handlerName;
+    private final int queuedItems;
+    private final long deliveredItems;
+    private final long droppedItems;
+    private final long coalescedItems;
+    private final long lastLag;
+    private final long maxLag;
+
+    StatusHandlerMetrics(String handlerName, int queuedItems, long deliveredItems, long droppedItems,
+                         long coalescedItems, long lastLag, long maxLag) {
+        this.handlerName = handlerName;
+        this.queuedItems = queuedItems;
+        this.deliveredItems = deliveredItems;
+        this.droppedItems = droppedItems;
+        this.coalescedItems = coalescedItems;
+        this.lastLag = lastLag;
+        this.maxLag = maxLag;
+    }
+
+    /**
+     * @return the name of the status handler
+     */
+    public String getHandlerName() {
+        return handlerName;
+    }
+
+    /**
+     * @return the number of items waiting to be delivered to the handler
+     */
+    public int getQueuedItems() {
+        return queuedItems;
+    }
+
+    /**
+     * @return the number of items passed to the handler
+     */
+    public long getDeliveredItems() {
+        return deliveredItems;
+    }
+
+    /**
+     * @return the number of items discarded because the queue was full
+     */
+    public long getDroppedItems() {
+        return droppedItems;
+    }
+
+    /**
+     * @return the number of queued items replaced by a newer value with the same name
+     */
+    public long getCoalescedItems() {
+        return coalescedItems;
+    }
+
+    /**
+     * @return time in milliseconds the last delivered item waited in the queue
+     */
+    public long getLastLag() {
+        return lastLag;
+    }
+
+    /**
+     * @return the longest time in milliseconds an item waited in the queue
+     */
+    public long getMaxLag() {
+        return maxLag;
+    }
+
+    @Override
+    public String toString() {
+        return "StatusHandlerMetrics{" +
+                "handlerName='" + handlerName + '\'' +
+                ", queuedItems=" + queuedItems +
+                ", deliveredItems=" + deliveredItems +
+                ", droppedItems=" + droppedItems +
+                ", coalescedItems=" + coalescedItems +
+                ", lastLag=" + lastLag +
+                " [ms], maxLag=" + maxLag +
+                " [ms]}";
+    }
+}
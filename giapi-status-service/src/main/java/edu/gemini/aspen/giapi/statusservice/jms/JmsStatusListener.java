@@ -3,19 +3,23 @@ package edu.gemini.aspen.giapi.statusservice.jms;
 import edu.gemini.aspen.giapi.status.StatusHandler;
 import edu.gemini.aspen.giapi.status.StatusItem;
 import edu.gemini.aspen.giapi.util.jms.MessageBuilder;
+import edu.gemini.aspen.giapi.util.jms.status.StatusBatch;
+import edu.gemini.aspen.giapi.util.jms.status.StatusBatchDecoder;
 
 import javax.jms.*;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 
 /**
- *  The JMS Consumer to receive Status Items from the instrument
+ *  The JMS Consumer to receive Status Items from the instrument, either one
+ *  per message or in batches
  */
 public class JmsStatusListener implements MessageListener {
 
     private static final Logger LOG = Logger.getLogger(JmsStatusListener.class.getName());
 
     private final StatusHandler _updater;
+    private final StatusBatchDecoder _batchDecoder = new StatusBatchDecoder();
 
     public JmsStatusListener(StatusHandler updater) {
         _updater = updater;
@@ -24,6 +28,13 @@ public class JmsStatusListener implements MessageListener {
     @Override
     public void onMessage(Message message) {
         try {
+            if (StatusBatchDecoder.isStatusBatch(message)) {
+                StatusBatch batch = _batchDecoder.decode((BytesMessage) message);
+                for (int i = 0; i < batch.size(); i++) {
+                    _updater.update(batch.getItem(i));
+                }
+                return;
+            }
             //reconstruct the StatusItem from the JMS Message
             StatusItem item = MessageBuilder.buildStatusItem(message);
             if (item != null) {
@@ -32,6 +43,8 @@ public class JmsStatusListener implements MessageListener {
 
         } catch (JMSException e) {
             LOG.log(Level.WARNING, "Problem receiving status message", e);
+        } catch (IllegalArgumentException e) {
+            LOG.log(Level.WARNING, "Cannot decode status message", e);
         }
     }
 
@@ -25,7 +25,12 @@ public class Activator implements BundleActivator {
             @Override
             public StatusHandler addingService(ServiceReference<StatusHandler> reference) {
                 StatusHandler statusHandler = bundleContext.getService(reference);
-                tracker.bindStatusHandler(statusHandler);
+                Object maxStaleness = reference.getProperty(StatusHandlerAggregate.MAX_STALENESS_PROPERTY);
+                if (maxStaleness != null) {
+                    tracker.bindCoalescedStatusHandler(statusHandler, Long.parseLong(maxStaleness.toString().trim()));
+                } else {
+                    tracker.bindStatusHandler(statusHandler);
+                }
                 return statusHandler;
             }
 
@@ -1,6 +1,7 @@
 package edu.gemini.aspen.giapi.statusservice.osgi;
 
 import com.google.common.collect.Maps;
+import edu.gemini.aspen.giapi.statusservice.OverflowPolicy;
 import edu.gemini.aspen.giapi.statusservice.StatusHandlerAggregate;
 import edu.gemini.aspen.giapi.statusservice.StatusService;
 import edu.gemini.jms.api.JmsArtifact;
@@ -21,6 +22,10 @@ public class StatusServiceFactory implements ManagedServiceFactory {
     private final BundleContext context;
     public static final String SERVICE_NAME = "serviceName";
     private static final String STATUS_FILTER = "statusName";
+    private static final String ASYNC_DELIVERY = "asyncDelivery";
+    private static final String DELIVERY_QUEUE_SIZE = "deliveryQueueSize";
+    private static final String OVERFLOW_POLICY = "overflowPolicy";
+    private static final int DEFAULT_DELIVERY_QUEUE_SIZE = 1000;
 
     public StatusServiceFactory(StatusHandlerAggregate aggregate, BundleContext context) {
         this.aggregate = aggregate;
@@ -33,6 +38,7 @@ public class StatusServiceFactory implements ManagedServiceFactory {
 
     public void updated(String pid, Dictionary<String, ?> properties) {
         if (checkProperties(properties)) {
+            configureDelivery(pid, properties);
             StatusService provider = createService(properties);
             ServiceRegistration<JmsArtifact> serviceRegistration = context.registerService(JmsArtifact.class, provider, new Hashtable<>());
             existingServices.put(pid, serviceRegistration);
@@ -48,11 +54,31 @@ public class StatusServiceFactory implements ManagedServiceFactory {
         return new StatusService(aggregate, serviceName, statusName);
     }
 
+    /**
+     * Each configuration asks the aggregate shared by all the status services for its delivery mode
+     */
+    private void configureDelivery(String pid, Dictionary<String, ?> properties) {
+        if (properties.get(ASYNC_DELIVERY) != null && Boolean.parseBoolean(properties.get(ASYNC_DELIVERY).toString().trim())) {
+            int queueSize = DEFAULT_DELIVERY_QUEUE_SIZE;
+            if (properties.get(DELIVERY_QUEUE_SIZE) != null) {
+                queueSize = Integer.parseInt(properties.get(DELIVERY_QUEUE_SIZE).toString().trim());
+            }
+            OverflowPolicy policy = OverflowPolicy.DROP_OLDEST;
+            if (properties.get(OVERFLOW_POLICY) != null) {
+                policy = OverflowPolicy.valueOf(properties.get(OVERFLOW_POLICY).toString().trim());
+            }
+            aggregate.setAsynchronousDelivery(pid, queueSize, policy);
+        } else {
+            aggregate.setSynchronousDelivery(pid);
+        }
+    }
+
     private boolean checkProperties(Dictionary<String, ?> properties) {
         return properties.get(SERVICE_NAME) != null && properties.get(STATUS_FILTER) != null;
     }
 
     public void deleted(String pid) {
+        aggregate.setSynchronousDelivery(pid);
         if (existingServices.containsKey(pid)) {
             ServiceRegistration<JmsArtifact> serviceRef = existingServices.get(pid);
             serviceRef.unregister();
@@ -3,10 +3,18 @@ package edu.gemini.aspen.giapi.statusservice;
 import edu.gemini.aspen.giapi.status.StatusHandler;
 import edu.gemini.aspen.giapi.status.StatusItem;
 import edu.gemini.aspen.giapi.status.impl.BasicStatus;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.*;
 
 /**
@@ -28,6 +36,11 @@ public class StatusHandlerAggregateTest {
         item = new BasicStatus<Integer>("status", 0);
     }
 
+    @After
+    public void tearDown() {
+        manager.cleanHandlers();
+    }
+
     @Test
     public void testConstruction() {
         assertNotNull(manager);
@@ -66,4 +79,230 @@ public class StatusHandlerAggregateTest {
         manager.update(item);
         verifyNoInteractions(handler);
     }
+
+    /**
+     * A handler that waits until released before processing its first item
+     */
+    private static class BlockingHandler implements StatusHandler {
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final List<StatusItem<?>> received = new CopyOnWriteArrayList<StatusItem<?>>();
+
+        @Override
+        public String getName() {
+            return "Blocking handler";
+        }
+
+        @Override
+        public <T> void update(StatusItem<T> item) {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            received.add(item);
+        }
+    }
+
+    private void waitForDelivery(BlockingHandler handler, int items) throws InterruptedException {
+        for (int i = 0; i < 100 && handler.received.size() < items; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(items, handler.received.size());
+    }
+
+    @Test
+    public void testSlowHandlerDoesNotBlockUpdates() throws InterruptedException {
+        manager.setAsynchronousDelivery("config", 10, OverflowPolicy.DROP_OLDEST);
+        BlockingHandler slowHandler = new BlockingHandler();
+        CountDownLatch fastHandlerCalled = new CountDownLatch(1);
+        manager.bindStatusHandler(slowHandler);
+        manager.bindStatusHandler(new StatusHandler() {
+            @Override
+            public String getName() {
+                return "Fast handler";
+            }
+
+            @Override
+            public <T> void update(StatusItem<T> item) {
+                fastHandlerCalled.countDown();
+            }
+        });
+
+        manager.update(item);
+
+        assertTrue(fastHandlerCalled.await(1, TimeUnit.SECONDS));
+        assertTrue(slowHandler.received.isEmpty());
+        slowHandler.release.countDown();
+        waitForDelivery(slowHandler, 1);
+    }
+
+    @Test
+    public void testDropOldest() throws InterruptedException {
+        manager.setAsynchronousDelivery("config", 2, OverflowPolicy.DROP_OLDEST);
+        BlockingHandler slowHandler = new BlockingHandler();
+        manager.bindStatusHandler(slowHandler);
+
+        manager.update(new BasicStatus<Integer>("status", 0));
+        assertTrue(slowHandler.started.await(1, TimeUnit.SECONDS));
+        for (int i = 1; i <= 4; i++) {
+            manager.update(new BasicStatus<Integer>("status", i));
+        }
+
+        StatusHandlerMetrics metrics = manager.getDeliveryMetrics().get(0);
+        assertEquals(2, metrics.getQueuedItems());
+        assertEquals(2, metrics.getDroppedItems());
+
+        slowHandler.release.countDown();
+        waitForDelivery(slowHandler, 3);
+        assertEquals(0, slowHandler.received.get(0).getValue());
+        assertEquals(3, slowHandler.received.get(1).getValue());
+        assertEquals(4, slowHandler.received.get(2).getValue());
+    }
+
+    @Test
+    public void testCoalesceByName() throws InterruptedException {
+        manager.setAsynchronousDelivery("config", 2, OverflowPolicy.COALESCE_BY_NAME);
+        BlockingHandler slowHandler = new BlockingHandler();
+        manager.bindStatusHandler(slowHandler);
+
+        manager.update(new BasicStatus<Integer>("status", 0));
+        assertTrue(slowHandler.started.await(1, TimeUnit.SECONDS));
+        manager.update(new BasicStatus<Integer>("status", 1));
+        manager.update(new BasicStatus<Integer>("other", 1));
+        manager.update(new BasicStatus<Integer>("status", 2));
+
+        StatusHandlerMetrics metrics = manager.getDeliveryMetrics().get(0);
+        assertEquals(2, metrics.getQueuedItems());
+        assertEquals(1, metrics.getCoalescedItems());
+        assertEquals(0, metrics.getDroppedItems());
+
+        // The newer status is queued after the other item
+        slowHandler.release.countDown();
+        waitForDelivery(slowHandler, 3);
+        assertEquals("other", slowHandler.received.get(1).getName());
+        assertEquals(2, slowHandler.received.get(2).getValue());
+        assertEquals(3, manager.getDeliveryMetrics().get(0).getDeliveredItems());
+    }
+
+    @Test
+    public void testNoCoalescingUntilTheQueueIsFull() throws InterruptedException {
+        manager.setAsynchronousDelivery("config", 10, OverflowPolicy.COALESCE_BY_NAME);
+        BlockingHandler slowHandler = new BlockingHandler();
+        manager.bindStatusHandler(slowHandler);
+
+        manager.update(new BasicStatus<Integer>("status", 0));
+        assertTrue(slowHandler.started.await(1, TimeUnit.SECONDS));
+        manager.update(new BasicStatus<Integer>("status", 1));
+        manager.update(new BasicStatus<Integer>("other", 1));
+        manager.update(new BasicStatus<Integer>("status", 2));
+
+        assertEquals(0, manager.getDeliveryMetrics().get(0).getCoalescedItems());
+        slowHandler.release.countDown();
+        waitForDelivery(slowHandler, 4);
+        assertEquals(1, slowHandler.received.get(1).getValue());
+        assertEquals("other", slowHandler.received.get(2).getName());
+        assertEquals(2, slowHandler.received.get(3).getValue());
+    }
+
+    @Test
+    public void testBackToSynchronousDelivery() {
+        manager.setAsynchronousDelivery("config", 10, OverflowPolicy.DROP_OLDEST);
+        manager.bindStatusHandler(handler);
+        manager.setSynchronousDelivery("config");
+
+        verifyStatusPassedAlong(handler, item);
+        assertTrue(manager.getDeliveryMetrics().isEmpty());
+    }
+
+    @Test
+    public void testQueuedItemsAreDeliveredWhenTheDeliveryChanges() throws InterruptedException {
+        manager.setAsynchronousDelivery("config", 10, OverflowPolicy.DROP_OLDEST);
+        final BlockingHandler slowHandler = new BlockingHandler();
+        manager.bindStatusHandler(slowHandler);
+
+        manager.update(new BasicStatus<Integer>("status", 0));
+        assertTrue(slowHandler.started.await(1, TimeUnit.SECONDS));
+        manager.update(new BasicStatus<Integer>("status", 1));
+        manager.update(new BasicStatus<Integer>("status", 2));
+
+        Thread releaser = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            slowHandler.release.countDown();
+        });
+        releaser.start();
+        manager.setSynchronousDelivery("config");
+        manager.update(new BasicStatus<Integer>("status", 3));
+        releaser.join();
+
+        assertEquals(4, slowHandler.received.size());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(i, slowHandler.received.get(i).getValue());
+        }
+    }
+
+    @Test
+    public void testDeliveryIsAskedForByEachConfiguration() {
+        manager.bindStatusHandler(handler);
+        manager.setAsynchronousDelivery("first", 10, OverflowPolicy.COALESCE_BY_NAME);
+        manager.setAsynchronousDelivery("second", 20, OverflowPolicy.DROP_OLDEST);
+        manager.setSynchronousDelivery("third");
+        assertEquals(1, manager.getDeliveryMetrics().size());
+
+        // The first configuration turning it off leaves the second one's
+        manager.setSynchronousDelivery("first");
+        assertEquals(1, manager.getDeliveryMetrics().size());
+
+        manager.setSynchronousDelivery("second");
+        verifyStatusPassedAlong(handler, item);
+        assertTrue(manager.getDeliveryMetrics().isEmpty());
+    }
+
+    @Test
+    public void testBurstIsCoalescedForOptedInHandlers() throws InterruptedException {
+        BlockingHandler coalescedHandler = new BlockingHandler();
+        coalescedHandler.release.countDown();
+        manager.bindCoalescedStatusHandler(coalescedHandler, 50);
+        manager.bindStatusHandler(handler);
+
+        for (int i = 0; i < 100; i++) {
+            manager.update(new BasicStatus<Integer>("status", i));
+            manager.update(new BasicStatus<Integer>("other", i));
+        }
+
+        waitForDelivery(coalescedHandler, 2);
+        assertEquals("status", coalescedHandler.received.get(0).getName());
+        assertEquals(99, coalescedHandler.received.get(0).getValue());
+        assertEquals(99, coalescedHandler.received.get(1).getValue());
+        // Handlers that didn't opt in get every update
+        verify(handler, times(200)).update(any(StatusItem.class));
+
+        StatusHandlerMetrics metrics = manager.getDeliveryMetrics().get(0);
+        assertEquals(2, metrics.getDeliveredItems());
+        assertEquals(198, metrics.getCoalescedItems());
+        assertTrue(metrics.getMaxLag() < 1000);
+    }
+
+    @Test
+    public void testCoalescedHandlerKeepsCoalescingWithAsynchronousDelivery() throws InterruptedException {
+        BlockingHandler coalescedHandler = new BlockingHandler();
+        coalescedHandler.release.countDown();
+        manager.bindCoalescedStatusHandler(coalescedHandler, 50);
+        manager.setAsynchronousDelivery("config", 10, OverflowPolicy.DROP_OLDEST);
+
+        manager.update(new BasicStatus<Integer>("status", 1));
+        manager.update(new BasicStatus<Integer>("status", 2));
+
+        waitForDelivery(coalescedHandler, 1);
+        assertEquals(2, coalescedHandler.received.get(0).getValue());
+        assertEquals(1, manager.getDeliveryMetrics().get(0).getCoalescedItems());
+
+        manager.unbindStatusHandler(coalescedHandler);
+        assertTrue(manager.getDeliveryMetrics().isEmpty());
+    }
 }
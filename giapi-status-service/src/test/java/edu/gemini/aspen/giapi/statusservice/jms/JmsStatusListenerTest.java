@@ -2,11 +2,18 @@ package edu.gemini.aspen.giapi.statusservice.jms;
 
 import edu.gemini.aspen.giapi.status.StatusHandler;
 import edu.gemini.aspen.giapi.status.StatusItem;
+import edu.gemini.aspen.giapi.status.impl.BasicStatus;
+import edu.gemini.aspen.giapi.util.jms.status.StatusBatchEncoder;
+import org.apache.activemq.command.ActiveMQBytesMessage;
 import org.junit.Test;
 
 import javax.jms.BytesMessage;
 import javax.jms.JMSException;
 import javax.jms.Message;
+import javax.jms.Session;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -27,6 +34,24 @@ public class JmsStatusListenerTest {
         verify(handler).update(any(StatusItem.class));
     }
 
+    @Test
+    public void testOnBatchMessage() throws Exception {
+        StatusHandler handler = mock(StatusHandler.class);
+        JmsStatusListener listener = new JmsStatusListener(handler);
+
+        List<StatusItem> items = new ArrayList<StatusItem>();
+        items.add(new BasicStatus<Integer>("gpi:a", 1, new Date(1000)));
+        items.add(new BasicStatus<Double>("gpi:b", 2.0, new Date(1000)));
+        Session session = mock(Session.class);
+        when(session.createBytesMessage()).thenReturn(new ActiveMQBytesMessage());
+        ActiveMQBytesMessage message = (ActiveMQBytesMessage) new StatusBatchEncoder("producer").encode(session, items);
+        message.reset();
+
+        listener.onMessage(message);
+        verify(handler).update(items.get(0));
+        verify(handler).update(items.get(1));
+    }
+
     private BytesMessage constructMessageMock() throws JMSException {
         BytesMessage message = mock(BytesMessage.class);
 
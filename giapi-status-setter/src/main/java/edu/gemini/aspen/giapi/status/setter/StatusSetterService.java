@@ -5,16 +5,20 @@ import com.google.common.cache.CacheBuilder;
 import edu.gemini.aspen.giapi.status.StatusItem;
 import edu.gemini.aspen.giapi.util.jms.JmsKeys;
 import edu.gemini.aspen.giapi.util.jms.MessageBuilder;
+import edu.gemini.aspen.giapi.util.jms.status.StatusBatchEncoder;
 import edu.gemini.jms.api.*;
 
 import javax.jms.JMSException;
 import javax.jms.Message;
+import java.util.Collection;
+import java.util.UUID;
 
 /**
  * This class encapsulates the code to publish a StatusItem update.
  */
 public class StatusSetterService extends MultiDestinationMessageProducer implements JmsArtifact, StatusSetter {
     private Cache<String, StatusItem> itemsCache = CacheBuilder.newBuilder().weakValues().maximumSize(500).build();
+    private final StatusBatchEncoder batchEncoder = new StatusBatchEncoder("StatusSetterService-" + UUID.randomUUID());
 
     public StatusSetterService() {
         super("StatusSetterService");
@@ -39,6 +43,27 @@ public class StatusSetterService extends MultiDestinationMessageProducer impleme
         }
     }
 
+    /**
+     * Sends several status items in one message, more compact and cheaper to
+     * decode than sending them one by one
+     *
+     * @param statusItems items to send to the Status Database
+     * @throws javax.jms.JMSException
+     */
+    public boolean setStatusItems(Collection<StatusItem> statusItems) throws JMSException {
+        if (isConnected()) {
+            Message m = batchEncoder.encode(_session, statusItems);
+            send(m, new DestinationData(JmsKeys.GMP_STATUS_BATCH_DESTINATION, DestinationType.TOPIC));
+            return true;
+        } else {
+            LOG.warning("Trying to send StatusItem updates before starting Jms. These items will be lost: " + statusItems);
+            for (StatusItem item : statusItems) {
+                itemsCache.put(item.getName(), item);
+            }
+            return false;
+        }
+    }
+
     @Override
     public void startJms(JmsProvider provider) throws JMSException {
         super.startJms(provider);
@@ -0,0 +1,68 @@
+package edu.gemini.aspen.giapi.status;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The status items that changed after a given version of the status database.
+ * <br>
+ * A client keeping a copy of the database asks for the changes since the
+ * version of its last reply. If the changes don't fit in one reply they are not
+ * complete, and the client asks again from the returned version.
+ * <br>
+ * The versions are only meaningful within one epoch of the database, a new
+ * epoch means the database was restarted and the client has to copy it again
+ */
+public final class StatusChanges {
+    private final long epoch;
+    private final long version;
+    private final List<StatusItem> items;
+    private final boolean complete;
+
+    public StatusChanges(long epoch, long version, Collection<StatusItem> items, boolean complete) {
+        this.epoch = epoch;
+        this.version = version;
+        this.items = Collections.unmodifiableList(new ArrayList<StatusItem>(items));
+        this.complete = complete;
+    }
+
+    /**
+     * @return the identifier of the instance of the database that sent these changes
+     */
+    public long getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * @return the version of the database these changes bring a copy up to
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the changed status items, with their latest value
+     */
+    public List<StatusItem> getItems() {
+        return items;
+    }
+
+    /**
+     * @return whether there were no more changes up to the time of the request
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    @Override
+    public String toString() {
+        return "StatusChanges{" +
+                "epoch=" + epoch +
+                ", version=" + version +
+                ", items=" + items.size() +
+                ", complete=" + complete +
+                '}';
+    }
+}
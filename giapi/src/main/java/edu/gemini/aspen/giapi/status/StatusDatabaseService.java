@@ -1,10 +1,16 @@
 package edu.gemini.aspen.giapi.status;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 
 /**
  * The public interface of a database service for Status Items
+ * <br>
+ * The queries after {@link #getAll()} have default implementations on top of it,
+ * so databases that can answer them faster should override them
  */
 public interface StatusDatabaseService {
 
@@ -34,4 +40,75 @@ public interface StatusDatabaseService {
      * @return the Iterable of StatusItems
      */
     Collection<StatusItem> getAll();
+
+    /**
+     * Returns the status items under a config path, e.g. the prefix gpi:ao
+     * matches gpi:ao and gpi:ao:temp but not gpi:aoc
+     *
+     * @param prefix whole segments at the start of the names, empty for all the items
+     * @return the status items under the prefix, in no particular order
+     */
+    default Collection<StatusItem> getByPrefix(String prefix) {
+        List<StatusItem> items = new ArrayList<StatusItem>();
+        for (StatusItem item : getAll()) {
+            if (StatusNames.isUnder(item.getName(), prefix)) {
+                items.add(item);
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Returns the status items whose names match a pattern of config path
+     * segments where * matches any one segment, e.g. gpi:*:temp
+     *
+     * @param pattern the pattern to match
+     * @return the matching status items, in no particular order
+     */
+    default Collection<StatusItem> getByPattern(String pattern) {
+        List<StatusItem> items = new ArrayList<StatusItem>();
+        for (StatusItem item : getAll()) {
+            if (StatusNames.matches(item.getName(), pattern)) {
+                items.add(item);
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Returns the values recorded for a status item since the given time, oldest first.
+     * Only a limited number of values is kept per item, and they are returned as basic
+     * status items with the value and timestamp they had
+     *
+     * @param name  name of the status item
+     * @param since time in milliseconds since the epoch, older values are not returned
+     * @return the recorded values, empty if there is no history for the item
+     */
+    default <T> List<StatusItem<T>> getHistory(String name, long since) {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Returns the version of the database, it increases with every update
+     *
+     * @return the version of the latest update, always 0 if the database has no versions
+     */
+    default long getVersion() {
+        return 0;
+    }
+
+    /**
+     * Returns the status items updated after the given version that are under
+     * a config path, as in {@link #getByPrefix(String)}, in the order they were
+     * last updated. A database without versions returns all the items under the
+     * prefix at once
+     *
+     * @param version  version of a previous request, 0 to get all the items
+     * @param prefix   whole segments at the start of the names, empty for all the items
+     * @param maxItems maximum number of items to return
+     * @return the changed items and the version to use in the next request
+     */
+    default StatusChanges getChangedSince(long version, String prefix, int maxItems) {
+        return new StatusChanges(0, 0, getByPrefix(prefix == null ? "" : prefix), true);
+    }
 }
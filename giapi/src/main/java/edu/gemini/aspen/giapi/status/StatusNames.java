@@ -0,0 +1,62 @@
+package edu.gemini.aspen.giapi.status;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Matching of status item names by the segments of their config path, e.g.
+ * gpi:ao:temp is made of gpi, ao and temp
+ */
+final class StatusNames {
+    // Same separator as ConfigPath
+    private static final char SEPARATOR = ':';
+    private static final String WILDCARD = "*";
+
+    private StatusNames() {
+    }
+
+    /**
+     * Splits a path in its segments, a trailing separator is ignored
+     */
+    static List<String> segments(String path) {
+        List<String> segments = new ArrayList<String>();
+        int start = path.startsWith(String.valueOf(SEPARATOR)) ? 1 : 0;
+        int end;
+        while ((end = path.indexOf(SEPARATOR, start)) >= 0) {
+            segments.add(path.substring(start, end));
+            start = end + 1;
+        }
+        if (start < path.length()) {
+            segments.add(path.substring(start));
+        }
+        return segments;
+    }
+
+    /**
+     * @return whether the name starts with the whole segments of the prefix
+     */
+    static boolean isUnder(String name, String prefix) {
+        List<String> nameSegments = segments(name);
+        List<String> prefixSegments = segments(prefix);
+        return nameSegments.size() >= prefixSegments.size()
+                && nameSegments.subList(0, prefixSegments.size()).equals(prefixSegments);
+    }
+
+    /**
+     * @return whether the name has the segments of the pattern, a * segment matches any one segment
+     */
+    static boolean matches(String name, String pattern) {
+        List<String> nameSegments = segments(name);
+        List<String> patternSegments = segments(pattern);
+        if (nameSegments.size() != patternSegments.size()) {
+            return false;
+        }
+        for (int i = 0; i < patternSegments.size(); i++) {
+            String segment = patternSegments.get(i);
+            if (!WILDCARD.equals(segment) && !segment.equals(nameSegments.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
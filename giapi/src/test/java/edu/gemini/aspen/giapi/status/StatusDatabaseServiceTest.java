@@ -0,0 +1,71 @@
+package edu.gemini.aspen.giapi.status;
+
+import edu.gemini.aspen.giapi.status.impl.BasicStatus;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the default queries of a database that only implements the basic ones
+ */
+public class StatusDatabaseServiceTest {
+    private final List<StatusItem> items = Arrays.<StatusItem>asList(
+            new BasicStatus<Integer>("gpi:ao", 1),
+            new BasicStatus<Integer>("gpi:ao:temp", 2),
+            new BasicStatus<Integer>("gpi:aoc:temp", 3),
+            new BasicStatus<Integer>("gpi:cal:temp", 4));
+
+    private final StatusDatabaseService database = new StatusDatabaseService() {
+        @Override
+        public <T> StatusItem<T> getStatusItem(String name) {
+            return null;
+        }
+
+        @Override
+        public Set<String> getStatusNames() {
+            return namesOf(items);
+        }
+
+        @Override
+        public Collection<StatusItem> getAll() {
+            return items;
+        }
+    };
+
+    private static Set<String> namesOf(Collection<StatusItem> items) {
+        Set<String> names = new HashSet<String>();
+        for (StatusItem item : items) {
+            names.add(item.getName());
+        }
+        return names;
+    }
+
+    @Test
+    public void testGetByPrefixMatchesWholeSegments() {
+        assertEquals(new HashSet<String>(Arrays.asList("gpi:ao", "gpi:ao:temp")), namesOf(database.getByPrefix("gpi:ao")));
+        assertEquals(4, database.getByPrefix("").size());
+    }
+
+    @Test
+    public void testGetByPattern() {
+        assertEquals(new HashSet<String>(Arrays.asList("gpi:ao:temp", "gpi:aoc:temp", "gpi:cal:temp")), namesOf(database.getByPattern("gpi:*:temp")));
+    }
+
+    @Test
+    public void testNoHistoryNorVersions() {
+        assertTrue(database.getHistory("gpi:ao", 0).isEmpty());
+        assertEquals(0, database.getVersion());
+
+        StatusChanges changes = database.getChangedSince(0, "", 1);
+        assertTrue(changes.isComplete());
+        assertEquals(0, changes.getVersion());
+        assertEquals(4, changes.getItems().size());
+    }
+}
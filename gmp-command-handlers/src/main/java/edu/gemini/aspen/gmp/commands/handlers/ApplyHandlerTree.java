@@ -0,0 +1,178 @@
+package edu.gemini.aspen.gmp.commands.handlers;
+
+import edu.gemini.aspen.giapi.commands.ConfigPath;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prefix tree of the config paths that have an APPLY handler registered, e.g.
+ * gpi:cc and gpi:dc are stored under a gpi node with the children cc and dc
+ * <br>
+ * The tree is immutable, adding or removing a handler returns a new tree that shares
+ * the unchanged branches with this one, so it can be read concurrently while the
+ * handlers change
+ */
+public final class ApplyHandlerTree {
+    private static final String SEPARATOR = ":";
+    private static final ApplyHandlerTree EMPTY = new ApplyHandlerTree(Node.EMPTY, 0);
+
+    private final Node root;
+    private final int size;
+
+    /**
+     * A config path in the tree. It may have a handler itself, or only lead to the
+     * handlers of its children
+     */
+    public static final class Node {
+        private static final Node EMPTY = new Node(false, Collections.<String, Node>emptyMap());
+
+        private final boolean handler;
+        private final Map<String, Node> children;
+
+        private Node(boolean handler, Map<String, Node> children) {
+            this.handler = handler;
+            this.children = children;
+        }
+
+        /**
+         * @return true if there is a handler registered for this path
+         */
+        public boolean isHandler() {
+            return handler;
+        }
+
+        /**
+         * @param name Name of the child, e.g. cc for gpi:cc
+         * @return the child node or null if there are no handlers under it
+         */
+        public Node getChild(String name) {
+            return children.get(name);
+        }
+
+        private boolean isEmpty() {
+            return !handler && children.isEmpty();
+        }
+
+        private Node with(String[] names, int index, boolean handler) {
+            if (index == names.length) {
+                return new Node(handler, children);
+            }
+            Node child = children.get(names[index]);
+            Node newChild = (child != null ? child : EMPTY).with(names, index + 1, handler);
+            Map<String, Node> newChildren = new HashMap<String, Node>(children);
+            if (newChild.isEmpty()) {
+                newChildren.remove(names[index]);
+            } else {
+                newChildren.put(names[index], newChild);
+            }
+            return new Node(this.handler, Collections.unmodifiableMap(newChildren));
+        }
+
+        private void collectHandlers(ConfigPath path, List<ConfigPath> handlers) {
+            if (handler) {
+                handlers.add(path);
+            }
+            for (Map.Entry<String, Node> child : children.entrySet()) {
+                child.getValue().collectHandlers(ConfigPath.configPath(path.getName(), child.getKey()), handlers);
+            }
+        }
+    }
+
+    private ApplyHandlerTree(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * @return a tree without handlers
+     */
+    public static ApplyHandlerTree empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Builds a tree with the given handlers
+     */
+    public static ApplyHandlerTree of(Iterable<ConfigPath> handlers) {
+        ApplyHandlerTree tree = EMPTY;
+        for (ConfigPath handler : handlers) {
+            tree = tree.withHandler(handler);
+        }
+        return tree;
+    }
+
+    /**
+     * @return a tree including a handler for the given path
+     */
+    public ApplyHandlerTree withHandler(ConfigPath path) {
+        if (hasHandler(path) || ConfigPath.EMPTY_PATH.equals(path)) {
+            return this;
+        }
+        return new ApplyHandlerTree(root.with(names(path), 0, true), size + 1);
+    }
+
+    /**
+     * @return a tree without the handler for the given path
+     */
+    public ApplyHandlerTree withoutHandler(ConfigPath path) {
+        if (!hasHandler(path)) {
+            return this;
+        }
+        return new ApplyHandlerTree(root.with(names(path), 0, false), size - 1);
+    }
+
+    /**
+     * @return true if there is a handler registered exactly for the given path
+     */
+    public boolean hasHandler(ConfigPath path) {
+        if (ConfigPath.EMPTY_PATH.equals(path)) {
+            return false;
+        }
+        Node node = root;
+        for (String name : names(path)) {
+            node = node.getChild(name);
+            if (node == null) {
+                return false;
+            }
+        }
+        return node.isHandler();
+    }
+
+    /**
+     * @return the node of the empty path, the children of which are the top level names
+     */
+    public Node getRoot() {
+        return root;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the paths that have a handler registered
+     */
+    public List<ConfigPath> getHandlers() {
+        List<ConfigPath> handlers = new ArrayList<ConfigPath>(size);
+        root.collectHandlers(ConfigPath.EMPTY_PATH, handlers);
+        return handlers;
+    }
+
+    // Config paths are normalized, names are separated by a single separator
+    private static String[] names(ConfigPath path) {
+        return path.getName().split(SEPARATOR);
+    }
+
+    @Override
+    public String toString() {
+        return "ApplyHandlerTree" + getHandlers();
+    }
+}
@@ -12,4 +12,11 @@ public interface CommandHandlers {
      * Returns a list of the registered command handlers in terms of config path
      */
     List<ConfigPath> getApplyHandlers();
+
+    /**
+     * Returns the registered apply handlers as a prefix tree of config paths
+     */
+    default ApplyHandlerTree getApplyHandlerTree() {
+        return ApplyHandlerTree.of(getApplyHandlers());
+    }
 }
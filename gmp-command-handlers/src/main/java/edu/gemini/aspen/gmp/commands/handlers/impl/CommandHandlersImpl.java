@@ -1,28 +1,163 @@
 package edu.gemini.aspen.gmp.commands.handlers.impl;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import edu.gemini.aspen.giapi.commands.ConfigPath;
+import edu.gemini.aspen.gmp.commands.handlers.ApplyHandlerTree;
 import edu.gemini.aspen.gmp.commands.handlers.CommandHandlers;
 
 import javax.management.*;
+import java.lang.management.ManagementFactory;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 public class CommandHandlersImpl implements CommandHandlers {
+    private static final Logger LOG = Logger.getLogger(CommandHandlersImpl.class.getName());
+    private static final String BROKER_DOMAIN = "org.apache.activemq";
+    private static final String APPLY_TOPIC_PREFIX = "GMP.SC.APPLY.";
+    // A consumer's MBean is registered before the broker counts it in its topic
+    private static final long REFRESH_DELAY_MS = 100;
+
+    private final List<MBeanServer> observedServers = Lists.newArrayList();
+    private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+    private final Object refreshLock = new Object();
+    private volatile ScheduledExecutorService refreshExecutor;
+    private volatile ApplyHandlerTree handlerTree = ApplyHandlerTree.empty();
+
+    // Consumers of the handler topics are registered and unregistered as broker MBeans.
+    // The tree is refreshed in its own thread, as the broker sends the notifications
+    // while it adds or removes the consumer
+    private final NotificationListener registrationListener = new NotificationListener() {
+        @Override
+        public void handleNotification(Notification notification, Object handback) {
+            scheduleRefresh();
+        }
+    };
+
+    // Only the consumers of the handler topics, the broker registers many other MBeans
+    private final NotificationFilter brokerMBeans = new NotificationFilter() {
+        @Override
+        public boolean isNotificationEnabled(Notification notification) {
+            return notification instanceof MBeanServerNotification
+                    && isApplyHandlerConsumer(((MBeanServerNotification) notification).getMBeanName());
+        }
+    };
+
+    /**
+     * Whether the MBean is a consumer of an apply handler topic, named as
+     * org.apache.activemq:Type=Subscription,destinationName=GMP.SC.APPLY...
+     * or org.apache.activemq:endpoint=Consumer,destinationName=GMP.SC.APPLY... in newer brokers
+     */
+    static boolean isApplyHandlerConsumer(ObjectName name) {
+        String destination = name.getKeyProperty("destinationName");
+        return BROKER_DOMAIN.equals(name.getDomain())
+                && ("Subscription".equals(name.getKeyProperty("Type")) || "Consumer".equals(name.getKeyProperty("endpoint")))
+                && destination != null && destination.startsWith(APPLY_TOPIC_PREFIX);
+    }
+
+    /**
+     * Starts following the registration of broker MBeans, which updates the
+     * handler tree when handlers come and go
+     */
+    public synchronized void start() {
+        refreshExecutor = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("Apply handlers refresh").setDaemon(true).build());
+        // The broker registers its MBeans on the platform server by default
+        ManagementFactory.getPlatformMBeanServer();
+        for (MBeanServer s : MBeanServerFactory.findMBeanServer(null)) {
+            try {
+                s.addNotificationListener(MBeanServerDelegate.DELEGATE_NAME, registrationListener, brokerMBeans, null);
+                observedServers.add(s);
+            } catch (InstanceNotFoundException e) {
+                LOG.log(Level.WARNING, "Cannot follow the registration of MBeans", e);
+            }
+        }
+        refresh();
+    }
+
+    public synchronized void stop() {
+        for (MBeanServer s : observedServers) {
+            try {
+                s.removeNotificationListener(MBeanServerDelegate.DELEGATE_NAME, registrationListener, brokerMBeans, null);
+            } catch (InstanceNotFoundException | ListenerNotFoundException e) {
+                LOG.log(Level.FINE, "MBean registration listener already gone", e);
+            }
+        }
+        observedServers.clear();
+        if (refreshExecutor != null) {
+            refreshExecutor.shutdownNow();
+            refreshExecutor = null;
+        }
+    }
+
+    private void scheduleRefresh() {
+        ScheduledExecutorService executor = refreshExecutor;
+        if (executor != null && refreshScheduled.compareAndSet(false, true)) {
+            try {
+                executor.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        refreshScheduled.set(false);
+                        refresh();
+                    }
+                }, REFRESH_DELAY_MS, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // Stopping
+                refreshScheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * Updates the tree with the handlers registered or gone since the last update
+     */
+    void refresh() {
+        synchronized (refreshLock) {
+            Set<ConfigPath> handlers = Sets.newHashSet(getApplyHandlers());
+            ApplyHandlerTree tree = handlerTree;
+            for (ConfigPath handler : tree.getHandlers()) {
+                if (!handlers.contains(handler)) {
+                    tree = tree.withoutHandler(handler);
+                }
+            }
+            for (ConfigPath handler : handlers) {
+                tree = tree.withHandler(handler);
+            }
+            handlerTree = tree;
+        }
+    }
+
+    /**
+     * Returns the tree as of the last registration or unregistration of a handler.
+     * A handler that just subscribed may not be in it yet, callers that miss a
+     * handler should check {@link #getApplyHandlers()}
+     */
+    @Override
+    public ApplyHandlerTree getApplyHandlerTree() {
+        return handlerTree;
+    }
+
     @Override
     public List<ConfigPath> getApplyHandlers() {
         List<MBeanServer> mBeanServers = MBeanServerFactory.findMBeanServer(null);
         List<ConfigPath> handlers = Lists.newArrayList();
         for (MBeanServer s : mBeanServers) {
             try {
-                Set<ObjectName> objectNames = s.queryNames(new ObjectName("org.apache.activemq:*"),
+                Set<ObjectName> objectNames = s.queryNames(new ObjectName(BROKER_DOMAIN + ":*"),
                         Query.isInstanceOf(Query.value("org.apache.activemq.broker.jmx.TopicView")));
                 for (ObjectName on : objectNames) {
                     String handlerRoute = s.getAttribute(on, "Name").toString();
                     Long consumerCount = (Long)s.getAttribute(on, "ConsumerCount");
-                    String prefix = "GMP.SC.APPLY.";
-                    if (handlerRoute.startsWith(prefix) && consumerCount.longValue() > 0) {
-                        handlers.add(ConfigPath.configPath(handlerRoute.substring(prefix.length())));
+                    if (handlerRoute.startsWith(APPLY_TOPIC_PREFIX) && consumerCount.longValue() > 0) {
+                        handlers.add(ConfigPath.configPath(handlerRoute.substring(APPLY_TOPIC_PREFIX.length())));
                     }
                 }
             } catch (MalformedObjectNameException e) {
@@ -11,10 +11,13 @@ import java.util.Hashtable;
 public class Activator implements BundleActivator {
 
     private ServiceRegistration<CommandHandlers> registration;
+    private CommandHandlersImpl commandHandlers;
 
     @Override
     public void start(BundleContext context) throws Exception {
-        registration = context.registerService(CommandHandlers.class, new CommandHandlersImpl(), new Hashtable<String, Object>());
+        commandHandlers = new CommandHandlersImpl();
+        commandHandlers.start();
+        registration = context.registerService(CommandHandlers.class, commandHandlers, new Hashtable<String, Object>());
     }
 
     @Override
@@ -23,5 +26,9 @@ public class Activator implements BundleActivator {
             registration.unregister();
             registration = null;
         }
+        if (commandHandlers != null) {
+            commandHandlers.stop();
+            commandHandlers = null;
+        }
     }
 }
@@ -0,0 +1,67 @@
+package edu.gemini.aspen.gmp.commands.handlers;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+
+import static edu.gemini.aspen.giapi.commands.ConfigPath.configPath;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ApplyHandlerTreeTest {
+    private final ApplyHandlerTree tree = ApplyHandlerTree.of(ImmutableList.of(configPath("gpi:cc"), configPath("gpi:dc"), configPath("gpi:cc:slu:fa1")));
+
+    @Test
+    public void testEmptyTree() {
+        assertTrue(ApplyHandlerTree.empty().isEmpty());
+        assertFalse(ApplyHandlerTree.empty().hasHandler(configPath("gpi")));
+        assertTrue(ApplyHandlerTree.empty().getHandlers().isEmpty());
+    }
+
+    @Test
+    public void testHandlers() {
+        assertEquals(3, tree.size());
+        assertTrue(tree.hasHandler(configPath("gpi:cc")));
+        assertTrue(tree.hasHandler(configPath("gpi:cc:slu:fa1")));
+        assertFalse(tree.hasHandler(configPath("gpi")));
+        assertFalse(tree.hasHandler(configPath("gpi:cc:slu")));
+        assertFalse(tree.hasHandler(configPath("gpi:ao")));
+        assertEquals(ImmutableSet.of(configPath("gpi:cc"), configPath("gpi:dc"), configPath("gpi:cc:slu:fa1")), ImmutableSet.copyOf(tree.getHandlers()));
+    }
+
+    @Test
+    public void testNavigation() {
+        ApplyHandlerTree.Node gpi = tree.getRoot().getChild("gpi");
+        assertFalse(gpi.isHandler());
+        assertTrue(gpi.getChild("cc").isHandler());
+        assertFalse(gpi.getChild("cc").getChild("slu").isHandler());
+        assertNull(gpi.getChild("ao"));
+    }
+
+    @Test
+    public void testAddingDoesNotChangeTheOriginalTree() {
+        ApplyHandlerTree newTree = tree.withHandler(configPath("gpi:ao"));
+
+        assertTrue(newTree.hasHandler(configPath("gpi:ao")));
+        assertEquals(4, newTree.size());
+        assertFalse(tree.hasHandler(configPath("gpi:ao")));
+        assertSame(tree, tree.withHandler(configPath("gpi:cc")));
+    }
+
+    @Test
+    public void testRemovingPrunesEmptyBranches() {
+        ApplyHandlerTree newTree = tree.withoutHandler(configPath("gpi:cc:slu:fa1"));
+
+        assertEquals(2, newTree.size());
+        assertTrue(newTree.hasHandler(configPath("gpi:cc")));
+        assertNull(newTree.getRoot().getChild("gpi").getChild("cc").getChild("slu"));
+
+        ApplyHandlerTree keepingChildren = tree.withoutHandler(configPath("gpi:cc"));
+        assertFalse(keepingChildren.hasHandler(configPath("gpi:cc")));
+        assertTrue(keepingChildren.hasHandler(configPath("gpi:cc:slu:fa1")));
+        assertSame(tree, tree.withoutHandler(configPath("gpi:ao")));
+    }
+}
@@ -1,11 +1,42 @@
 package edu.gemini.aspen.gmp.commands.handlers.impl;
 
+import com.google.common.collect.ImmutableList;
+import edu.gemini.aspen.giapi.commands.ConfigPath;
+import edu.gemini.aspen.gmp.commands.handlers.ApplyHandlerTree;
 import org.junit.Test;
 
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static edu.gemini.aspen.giapi.commands.ConfigPath.configPath;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class CommandHandlersImplTest {
+    public interface TestMBean {
+    }
+
+    /**
+     * Gets the handlers from a list instead of the broker MBeans
+     */
+    private static class ListedCommandHandlers extends CommandHandlersImpl {
+        private final AtomicInteger scans = new AtomicInteger();
+        private volatile List<ConfigPath> handlers = ImmutableList.of(configPath("X:S1"));
+
+        @Override
+        public List<ConfigPath> getApplyHandlers() {
+            scans.incrementAndGet();
+            return handlers;
+        }
+    }
+
     @Test
     public void testConstruction() {
         assertNotNull(new CommandHandlersImpl());
@@ -15,4 +46,63 @@ public class CommandHandlersImplTest {
     public void testGetApplyHandlers() {
         assertTrue(new CommandHandlersImpl().getApplyHandlers().isEmpty());
     }
+
+    @Test
+    public void testGetApplyHandlerTree() {
+        assertTrue(new CommandHandlersImpl().getApplyHandlerTree().isEmpty());
+    }
+
+    @Test
+    public void testTreeIsNotScannedOnEachCall() {
+        ListedCommandHandlers commandHandlers = new ListedCommandHandlers();
+        commandHandlers.start();
+        try {
+            ApplyHandlerTree tree = commandHandlers.getApplyHandlerTree();
+            for (int i = 0; i < 3; i++) {
+                assertSame(tree, commandHandlers.getApplyHandlerTree());
+            }
+            assertTrue(tree.hasHandler(configPath("X:S1")));
+            assertEquals(1, commandHandlers.scans.get());
+        } finally {
+            commandHandlers.stop();
+        }
+    }
+
+    @Test
+    public void testTreeIsUpdatedWhenBrokerMBeansAreRegistered() throws Exception {
+        MBeanServer server = MBeanServerFactory.createMBeanServer();
+        ListedCommandHandlers commandHandlers = new ListedCommandHandlers();
+        commandHandlers.start();
+        try {
+            commandHandlers.handlers = ImmutableList.of(configPath("X:S1"), configPath("X:S2"));
+            ObjectName name = new ObjectName("org.apache.activemq:Type=Subscription,destinationType=Topic,destinationName=GMP.SC.APPLY.X_S2,consumerId=test");
+            server.registerMBean(new StandardMBean(new TestMBean() {
+            }, TestMBean.class), name);
+            waitForHandlers(commandHandlers, 2);
+
+            commandHandlers.handlers = ImmutableList.of(configPath("X:S2"));
+            server.unregisterMBean(name);
+            waitForHandlers(commandHandlers, 1);
+            assertTrue(commandHandlers.getApplyHandlerTree().hasHandler(configPath("X:S2")));
+        } finally {
+            commandHandlers.stop();
+            MBeanServerFactory.releaseMBeanServer(server);
+        }
+    }
+
+    @Test
+    public void testOnlyHandlerConsumersAreFollowed() throws Exception {
+        assertTrue(CommandHandlersImpl.isApplyHandlerConsumer(new ObjectName("org.apache.activemq:BrokerName=gmp,Type=Subscription,persistentMode=Non-Durable,destinationType=Topic,destinationName=GMP.SC.APPLY.gpi_ao,clientId=c,consumerId=c1")));
+        assertTrue(CommandHandlersImpl.isApplyHandlerConsumer(new ObjectName("org.apache.activemq:type=Broker,brokerName=gmp,destinationType=Topic,destinationName=GMP.SC.APPLY.gpi_ao,endpoint=Consumer,clientId=c,consumerId=c1")));
+        assertFalse(CommandHandlersImpl.isApplyHandlerConsumer(new ObjectName("org.apache.activemq:BrokerName=gmp,Type=Subscription,destinationType=Queue,destinationName=GMP.SC.REPLY,consumerId=c1")));
+        assertFalse(CommandHandlersImpl.isApplyHandlerConsumer(new ObjectName("org.apache.activemq:BrokerName=gmp,Type=Producer,destinationName=GMP.SC.APPLY.gpi_ao,producerId=p1")));
+        assertFalse(CommandHandlersImpl.isApplyHandlerConsumer(new ObjectName("org.apache.activemq:BrokerName=gmp,Type=Connection,Connection=c")));
+    }
+
+    private static void waitForHandlers(CommandHandlersImpl commandHandlers, int count) throws InterruptedException {
+        for (int i = 0; i < 500 && commandHandlers.getApplyHandlerTree().size() != count; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, commandHandlers.getApplyHandlerTree().size());
+    }
 }
@@ -9,7 +9,6 @@ import edu.gemini.jms.api.*;
 
 import javax.jms.JMSException;
 import javax.jms.Message;
-import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -17,14 +16,15 @@ import java.util.logging.Logger;
  * This component listens to commands sent over JMS and forwards them to CommandSender, basically
  * acting as a Bridge between clients and the CommandSender
  * <br>
- * It also creates listeners to track responses to the commands
+ * It also creates listeners to track responses to the commands, all of them send their
+ * replies through a single producer kept open by the bridge
  */
 public class CommandMessagesBridgeImpl implements CommandMessagesBridge {
     private static final Logger LOG = Logger.getLogger(CommandMessagesBridgeImpl.class.getName());
     private static final DestinationData REPLY_DESTINATION = new DestinationData(JmsKeys.GW_COMMAND_REPLY_QUEUE, DestinationType.QUEUE);
 
-    private final JmsProvider _jmsProvider;
     private final CommandSender _commandSender;
+    private final ForwardingReplySender _replySender;
 
     /**
      * Creates a new CommandMessageBridge
@@ -35,8 +35,8 @@ public class CommandMessagesBridgeImpl implements CommandMessagesBridge {
     public CommandMessagesBridgeImpl(JmsProvider jmsProvider, CommandSender commandSender) {
         Preconditions.checkArgument(jmsProvider != null, "JMS Provider cannot be null");
         Preconditions.checkArgument(commandSender != null, "CommandSender cannot be null");
-        _jmsProvider = jmsProvider;
         _commandSender = commandSender;
+        _replySender = new ForwardingReplySender(jmsProvider);
     }
 
     @Override
@@ -74,21 +74,18 @@ public class CommandMessagesBridgeImpl implements CommandMessagesBridge {
         HandlerResponse response = _commandSender.sendCommand(command, listener);
 
         listener.sendInitialResponseToClient(response);
-
-        if (!shouldWaitForMoreResponses(response)) {
-           listener.stopListeningForResponses();
-        }
-    }
-
-    private boolean shouldWaitForMoreResponses(HandlerResponse response) {
-        return response.getResponse() == HandlerResponse.Response.STARTED;
     }
 
     private JmsForwardingCompletionListener setupCompletionListener(String correlationID) throws JMSException {
-        JmsForwardingCompletionListener listener = new JmsForwardingCompletionListener(REPLY_DESTINATION, correlationID);
+        _replySender.start();
+        return new JmsForwardingCompletionListener(_replySender, REPLY_DESTINATION, correlationID);
+    }
 
-        listener.startJms(_jmsProvider);
-        return listener;
+    /**
+     * Closes the producer used to send the replies to the clients
+     */
+    public void stopReplies() {
+        _replySender.stop();
     }
 
 }
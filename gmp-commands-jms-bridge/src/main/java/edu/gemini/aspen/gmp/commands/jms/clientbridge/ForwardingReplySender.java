@@ -0,0 +1,75 @@
+package edu.gemini.aspen.gmp.commands.jms.clientbridge;
+
+import com.google.common.base.Preconditions;
+import edu.gemini.jms.api.DestinationData;
+import edu.gemini.jms.api.JmsMapMessageSender;
+import edu.gemini.jms.api.JmsProvider;
+import edu.gemini.jms.api.MapMessageBuilder;
+import edu.gemini.jms.api.MapMessageSender;
+import edu.gemini.jms.api.MessagingException;
+
+import javax.jms.JMSException;
+import javax.jms.MapMessage;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Sends the replies of all the commands forwarded by the bridge using a single
+ * JMS producer. The producer is started with the first reply and kept open,
+ * the reply destinations are cached by the underlying {@link JmsMapMessageSender}
+ * <br>
+ * Replies are sent from the bridge and from the completion listener threads, so the
+ * sends are serialized as the JMS session cannot be used concurrently. If a send
+ * fails the producer is discarded and a new one is started on the next reply
+ */
+class ForwardingReplySender implements MapMessageSender {
+    private static final Logger LOG = Logger.getLogger(ForwardingReplySender.class.getName());
+    private static final String SENDER_NAME = "Gateway Command Reply Sender";
+
+    private final JmsProvider _jmsProvider;
+    private JmsMapMessageSender _sender;
+
+    ForwardingReplySender(JmsProvider jmsProvider) {
+        Preconditions.checkArgument(jmsProvider != null, "JMS Provider cannot be null");
+        _jmsProvider = jmsProvider;
+    }
+
+    /**
+     * Starts the shared producer if it is not running yet
+     *
+     * @throws JMSException if the producer cannot be started
+     */
+    synchronized void start() throws JMSException {
+        if (_sender == null) {
+            JmsMapMessageSender sender = new JmsMapMessageSender(SENDER_NAME);
+            sender.startJms(_jmsProvider);
+            _sender = sender;
+        }
+    }
+
+    @Override
+    public synchronized MapMessage sendMapMessage(DestinationData destination, MapMessageBuilder messageBuilder) throws MessagingException {
+        try {
+            start();
+        } catch (JMSException e) {
+            throw new MessagingException("Unable to start the reply sender", e);
+        }
+        try {
+            return _sender.sendMapMessage(destination, messageBuilder);
+        } catch (MessagingException e) {
+            LOG.log(Level.WARNING, "Discarding the reply sender after a failed send to " + destination, e);
+            stop();
+            throw e;
+        }
+    }
+
+    /**
+     * Closes the shared producer
+     */
+    synchronized void stop() {
+        if (_sender != null) {
+            _sender.stopJms();
+            _sender = null;
+        }
+    }
+}
@@ -7,8 +7,8 @@ import edu.gemini.aspen.giapi.commands.CompletionListener;
 import edu.gemini.aspen.giapi.commands.HandlerResponse;
 import edu.gemini.aspen.giapi.util.jms.MessageBuilderFactory;
 import edu.gemini.jms.api.DestinationData;
-import edu.gemini.jms.api.JmsMapMessageSender;
 import edu.gemini.jms.api.MapMessageBuilder;
+import edu.gemini.jms.api.MapMessageSender;
 
 import java.util.logging.Logger;
 
@@ -16,18 +16,20 @@ import java.util.logging.Logger;
  * This class is an internal listener CompletionListener that gets notified when a Command is completed
  *
  * Upon completion the listener forwards the result to a JMS client using the given replyDestination and
- * correlationID
+ * correlationID. The messages are sent with the given sender, usually shared by all the listeners
  */
-class JmsForwardingCompletionListener extends JmsMapMessageSender implements CompletionListener {
+class JmsForwardingCompletionListener implements CompletionListener {
     private static final Logger LOG = Logger.getLogger(JmsForwardingCompletionListener.class.getName());
+    private final MapMessageSender _sender;
     private final DestinationData _replyDestination;
     private final String _correlationID;
 
-    public JmsForwardingCompletionListener(DestinationData replyDestination, String correlationID) {
-        super("ForwardingListener on correlationID: " + correlationID);
+    public JmsForwardingCompletionListener(MapMessageSender sender, DestinationData replyDestination, String correlationID) {
+        Preconditions.checkArgument(sender != null, "Sender of the responses cannot be null");
         Preconditions.checkArgument(replyDestination != null, "Destination to send responses cannot be null");
         Preconditions.checkArgument(correlationID != null && !correlationID.isEmpty(), "All Command messages require a _correlationID");
 
+        _sender = sender;
         _replyDestination = replyDestination;
         this._correlationID = correlationID;
     }
@@ -41,7 +43,7 @@ class JmsForwardingCompletionListener extends JmsMapMessageSender implements Com
         logSendingReply(response);
 
         MapMessageBuilder responseMessageBuilder = MessageBuilderFactory.newMessageBuilder(response, _correlationID);
-        super.sendMapMessage(_replyDestination, responseMessageBuilder);
+        _sender.sendMapMessage(_replyDestination, responseMessageBuilder);
     }
 
     /**
@@ -50,25 +52,19 @@ class JmsForwardingCompletionListener extends JmsMapMessageSender implements Com
     @Override
     public void onHandlerResponse(HandlerResponse response, Command command) {
         sendCompletionResponse(new CompletionInformation(response, command));
-
-        stopListeningForResponses();
     }
 
     private void sendCompletionResponse(CompletionInformation completionInformation) {
         logSendingReply(completionInformation);
 
         MapMessageBuilder messageBuilder = MessageBuilderFactory.newMessageBuilder(completionInformation, _correlationID);
-        super.sendMapMessage(_replyDestination, messageBuilder);
+        _sender.sendMapMessage(_replyDestination, messageBuilder);
     }
 
     private void logSendingReply(Object objectToSend) {
         LOG.fine("Sent initial response " + objectToSend+ " to " + _replyDestination + " " + _correlationID);
     }
 
-    void stopListeningForResponses() {
-        super.stopJms();
-    }
-
     @Override
     public String toString() {
         return "ForwardingCompletionListener on " + _replyDestination.getName();
@@ -7,18 +7,24 @@ import edu.gemini.jms.api.JmsMapMessageSenderReply;
 import javax.jms.JMSException;
 import javax.jms.MapMessage;
 import javax.jms.Message;
-import javax.jms.MessageConsumer;
 
 /**
  * Extension of {@link edu.gemini.jms.api.JmsMapMessageSenderReply<T>} that can understand and decode a
  * reply of a {@link edu.gemini.aspen.giapi.commands.SequenceCommand} in the form
  * of a {@link edu.gemini.aspen.giapi.commands.HandlerResponse}
+ * <br>
+ * Replies are received on temporary queues reused between requests
  */
 class HandlerResponseSenderReply extends JmsMapMessageSenderReply<HandlerResponse> {
     public HandlerResponseSenderReply(String topicName) {
         super(topicName);
     }
 
+    @Override
+    protected boolean reuseReplyDestinations() {
+        return true;
+    }
+
     @Override
     public HandlerResponse buildResponse(Message reply) throws JMSException {
         if (reply instanceof MapMessage) {
@@ -29,13 +35,4 @@ class HandlerResponseSenderReply extends JmsMapMessageSenderReply<HandlerRespons
         }
     }
 
-    /**
-     * This SenderReply object will listen based only on the temporary topic created to get responses
-     * and set in the getJmsReplyTo method
-     */
-    @Override
-    protected MessageConsumer createReplyConsumer(Message requestMessage) throws JMSException {
-        return _session.createConsumer(requestMessage.getJMSReplyTo());
-    }
-
 }
\ No newline at end of file
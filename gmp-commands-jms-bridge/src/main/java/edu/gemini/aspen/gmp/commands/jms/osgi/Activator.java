@@ -25,6 +25,7 @@ public class Activator implements BundleActivator {
     private ServiceTracker<CommandUpdater, CommandUpdater> cuServiceTracker;
     private ServiceTracker<CommandSender, CommandSender> csServiceTracker;
     private ServiceTracker<JmsProvider, JmsProvider> jmsProviderServiceTracker;
+    private CommandMessagesBridgeImpl bridge;
     private ServiceRegistration<CommandMessagesBridge> bridgeServiceRegistration;
     private ServiceRegistration<JmsArtifact> commandMessagesConsumerRegistration;
     private ServiceRegistration<JmsArtifact> infoListenerRegistration;
@@ -74,7 +75,7 @@ public class Activator implements BundleActivator {
                     public JmsProvider addingService(ServiceReference<JmsProvider> jmsProviderReference) {
                         JmsProvider jmsProvider = context.getService(jmsProviderReference);
                         if (bridgeServiceRegistration == null) {
-                            CommandMessagesBridgeImpl bridge = new CommandMessagesBridgeImpl(jmsProvider, cs);
+                            bridge = new CommandMessagesBridgeImpl(jmsProvider, cs);
                             CommandMessagesConsumer commandMessagesConsumer = new CommandMessagesConsumer(bridge);
                             bridgeServiceRegistration = context.registerService(CommandMessagesBridge.class, bridge, new Hashtable<String, String>());
                             commandMessagesConsumerRegistration = context.registerService(JmsArtifact.class, commandMessagesConsumer, new Hashtable<String, String>());
@@ -97,6 +98,7 @@ public class Activator implements BundleActivator {
                             commandMessagesConsumerRegistration.unregister();
                             commandMessagesConsumerRegistration = null;
                         }
+                        stopBridgeReplies();
                     }
                 });
                 jmsProviderServiceTracker.open();
@@ -141,6 +143,7 @@ public class Activator implements BundleActivator {
             commandMessagesConsumerRegistration.unregister();
             commandMessagesConsumerRegistration = null;
         }
+        stopBridgeReplies();
         if (amServiceRegistration != null) {
             amServiceRegistration.unregister();
             amServiceRegistration = null;
@@ -155,4 +158,11 @@ public class Activator implements BundleActivator {
         }
 
     }
+
+    private void stopBridgeReplies() {
+        if (bridge != null) {
+            bridge.stopReplies();
+            bridge = null;
+        }
+    }
 }
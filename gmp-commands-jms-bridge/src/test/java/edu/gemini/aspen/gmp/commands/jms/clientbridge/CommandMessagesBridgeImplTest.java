@@ -18,6 +18,7 @@ import javax.jms.MapMessage;
 import javax.jms.Queue;
 
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -50,12 +51,12 @@ public class CommandMessagesBridgeImplTest extends MockedJmsArtifactsTestBase {
         verifyCommandWasCalled();
         // Check the reply message was sent
         verifyReplyToClientSent(1);
-        // Check the listener closed itself
-        verifyListenerClosedItself();
+        // Check the reply producer is kept for the next commands
+        verifyReplyProducerKeptOpen();
     }
 
-    private void verifyListenerClosedItself() throws JMSException {
-        verify(session).close();
+    private void verifyReplyProducerKeptOpen() throws JMSException {
+        verify(session, never()).close();
     }
 
     private void verifyReplyToClientSent(int times) throws JMSException {
@@ -86,9 +87,40 @@ public class CommandMessagesBridgeImplTest extends MockedJmsArtifactsTestBase {
         // A new message should have been sent over JMS
         verifyReplyToClientSent(2);
 
-        // Check the listener closed itself
-        verifyListenerClosedItself();
+        verifyReplyProducerKeptOpen();
+    }
+
+    @Test
+    public void testRepliesShareOneConnection() throws JMSException {
+        mockCommandResponse(HandlerResponse.Response.STARTED);
+        for (int i = 0; i < 10; i++) {
+            messagesBridge.onMessage(createClientApplyCommandMessage());
+        }
+        for (CompletionListener listener : listenerCaptor.getAllValues()) {
+            listener.onHandlerResponse(HandlerResponse.get(HandlerResponse.Response.COMPLETED), commandCaptor.getValue());
+        }
+
+        verifyReplyToClientSent(20);
+        verify(connectionFactory, times(1)).createConnection();
+        verify(session, times(1)).createProducer(isNull());
+        verifyReplyProducerKeptOpen();
+
+        messagesBridge.stopReplies();
+        verify(session).close();
+    }
 
+    @Test
+    public void testCompletedCommandsReuseTheReplyProducer() throws JMSException {
+        mockCommandResponse(HandlerResponse.Response.COMPLETED);
+        int commands = 200;
+        for (int i = 0; i < commands; i++) {
+            messagesBridge.onMessage(createClientApplyCommandMessage());
+        }
+
+        verifyReplyToClientSent(commands);
+        verify(connectionFactory, times(1)).createConnection();
+        verify(session, times(1)).createProducer(isNull());
+        verifyReplyProducerKeptOpen();
     }
 
     private void verifyCommandWasCalled() {
@@ -38,9 +38,7 @@ public class JmsForwardingCompletionListenerTest extends MockedJmsArtifactsTestB
     public void testOnHandlerResponse() throws JMSException {
         super.createMockedObjects();
 
-        JmsForwardingCompletionListener completionListener = new JmsForwardingCompletionListener(destination, correlationID);
-
-        completionListener.startJms(provider);
+        JmsForwardingCompletionListener completionListener = new JmsForwardingCompletionListener(new ForwardingReplySender(provider), destination, correlationID);
 
         Configuration referenceConfiguration = configurationBuilder()
                 .withPath(configPath("x:A"), "1")
@@ -57,9 +55,7 @@ public class JmsForwardingCompletionListenerTest extends MockedJmsArtifactsTestB
     public void testOnHandlerErrorResponse() throws JMSException {
         super.createMockedObjects();
 
-        JmsForwardingCompletionListener completionListener = new JmsForwardingCompletionListener(destination, correlationID);
-
-        completionListener.startJms(provider);
+        JmsForwardingCompletionListener completionListener = new JmsForwardingCompletionListener(new ForwardingReplySender(provider), destination, correlationID);
 
         Configuration referenceConfiguration = configurationBuilder()
                 .withPath(configPath("x:A"), "1")
@@ -76,9 +72,7 @@ public class JmsForwardingCompletionListenerTest extends MockedJmsArtifactsTestB
     public void testSendImmediateHandlerResponse() throws JMSException {
         super.createMockedObjects();
 
-        JmsForwardingCompletionListener completionListener = new JmsForwardingCompletionListener(destination, correlationID);
-
-        completionListener.startJms(provider);
+        JmsForwardingCompletionListener completionListener = new JmsForwardingCompletionListener(new ForwardingReplySender(provider), destination, correlationID);
 
         HandlerResponse response = HandlerResponse.get(HandlerResponse.Response.COMPLETED);
         completionListener.sendInitialResponseToClient(response);
@@ -95,9 +89,7 @@ public class JmsForwardingCompletionListenerTest extends MockedJmsArtifactsTestB
     public void testSendImmediateErrorHandlerResponse() throws JMSException {
         super.createMockedObjects();
 
-        JmsForwardingCompletionListener completionListener = new JmsForwardingCompletionListener(destination, correlationID);
-
-        completionListener.startJms(provider);
+        JmsForwardingCompletionListener completionListener = new JmsForwardingCompletionListener(new ForwardingReplySender(provider), destination, correlationID);
 
         HandlerResponse response = HandlerResponse.createError("Error Message");
         completionListener.sendInitialResponseToClient(response);
@@ -114,7 +106,7 @@ public class JmsForwardingCompletionListenerTest extends MockedJmsArtifactsTestB
     public void testToString() throws JMSException {
         super.createMockedObjects();
 
-        JmsForwardingCompletionListener completionListener = new JmsForwardingCompletionListener(destination, correlationID);
+        JmsForwardingCompletionListener completionListener = new JmsForwardingCompletionListener(new ForwardingReplySender(provider), destination, correlationID);
         assertNotNull(completionListener.toString());
     }
 
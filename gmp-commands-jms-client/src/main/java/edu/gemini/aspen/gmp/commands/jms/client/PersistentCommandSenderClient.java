@@ -0,0 +1,73 @@
+package edu.gemini.aspen.gmp.commands.jms.client;
+
+import com.google.common.base.Preconditions;
+import edu.gemini.aspen.giapi.commands.Command;
+import edu.gemini.aspen.giapi.commands.CommandSender;
+import edu.gemini.aspen.giapi.commands.CompletionListener;
+import edu.gemini.aspen.giapi.commands.HandlerResponse;
+import edu.gemini.aspen.gmp.commands.jms.client.internal.CommandReplyDemultiplexer;
+import edu.gemini.jms.api.JmsProvider;
+import edu.gemini.jms.api.MessagingException;
+
+import javax.jms.JMSException;
+
+/**
+ * This class sends sequence commands to the GMP like {@link CommandSenderClient} but
+ * it keeps its JMS session, producer and reply consumer open between commands
+ * instead of connecting for each command
+ * <br>
+ * It suits clients sending many commands, e.g. sequencers. Several commands can be
+ * in progress at the same time. The connection is made with the first command, and
+ * again after a failure. Call {@link #close()} when the client is not needed anymore
+ */
+public class PersistentCommandSenderClient implements CommandSender {
+    private final JmsProvider provider;
+    private CommandReplyDemultiplexer demultiplexer;
+
+    public PersistentCommandSenderClient(JmsProvider provider) {
+        Preconditions.checkArgument(provider != null, "Provider cannot be null");
+        this.provider = provider;
+    }
+
+    @Override
+    public HandlerResponse sendCommand(Command command, CompletionListener listener) {
+        return connectAndSendCommand(command, listener, DEFAULT_COMMAND_RESPONSE_TIMEOUT);
+    }
+
+    @Override
+    public HandlerResponse sendCommand(Command command, CompletionListener listener, long timeout) {
+        return connectAndSendCommand(command, listener, timeout);
+    }
+
+    private HandlerResponse connectAndSendCommand(Command command, CompletionListener listener, long timeout) {
+        try {
+            return connection().sendCommand(command, listener, timeout);
+        } catch (Exception e) {
+            // If there is an error capture it here and return it as a HandlerResponse
+            return HandlerResponse.createError(e.getMessage());
+        }
+    }
+
+    private synchronized CommandReplyDemultiplexer connection() {
+        if (demultiplexer == null || !demultiplexer.isConnected()) {
+            CommandReplyDemultiplexer newDemultiplexer = new CommandReplyDemultiplexer();
+            try {
+                newDemultiplexer.startJms(provider);
+            } catch (JMSException e) {
+                throw new MessagingException("Exception while starting the JMS provider", e);
+            }
+            demultiplexer = newDemultiplexer;
+        }
+        return demultiplexer;
+    }
+
+    /**
+     * Closes the connection. Commands waiting for a response get an error
+     */
+    public synchronized void close() {
+        if (demultiplexer != null) {
+            demultiplexer.stopJms();
+            demultiplexer = null;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package edu.gemini.aspen.gmp.commands.jms.client.internal;
+
+import edu.gemini.aspen.giapi.commands.Command;
+import edu.gemini.aspen.giapi.commands.CompletionInformation;
+import edu.gemini.aspen.giapi.commands.CompletionListener;
+import edu.gemini.aspen.giapi.commands.HandlerResponse;
+import edu.gemini.aspen.giapi.util.jms.HandlerResponseMessageParser;
+import edu.gemini.aspen.giapi.util.jms.JmsKeys;
+import edu.gemini.aspen.giapi.util.jms.MessageBuilder;
+import edu.gemini.aspen.giapi.util.jms.MessageBuilderFactory;
+import edu.gemini.jms.api.DestinationBuilder;
+import edu.gemini.jms.api.DestinationData;
+import edu.gemini.jms.api.DestinationType;
+import edu.gemini.jms.api.JmsMapMessageSender;
+
+import javax.jms.Destination;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.MessageListener;
+import javax.jms.Session;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class sends command messages and receives all their responses using a single
+ * producer and reply consumer. The reply consumer has a session of its own, as its
+ * listener runs on the thread of the broker while the callers send on the main session
+ * <br>
+ * Each command gets a correlationID made of a prefix unique to this object and a sequence
+ * number. The reply consumer only takes the messages with this prefix from the reply queue,
+ * and hands the initial and completion responses to the caller waiting for each correlationID
+ */
+public class CommandReplyDemultiplexer extends JmsMapMessageSender implements MessageListener {
+    private static final Logger LOG = Logger.getLogger(CommandReplyDemultiplexer.class.getName());
+    private static final DestinationData REQUESTS_DESTINATION = new DestinationData(JmsKeys.GW_COMMAND_TOPIC, DestinationType.TOPIC);
+    private static final DestinationData REQUESTS_REPLY_DESTINATION = new DestinationData(JmsKeys.GW_COMMAND_REPLY_QUEUE, DestinationType.QUEUE);
+    private final static DestinationBuilder DESTINATION_BUILDER = new DestinationBuilder();
+
+    private final String correlationIDPrefix = UUID.randomUUID().toString() + "-";
+    private final AtomicLong sequence = new AtomicLong();
+    private final ConcurrentMap<String, PendingCommand> pendingCommands = new ConcurrentHashMap<String, PendingCommand>();
+    private Session replySession;
+    private MessageConsumer replyConsumer;
+
+    public CommandReplyDemultiplexer() {
+        super("Command Reply Demultiplexer " + UUID.randomUUID().toString());
+    }
+
+    @Override
+    protected void constructJmsObject(Destination d) throws JMSException {
+        super.constructJmsObject(d);
+        replySession = openSession();
+        Destination replyDestination = DESTINATION_BUILDER.newDestination(REQUESTS_REPLY_DESTINATION, replySession);
+        replyConsumer = replySession.createConsumer(replyDestination, "JMSCorrelationID LIKE '" + correlationIDPrefix + "%'");
+        replyConsumer.setMessageListener(this);
+    }
+
+    @Override
+    protected void destroyJmsObject() throws JMSException {
+        if (replyConsumer != null) {
+            replyConsumer.close();
+        }
+        if (replySession != null) {
+            closeSession(replySession);
+        }
+        super.destroyJmsObject();
+    }
+
+    /**
+     * Sends a command and waits for the initial response. If the command is started the
+     * completion will be passed later to the listener
+     *
+     * @param command The command to send
+     * @param listener Listener of the completion of the command
+     * @param timeout Time to wait in milliseconds for the initial response
+     * @return the initial response, an error if it didn't arrive in time
+     */
+    public HandlerResponse sendCommand(Command command, CompletionListener listener, long timeout) {
+        if (!isConnected()) {
+            return HandlerResponse.createError("Not connected");
+        }
+        String correlationID = correlationIDPrefix + sequence.incrementAndGet();
+        PendingCommand pendingCommand = new PendingCommand(listener);
+        pendingCommands.put(correlationID, pendingCommand);
+        try {
+            // Sessions cannot be used concurrently
+            synchronized (this) {
+                sendMapMessage(REQUESTS_DESTINATION, MessageBuilderFactory.newMessageBuilder(command, correlationID));
+            }
+            HandlerResponse initialResponse = pendingCommand.awaitInitialResponse(timeout);
+            if (initialResponse == null) {
+                pendingCommands.remove(correlationID);
+                LOG.severe("No response to " + command + " with correlationID " + correlationID + " after " + timeout + " [ms]");
+                return HandlerResponse.createError("Response timed out after " + timeout + " [ms]");
+            }
+            return initialResponse;
+        } catch (InterruptedException e) {
+            pendingCommands.remove(correlationID);
+            Thread.currentThread().interrupt();
+            return HandlerResponse.createError("Interrupted while waiting for a response");
+        } catch (RuntimeException e) {
+            pendingCommands.remove(correlationID);
+            throw e;
+        }
+    }
+
+    @Override
+    public void onMessage(Message message) {
+        String correlationID;
+        try {
+            correlationID = message.getJMSCorrelationID();
+        } catch (JMSException e) {
+            LOG.log(Level.WARNING, "Cannot read the correlationID of a reply", e);
+            return;
+        }
+        PendingCommand pendingCommand = correlationID != null ? pendingCommands.get(correlationID) : null;
+        if (pendingCommand == null) {
+            LOG.fine("Discarding a reply for correlationID " + correlationID + " that is not expected anymore");
+            return;
+        }
+        if (isCompletion(message)) {
+            if (pendingCommand.completionReceived(decodeCompletion(message))) {
+                pendingCommands.remove(correlationID);
+            }
+        } else {
+            if (pendingCommand.initialResponseReceived(decodeInitialResponse(message))) {
+                pendingCommands.remove(correlationID);
+            }
+        }
+    }
+
+    // Only completion messages include the command
+    private boolean isCompletion(Message message) {
+        try {
+            return message.propertyExists(JmsKeys.GMP_SEQUENCE_COMMAND_KEY);
+        } catch (JMSException e) {
+            return false;
+        }
+    }
+
+    private HandlerResponse decodeInitialResponse(Message message) {
+        try {
+            return new HandlerResponseMessageParser(message).readResponse();
+        } catch (RuntimeException e) {
+            return HandlerResponse.createError(e.getMessage());
+        }
+    }
+
+    private CompletionInformation decodeCompletion(Message message) {
+        try {
+            return MessageBuilder.buildCompletionInformation(message);
+        } catch (Exception e) {
+            return new CompletionInformation(HandlerResponse.createError(e.getMessage()), Command.noCommand());
+        }
+    }
+
+    /**
+     * Stops listening for replies. The commands still waiting for a response get an error
+     */
+    @Override
+    public void stopJms() {
+        super.stopJms();
+        HandlerResponse error = HandlerResponse.createError("Connection to the GMP closed");
+        for (Map.Entry<String, PendingCommand> entry : pendingCommands.entrySet()) {
+            if (pendingCommands.remove(entry.getKey(), entry.getValue())) {
+                PendingCommand pendingCommand = entry.getValue();
+                if (!pendingCommand.initialResponseReceived(error)) {
+                    pendingCommand.completionReceived(new CompletionInformation(error, Command.noCommand()));
+                }
+            }
+        }
+    }
+
+    @Override
+    public void onException(JMSException e) {
+        super.onException(e);
+        // Will be reconnected by the client on the next command
+        stopJms();
+    }
+}
@@ -0,0 +1,77 @@
+package edu.gemini.aspen.gmp.commands.jms.client.internal;
+
+import edu.gemini.aspen.giapi.commands.CompletionInformation;
+import edu.gemini.aspen.giapi.commands.CompletionListener;
+import edu.gemini.aspen.giapi.commands.HandlerResponse;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A command sent by a {@link CommandReplyDemultiplexer} that is waiting for its responses
+ * <br>
+ * The completion can be sent by the GMP before the initial response arrives, in that case
+ * it is kept until the initial response tells whether it is expected
+ */
+class PendingCommand {
+    private final CompletionListener listener;
+    private final CountDownLatch initialResponseReceived = new CountDownLatch(1);
+    private volatile HandlerResponse initialResponse;
+    private CompletionInformation earlyCompletion;
+
+    PendingCommand(CompletionListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Waits for the initial response
+     *
+     * @param timeout Time to wait in milliseconds, or 0 to wait forever
+     * @return the initial response or null if it didn't arrive in time
+     */
+    HandlerResponse awaitInitialResponse(long timeout) throws InterruptedException {
+        if (timeout > 0) {
+            initialResponseReceived.await(timeout, TimeUnit.MILLISECONDS);
+        } else {
+            initialResponseReceived.await();
+        }
+        return initialResponse;
+    }
+
+    /**
+     * @return true if no more responses are expected
+     */
+    synchronized boolean initialResponseReceived(HandlerResponse response) {
+        if (initialResponse != null) {
+            return false;
+        }
+        initialResponse = response;
+        initialResponseReceived.countDown();
+        if (response.getResponse() != HandlerResponse.Response.STARTED) {
+            return true;
+        }
+        if (earlyCompletion != null) {
+            notifyListener(earlyCompletion);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return true if no more responses are expected
+     */
+    synchronized boolean completionReceived(CompletionInformation completionInformation) {
+        if (initialResponse == null) {
+            earlyCompletion = completionInformation;
+            return false;
+        }
+        notifyListener(completionInformation);
+        return true;
+    }
+
+    private void notifyListener(CompletionInformation completionInformation) {
+        if (listener != null) {
+            listener.onHandlerResponse(completionInformation.getHandlerResponse(), completionInformation.getCommand());
+        }
+    }
+}
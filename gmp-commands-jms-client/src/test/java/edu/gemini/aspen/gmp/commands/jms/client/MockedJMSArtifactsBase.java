@@ -21,6 +21,7 @@ import static org.mockito.Mockito.when;
 
 public class MockedJMSArtifactsBase {
     protected ConnectionFactory connectionFactory;
+    protected Connection connection;
     protected Session session;
     protected JmsProvider provider;
     protected MessageProducer producer;
@@ -57,7 +58,7 @@ public class MockedJMSArtifactsBase {
         connectionFactory = mock(ConnectionFactory.class);
 
         // Mock connection
-        Connection connection = mock(Connection.class);
+        connection = mock(Connection.class);
         when(connectionFactory.createConnection()).thenReturn(connection);
 
         // Mock session
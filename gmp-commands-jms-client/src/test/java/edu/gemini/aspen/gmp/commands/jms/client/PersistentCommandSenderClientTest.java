@@ -0,0 +1,173 @@
+package edu.gemini.aspen.gmp.commands.jms.client;
+
+import edu.gemini.aspen.giapi.commands.Activity;
+import edu.gemini.aspen.giapi.commands.Command;
+import edu.gemini.aspen.giapi.commands.DefaultConfiguration;
+import edu.gemini.aspen.giapi.commands.HandlerResponse;
+import edu.gemini.aspen.giapi.commands.SequenceCommand;
+import edu.gemini.aspen.giapi.util.jms.JmsKeys;
+import edu.gemini.aspen.giapi.util.jms.test.MapMessageMock;
+import edu.gemini.aspen.giapitestsupport.TesterException;
+import edu.gemini.aspen.giapitestsupport.commands.CompletionListenerMock;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import javax.jms.Destination;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageListener;
+import javax.jms.Queue;
+import javax.jms.Session;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class PersistentCommandSenderClientTest extends MockedJMSArtifactsBase {
+    private PersistentCommandSenderClient senderClient;
+    private CompletionListenerMock completionListener;
+    private Command apply = new Command(SequenceCommand.APPLY, Activity.START, DefaultConfiguration.emptyConfiguration());
+    private Session replySession;
+
+    @Before
+    public void setUp() throws JMSException, TesterException {
+        createMockedObjects();
+        // The second session is the one of the reply consumer
+        replySession = mock(Session.class);
+        when(connection.createSession(anyBoolean(), anyInt())).thenReturn(session, replySession);
+        Queue replyQueue = mock(Queue.class);
+        when(replySession.createQueue(anyString())).thenReturn(replyQueue);
+        when(replySession.createConsumer(any(Destination.class), anyString())).thenReturn(consumer);
+        senderClient = new PersistentCommandSenderClient(provider);
+        completionListener = new CompletionListenerMock();
+    }
+
+    private MessageListener replyListener() throws JMSException {
+        ArgumentCaptor<MessageListener> listenerCaptor = ArgumentCaptor.forClass(MessageListener.class);
+        verify(consumer).setMessageListener(listenerCaptor.capture());
+        return listenerCaptor.getValue();
+    }
+
+    private Message initialReply(HandlerResponse response, String correlationID) throws JMSException {
+        Message reply = new HandlerResponseMapMessage(response);
+        reply.setJMSCorrelationID(correlationID);
+        return reply;
+    }
+
+    private Message completionReply(String correlationID) throws JMSException {
+        MapMessageMock reply = new MapMessageMock();
+        reply.setStringProperty(JmsKeys.GMP_HANDLER_RESPONSE_KEY, "COMPLETED");
+        reply.setStringProperty(JmsKeys.GMP_SEQUENCE_COMMAND_KEY, "APPLY");
+        reply.setStringProperty(JmsKeys.GMP_ACTIVITY_KEY, "START");
+        reply.setJMSCorrelationID(correlationID);
+        return reply;
+    }
+
+    // Replies to each request as soon as it is sent, like the GMP would
+    private void replyWith(final HandlerResponse initialResponse, final boolean completionFirst) throws JMSException {
+        doAnswer(invocation -> {
+            Message request = invocation.getArgument(1);
+            String correlationID = request.getJMSCorrelationID();
+            MessageListener listener = replyListener();
+            if (completionFirst) {
+                listener.onMessage(completionReply(correlationID));
+            }
+            listener.onMessage(initialReply(initialResponse, correlationID));
+            return null;
+        }).when(producer).send(any(Destination.class), any(Message.class));
+    }
+
+    @Test
+    public void testConnectionIsKeptBetweenCommands() throws JMSException {
+        replyWith(HandlerResponse.COMPLETED, false);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(HandlerResponse.COMPLETED, senderClient.sendCommand(new Command(SequenceCommand.PARK, Activity.START), completionListener, 1000));
+        }
+
+        verify(connectionFactory, times(1)).createConnection();
+        verify(replySession, times(1)).createConsumer(any(Destination.class), anyString());
+        verify(producer, times(3)).send(any(Destination.class), any(Message.class));
+        assertFalse(completionListener.wasInvoked());
+    }
+
+    @Test
+    public void testRepliesAreReceivedOnTheirOwnSession() throws JMSException {
+        replyWith(HandlerResponse.COMPLETED, false);
+
+        senderClient.sendCommand(new Command(SequenceCommand.PARK, Activity.START), completionListener, 1000);
+
+        verify(session, never()).createConsumer(any(Destination.class), anyString());
+        verify(replySession).createConsumer(any(Destination.class), anyString());
+        verify(replySession, never()).createProducer(any(Destination.class));
+    }
+
+    @Test
+    public void testCompletionIsRoutedByCorrelationID() throws JMSException {
+        replyWith(HandlerResponse.STARTED, false);
+
+        HandlerResponse response = senderClient.sendCommand(apply, completionListener);
+        assertEquals(HandlerResponse.STARTED, response);
+        assertFalse(completionListener.wasInvoked());
+
+        replyListener().onMessage(completionReply("unknown-1"));
+        assertFalse(completionListener.wasInvoked());
+
+        replyListener().onMessage(completionReply(mapMessage.getJMSCorrelationID()));
+        assertTrue(completionListener.wasInvoked());
+        assertEquals(HandlerResponse.COMPLETED, completionListener.getLastResponse());
+    }
+
+    @Test
+    public void testCompletionArrivingBeforeTheInitialResponse() throws JMSException {
+        replyWith(HandlerResponse.STARTED, true);
+
+        HandlerResponse response = senderClient.sendCommand(apply, completionListener);
+
+        assertEquals(HandlerResponse.STARTED, response);
+        assertTrue(completionListener.wasInvoked());
+        assertEquals(HandlerResponse.COMPLETED, completionListener.getLastResponse());
+    }
+
+    @Test
+    public void testTimeoutWithoutResponse() throws JMSException {
+        HandlerResponse response = senderClient.sendCommand(apply, completionListener, 50);
+
+        assertEquals(HandlerResponse.Response.ERROR, response.getResponse());
+        assertFalse(completionListener.wasInvoked());
+    }
+
+    @Test
+    public void testCloseNotifiesStartedCommands() throws JMSException {
+        replyWith(HandlerResponse.STARTED, false);
+        senderClient.sendCommand(apply, completionListener);
+
+        senderClient.close();
+
+        assertTrue(completionListener.wasInvoked());
+        assertEquals(HandlerResponse.Response.ERROR, completionListener.getLastResponse().getResponse());
+        verify(session).close();
+        verify(replySession).close();
+    }
+
+    @Test
+    public void testSendCommandWhenDisconnected() throws JMSException {
+        doAnswer(invocation -> {
+            throw new JMSException("Error");
+        }).when(connectionFactory).createConnection();
+
+        HandlerResponse response = senderClient.sendCommand(apply, completionListener);
+        assertEquals(HandlerResponse.Response.ERROR, response.getResponse());
+    }
+}
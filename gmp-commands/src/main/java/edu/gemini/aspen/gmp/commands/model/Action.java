@@ -6,6 +6,7 @@ import edu.gemini.aspen.giapi.commands.CommandSender;
 import edu.gemini.aspen.giapi.commands.CompletionListener;
 import edu.gemini.aspen.giapi.commands.HandlerResponse;
 
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicInteger;
 
 
@@ -114,13 +115,18 @@ public final class Action implements Comparable<Action> {
         return sb.toString();
     }
 
-    public void sendResponseToListeners(final HandlerResponse response) {
-        new Thread(new Runnable() {
+    /**
+     * Passes the response to the listener of this action
+     *
+     * @param executor Runs the listener
+     */
+    public void sendResponseToListeners(final HandlerResponse response, Executor executor) {
+        executor.execute(new Runnable() {
             @Override
             public void run() {
                 _listener.onHandlerResponse(response,
                                         _command);
             }
-        }).start();
+        });
     }
 }
@@ -0,0 +1,148 @@
+package edu.gemini.aspen.gmp.commands.model.executors;
+
+import com.google.common.collect.ImmutableList;
+import edu.gemini.aspen.giapi.commands.ConfigPath;
+import edu.gemini.aspen.giapi.commands.Configuration;
+import edu.gemini.aspen.gmp.commands.handlers.ApplyHandlerTree;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The handlers an APPLY configuration will be sent to, found in a single pass
+ * over the configuration keys and the tree of registered handlers.
+ * <br>
+ * Going down from the top of the configuration, a path is sent to its handler if
+ * there is one registered, otherwise its children are considered. A path without
+ * children or handler cannot be handled. If a handler answers NOANSWER, its path can
+ * be decomposed with {@link Target#planSubHandlers()}
+ */
+final class ApplyDispatchPlan {
+    private static final String SEPARATOR = ":";
+    private static final char ITEM_SEPARATOR = '.';
+
+    private final List<Target> targets;
+    private final boolean complete;
+
+    /**
+     * A path of the configuration that will be sent to its handler
+     */
+    static final class Target {
+        private final ConfigNode configNode;
+        private final ApplyHandlerTree.Node handlerNode;
+
+        private Target(ConfigNode configNode, ApplyHandlerTree.Node handlerNode) {
+            this.configNode = configNode;
+            this.handlerNode = handlerNode;
+        }
+
+        ConfigPath getPath() {
+            return configNode.path;
+        }
+
+        /**
+         * Plans sending the children of this path to their own handlers
+         */
+        ApplyDispatchPlan planSubHandlers() {
+            return plan(configNode, handlerNode);
+        }
+    }
+
+    /**
+     * A path in the configuration, the keys are below it
+     */
+    private static final class ConfigNode {
+        private final ConfigPath path;
+        private final Map<String, ConfigNode> children = new TreeMap<String, ConfigNode>();
+
+        private ConfigNode(ConfigPath path) {
+            this.path = path;
+        }
+
+        private ConfigNode child(String name) {
+            ConfigNode child = children.get(name);
+            if (child == null) {
+                child = new ConfigNode(ConfigPath.configPath(path.getName(), name));
+                children.put(name, child);
+            }
+            return child;
+        }
+    }
+
+    private ApplyDispatchPlan(List<Target> targets, boolean complete) {
+        this.targets = targets;
+        this.complete = complete;
+    }
+
+    /**
+     * Plans sending the configuration to the given handlers
+     */
+    static ApplyDispatchPlan plan(Configuration config, ApplyHandlerTree handlers) {
+        ConfigNode root = new ConfigNode(ConfigPath.EMPTY_PATH);
+        for (ConfigPath key : config.getKeys()) {
+            ConfigNode node = root;
+            for (String name : pathNames(key)) {
+                node = node.child(name);
+            }
+        }
+        return plan(root, handlers.isEmpty() ? null : handlers.getRoot());
+    }
+
+    // The item name after the first '.' is not part of the path, e.g. gpi:cc:filter.name is in gpi:cc:filter
+    private static String[] pathNames(ConfigPath key) {
+        String name = key.getName();
+        int itemPos = name.indexOf(ITEM_SEPARATOR);
+        if (itemPos >= 0) {
+            name = name.substring(0, itemPos);
+        }
+        return name.isEmpty() ? new String[0] : name.split(SEPARATOR);
+    }
+
+    private static ApplyDispatchPlan plan(ConfigNode configNode, ApplyHandlerTree.Node handlerNode) {
+        ImmutableList.Builder<Target> targets = ImmutableList.builder();
+        boolean complete = handlerNode != null && !configNode.children.isEmpty() && addTargets(configNode, handlerNode, targets);
+        return new ApplyDispatchPlan(targets.build(), complete);
+    }
+
+    /**
+     * @return false if a part of the configuration has no handler
+     */
+    private static boolean addTargets(ConfigNode configNode, ApplyHandlerTree.Node handlerNode, ImmutableList.Builder<Target> targets) {
+        boolean complete = true;
+        for (Map.Entry<String, ConfigNode> entry : configNode.children.entrySet()) {
+            ConfigNode child = entry.getValue();
+            ApplyHandlerTree.Node handlerChild = handlerNode != null ? handlerNode.getChild(entry.getKey()) : null;
+            if (handlerChild != null && handlerChild.isHandler()) {
+                targets.add(new Target(child, handlerChild));
+            } else if (child.children.isEmpty()) {
+                complete = false;
+            } else {
+                complete &= addTargets(child, handlerChild, targets);
+            }
+        }
+        return complete;
+    }
+
+    /**
+     * @return the paths to send to their handlers
+     */
+    List<Target> getTargets() {
+        return targets;
+    }
+
+    /**
+     * @return true if every part of the configuration has a handler
+     */
+    boolean canBeFullyHandled() {
+        return complete;
+    }
+
+    /**
+     * @return the number of handlers that will answer, or 1 if the configuration cannot
+     *         be fully handled as a single NOANSWER is given
+     */
+    int getExpectedResponses() {
+        return complete ? targets.size() : 1;
+    }
+}
@@ -1,7 +1,9 @@
 package edu.gemini.aspen.gmp.commands.model.executors;
 
 import com.google.common.base.Stopwatch;
+import com.google.common.collect.Lists;
 import edu.gemini.aspen.giapi.commands.*;
+import edu.gemini.aspen.gmp.commands.handlers.ApplyHandlerTree;
 import edu.gemini.aspen.gmp.commands.handlers.CommandHandlers;
 import edu.gemini.aspen.gmp.commands.model.*;
 import edu.gemini.aspen.gmp.commands.model.ActionMessageBuilder;
@@ -9,7 +11,9 @@ import edu.gemini.aspen.gmp.commands.model.impl.ActionManager;
 import edu.gemini.aspen.gmp.commands.model.impl.HandlerResponseAnalyzer;
 
 import java.util.List;
-import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
@@ -20,6 +24,12 @@ import java.util.logging.Logger;
  * <br>
  * This executor attempts to decompose the APPLY configuration to find
  * the handler(s) that will process it.
+ * <br>
+ * The handlers are found in one pass by an {@link ApplyDispatchPlan}. If an
+ * ExecutorService is given, the handlers are sent their part of the configuration
+ * concurrently, so the APPLY takes as long as the slowest handler instead of the
+ * sum of all of them. In that case a NOANSWER from one handler doesn't stop the
+ * others from being sent, but the summary response is still NOANSWER.
  */
 public class ApplySenderExecutor implements SequenceCommandExecutor {
     private static final Logger LOG = Logger.getLogger(ApplySenderExecutor.class.getName());
@@ -27,13 +37,27 @@ public class ApplySenderExecutor implements SequenceCommandExecutor {
     private final ActionMessageBuilder _actionMessageBuilder;
     private final ActionManager _actionManager;
     private final CommandHandlers commandHandlers;
+    private final ExecutorService _fanOutExecutor;
 
     static final String ERROR_MSG = "No configuration present for Apply Sequence command";
 
     public ApplySenderExecutor(ActionMessageBuilder builder, ActionManager manager, CommandHandlers commandHandlers) {
+        this(builder, manager, commandHandlers, null);
+    }
+
+    /**
+     * Builds an executor that sends the sibling paths of a configuration concurrently
+     *
+     * @param fanOutExecutor Runs the concurrent sends, or null to send them one after the other.
+     *                       A handler not answering waits for the handlers of its children, so if
+     *                       its number of threads is bounded it must run the sends it rejects in the
+     *                       calling thread, see {@link java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy}
+     */
+    public ApplySenderExecutor(ActionMessageBuilder builder, ActionManager manager, CommandHandlers commandHandlers, ExecutorService fanOutExecutor) {
         _actionMessageBuilder = builder;
         _actionManager = manager;
         this.commandHandlers = commandHandlers;
+        _fanOutExecutor = fanOutExecutor;
     }
 
     @Override
@@ -42,11 +66,12 @@ public class ApplySenderExecutor implements SequenceCommandExecutor {
         if (config.isEmpty()) {
             return HandlerResponse.createError(ERROR_MSG);
         } else {
+            ApplyDispatchPlan plan = plan(config);
 
-            int expectedResponses = countExpectedResponses(config, ConfigPath.EMPTY_PATH);
+            int expectedResponses = plan.getExpectedResponses();
             LOG.fine("Action " + action + " expects " + expectedResponses + " responses");
 
-            if (!canBeFullyHandled(config)) {
+            if (!plan.canBeFullyHandled()) {
               LOG.severe("Action " + action + " cannot be fully handled, there are missing handlers. return NOANSWER");
               
               return HandlerResponse.NOANSWER;
@@ -55,139 +80,122 @@ public class ApplySenderExecutor implements SequenceCommandExecutor {
                 _actionManager.increaseRequiredResponses(action);
             }
 
-            return getResponse(action, config, ConfigPath.EMPTY_PATH, sender);
+            return getResponse(action, plan, sender);
         }
     }
 
     protected boolean canBeFullyHandled(Configuration config) {
-       return _canBeFullyHandled(false, config, ConfigPath.EMPTY_PATH);
-    }
-
-    private boolean _canBeFullyHandled(boolean current, Configuration config, ConfigPath path) {
-
-        ConfigPathNavigator navigator = new ConfigPathNavigator(config);
-        Set<ConfigPath> configPathSet = navigator.getChildPaths(path);
-        boolean ct = current;
-
-        if (configPathSet.isEmpty()) {
-            return false;
-        }
-
-        //this analyzer will get the result answer from this part of the configuration
-        List<ConfigPath> applyHandlers = commandHandlers.getApplyHandlers();
-        if (applyHandlers.isEmpty()) return false;
-
-        for (ConfigPath cp : configPathSet) {
-            //get the sub-configuration
-            Configuration c = config.getSubConfiguration(cp);
-
-            if (applyHandlers.isEmpty() || applyHandlers.contains(cp)) {
-                current = true;
-            } else {
-                // If there are no handlers registered go straight to the sub-handlers
-                return _canBeFullyHandled(current, c, cp);
-            }
-        }
-        return current;
+        return plan(config).canBeFullyHandled();
     }
 
     protected int countExpectedResponses(Configuration config, ConfigPath path) {
-       return _countExpectedResponses(0, config, path);
+        Configuration subConfig = ConfigPath.EMPTY_PATH.equals(path) ? config : config.getSubConfiguration(path);
+        return plan(subConfig).getExpectedResponses();
     }
 
-    private int _countExpectedResponses(int counter, Configuration config, ConfigPath path) {
-
-        ConfigPathNavigator navigator = new ConfigPathNavigator(config);
-        Set<ConfigPath> configPathSet = navigator.getChildPaths(path);
-        int ct = counter;
-
-        if (configPathSet.isEmpty()) {
-            return 1;
-        }
-
-        //this analyzer will get the result answer from this part of the configuration
-        List<ConfigPath> applyHandlers = commandHandlers.getApplyHandlers();
-
-        for (ConfigPath cp : configPathSet) {
-            //get the sub-configuration
-            Configuration c = config.getSubConfiguration(cp);
-
-            if (applyHandlers.isEmpty() || applyHandlers.contains(cp)) {
-                ct = ct + 1;
-            } else {
-                // If there are no handlers registered go straight to the sub-handlers
-                ct = _countExpectedResponses(ct, c, cp);
-            }
+    /**
+     * Plans with the current tree of handlers. The tree may not have a handler that
+     * just subscribed yet, so if one is missing the handlers are looked up again
+     */
+    private ApplyDispatchPlan plan(Configuration config) {
+        ApplyDispatchPlan plan = ApplyDispatchPlan.plan(config, commandHandlers.getApplyHandlerTree());
+        if (!plan.canBeFullyHandled()) {
+            plan = ApplyDispatchPlan.plan(config, ApplyHandlerTree.of(commandHandlers.getApplyHandlers()));
         }
-        return ct;
+        return plan;
     }
 
     /**
-     * Auxiliary method to recursively decompose a Configuration to be sent to
-     * the appropriate handlers.
+     * Auxiliary method to send a Configuration to the handlers found by the plan.
      *
      * @param action The action to be sent
-     * @param config current configuration being analyzed
-     * @param path   current path level in the configuration
+     * @param plan   handlers that will process the configuration
      * @param sender A Map Sender object that will send this message and will
      *               get an answer.
      * @return a HandlerResponse representing the result of sending the
-     *         configuration. If there are no handlers for this configuration,
-     *         this call will try to decompose the configuration in smaller units
+     *         configuration. If a handler doesn't answer, the part of the
+     *         configuration sent to it will be decomposed in smaller units
      *         in an attempt to see if it can be handled by other handlers.
      */
-    private HandlerResponse getResponse(Action action, Configuration config,
-                                        ConfigPath path, ActionSender sender) {
-
-        ConfigPathNavigator navigator = new ConfigPathNavigator(config);
-        Set<ConfigPath> configPathSet = navigator.getChildPaths(path);
-
-        if (configPathSet.isEmpty()) {
-            LOG.info("Action " + action + " has empty path set, respond NOANSWER");
+    private HandlerResponse getResponse(Action action, ApplyDispatchPlan plan, ActionSender sender) {
+        if (!plan.canBeFullyHandled()) {
+            LOG.info("Action " + action + " has no handlers for part of the configuration, respond NOANSWER");
             return HandlerResponse.NOANSWER;
         }
 
+        List<ApplyDispatchPlan.Target> targets = plan.getTargets();
+        if (_fanOutExecutor != null && targets.size() > 1) {
+            return getResponsesConcurrently(action, targets, sender);
+        }
+
         //this analyzer will get the result answer from this part of the configuration
         HandlerResponseAnalyzer analyzer = new HandlerResponseAnalyzer();
-        List<ConfigPath> applyHandlers = commandHandlers.getApplyHandlers();
-
-        for (ConfigPath cp : configPathSet) {
-            //get the sub-configuration
-            Configuration c = config.getSubConfiguration(cp);
-
-            HandlerResponse response = null;
-            if (applyHandlers.isEmpty() || applyHandlers.contains(cp)) {
-                LOG.info("Attempt to send apply for configuration " + c + " with id " + action.getId() + " and timeout " + action.getTimeout());
-                ActionMessage am = _actionMessageBuilder.buildActionMessage(action, cp);
-                Stopwatch s = Stopwatch.createStarted();
-                response = sender.send(am, action.getTimeout());
-                LOG.finer("Response for apply was " + response + " took " + s.stop().elapsed(TimeUnit.MILLISECONDS) + " [ms]");
-
-                // if the response is COMPLETED remove waiting for a response
-                if (response == HandlerResponse.COMPLETED) {
-                    LOG.info("Action immediately completed: " + action.getId());
-                    _actionManager.decreaseRequiredResponses(action);
-                }
-
-                //if there are no handlers, recursively decompose this config in
-                //smaller units if possible, and return the answer.
-                if (response == HandlerResponse.NOANSWER) {
-                    response = getResponse(action, c, cp, sender);
-                }
-
-                //if the answer is still NOANSWER, return immediately, there is no one
-                //that can process this part of the configuration.
-                if (response == HandlerResponse.NOANSWER) {
-                    return response;
-                }
-            } else {
-                LOG.finer("No handler for " + cp + " go to next sub-level..");
-                // If there are no handlers registered go straight to the sub-handlers
-                response = getResponse(action, c, cp, sender);
+        for (ApplyDispatchPlan.Target target : targets) {
+            HandlerResponse response = getTargetResponse(action, target, sender);
+
+            //if the answer is still NOANSWER, return immediately, there is no one
+            //that can process this part of the configuration.
+            if (response == HandlerResponse.NOANSWER) {
+                return response;
             }
             analyzer.addResponse(response);
         }
         return analyzer.getSummaryResponse();
     }
 
+    /**
+     * Sends each of the given targets in a task of the fan out executor
+     * and merges their responses
+     */
+    private HandlerResponse getResponsesConcurrently(final Action action, List<ApplyDispatchPlan.Target> targets,
+                                                     final ActionSender sender) {
+        List<Future<HandlerResponse>> responses = Lists.newArrayListWithCapacity(targets.size());
+        for (final ApplyDispatchPlan.Target target : targets) {
+            responses.add(_fanOutExecutor.submit(() -> getTargetResponse(action, target, sender)));
+        }
+
+        HandlerResponseAnalyzer analyzer = new HandlerResponseAnalyzer();
+        try {
+            for (Future<HandlerResponse> response : responses) {
+                analyzer.addResponse(response.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return HandlerResponse.createError("Interrupted while waiting for the apply handlers");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new SequenceCommandException("Unable to send apply", e);
+        }
+        return analyzer.getSummaryResponse();
+    }
+
+    /**
+     * Sends the configuration at the target path to its handler, or to the handlers
+     * of its children if it doesn't answer
+     */
+    private HandlerResponse getTargetResponse(Action action, ApplyDispatchPlan.Target target, ActionSender sender) {
+        ConfigPath cp = target.getPath();
+        LOG.info("Attempt to send apply for configuration " + cp + " with id " + action.getId() + " and timeout " + action.getTimeout());
+        ActionMessage am = _actionMessageBuilder.buildActionMessage(action, cp);
+        Stopwatch s = Stopwatch.createStarted();
+        HandlerResponse response = sender.send(am, action.getTimeout());
+        LOG.finer("Response for apply was " + response + " took " + s.stop().elapsed(TimeUnit.MILLISECONDS) + " [ms]");
+
+        // if the response is COMPLETED remove waiting for a response
+        if (response == HandlerResponse.COMPLETED) {
+            LOG.info("Action immediately completed: " + action.getId());
+            _actionManager.decreaseRequiredResponses(action);
+        }
+
+        //if there are no handlers, recursively decompose this config in
+        //smaller units if possible, and return the answer.
+        if (response == HandlerResponse.NOANSWER) {
+            LOG.finer("No answer for " + cp + " go to next sub-level..");
+            response = getResponse(action, target.planSubHandlers(), sender);
+        }
+        return response;
+    }
+
 }
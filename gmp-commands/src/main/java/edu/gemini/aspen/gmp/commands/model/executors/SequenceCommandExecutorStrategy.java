@@ -1,5 +1,6 @@
 package edu.gemini.aspen.gmp.commands.model.executors;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import edu.gemini.aspen.giapi.commands.Command;
 import edu.gemini.aspen.giapi.commands.HandlerResponse;
 import edu.gemini.aspen.giapi.commands.SequenceCommand;
@@ -15,6 +16,9 @@ import edu.gemini.aspen.gmp.commands.model.reboot.LinuxRebootManager;
 import edu.gemini.gmp.top.Top;
 
 import javax.jms.JMSException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 /**
@@ -25,6 +29,8 @@ import java.util.logging.Logger;
  */
 public class SequenceCommandExecutorStrategy implements SequenceCommandExecutor {
     private static final Logger LOG = Logger.getLogger(SequenceCommandExecutorStrategy.class.getName());
+    // Most sends an APPLY has in flight at once
+    private static final int MAX_FAN_OUT_THREADS = 16;
 
     private final SequenceCommandExecutor _defaultExecutor;
     private final SequenceCommandExecutor _applyExecutor;
@@ -48,12 +54,39 @@ public class SequenceCommandExecutorStrategy implements SequenceCommandExecutor
                                            StatusSetter statusSetter,
                                            Top top,
                                            String instrumentStartupScript) {
+        this(builder, manager, commandHandlers, statusSetter, top, instrumentStartupScript, false);
+    }
+
+    /**
+     * Construct the executor specifying whether the handlers of an APPLY are sent
+     * the configuration concurrently
+     *
+     * @param parallelApply if true the sibling paths of an APPLY configuration are sent
+     *                      to their handlers concurrently
+     */
+    public SequenceCommandExecutorStrategy(ActionMessageBuilder builder,
+                                           ActionManager manager,
+                                           CommandHandlers commandHandlers,
+                                           StatusSetter statusSetter,
+                                           Top top,
+                                           String instrumentStartupScript,
+                                           boolean parallelApply) {
         this.statusSetter = statusSetter;
         currentCommandStatus = top.buildStatusItemName("gmp:currentCommand");
         lastCommandStatus = top.buildStatusItemName("gmp:lastCommand");
         currentCommandTimestamp = top.buildStatusItemName("gmp:currentCommandTimestamp");
         _defaultExecutor = new DefaultSenderExecutor(builder);
-        _applyExecutor = new ApplySenderExecutor(builder, manager, commandHandlers);
+        if (parallelApply) {
+            // Idle threads are released after a while, and don't keep the JVM alive. Once all the
+            // threads are busy a send runs in the thread fanning out, so nested fan outs can't deadlock
+            _applyExecutor = new ApplySenderExecutor(builder, manager, commandHandlers,
+                    new ThreadPoolExecutor(0, MAX_FAN_OUT_THREADS, 60L, TimeUnit.SECONDS,
+                            new SynchronousQueue<Runnable>(),
+                            new ThreadFactoryBuilder().setNameFormat("Apply fan out %d").setDaemon(true).build(),
+                            new ThreadPoolExecutor.CallerRunsPolicy()));
+        } else {
+            _applyExecutor = new ApplySenderExecutor(builder, manager, commandHandlers);
+        }
         _rebootExecutor = new RebootSenderExecutor(new LinuxRebootManager(instrumentStartupScript));
     }
 
@@ -71,4 +71,15 @@ public interface ActionManager {
      * lock.
      */
     void unlock();
+
+    /**
+     * Acquire the lock of the update processor handling the given action. Completion
+     * information for other actions can still be processed
+     */
+    void lock(Action action);
+
+    /**
+     * Release the lock of the update processor handling the given action
+     */
+    void unlock(Action action);
 }
@@ -1,16 +1,22 @@
 package edu.gemini.aspen.gmp.commands.model.impl;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import edu.gemini.aspen.giapi.commands.HandlerResponse;
 import edu.gemini.aspen.gmp.commands.model.Action;
-import java.util.ArrayList;
+
 import java.util.Collections;
 import java.util.List;
-
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
@@ -20,49 +26,72 @@ import java.util.logging.Logger;
  * This class keeps track of the actions that are being sent to the instruments
  * and notifies back the clients with completion information whenever that is
  * available.
+ * <br>
+ * Completion information is processed by several update processors, each one
+ * taking care of the actions whose ID falls in its partition. The updates for an
+ * action are processed in order while different actions don't wait for each other.
  */
 public class ActionManagerImpl implements ActionManager {
 
     private static final Logger LOG = Logger.getLogger(
             ActionManager.class.getName());
 
-    /**
-     * The Action List stores the actions initiated when a sequence command
-     * is received from the OCS and dispatched to the instrument
-     */
-  private final List<Action> _actionList = Collections.synchronizedList(new ArrayList());
+    private static final int UPDATE_PARTITIONS = 4;
+    private static final int CALLBACK_THREADS = 4;
+    private static final int CALLBACK_QUEUE_CAPACITY = 1000;
 
     /**
-     * The Update Queue stores the completion information updates that come
-     * from the instrument code, and is used to notify back to the clients that
-     * are awaiting for completion in the action queue.
+     * The tracked actions, indexed by ID. They are initiated when a sequence command
+     * is received from the OCS and dispatched to the instrument
      */
-    private final BlockingQueue<UpdateData> _updateQueue =
-            new LinkedBlockingQueue<UpdateData>();
+    private final ConcurrentMap<Integer, TrackedAction> _actions =
+            new ConcurrentHashMap<Integer, TrackedAction>();
 
     /**
-     * The update processor is responsible for receiving updates through
-     * the update queue and notify the clients waiting in the action quueue
+     * The update processors receive the completion information updates that
+     * come from the instrument code, and notify back to the clients that
+     * are awaiting for completion of the tracked actions.
      */
-    private final UpdateProcessor _processor = new UpdateProcessor();
+    private final UpdateProcessor[] _processors = new UpdateProcessor[UPDATE_PARTITIONS];
 
     /**
-     * The executor service provides a separate thread for the UpdateProcessor
+     * The executor service provides a separate thread for each UpdateProcessor
      * to run
      */
     private final ExecutorService _executorService =
-            Executors.newSingleThreadExecutor();
+            Executors.newFixedThreadPool(UPDATE_PARTITIONS,
+                    new ThreadFactoryBuilder().setNameFormat("Action Manager update processor %d").build());
 
     /**
-     * A Lock to synchronize the action manager with the command sender.
+     * Runs the completion listeners. If it falls behind, or once it is stopped,
+     * the listeners are run by the thread sending the completion
      */
-    private final Lock _lock = new ReentrantLock(true);
+    private final ThreadPoolExecutor _callbackExecutor =
+            new ThreadPoolExecutor(CALLBACK_THREADS, CALLBACK_THREADS, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<Runnable>(CALLBACK_QUEUE_CAPACITY),
+                    new ThreadFactoryBuilder().setNameFormat("Action Manager completion listener %d").setDaemon(true).build(),
+                    new RejectedExecutionHandler() {
+                        @Override
+                        public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+                            if (executor.isShutdown()) {
+                                LOG.warning("Action manager stopped, running a completion listener in " + Thread.currentThread().getName());
+                            } else {
+                                LOG.warning("Completion listeners falling behind, running one in " + Thread.currentThread().getName());
+                            }
+                            r.run();
+                        }
+                    });
 
     /**
      * Tracks the responses received for the tracked actions
      */
     private final HandlerResponseTracker _handlerResponseTracker = new HandlerResponseTracker();
 
+    private final AtomicLong _completedActions = new AtomicLong();
+    private final AtomicLong _maxCompletionLatency = new AtomicLong();
+    private volatile long _lastCompletionLatency = 0;
+    private volatile boolean _stopped = false;
+
     /**
      * A container for the update information received
      */
@@ -76,10 +105,26 @@ public class ActionManagerImpl implements ActionManager {
         }
     }
 
+    /**
+     * An action with the time it started being tracked
+     */
+    private static final class TrackedAction {
+        final Action action;
+        final long registrationTime = System.nanoTime();
+
+        private TrackedAction(Action action) {
+            this.action = action;
+        }
+    }
+
     /**
      * Constructor.
      */
     public ActionManagerImpl() {
+        for (int i = 0; i < UPDATE_PARTITIONS; i++) {
+            _processors[i] = new UpdateProcessor();
+        }
+        _callbackExecutor.allowCoreThreadTimeOut(true);
     }
 
     @Override
@@ -102,16 +147,32 @@ public class ActionManagerImpl implements ActionManager {
         return _handlerResponseTracker.isComplete(action);
     }
 
+    private UpdateProcessor processorFor(int actionId) {
+        return _processors[Math.abs(actionId % UPDATE_PARTITIONS)];
+    }
+
     /**
-     * The UpdateProcessor is in charge of collecting the update request from
-     * the update Queue, and send the update information to the appropriate
-     * clients using the completion listener callback. The callbacks are invoked
-     * in the thread the UpdateProcessor is running.
+     * The UpdateProcessor is in charge of collecting the update requests of
+     * its partition from its update Queue, and send the update information to
+     * the appropriate clients using the completion listener callback. The
+     * callbacks are invoked by the callback executor.
      */
     private class UpdateProcessor implements Runnable {
 
         private boolean running = true;
 
+        /**
+         * The Update Queue stores the completion information updates for the
+         * actions of this partition
+         */
+        private final BlockingQueue<UpdateData> _updateQueue =
+                new LinkedBlockingQueue<UpdateData>();
+
+        /**
+         * A Lock to synchronize the update processor with the command sender.
+         */
+        private final Lock _lock = new ReentrantLock(true);
+
         /**
          * Update the clients waiting for completion information.
          *
@@ -122,59 +183,62 @@ public class ActionManagerImpl implements ActionManager {
         private void updateClients(UpdateData updateData) {
             int actionId = updateData.actionId;
             HandlerResponse response = updateData.response;
-            synchronized (_actionList) {
-                boolean foundAction = false;
-                Action action = null;
-
-                for (Action a : _actionList) {
-                    if (a.getId() == actionId) {
-                        action = a;
-                        foundAction = true;
-                        break;
-                    }
-                }
-
-                if (!foundAction) {
-                    LOG.log(Level.WARNING,
-                            "I don't know about action ID " + actionId + ". Usually this means a problem in the instrument code.");
-                    return;
-                }
+            TrackedAction trackedAction = _actions.get(actionId);
 
-                //if the action received hasn't been issued yet
-                //by the system, that's an indication of a problem
-                if (actionId > Action.getCurrentId()) {
-                    LOG.log(Level.WARNING,
-                            "Action ID received " + actionId +
-                                    " but the last ID generated is " + Action.getCurrentId() +
-                                    ". This usually is a problem in the instrument code");
-                    return;
-                }
+            if (trackedAction == null) {
+                LOG.log(Level.WARNING,
+                        "I don't know about action ID " + actionId + ". Usually this means a problem in the instrument code.");
+                return;
+            }
 
-                _lock.lock(); //acquire the lock before start updating
+            //if the action received hasn't been issued yet
+            //by the system, that's an indication of a problem
+            if (actionId > Action.getCurrentId()) {
+                LOG.log(Level.WARNING,
+                        "Action ID received " + actionId +
+                                " but the last ID generated is " + Action.getCurrentId() +
+                                ". This usually is a problem in the instrument code");
+                return;
+            }
 
-                try {
-                    if (action != null) {
-                        //store this response to combine it with the other answers we might receive for the same action
-                        _handlerResponseTracker.storeResponse(action, response);
-                        if (_handlerResponseTracker.isComplete(action)) {
-                            LOG.info("Updating clients with action " + action + " response " + _handlerResponseTracker.getResponse(action));
-                            action.sendResponseToListeners(_handlerResponseTracker.getResponse(action));
-                            //remove the action from the list of tracked actions
-                            _handlerResponseTracker.removeTrackedAction(action);
-
-                            //now, remove the element from the list
-                            _actionList.remove(action);
-                        } else {
-                            LOG.info("Received update for action " + action + " response " +
-                                    response + ". Waiting for the other parts of the action to complete...");
-                            //in this case, the loop is aborted, since this action is not completed yet,
-                            //so we have to keep waiting.
-                            action = null;
-                        }
+            Action action = trackedAction.action;
+            HandlerResponse summary = null;
+            _lock.lock(); //acquire the lock before start updating
+
+            try {
+                //store this response to combine it with the other answers we might receive for the same action
+                _handlerResponseTracker.storeResponse(action, response);
+                if (_handlerResponseTracker.isComplete(action)) {
+                    summary = _handlerResponseTracker.getResponse(action);
+                    LOG.info("Updating clients with action " + action + " response " + summary);
+                    //remove the action from the list of tracked actions
+                    _handlerResponseTracker.removeTrackedAction(action);
+
+                    //now, stop tracking it
+                    if (_actions.remove(actionId, trackedAction)) {
+                        recordCompletion(trackedAction);
                     }
-                } finally {
-                    _lock.unlock();
+                } else {
+                    LOG.info("Received update for action " + action + " response " +
+                            response + ". Waiting for the other parts of the action to complete...");
                 }
+            } finally {
+                _lock.unlock();
+            }
+
+            // The listeners may run in this thread, so they are not called holding the lock
+            if (summary != null) {
+                action.sendResponseToListeners(summary, _callbackExecutor);
+            }
+        }
+
+        /**
+         * Processes the updates left in the queue once the processing thread has stopped
+         */
+        private void drain() {
+            UpdateData data;
+            while ((data = _updateQueue.poll()) != null) {
+                updateClients(data);
             }
         }
 
@@ -219,34 +283,64 @@ public class ActionManagerImpl implements ActionManager {
         }
     }
 
+    private void recordCompletion(TrackedAction trackedAction) {
+        long latency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - trackedAction.registrationTime);
+        _lastCompletionLatency = latency;
+        _maxCompletionLatency.accumulateAndGet(latency, Math::max);
+        _completedActions.incrementAndGet();
+    }
+
     @Override
     public void registerAction(Action action) {
         LOG.fine("Start monitoring progress for Action " + action);
-        _actionList.add(action);
+        _actions.put(action.getId(), new TrackedAction(action));
     }
 
     @Override
     public void unregisterAction(Action action) {
         LOG.fine("Stopped monitoring progress for Action " + action + ". Action Completed Immediately");
-        _actionList.remove(action);
+        TrackedAction trackedAction = _actions.get(action.getId());
+        if (trackedAction != null && trackedAction.action.equals(action)) {
+            _actions.remove(action.getId(), trackedAction);
+        }
     }
 
     @Override
     public void lock() {
-        _lock.lock();
+        for (UpdateProcessor processor : _processors) {
+            processor._lock.lock();
+        }
     }
 
     @Override
     public void unlock() {
-        _lock.unlock();
+        for (int i = _processors.length - 1; i >= 0; i--) {
+            _processors[i]._lock.unlock();
+        }
+    }
+
+    @Override
+    public void lock(Action action) {
+        processorFor(action.getId())._lock.lock();
+    }
+
+    @Override
+    public void unlock(Action action) {
+        processorFor(action.getId())._lock.unlock();
     }
 
     @Override
     public void registerCompletionInformation(int actionId,
                                               HandlerResponse response) {
         UpdateData data = new UpdateData(actionId, response);
+        UpdateProcessor processor = processorFor(actionId);
+        if (_stopped) {
+            LOG.warning("Action manager stopped, updating the clients of action ID " + actionId + " in " + Thread.currentThread().getName());
+            processor.updateClients(data);
+            return;
+        }
         try {
-            _updateQueue.put(data);
+            processor._updateQueue.put(data);
         } catch (InterruptedException e) {
             LOG.log(Level.WARNING,
                     "Interrupted exception while waiting to register update data",
@@ -255,31 +349,55 @@ public class ActionManagerImpl implements ActionManager {
     }
 
     /**
-     * Start up a background thread used to send the completion
+     * @return the current activity of this action manager
+     */
+    public ActionManagerMetrics getMetrics() {
+        return new ActionManagerMetrics(_actions.size(), _completedActions.get(), _lastCompletionLatency,
+                _maxCompletionLatency.get(), _callbackExecutor.getQueue().size());
+    }
+
+    /**
+     * Start up the background threads used to send the completion
      * information invoking the <code>CompletionListener</code> handlers
      * registered.
      */
     public void start() {
-        //Submit the processor task for execution in a separate thread
-        _executorService.submit(_processor);
+        //Submit the processor tasks for execution in separate threads
+        for (UpdateProcessor processor : _processors) {
+            _executorService.submit(processor);
+        }
     }
 
     /**
-     * Stop the processing thread of this action manager.
+     * Stop the processing threads of this action manager. The completions already
+     * received are still sent to their listeners
      */
     public void stop() {
-        _processor.stop();
-        stopExecutionService();
+        _stopped = true;
+        for (UpdateProcessor processor : _processors) {
+            processor.stop();
+        }
+        stopExecutionService(_executorService);
+        for (UpdateProcessor processor : _processors) {
+            processor.drain();
+        }
+        for (Runnable callback : stopExecutionService(_callbackExecutor)) {
+            callback.run();
+        }
     }
 
-    private void stopExecutionService() {
-        _executorService.shutdown();
+    /**
+     * @return the tasks that didn't get to run
+     */
+    private List<Runnable> stopExecutionService(ExecutorService executorService) {
+        executorService.shutdown();
         try {
-            if (!_executorService.awaitTermination(1000, TimeUnit.MILLISECONDS)) {
-                _executorService.shutdownNow();
+            if (!executorService.awaitTermination(1000, TimeUnit.MILLISECONDS)) {
+                return executorService.shutdownNow();
             }
         } catch (InterruptedException e) {
-            _executorService.shutdownNow();
+            return executorService.shutdownNow();
         }
+        return Collections.emptyList();
     }
 }
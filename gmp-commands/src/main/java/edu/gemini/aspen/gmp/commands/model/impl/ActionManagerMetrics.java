@@ -0,0 +1,67 @@
+package edu.gemini.aspen.gmp.commands.model.impl;
+
+/**
+ * A snapshot of the activity of an {@link ActionManagerImpl}
+ */
+public final class ActionManagerMetrics {
+    private final int pendingActions;
+    private final long completedActions;
+    private final long lastCompletionLatency;
+    private final long maxCompletionLatency;
+    private final int callbackQueueDepth;
+
+    ActionManagerMetrics(int pendingActions, long completedActions, long lastCompletionLatency,
+                         long maxCompletionLatency, int callbackQueueDepth) {
+        this.pendingActions = pendingActions;
+        this.completedActions = completedActions;
+        this.lastCompletionLatency = lastCompletionLatency;
+        this.maxCompletionLatency = maxCompletionLatency;
+        this.callbackQueueDepth = callbackQueueDepth;
+    }
+
+    /**
+     * @return the number of actions waiting for completion information
+     */
+    public int getPendingActions() {
+        return pendingActions;
+    }
+
+    /**
+     * @return the number of actions whose listeners have been notified of their completion
+     */
+    public long getCompletedActions() {
+        return completedActions;
+    }
+
+    /**
+     * @return time in milliseconds between registering and completing the last completed action
+     */
+    public long getLastCompletionLatency() {
+        return lastCompletionLatency;
+    }
+
+    /**
+     * @return the longest time in milliseconds between registering and completing an action
+     */
+    public long getMaxCompletionLatency() {
+        return maxCompletionLatency;
+    }
+
+    /**
+     * @return the number of completion listener callbacks waiting to be run
+     */
+    public int getCallbackQueueDepth() {
+        return callbackQueueDepth;
+    }
+
+    @Override
+    public String toString() {
+        return "ActionManagerMetrics{" +
+                "pendingActions=" + pendingActions +
+                ", completedActions=" + completedActions +
+                ", lastCompletionLatency=" + lastCompletionLatency +
+                " [ms], maxCompletionLatency=" + maxCompletionLatency +
+                " [ms], callbackQueueDepth=" + callbackQueueDepth +
+                '}';
+    }
+}
@@ -94,11 +94,11 @@ public class CommandSenderImpl implements CommandSender {
                 //here.... let's take care of that case and if so, use the
                 //answer from the listener to cover that case
 
-                //acquires a lock on the manager, so
+                //acquires a lock on the manager for this action, so
                 //we ensure we are not
                 //processing handlers while we validate the
                 //action has finished
-                _manager.lock();
+                _manager.lock(action);
                 try {
                     if (decoratorListener.getResponse() != null) {
                         response = decoratorListener.getResponse();
@@ -107,7 +107,7 @@ public class CommandSenderImpl implements CommandSender {
                         _manager.unregisterAction(action);
                     }
                 } finally {
-                    _manager.unlock(); //release the lock on the manager.
+                    _manager.unlock(action); //release the lock on the manager.
                 }
             } else {
                 //since we don't expect the action to complete later, we
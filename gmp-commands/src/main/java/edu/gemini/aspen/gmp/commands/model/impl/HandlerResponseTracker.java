@@ -3,9 +3,8 @@ package edu.gemini.aspen.gmp.commands.model.impl;
 import edu.gemini.aspen.giapi.commands.HandlerResponse;
 import edu.gemini.aspen.gmp.commands.model.Action;
 
-import java.util.Map;
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 
@@ -92,8 +91,8 @@ class HandlerResponseTracker {
      * Map each action to a structure that keeps track of the responses obtained for that
      * action
      */
-    private final Map<Action, ResponseHolder> _actionResponsesMap =
-            Collections.synchronizedMap(new HashMap<Action, ResponseHolder>());
+    private final ConcurrentMap<Action, ResponseHolder> _actionResponsesMap =
+            new ConcurrentHashMap<Action, ResponseHolder>();
 
     /**
      * Store the given response for the action.
@@ -168,13 +167,6 @@ class HandlerResponseTracker {
      * @return the ResponseHolder for the given action.
      */
     private ResponseHolder getResponseHolder(Action a) {
-        ResponseHolder responseHolder;
-        if (_actionResponsesMap.containsKey(a)) {
-            responseHolder = _actionResponsesMap.get(a);
-        } else {
-            responseHolder = new ResponseHolder();
-            _actionResponsesMap.put(a, responseHolder);
-        }
-        return responseHolder;
+        return _actionResponsesMap.computeIfAbsent(a, action -> new ResponseHolder());
     }
 }
@@ -71,6 +71,7 @@ class Activator extends BundleActivator {
 
 case class SequenceCommandExecutorFactory(builder: ActionMessageBuilder, manager: ActionManager, handler: CommandHandlers, setter:StatusSetter, top: Top, context: BundleContext) extends ManagedServiceFactory {
   final val STARTUP_SCRIPT: String = "instrumentStartupScript"
+  final val PARALLEL_APPLY: String = "parallelApply"
   private final val LOG = Logger.getLogger(classOf[SequenceCommandExecutorFactory].getName)
   private final val existingServices: mutable.Map[String, ServiceRegistration[_]] = mutable.Map.empty
 
@@ -79,11 +80,11 @@ case class SequenceCommandExecutorFactory(builder: ActionMessageBuilder, manager
   override def updated(pid: String, properties: Dictionary[String, _]): Unit =
     for {
       configName <- Option(properties.get(STARTUP_SCRIPT))
-    } yield registerExecutor(pid, configName.toString)
+    } yield registerExecutor(pid, configName.toString, Option(properties.get(PARALLEL_APPLY)).exists(p => java.lang.Boolean.parseBoolean(p.toString.trim)))
 
-  private def registerExecutor(pid: String, startup: String) = {
+  private def registerExecutor(pid: String, startup: String, parallelApply: Boolean) = {
     deleted(pid)
-    val executor = new SequenceCommandExecutorStrategy(builder, manager, handler, setter, top, startup)
+    val executor = new SequenceCommandExecutorStrategy(builder, manager, handler, setter, top, startup, parallelApply)
     try {
       val serviceRegistration = context.registerService(classOf[SequenceCommandExecutor], executor, new java.util.Hashtable[String, AnyRef])
       existingServices += pid -> serviceRegistration
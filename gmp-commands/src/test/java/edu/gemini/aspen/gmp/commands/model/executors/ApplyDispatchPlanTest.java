@@ -0,0 +1,96 @@
+package edu.gemini.aspen.gmp.commands.model.executors;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import edu.gemini.aspen.giapi.commands.ConfigPath;
+import edu.gemini.aspen.giapi.commands.Configuration;
+import edu.gemini.aspen.gmp.commands.handlers.ApplyHandlerTree;
+import org.junit.Test;
+
+import java.util.Set;
+
+import static edu.gemini.aspen.giapi.commands.ConfigPath.configPath;
+import static edu.gemini.aspen.giapi.commands.DefaultConfiguration.configurationBuilder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for the plan of the handlers an APPLY is sent to
+ */
+public class ApplyDispatchPlanTest {
+    private final ApplyHandlerTree handlers = ApplyHandlerTree.of(ImmutableList.of(
+            configPath("X"), configPath("X:S1"), configPath("X:S2:A"), configPath("X:S2:B")));
+
+    private Set<ConfigPath> targetPaths(ApplyDispatchPlan plan) {
+        ImmutableSet.Builder<ConfigPath> paths = ImmutableSet.builder();
+        for (ApplyDispatchPlan.Target target : plan.getTargets()) {
+            paths.add(target.getPath());
+        }
+        return paths.build();
+    }
+
+    @Test
+    public void testTopLevelHandler() {
+        Configuration config = configurationBuilder()
+                .withPath(configPath("X:S1:A.val1"), "xa1")
+                .withPath(configPath("X:S2:A.val1"), "xa1")
+                .build();
+
+        ApplyDispatchPlan plan = ApplyDispatchPlan.plan(config, handlers);
+
+        assertTrue(plan.canBeFullyHandled());
+        assertEquals(1, plan.getExpectedResponses());
+        assertEquals(ImmutableSet.of(configPath("X")), targetPaths(plan));
+    }
+
+    @Test
+    public void testSubHandlersAtSeveralLevels() {
+        Configuration config = configurationBuilder()
+                .withPath(configPath("X:S1:A.val1"), "xa1")
+                .withPath(configPath("X:S1.val1"), "x1")
+                .withPath(configPath("X:S2:A.val1"), "xa1")
+                .withPath(configPath("X:S2:B.val1"), "xb1")
+                .build();
+
+        ApplyDispatchPlan subPlan = ApplyDispatchPlan.plan(config, handlers).getTargets().get(0).planSubHandlers();
+
+        assertTrue(subPlan.canBeFullyHandled());
+        assertEquals(3, subPlan.getExpectedResponses());
+        assertEquals(ImmutableSet.of(configPath("X:S1"), configPath("X:S2:A"), configPath("X:S2:B")), targetPaths(subPlan));
+    }
+
+    @Test
+    public void testUnhandledPathAmongHandledSiblings() {
+        Configuration config = configurationBuilder()
+                .withPath(configPath("X:S1:A.val1"), "xa1")
+                .withPath(configPath("X:S2:A.val1"), "xa1")
+                .withPath(configPath("X:S2:C.val1"), "xc1")
+                .build();
+
+        ApplyDispatchPlan subPlan = ApplyDispatchPlan.plan(config, handlers).getTargets().get(0).planSubHandlers();
+
+        assertFalse(subPlan.canBeFullyHandled());
+        assertEquals(1, subPlan.getExpectedResponses());
+    }
+
+    @Test
+    public void testWithoutHandlers() {
+        Configuration config = configurationBuilder()
+                .withPath(configPath("X:S1:A.val1"), "xa1")
+                .build();
+
+        ApplyDispatchPlan plan = ApplyDispatchPlan.plan(config, ApplyHandlerTree.empty());
+
+        assertFalse(plan.canBeFullyHandled());
+        assertEquals(1, plan.getExpectedResponses());
+    }
+
+    @Test
+    public void testEmptyConfiguration() {
+        ApplyDispatchPlan plan = ApplyDispatchPlan.plan(configurationBuilder().build(), handlers);
+
+        assertFalse(plan.canBeFullyHandled());
+        assertTrue(plan.getTargets().isEmpty());
+    }
+}
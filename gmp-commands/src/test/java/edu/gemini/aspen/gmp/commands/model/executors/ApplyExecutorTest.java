@@ -32,7 +32,7 @@ public class ApplyExecutorTest {
     private Configuration _applyConfig;
     private ActionManagerImpl actionManager;
     private ActionMessageBuilder builder = new MockActionMessageBuilder();
-    private CommandHandlers handlers = mock(CommandHandlers.class);
+    private CommandHandlers handlers = mock(CommandHandlers.class, CALLS_REAL_METHODS);
 
     @Before
     public void setUp() {
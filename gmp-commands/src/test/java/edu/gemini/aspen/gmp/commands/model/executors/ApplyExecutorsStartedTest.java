@@ -18,6 +18,7 @@ import static edu.gemini.aspen.giapi.commands.DefaultConfiguration.configuration
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertFalse;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -31,7 +32,7 @@ public class ApplyExecutorsStartedTest {
     private Configuration _applyConfig;
     private ActionManagerImpl actionManager;
     private ActionMessageBuilder builder = new MockActionMessageBuilder();
-    private CommandHandlers handlers = mock(CommandHandlers.class);
+    private CommandHandlers handlers = mock(CommandHandlers.class, CALLS_REAL_METHODS);
     private CommandUpdater updater;
 
     @Before
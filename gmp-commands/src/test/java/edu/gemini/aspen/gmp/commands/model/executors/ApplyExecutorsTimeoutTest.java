@@ -17,6 +17,7 @@ import java.util.List;
 import static edu.gemini.aspen.giapi.commands.ConfigPath.configPath;
 import static edu.gemini.aspen.giapi.commands.DefaultConfiguration.configurationBuilder;
 import static org.junit.Assert.*;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -30,7 +31,7 @@ public class ApplyExecutorsTimeoutTest {
     private Configuration _applyConfig;
     private ActionManagerImpl actionManager;
     private ActionMessageBuilder builder = new MockActionMessageBuilder();
-    private CommandHandlers handlers = mock(CommandHandlers.class);
+    private CommandHandlers handlers = mock(CommandHandlers.class, CALLS_REAL_METHODS);
     private CommandUpdater updater;
 
     @Before
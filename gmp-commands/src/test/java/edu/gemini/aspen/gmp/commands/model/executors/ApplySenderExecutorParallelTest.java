@@ -0,0 +1,213 @@
+package edu.gemini.aspen.gmp.commands.model.executors;
+
+import com.google.common.collect.ImmutableList;
+import edu.gemini.aspen.giapi.commands.*;
+import edu.gemini.aspen.giapitestsupport.commands.CompletionListenerMock;
+import edu.gemini.aspen.gmp.commands.handlers.CommandHandlers;
+import edu.gemini.aspen.gmp.commands.model.*;
+import edu.gemini.aspen.gmp.commands.model.impl.ActionManagerImpl;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static edu.gemini.aspen.giapi.commands.ConfigPath.configPath;
+import static edu.gemini.aspen.giapi.commands.DefaultConfiguration.configurationBuilder;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test class for the sender of APPLY sequence commands sending to several handlers concurrently.
+ */
+public class ApplySenderExecutorParallelTest {
+    private ActionManagerImpl actionManager;
+    private ExecutorService fanOutExecutor;
+    private ActionMessageBuilder builder = new MockActionMessageBuilder();
+    private CommandHandlers handlers = mock(CommandHandlers.class, CALLS_REAL_METHODS);
+
+    private Configuration applyConfig = configurationBuilder()
+            .withPath(configPath("X:S1:A.val1"), "xa1")
+            .withPath(configPath("X:S1:B.val1"), "xb1")
+            .withPath(configPath("X:S2:C.val1"), "xc1")
+            .withPath(configPath("X:S3:D.val1"), "xd1")
+            .build();
+
+    @Before
+    public void setUp() {
+        actionManager = new ActionManagerImpl();
+        actionManager.start();
+        fanOutExecutor = Executors.newCachedThreadPool();
+        when(handlers.getApplyHandlers()).thenReturn(ImmutableList.of(configPath("X:S1"), configPath("X:S2"), configPath("X:S3")));
+    }
+
+    @After
+    public void shutDown() {
+        actionManager.stop();
+        fanOutExecutor.shutdownNow();
+    }
+
+    private Action applyAction() {
+        return new Action(new Command(SequenceCommand.APPLY, Activity.START, applyConfig), new CompletionListenerMock());
+    }
+
+    /**
+     * Each handler waits for the others to be called, so this only completes if they are called concurrently
+     */
+    @Test
+    public void testHandlersAreCalledConcurrently() {
+        ApplySenderExecutor executor = new ApplySenderExecutor(builder, actionManager, handlers, fanOutExecutor);
+        final CyclicBarrier allHandlersCalled = new CyclicBarrier(3);
+
+        RespondingActionSender sender = new RespondingActionSender() {
+            @Override
+            protected HandlerResponse respond(ActionMessage message) {
+                try {
+                    allHandlersCalled.await(5, TimeUnit.SECONDS);
+                    return HandlerResponse.ACCEPTED;
+                } catch (InterruptedException | BrokenBarrierException | TimeoutException e) {
+                    return HandlerResponse.createError("Handlers not called concurrently");
+                }
+            }
+        };
+
+        assertEquals(HandlerResponse.ACCEPTED, executor.execute(applyAction(), sender));
+        assertEquals(3, sender.getCallsCounter());
+    }
+
+    /**
+     * The handlers complete while they are all in flight, and the summary matches sending them one after the other
+     */
+    @Test
+    public void testCompletedHandlersGiveTheSameResponse() {
+        final CyclicBarrier allHandlersCalled = new CyclicBarrier(3);
+        RespondingActionSender sender = new RespondingActionSender() {
+            @Override
+            protected HandlerResponse respond(ActionMessage message) {
+                try {
+                    allHandlersCalled.await(5, TimeUnit.SECONDS);
+                    return HandlerResponse.COMPLETED;
+                } catch (InterruptedException | BrokenBarrierException | TimeoutException e) {
+                    return HandlerResponse.createError("Handlers not called concurrently");
+                }
+            }
+        };
+        RespondingActionSender sequentialSender = new RespondingActionSender() {
+            @Override
+            protected HandlerResponse respond(ActionMessage message) {
+                return HandlerResponse.COMPLETED;
+            }
+        };
+
+        HandlerResponse parallelResponse = new ApplySenderExecutor(builder, actionManager, handlers, fanOutExecutor).execute(applyAction(), sender);
+        HandlerResponse sequentialResponse = new ApplySenderExecutor(builder, actionManager, handlers).execute(applyAction(), sequentialSender);
+
+        assertEquals(HandlerResponse.COMPLETED, parallelResponse);
+        assertEquals(sequentialResponse, parallelResponse);
+        assertEquals(3, sender.getCallsCounter());
+    }
+
+    /**
+     * A bounded executor that runs the rejected sends in the caller doesn't deadlock when a NOANSWER fans out again
+     */
+    @Test
+    public void testBoundedExecutorRunsRejectedSendsInTheCaller() {
+        when(handlers.getApplyHandlers()).thenReturn(ImmutableList.of(configPath("X"), configPath("X:S1"), configPath("X:S2"), configPath("X:S3")));
+        ExecutorService boundedExecutor = new ThreadPoolExecutor(0, 1, 60L, TimeUnit.SECONDS,
+                new SynchronousQueue<Runnable>(), new ThreadPoolExecutor.CallerRunsPolicy());
+        try {
+            ApplySenderExecutor executor = new ApplySenderExecutor(builder, actionManager, handlers, boundedExecutor);
+            RespondingActionSender sender = new RespondingActionSender() {
+                @Override
+                protected HandlerResponse respond(ActionMessage message) {
+                    return message.getDataElements().size() == 4 ? HandlerResponse.NOANSWER : HandlerResponse.ACCEPTED;
+                }
+            };
+
+            assertEquals(HandlerResponse.ACCEPTED, executor.execute(applyAction(), sender));
+            assertEquals(4, sender.getCallsCounter());
+        } finally {
+            boundedExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * A NOANSWER is decomposed to the sub handlers, and the summary is the worst of the responses
+     */
+    @Test
+    public void testNoAnswerIsSentToTheSubHandlers() {
+        when(handlers.getApplyHandlers()).thenReturn(ImmutableList.of(configPath("X"), configPath("X:S1"), configPath("X:S2"), configPath("X:S3")));
+        ApplySenderExecutor executor = new ApplySenderExecutor(builder, actionManager, handlers, fanOutExecutor);
+
+        RespondingActionSender sender = new RespondingActionSender() {
+            @Override
+            protected HandlerResponse respond(ActionMessage message) {
+                if (message.getDataElements().containsKey("X:S3:D.val1")) {
+                    return message.getDataElements().size() == 1 ? HandlerResponse.STARTED : HandlerResponse.NOANSWER;
+                }
+                return HandlerResponse.ACCEPTED;
+            }
+        };
+
+        assertEquals(HandlerResponse.STARTED, executor.execute(applyAction(), sender));
+        // X answers NOANSWER so X:S1, X:S2 and X:S3 are sent
+        assertEquals(4, sender.getCallsCounter());
+    }
+
+    @Test
+    public void testNoAnswerFromOneHandler() {
+        ApplySenderExecutor executor = new ApplySenderExecutor(builder, actionManager, handlers, fanOutExecutor);
+
+        RespondingActionSender sender = new RespondingActionSender() {
+            @Override
+            protected HandlerResponse respond(ActionMessage message) {
+                return message.getDataElements().containsKey("X:S2:C.val1") ? HandlerResponse.NOANSWER : HandlerResponse.ACCEPTED;
+            }
+        };
+
+        assertEquals(HandlerResponse.NOANSWER, executor.execute(applyAction(), sender));
+    }
+
+    @Test(expected = SequenceCommandException.class)
+    public void testExceptionsFromTheSenderArePropagated() {
+        ApplySenderExecutor executor = new ApplySenderExecutor(builder, actionManager, handlers, fanOutExecutor);
+
+        RespondingActionSender sender = new RespondingActionSender() {
+            @Override
+            protected HandlerResponse respond(ActionMessage message) {
+                throw new SequenceCommandException("Unable to send action");
+            }
+        };
+
+        executor.execute(applyAction(), sender);
+    }
+
+    private abstract static class RespondingActionSender implements ActionSender {
+        private final AtomicInteger callsCounter = new AtomicInteger();
+
+        int getCallsCounter() {
+            return callsCounter.get();
+        }
+
+        @Override
+        public HandlerResponse send(ActionMessage message) throws SequenceCommandException {
+            return send(message, 0);
+        }
+
+        @Override
+        public HandlerResponse send(ActionMessage message, long timeout) throws SequenceCommandException {
+            callsCounter.incrementAndGet();
+            return respond(message);
+        }
+
+        protected abstract HandlerResponse respond(ActionMessage message);
+    }
+}
@@ -2,6 +2,7 @@ package edu.gemini.aspen.gmp.commands.model.executors;
 
 import edu.gemini.aspen.giapi.commands.*;
 import edu.gemini.aspen.giapitestsupport.commands.CompletionListenerMock;
+import edu.gemini.aspen.gmp.commands.handlers.ApplyHandlerTree;
 import edu.gemini.aspen.gmp.commands.handlers.CommandHandlers;
 import edu.gemini.aspen.gmp.commands.model.Action;
 import edu.gemini.aspen.gmp.commands.model.ActionMessageBuilder;
@@ -12,11 +13,15 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Collections;
+
 import static edu.gemini.aspen.giapi.commands.ConfigPath.configPath;
 import static edu.gemini.aspen.giapi.commands.DefaultConfiguration.configurationBuilder;
 import static edu.gemini.aspen.giapi.commands.DefaultConfiguration.emptyConfiguration;
 import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 
 /**
@@ -34,7 +39,7 @@ public class ApplySenderExecutorTest {
     @Before
     public void setUp() {
         ActionMessageBuilder builder = mock(ActionMessageBuilder.class);
-        CommandHandlers handlers = mock(CommandHandlers.class);
+        CommandHandlers handlers = mock(CommandHandlers.class, CALLS_REAL_METHODS);
 
         actionManager = new ActionManagerImpl();
         actionManager.start();
@@ -106,4 +111,21 @@ public class ApplySenderExecutorTest {
         HandlerResponse response = _executor.execute(action, sender);
         assertEquals(HandlerResponse.get(HandlerResponse.Response.NOANSWER), response);
     }
-}
\ No newline at end of file
+
+    /**
+     * Test that a handler missing from the tree, e.g. one that just subscribed, is looked up again
+     */
+    @Test
+    public void testHandlerMissingFromTheTreeIsLookedUp() {
+        CommandHandlers handlers = mock(CommandHandlers.class);
+        when(handlers.getApplyHandlerTree()).thenReturn(ApplyHandlerTree.empty());
+        when(handlers.getApplyHandlers()).thenReturn(Collections.singletonList(configPath("X")));
+        ApplySenderExecutor executor = new ApplySenderExecutor(mock(ActionMessageBuilder.class), actionManager, handlers);
+
+        Action action = new Action(new Command(SequenceCommand.APPLY,
+                Activity.START,
+                _applyConfig), new CompletionListenerMock());
+        HandlerResponse response = executor.execute(action, new ActionSenderMock(HandlerResponse.ACCEPTED));
+        assertEquals(HandlerResponse.ACCEPTED, response);
+    }
+}
@@ -23,7 +23,7 @@ import static org.mockito.Mockito.*;
 public class SequenceCommandExecutorStrategyTest {
 
     private ActionMessageBuilder builder = mock(ActionMessageBuilder.class);
-    private CommandHandlers handlers = mock(CommandHandlers.class);
+    private CommandHandlers handlers = mock(CommandHandlers.class, CALLS_REAL_METHODS);
     private ActionManager manager = mock(ActionManager.class);
     private StatusSetter setter = mock(StatusSetter.class);
     private Top top = mock(Top.class);
@@ -18,6 +18,7 @@ import java.util.List;
 import java.util.Map;
 
 import static edu.gemini.aspen.giapi.commands.DefaultConfiguration.emptyConfiguration;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -100,6 +101,72 @@ public class ActionManagerImplTest {
         assertTrue(cl.wasInvoked());
     }
 
+    /**
+     * Locking one action doesn't stop the completion of other actions
+     */
+    @Test
+    public void testLockOfOneAction() {
+        Action lockedAction = actions.get(0);
+        Action otherAction = actions.get(1);
+        manager.registerAction(lockedAction);
+        manager.registerAction(otherAction);
+
+        manager.lock(lockedAction);
+        manager.registerCompletionInformation(lockedAction.getId(), HandlerResponse.COMPLETED);
+        manager.registerCompletionInformation(otherAction.getId(), HandlerResponse.COMPLETED);
+
+        CompletionListenerMock otherListener = completionListeners.get(otherAction);
+        otherListener.waitForCompletion(TIMEOUT_FOR_RESPONSE);
+        assertTrue(otherListener.wasInvoked());
+
+        CompletionListenerMock lockedListener = completionListeners.get(lockedAction);
+        lockedListener.waitForCompletion(TIMEOUT_FOR_NO_RESPONSE);
+        assertFalse(lockedListener.wasInvoked());
+
+        manager.unlock(lockedAction);
+
+        lockedListener.waitForCompletion(TIMEOUT_FOR_RESPONSE);
+        assertTrue(lockedListener.wasInvoked());
+    }
+
+    /**
+     * Completions received while and after the manager stops still reach the listeners
+     */
+    @Test
+    public void testCompletionsAreSentAfterStop() {
+        Action pending = actions.get(0);
+        Action late = actions.get(1);
+        manager.registerAction(pending);
+        manager.registerAction(late);
+
+        manager.registerCompletionInformation(pending.getId(), HandlerResponse.COMPLETED);
+        manager.stop();
+        assertTrue(completionListeners.get(pending).wasInvoked());
+
+        manager.registerCompletionInformation(late.getId(), HandlerResponse.COMPLETED);
+        assertTrue(completionListeners.get(late).wasInvoked());
+    }
+
+    @Test
+    public void testMetrics() {
+        for (Action a : actions) {
+            manager.registerAction(a);
+        }
+        assertEquals(TOTAL_ACTIONS, manager.getMetrics().getPendingActions());
+
+        Action action = actions.get(0);
+        manager.registerCompletionInformation(action.getId(), HandlerResponse.COMPLETED);
+        CompletionListenerMock cl = completionListeners.get(action);
+        cl.waitForCompletion(TIMEOUT_FOR_RESPONSE);
+        assertTrue(cl.wasInvoked());
+
+        ActionManagerMetrics metrics = manager.getMetrics();
+        assertEquals(TOTAL_ACTIONS - 1, metrics.getPendingActions());
+        assertEquals(1, metrics.getCompletedActions());
+        assertTrue(metrics.getMaxCompletionLatency() >= metrics.getLastCompletionLatency());
+        assertEquals(0, metrics.getCallbackQueueDepth());
+    }
+
     /**
      * Validates that completion info for an action will trigger the listeners
      */
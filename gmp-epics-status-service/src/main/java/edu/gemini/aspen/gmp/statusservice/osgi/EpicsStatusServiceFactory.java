@@ -19,6 +19,8 @@ import java.util.logging.Logger;
 public class EpicsStatusServiceFactory implements ManagedServiceFactory {
     private static final Logger LOG = Logger.getLogger(EpicsStatusServiceFactory.class.getName());
     private static final String EPICS_CONFIG_PROPERTY = "xmlFileName";
+    // Passed along to the status service to receive only the latest value of each item
+    private static final String MAX_STALENESS_PROPERTY = "statusMaxStaleness";
 
     private final Map<String, ServiceRef> existingServices = Maps.newHashMap();
     private final BundleContext context;
@@ -66,7 +68,11 @@ public class EpicsStatusServiceFactory implements ManagedServiceFactory {
                 } catch (JAXBException e) {
                     LOG.severe("Error starting up the Epics Status Service");
                 }
-                ServiceRegistration<?> registration = context.registerService(StatusHandler.class, heartbeat, new Hashtable<String, Object>());
+                Hashtable<String, Object> serviceProperties = new Hashtable<String, Object>();
+                if (properties.get(MAX_STALENESS_PROPERTY) != null) {
+                    serviceProperties.put(MAX_STALENESS_PROPERTY, properties.get(MAX_STALENESS_PROPERTY).toString().trim());
+                }
+                ServiceRegistration<?> registration = context.registerService(StatusHandler.class, heartbeat, serviceProperties);
                 existingServices.put(pid, new ServiceRef(registration, heartbeat));
 
             } else {
@@ -1,9 +1,12 @@
 package edu.gemini.aspen.gmp.statusgw;
 
+import edu.gemini.aspen.giapi.status.StatusChanges;
 import edu.gemini.aspen.giapi.status.StatusDatabaseService;
 import edu.gemini.aspen.giapi.status.StatusItem;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -43,6 +46,47 @@ public class StatusDatabaseServiceDecorator implements StatusDatabaseService {
         return null;
     }
 
+    @Override
+    public Collection<StatusItem> getByPrefix(String prefix) {
+        if (_service != null) {
+            return _service.getByPrefix(prefix);
+        }
+        return Collections.emptyList();
+    }
+
+    @Override
+    public Collection<StatusItem> getByPattern(String pattern) {
+        if (_service != null) {
+            return _service.getByPattern(pattern);
+        }
+        return Collections.emptyList();
+    }
+
+    @Override
+    public <T> List<StatusItem<T>> getHistory(String name, long since) {
+        if (_service != null) {
+            return _service.getHistory(name, since);
+        }
+        return Collections.emptyList();
+    }
+
+    @Override
+    public long getVersion() {
+        if (_service != null) {
+            return _service.getVersion();
+        }
+        return 0;
+    }
+
+    @Override
+    public StatusChanges getChangedSince(long version, String prefix, int maxItems) {
+        if (_service != null) {
+            return _service.getChangedSince(version, prefix, maxItems);
+        }
+        // Without a database there is no epoch, clients drop their copy
+        return new StatusChanges(0, version, Collections.<StatusItem>emptyList(), true);
+    }
+
     /**
      * Registers the real DatabaseService to be use by this decorator. Any
      * existing database service will be removed.
@@ -1,5 +1,6 @@
 package edu.gemini.aspen.gmp.statusgw.jms;
 
+import edu.gemini.aspen.giapi.status.StatusChanges;
 import edu.gemini.aspen.giapi.status.StatusItem;
 import edu.gemini.aspen.giapi.util.jms.MessageBuilder;
 import edu.gemini.jms.api.BaseMessageProducer;
@@ -11,7 +12,9 @@ import java.util.Set;
 import java.util.TreeSet;
 
 /**
- * A producer to sendStatusItem status items back to the client using JMS
+ * A producer to sendStatusItem status items back to the client using JMS. The
+ * replies go to the reply destination of the request and carry its correlation
+ * ID, so a client can have several requests pending on one destination
  */
 public class JmsStatusDispatcher extends BaseMessageProducer {
 
@@ -23,22 +26,22 @@ public class JmsStatusDispatcher extends BaseMessageProducer {
      * Sends a status item via JMS
      *
      * @param item        the StatusItem to send
-     * @param destination where to send it
+     * @param request     the request being answered
      * @throws JMSException
      */
-    public void sendStatusItem(StatusItem item, Destination destination) throws JMSException {
+    public void sendStatusItem(StatusItem item, Message request) throws JMSException {
         Message replyMessage = MessageBuilder.buildStatusItemMessage(_session, item);
-        _producer.send(destination, replyMessage);
+        reply(replyMessage, request);
     }
 
     /**
      * Sends all the status names via JMS
      *
      * @param names       the status names to send
-     * @param destination where to send them
+     * @param request     the request being answered
      * @throws JMSException
      */
-    public void sendStatusNames(Set<String> names, Destination destination) throws JMSException {
+    public void sendStatusNames(Set<String> names, Message request) throws JMSException {
         BytesMessage replyMessage = _session.createBytesMessage();
 
         //just create an empty set so the client doesn't timeout
@@ -51,17 +54,17 @@ public class JmsStatusDispatcher extends BaseMessageProducer {
         for (String name : names) {
             replyMessage.writeUTF(name);
         }
-        _producer.send(destination, replyMessage);
+        reply(replyMessage, request);
     }
 
     /**
      * Sends multiple status items via JMS
      *
      * @param items       the status items to send
-     * @param destination where to send them
+     * @param request     the request being answered
      * @throws JMSException
      */
-    public void sendMultipleStatusItems(Collection<StatusItem> items, Destination destination) throws JMSException {
+    public void sendMultipleStatusItems(Collection<StatusItem> items, Message request) throws JMSException {
         //just create an empty set so the client doesn't timeout
         if (items == null) {
             items = new ArrayList<StatusItem>();
@@ -70,6 +73,36 @@ public class JmsStatusDispatcher extends BaseMessageProducer {
         //create message, fill it and send it
         Message replyMessage = MessageBuilder.buildMultipleStatusItemsMessage(_session, items);
 
-        _producer.send(destination, replyMessage);
+        reply(replyMessage, request);
     }
-}
\ No newline at end of file
+
+    /**
+     * Sends the status items that answer a query via JMS, including the count
+     * when there are none
+     *
+     * @param items       the status items to send
+     * @param request     the request being answered
+     * @throws JMSException
+     */
+    public void sendStatusItems(Collection<? extends StatusItem> items, Message request) throws JMSException {
+        Message replyMessage = MessageBuilder.buildStatusItemsMessage(_session, items);
+        reply(replyMessage, request);
+    }
+
+    /**
+     * Sends the status items changed since a version via JMS
+     *
+     * @param changes     the changes to send
+     * @param request     the request being answered
+     * @throws JMSException
+     */
+    public void sendStatusChanges(StatusChanges changes, Message request) throws JMSException {
+        Message replyMessage = MessageBuilder.buildStatusChangesMessage(_session, changes);
+        reply(replyMessage, request);
+    }
+
+    private void reply(Message replyMessage, Message request) throws JMSException {
+        replyMessage.setJMSCorrelationID(request.getJMSCorrelationID());
+        _producer.send(request.getJMSReplyTo(), replyMessage);
+    }
+}
@@ -46,7 +46,7 @@ public class MultipleStatusItemsRequestListener implements MessageListener {
 
             Collection<StatusItem> items = _db.getAll();
 
-            _dispatcher.sendMultipleStatusItems(items, message.getJMSReplyTo());
+            _dispatcher.sendMultipleStatusItems(items, message);
 
         } catch (JMSException e) {
             LOG.log(Level.WARNING, "Problem getting status items: ", e);
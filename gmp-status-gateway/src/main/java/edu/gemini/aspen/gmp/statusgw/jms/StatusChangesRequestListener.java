@@ -0,0 +1,62 @@
+package edu.gemini.aspen.gmp.statusgw.jms;
+
+import edu.gemini.aspen.giapi.status.StatusChanges;
+import edu.gemini.aspen.giapi.status.StatusDatabaseService;
+import edu.gemini.aspen.giapi.util.jms.JmsKeys;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageListener;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Receives requests via JMS for the status items updated after a version of the
+ * database, so clients keeping a copy of the database receive only what changed.
+ * <br>
+ * The request may contain a prefix of the names and a maximum number of items,
+ * a client asks repeatedly until the changes it receives are complete
+ */
+public class StatusChangesRequestListener implements MessageListener {
+
+    private static final Logger LOG = Logger.getLogger(StatusChangesRequestListener.class.getName());
+
+    /**
+     * The database service to obtain the changed status items
+     */
+    private final StatusDatabaseService _db;
+
+    /**
+     * The status item dispatcher to send the changes back to clients
+     */
+    private final JmsStatusDispatcher _dispatcher;
+
+    public StatusChangesRequestListener(StatusDatabaseService db, JmsStatusDispatcher dispatcher) {
+        _db = db;
+        _dispatcher = dispatcher;
+    }
+
+    public void onMessage(Message message) {
+        try {
+            if (message.getJMSReplyTo() == null) {
+                return; //nothing to do since we don't know where to reply
+            }
+
+            long version = message.propertyExists(JmsKeys.GW_STATUS_REQUEST_VERSION_PROPERTY) ?
+                    message.getLongProperty(JmsKeys.GW_STATUS_REQUEST_VERSION_PROPERTY) : 0L;
+            String prefix = message.getStringProperty(JmsKeys.GW_STATUS_REQUEST_PREFIX_PROPERTY);
+            int maxItems = message.propertyExists(JmsKeys.GW_STATUS_REQUEST_MAX_ITEMS_PROPERTY) ?
+                    message.getIntProperty(JmsKeys.GW_STATUS_REQUEST_MAX_ITEMS_PROPERTY) : Integer.MAX_VALUE;
+            if (maxItems <= 0) {
+                LOG.log(Level.WARNING, "Invalid max items in status changes request: " + maxItems);
+                return;
+            }
+
+            StatusChanges changes = _db.getChangedSince(version, prefix, maxItems);
+            _dispatcher.sendStatusChanges(changes, message);
+
+        } catch (JMSException e) {
+            LOG.log(Level.WARNING, "Problem processing status changes request message: ", e);
+        }
+    }
+}
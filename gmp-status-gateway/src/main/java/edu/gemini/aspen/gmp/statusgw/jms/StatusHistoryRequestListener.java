@@ -0,0 +1,59 @@
+package edu.gemini.aspen.gmp.statusgw.jms;
+
+import edu.gemini.aspen.giapi.status.StatusDatabaseService;
+import edu.gemini.aspen.giapi.status.StatusItem;
+import edu.gemini.aspen.giapi.util.jms.JmsKeys;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageListener;
+import javax.jms.TextMessage;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Receives requests via JMS for the past values of a Status Item by name and
+ * replies with the values recorded since the time set in the request
+ */
+public class StatusHistoryRequestListener implements MessageListener {
+
+    private static final Logger LOG = Logger.getLogger(StatusHistoryRequestListener.class.getName());
+
+    /**
+     * The database service to obtain the status item history
+     */
+    private final StatusDatabaseService _db;
+
+    /**
+     * The status item dispatcher to send the history back to clients
+     */
+    private final JmsStatusDispatcher _dispatcher;
+
+    public StatusHistoryRequestListener(StatusDatabaseService db, JmsStatusDispatcher dispatcher) {
+        _db = db;
+        _dispatcher = dispatcher;
+    }
+
+    public void onMessage(Message message) {
+        try {
+            if (message.getJMSReplyTo() == null) {
+                return; //nothing to do since we don't know where to reply
+            }
+
+            if (!(message instanceof TextMessage)) {
+                LOG.log(Level.WARNING, "Message received is not a TextMessage instance.");
+                return;
+            }
+            String statusName = ((TextMessage) message).getText();
+            long since = message.propertyExists(JmsKeys.GW_STATUS_REQUEST_SINCE_PROPERTY) ?
+                    message.getLongProperty(JmsKeys.GW_STATUS_REQUEST_SINCE_PROPERTY) : 0L;
+            List<StatusItem<Object>> history = _db.getHistory(statusName, since);
+
+            _dispatcher.sendStatusItems(history, message);
+
+        } catch (JMSException e) {
+            LOG.log(Level.WARNING, "Problem processing status history request message: ", e);
+        }
+    }
+}
@@ -48,12 +48,11 @@ public class StatusItemRequestListener implements MessageListener {
             String statusName = tm.getText();
             StatusItem item = _db.getStatusItem(statusName);
 
-            //TODO: add a way to report back that the statusName requested does not exist
+            //an empty reply tells the client the item doesn't exist without waiting for a timeout
             if (item == null) {
                 LOG.log(Level.INFO, "Requested status item "+statusName+" doesn't exist.");
-                return; //no item found, can't reply
             }
-            _dispatcher.sendStatusItem(item, message.getJMSReplyTo());
+            _dispatcher.sendStatusItem(item, message);
 
         } catch (JMSException e) {
             LOG.log(Level.WARNING, "Problem processing status item request message: ", e);
@@ -0,0 +1,65 @@
+package edu.gemini.aspen.gmp.statusgw.jms;
+
+import edu.gemini.aspen.giapi.status.StatusDatabaseService;
+import edu.gemini.aspen.giapi.status.StatusItem;
+
+import javax.jms.BytesMessage;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageListener;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Receives requests via JMS for several Status Items by name and replies with
+ * all of them in one message. The request contains the number of names followed
+ * by the names, the names without a status item are left out of the reply
+ */
+public class StatusItemsByNameRequestListener implements MessageListener {
+
+    private static final Logger LOG = Logger.getLogger(StatusItemsByNameRequestListener.class.getName());
+
+    /**
+     * The database service to obtain the status item information
+     */
+    private final StatusDatabaseService _db;
+
+    /**
+     * The status item dispatcher to send the items back to clients
+     */
+    private final JmsStatusDispatcher _dispatcher;
+
+    public StatusItemsByNameRequestListener(StatusDatabaseService db, JmsStatusDispatcher dispatcher) {
+        _db = db;
+        _dispatcher = dispatcher;
+    }
+
+    public void onMessage(Message message) {
+        try {
+            if (message.getJMSReplyTo() == null) {
+                return; //nothing to do since we don't know where to reply
+            }
+
+            if (!(message instanceof BytesMessage)) {
+                LOG.log(Level.WARNING, "Message received is not a BytesMessage instance.");
+                return;
+            }
+            BytesMessage bm = (BytesMessage) message;
+            int count = bm.readInt();
+            List<StatusItem> items = new ArrayList<StatusItem>(count);
+            for (int i = 0; i < count; i++) {
+                StatusItem item = _db.getStatusItem(bm.readUTF());
+                if (item != null) {
+                    items.add(item);
+                }
+            }
+
+            _dispatcher.sendStatusItems(items, message);
+
+        } catch (JMSException e) {
+            LOG.log(Level.WARNING, "Problem processing status items request message: ", e);
+        }
+    }
+}
@@ -45,7 +45,7 @@ public class StatusNamesRequestListener implements MessageListener {
 
             Set<String> names = _db.getStatusNames();
             
-            _dispatcher.sendStatusNames(names, message.getJMSReplyTo());
+            _dispatcher.sendStatusNames(names, message);
 
         } catch (JMSException e) {
             LOG.log(Level.WARNING, "Problem getting status item names: ", e);
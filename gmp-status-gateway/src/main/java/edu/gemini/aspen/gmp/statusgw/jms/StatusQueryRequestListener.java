@@ -0,0 +1,67 @@
+package edu.gemini.aspen.gmp.statusgw.jms;
+
+import edu.gemini.aspen.giapi.status.StatusDatabaseService;
+import edu.gemini.aspen.giapi.status.StatusItem;
+import edu.gemini.aspen.giapi.util.jms.JmsKeys;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageListener;
+import javax.jms.TextMessage;
+import java.util.Collection;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Receives requests via JMS for the status items under a config path prefix or
+ * matching a pattern, so clients don't need to get all the items and filter them.
+ * The prefix or pattern is the text of the request
+ */
+public class StatusQueryRequestListener implements MessageListener {
+
+    private static final Logger LOG = Logger.getLogger(StatusQueryRequestListener.class.getName());
+
+    /**
+     * The database service to query
+     */
+    private final StatusDatabaseService _db;
+
+    /**
+     * The status item dispatcher to send the items back to clients
+     */
+    private final JmsStatusDispatcher _dispatcher;
+
+    public StatusQueryRequestListener(StatusDatabaseService db, JmsStatusDispatcher dispatcher) {
+        _db = db;
+        _dispatcher = dispatcher;
+    }
+
+    public void onMessage(Message message) {
+        try {
+            if (message.getJMSReplyTo() == null) {
+                return; //nothing to do since we don't know where to reply
+            }
+
+            if (!(message instanceof TextMessage)) {
+                LOG.log(Level.WARNING, "Message received is not a TextMessage instance.");
+                return;
+            }
+            String query = ((TextMessage) message).getText();
+            if (query == null) {
+                query = "";
+            }
+            String requestType = message.getStringProperty(JmsKeys.GW_STATUS_REQUEST_TYPE_PROPERTY);
+            Collection<StatusItem> items;
+            if (JmsKeys.GW_STATUS_REQUEST_TYPE_PATTERN.equals(requestType)) {
+                items = _db.getByPattern(query);
+            } else {
+                items = _db.getByPrefix(query);
+            }
+
+            _dispatcher.sendStatusItems(items, message);
+
+        } catch (JMSException e) {
+            LOG.log(Level.WARNING, "Problem processing status query request message: ", e);
+        }
+    }
+}
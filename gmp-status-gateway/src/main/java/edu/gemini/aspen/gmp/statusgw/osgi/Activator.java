@@ -4,8 +4,12 @@ import edu.gemini.aspen.giapi.util.jms.JmsKeys;
 import edu.gemini.aspen.gmp.statusgw.StatusDatabaseServiceDecorator;
 import edu.gemini.aspen.gmp.statusgw.jms.JmsStatusDispatcher;
 import edu.gemini.aspen.gmp.statusgw.jms.MultipleStatusItemsRequestListener;
+import edu.gemini.aspen.gmp.statusgw.jms.StatusChangesRequestListener;
+import edu.gemini.aspen.gmp.statusgw.jms.StatusHistoryRequestListener;
 import edu.gemini.aspen.gmp.statusgw.jms.StatusItemRequestListener;
+import edu.gemini.aspen.gmp.statusgw.jms.StatusItemsByNameRequestListener;
 import edu.gemini.aspen.gmp.statusgw.jms.StatusNamesRequestListener;
+import edu.gemini.aspen.gmp.statusgw.jms.StatusQueryRequestListener;
 import edu.gemini.jms.api.*;
 import org.osgi.framework.BundleActivator;
 import org.osgi.framework.BundleContext;
@@ -33,6 +37,15 @@ public class Activator implements BundleActivator {
         );
 
 
+        //Create the message consumer for requests of several status items by name
+        BaseMessageConsumer itemsConsumer = new BaseMessageConsumer(
+                "Gateway Status Items Consumer",
+                new DestinationData(JmsKeys.GW_STATUS_REQUEST_DESTINATION,
+                        DestinationType.TOPIC),
+                new StatusItemsByNameRequestListener(decorator, dispatcher),
+                new JmsSimpleMessageSelector(JmsKeys.GW_STATUS_REQUEST_TYPE_PROPERTY + " = '" + JmsKeys.GW_STATUS_REQUEST_TYPE_ITEMS + "'")
+        );
+
         //Create the message consumer for status names requests
         BaseMessageConsumer namesConsumer = new BaseMessageConsumer(
                 "Gateway Status Names Consumer",
@@ -51,10 +64,41 @@ public class Activator implements BundleActivator {
                 new JmsSimpleMessageSelector(JmsKeys.GW_STATUS_REQUEST_TYPE_PROPERTY + " = '" + JmsKeys.GW_STATUS_REQUEST_TYPE_ALL + "'")
         );
 
+        //Create the message consumer for status history requests
+        BaseMessageConsumer historyConsumer = new BaseMessageConsumer(
+                "Gateway Status History Consumer",
+                new DestinationData(JmsKeys.GW_STATUS_REQUEST_DESTINATION,
+                        DestinationType.TOPIC),
+                new StatusHistoryRequestListener(decorator, dispatcher),
+                new JmsSimpleMessageSelector(JmsKeys.GW_STATUS_REQUEST_TYPE_PROPERTY + " = '" + JmsKeys.GW_STATUS_REQUEST_TYPE_HISTORY + "'")
+        );
+
+        //Create the message consumer for requests of the items changed since a version
+        BaseMessageConsumer changesConsumer = new BaseMessageConsumer(
+                "Gateway Status Changes Consumer",
+                new DestinationData(JmsKeys.GW_STATUS_REQUEST_DESTINATION,
+                        DestinationType.TOPIC),
+                new StatusChangesRequestListener(decorator, dispatcher),
+                new JmsSimpleMessageSelector(JmsKeys.GW_STATUS_REQUEST_TYPE_PROPERTY + " = '" + JmsKeys.GW_STATUS_REQUEST_TYPE_CHANGES + "'")
+        );
+
+        //Create the message consumer for prefix and pattern queries
+        BaseMessageConsumer queryConsumer = new BaseMessageConsumer(
+                "Gateway Status Query Consumer",
+                new DestinationData(JmsKeys.GW_STATUS_REQUEST_DESTINATION,
+                        DestinationType.TOPIC),
+                new StatusQueryRequestListener(decorator, dispatcher),
+                new JmsSimpleMessageSelector(JmsKeys.GW_STATUS_REQUEST_TYPE_PROPERTY + " IN ('" + JmsKeys.GW_STATUS_REQUEST_TYPE_PREFIX + "', '" + JmsKeys.GW_STATUS_REQUEST_TYPE_PATTERN + "')")
+        );
+
         bundleContext.registerService(JmsArtifact.class.getName(), dispatcher, null);
         bundleContext.registerService(JmsArtifact.class.getName(), consumer, null);
+        bundleContext.registerService(JmsArtifact.class.getName(), itemsConsumer, null);
         bundleContext.registerService(JmsArtifact.class.getName(), namesConsumer, null);
         bundleContext.registerService(JmsArtifact.class.getName(), multipleStatusItemsConsumer, null);
+        bundleContext.registerService(JmsArtifact.class.getName(), historyConsumer, null);
+        bundleContext.registerService(JmsArtifact.class.getName(), changesConsumer, null);
+        bundleContext.registerService(JmsArtifact.class.getName(), queryConsumer, null);
 
 
         _dbTracker = new StatusDatabaseTracker(bundleContext, decorator);
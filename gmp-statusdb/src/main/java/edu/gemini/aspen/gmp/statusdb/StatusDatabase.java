@@ -1,17 +1,35 @@
 package edu.gemini.aspen.gmp.statusdb;
 
+import edu.gemini.aspen.giapi.status.StatusChanges;
 import edu.gemini.aspen.giapi.status.StatusDatabaseService;
 import edu.gemini.aspen.giapi.status.StatusHandler;
 import edu.gemini.aspen.giapi.status.StatusItem;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * The Status Database contains the most up to date information related to
  * the status items. All the status items received by the GMP are recorded here
+ * <br>
+ * The names are also kept in a trie by config path so the items under a prefix
+ * or matching a pattern are found without scanning the whole database.
+ * <br>
+ * Every update gets a new version, so clients can ask only for the items that
+ * changed since their last request. The versions start again when the database
+ * is created, so each instance has a random epoch that tells clients to copy it
+ * again.
+ * <br>
+ * Optionally the last values of each item are kept, up to a fixed number per item
  */
 public class StatusDatabase implements StatusHandler, StatusDatabaseService {
 
@@ -19,6 +37,46 @@ public class StatusDatabase implements StatusHandler, StatusDatabaseService {
     final private ConcurrentHashMap<String, StatusItem> _db
             = new ConcurrentHashMap<String, StatusItem>();
 
+    //The last values of each status item, if the history is enabled
+    final private ConcurrentHashMap<String, StatusHistory> _history
+            = new ConcurrentHashMap<String, StatusHistory>();
+
+    //The names of the status items by config path
+    private final StatusNameTrie _names = new StatusNameTrie();
+
+    private final int _historyCapacity;
+
+    private final long _epoch = ThreadLocalRandom.current().nextLong();
+    //The last version given to an update
+    private final AtomicLong _version = new AtomicLong();
+    //The version up to which all the updates are complete, the low-water mark of the updates
+    private final AtomicLong _published = new AtomicLong();
+    //The updates complete after an earlier one that is still in progress
+    private final ConcurrentSkipListSet<Long> _completedAhead = new ConcurrentSkipListSet<Long>();
+    //The version of the last update of each status item
+    private final ConcurrentHashMap<String, Long> _versions = new ConcurrentHashMap<String, Long>();
+    //The name of the status item updated at each version, only the last update of an item is kept
+    private final ConcurrentSkipListMap<Long, String> _changes = new ConcurrentSkipListMap<Long, String>();
+
+    /**
+     * Creates a database that only keeps the latest value of each item
+     */
+    public StatusDatabase() {
+        this(0);
+    }
+
+    /**
+     * Creates a database that also keeps the last values of each item
+     *
+     * @param historyCapacity number of values kept per item, 0 to disable the history
+     */
+    public StatusDatabase(int historyCapacity) {
+        if (historyCapacity < 0) {
+            throw new IllegalArgumentException("History capacity cannot be negative");
+        }
+        _historyCapacity = historyCapacity;
+    }
+
     @Override
     public String getName() {
         return "Status Database";
@@ -39,10 +97,110 @@ public class StatusDatabase implements StatusHandler, StatusDatabaseService {
         return Collections.unmodifiableCollection(_db.values());
     }
 
+    @Override
+    public Collection<StatusItem> getByPrefix(String prefix) {
+        return itemsNamed(_names.withPrefix(prefix));
+    }
+
+    @Override
+    public Collection<StatusItem> getByPattern(String pattern) {
+        return itemsNamed(_names.matching(pattern));
+    }
+
+    private Collection<StatusItem> itemsNamed(List<String> names) {
+        List<StatusItem> items = new ArrayList<StatusItem>(names.size());
+        for (String name : names) {
+            items.add(_db.get(name));
+        }
+        return items;
+    }
+
     @Override
     public <T> void update(StatusItem<T> item) {
-        //store this new value in the database
-        _db.put(item.getName(), item);
+        long version = _version.incrementAndGet();
+        try {
+            //store this new value in the database, the updates of an item are serialized by _versions
+            _versions.compute(item.getName(), (name, previous) -> {
+                if (previous != null && previous > version) {
+                    // A later update of the same item got in first
+                    return previous;
+                }
+                if (_db.put(name, item) == null) {
+                    _names.add(name);
+                }
+                _changes.put(version, name);
+                if (previous != null) {
+                    _changes.remove(previous);
+                }
+                return version;
+            });
+        } finally {
+            publish(version);
+        }
+        if (_historyCapacity > 0) {
+            recordHistory(item);
+        }
+    }
+
+    /**
+     * Marks an update as complete and advances the published version over the
+     * consecutive complete updates. Doesn't wait for the earlier updates, the
+     * last of them to complete advances the version past this one
+     */
+    private void publish(long version) {
+        _completedAhead.add(version);
+        while (true) {
+            long published = _published.get();
+            if (!_completedAhead.contains(published + 1)) {
+                return;
+            }
+            if (_published.compareAndSet(published, published + 1)) {
+                _completedAhead.remove(published + 1);
+            }
+        }
+    }
+
+    private <T> void recordHistory(StatusItem<T> item) {
+        StatusHistory history = _history.get(item.getName());
+        if (history == null) {
+            history = _history.computeIfAbsent(item.getName(), name -> new StatusHistory(name, _historyCapacity));
+        }
+        history.record(item);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> List<StatusItem<T>> getHistory(String name, long since) {
+        StatusHistory history = _history.get(name);
+        if (history == null) {
+            return Collections.emptyList();
+        }
+        return (List<StatusItem<T>>) (List<?>) history.since(since);
+    }
+
+    @Override
+    public long getVersion() {
+        return _published.get();
+    }
+
+    @Override
+    public StatusChanges getChangedSince(long version, String prefix, int maxItems) {
+        if (maxItems <= 0) {
+            throw new IllegalArgumentException("Max items must be positive");
+        }
+        // All the updates up to this version are already in _changes
+        long current = getVersion();
+        List<StatusItem> items = new ArrayList<StatusItem>();
+        for (Map.Entry<Long, String> change : _changes.subMap(version, false, current, true).entrySet()) {
+            if (prefix == null || StatusNameTrie.isUnder(change.getValue(), prefix)) {
+                if (items.size() == maxItems) {
+                    // Continue after the last item returned
+                    return new StatusChanges(_epoch, change.getKey() - 1, items, false);
+                }
+                items.add(_db.get(change.getValue()));
+            }
+        }
+        return new StatusChanges(_epoch, current, items, true);
     }
 
     @Override
@@ -0,0 +1,130 @@
+package edu.gemini.aspen.gmp.statusdb;
+
+import edu.gemini.aspen.giapi.status.StatusItem;
+import edu.gemini.aspen.giapi.status.impl.BasicStatus;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * The last values of a status item in a fixed capacity ring. Numeric values are
+ * kept in primitive arrays so recording them doesn't allocate, other values are
+ * kept by reference.
+ * <br>
+ * If the type of the values changes the previous values are discarded
+ */
+final class StatusHistory {
+    private enum Kind {
+        INTEGER, LONG, FLOAT, DOUBLE, OBJECT
+    }
+
+    private final String name;
+    private final int capacity;
+    private final long[] timestamps;
+    private Kind kind = null;
+    private long[] longValues;
+    private double[] doubleValues;
+    private Object[] objectValues;
+
+    // Position of the next value to record
+    private int next = 0;
+    private int size = 0;
+
+    StatusHistory(String name, int capacity) {
+        this.name = name;
+        this.capacity = capacity;
+        this.timestamps = new long[capacity];
+    }
+
+    private static Kind kindOf(Object value) {
+        if (value instanceof Integer) {
+            return Kind.INTEGER;
+        } else if (value instanceof Long) {
+            return Kind.LONG;
+        } else if (value instanceof Float) {
+            return Kind.FLOAT;
+        } else if (value instanceof Double) {
+            return Kind.DOUBLE;
+        } else {
+            return Kind.OBJECT;
+        }
+    }
+
+    private void reset(Kind newKind) {
+        kind = newKind;
+        longValues = null;
+        doubleValues = null;
+        objectValues = null;
+        switch (newKind) {
+            case INTEGER:
+            case LONG:
+                longValues = new long[capacity];
+                break;
+            case FLOAT:
+            case DOUBLE:
+                doubleValues = new double[capacity];
+                break;
+            default:
+                objectValues = new Object[capacity];
+        }
+        next = 0;
+        size = 0;
+    }
+
+    synchronized void record(StatusItem<?> item) {
+        Object value = item.getValue();
+        Kind valueKind = kindOf(value);
+        if (valueKind != kind) {
+            reset(valueKind);
+        }
+        Date timestamp = item.getTimestamp();
+        timestamps[next] = timestamp != null ? timestamp.getTime() : System.currentTimeMillis();
+        switch (kind) {
+            case INTEGER:
+            case LONG:
+                longValues[next] = ((Number) value).longValue();
+                break;
+            case FLOAT:
+            case DOUBLE:
+                doubleValues[next] = ((Number) value).doubleValue();
+                break;
+            default:
+                objectValues[next] = value;
+        }
+        next = (next + 1) % capacity;
+        if (size < capacity) {
+            size++;
+        }
+    }
+
+    private Object valueAt(int position) {
+        switch (kind) {
+            case INTEGER:
+                return (int) longValues[position];
+            case LONG:
+                return longValues[position];
+            case FLOAT:
+                return (float) doubleValues[position];
+            case DOUBLE:
+                return doubleValues[position];
+            default:
+                return objectValues[position];
+        }
+    }
+
+    /**
+     * @return the values recorded at or after the given time, oldest first
+     */
+    synchronized List<StatusItem<?>> since(long since) {
+        List<StatusItem<?>> items = new ArrayList<StatusItem<?>>();
+        int oldest = (next - size + capacity) % capacity;
+        for (int i = 0; i < size; i++) {
+            int position = (oldest + i) % capacity;
+            if (timestamps[position] >= since) {
+                items.add(new BasicStatus<Object>(name, valueAt(position), new Date(timestamps[position])));
+            }
+        }
+        return items;
+    }
+}
@@ -0,0 +1,130 @@
+package edu.gemini.aspen.gmp.statusdb;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The names of the status items arranged by the segments of their config path,
+ * e.g. gpi:ao:temp is under gpi and then ao. Finding the names under a prefix or
+ * matching a pattern only visits the branches that can match.
+ * <br>
+ * Names can be added concurrently with the queries, they are never removed
+ */
+final class StatusNameTrie {
+    // Same separator as ConfigPath
+    private static final char SEPARATOR = ':';
+    private static final String WILDCARD = "*";
+
+    private final Node root = new Node();
+
+    private static final class Node {
+        private final ConcurrentHashMap<String, Node> children = new ConcurrentHashMap<String, Node>();
+        // The name of the status item ending at this node, if any
+        private volatile String name;
+    }
+
+    /**
+     * Splits a path in its segments, a trailing separator is ignored
+     */
+    static List<String> segments(String path) {
+        List<String> segments = new ArrayList<String>();
+        int start = path.startsWith(String.valueOf(SEPARATOR)) ? 1 : 0;
+        int end;
+        while ((end = path.indexOf(SEPARATOR, start)) >= 0) {
+            segments.add(path.substring(start, end));
+            start = end + 1;
+        }
+        if (start < path.length()) {
+            segments.add(path.substring(start));
+        }
+        return segments;
+    }
+
+    /**
+     * @return whether the name starts with the whole segments of the prefix, e.g.
+     * gpi:ao:temp is under gpi:ao but gpi:aoc:temp isn't
+     */
+    static boolean isUnder(String name, String prefix) {
+        int start = prefix.startsWith(String.valueOf(SEPARATOR)) ? 1 : 0;
+        int end = prefix.length() > start && prefix.charAt(prefix.length() - 1) == SEPARATOR ? prefix.length() - 1 : prefix.length();
+        String path = prefix.substring(start, end);
+        if (path.isEmpty()) {
+            return true;
+        }
+        String relative = name.startsWith(String.valueOf(SEPARATOR)) ? name.substring(1) : name;
+        return relative.startsWith(path)
+                && (relative.length() == path.length() || relative.charAt(path.length()) == SEPARATOR);
+    }
+
+    void add(String name) {
+        Node node = root;
+        for (String segment : segments(name)) {
+            Node child = node.children.get(segment);
+            if (child == null) {
+                child = node.children.computeIfAbsent(segment, s -> new Node());
+            }
+            node = child;
+        }
+        node.name = name;
+    }
+
+    /**
+     * @param prefix whole segments at the start of the names, empty for all the names
+     * @return the names under the prefix, in no particular order
+     */
+    List<String> withPrefix(String prefix) {
+        Node node = root;
+        for (String segment : segments(prefix)) {
+            node = node.children.get(segment);
+            if (node == null) {
+                return new ArrayList<String>();
+            }
+        }
+        List<String> names = new ArrayList<String>();
+        Deque<Node> pending = new ArrayDeque<Node>();
+        pending.push(node);
+        while (!pending.isEmpty()) {
+            Node next = pending.pop();
+            if (next.name != null) {
+                names.add(next.name);
+            }
+            for (Node child : next.children.values()) {
+                pending.push(child);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * @param pattern segments to match, a * segment matches any one segment
+     * @return the names with the same number of segments as the pattern that match it, in no particular order
+     */
+    List<String> matching(String pattern) {
+        List<String> names = new ArrayList<String>();
+        collectMatches(root, segments(pattern), 0, names);
+        return names;
+    }
+
+    private void collectMatches(Node node, List<String> pattern, int position, List<String> names) {
+        if (position == pattern.size()) {
+            if (node.name != null) {
+                names.add(node.name);
+            }
+            return;
+        }
+        String segment = pattern.get(position);
+        if (WILDCARD.equals(segment)) {
+            for (Node child : node.children.values()) {
+                collectMatches(child, pattern, position + 1, names);
+            }
+        } else {
+            Node child = node.children.get(segment);
+            if (child != null) {
+                collectMatches(child, pattern, position + 1, names);
+            }
+        }
+    }
+}
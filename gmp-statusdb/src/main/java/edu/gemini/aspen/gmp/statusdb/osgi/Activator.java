@@ -10,12 +10,16 @@ import org.osgi.framework.ServiceRegistration;
 import java.util.Hashtable;
 
 public class Activator implements BundleActivator {
+    // Framework property with the number of values kept per status item
+    private static final String HISTORY_CAPACITY_PROPERTY = "gmp.statusdb.historyCapacity";
 
     private ServiceRegistration<?> serviceRegistration;
 
     @Override
     public void start(BundleContext context) throws Exception {
-        serviceRegistration = context.registerService(new String[] {StatusDatabaseService.class.getName(), StatusHandler.class.getName()}, new StatusDatabase(), new Hashtable<String, String>());
+        String historyCapacity = context.getProperty(HISTORY_CAPACITY_PROPERTY);
+        StatusDatabase database = historyCapacity != null ? new StatusDatabase(Integer.parseInt(historyCapacity.trim())) : new StatusDatabase();
+        serviceRegistration = context.registerService(new String[] {StatusDatabaseService.class.getName(), StatusHandler.class.getName()}, database, new Hashtable<String, String>());
     }
 
     @Override
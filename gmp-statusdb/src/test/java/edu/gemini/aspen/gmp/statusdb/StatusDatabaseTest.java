@@ -4,7 +4,21 @@ import edu.gemini.aspen.giapi.status.impl.BasicStatus;
 import org.junit.Before;
 import org.junit.Test;
 
+import edu.gemini.aspen.giapi.status.StatusChanges;
+import edu.gemini.aspen.giapi.status.StatusItem;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.*;
 
@@ -80,5 +94,283 @@ public class StatusDatabaseTest {
         assertEquals(statusDatabase.getName(), statusDatabase.toString());
     }
 
+    @Test
+    public void testVersionIncreasesWithUpdates() throws Exception {
+        assertEquals(0, statusDatabase.getVersion());
+
+        statusDatabase.update(item);
+        statusDatabase.update(item);
+
+        assertEquals(2, statusDatabase.getVersion());
+    }
+
+    @Test
+    public void testGetChangedSince() throws Exception {
+        statusDatabase.update(new BasicStatus<Integer>("gpi:a", 1));
+        statusDatabase.update(new BasicStatus<Integer>("gpi:b", 1));
+        long version = statusDatabase.getVersion();
+        statusDatabase.update(new BasicStatus<Integer>("gpi:c", 1));
+        statusDatabase.update(new BasicStatus<Integer>("gpi:a", 2));
+
+        StatusChanges changes = statusDatabase.getChangedSince(version, "", 10);
+        assertTrue(changes.isComplete());
+        assertEquals(4, changes.getVersion());
+        assertEquals(2, changes.getItems().size());
+        assertEquals("gpi:c", changes.getItems().get(0).getName());
+        assertEquals(2, changes.getItems().get(1).getValue());
+
+        assertEquals(3, statusDatabase.getChangedSince(0, "gpi:", 10).getItems().size());
+        assertTrue(statusDatabase.getChangedSince(4, "", 10).getItems().isEmpty());
+    }
+
+    @Test
+    public void testGetChangedSinceWithPrefix() throws Exception {
+        statusDatabase.update(new BasicStatus<Integer>("gpi:ao:a", 1));
+        statusDatabase.update(new BasicStatus<Integer>("gpi:cal:a", 1));
+        statusDatabase.update(new BasicStatus<Integer>("gpi:ao:b", 1));
+        statusDatabase.update(new BasicStatus<Integer>("gpi:aoc:a", 1));
+
+        StatusChanges changes = statusDatabase.getChangedSince(0, "gpi:ao:", 10);
+
+        assertEquals(2, changes.getItems().size());
+        assertEquals("gpi:ao:a", changes.getItems().get(0).getName());
+        assertEquals("gpi:ao:b", changes.getItems().get(1).getName());
+        // Same whole segments as getByPrefix
+        assertEquals(namesOf(statusDatabase.getByPrefix("gpi:ao")), namesOf(statusDatabase.getChangedSince(0, "gpi:ao", 10).getItems()));
+    }
+
+    @Test
+    public void testUpdatesDontWaitForAnEarlierOne() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        // Its name is only read once its update has a version
+        StatusItem<Integer> slowItem = new BasicStatus<Integer>("gpi:slow", 1) {
+            @Override
+            public String getName() {
+                if (started.getCount() > 0) {
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.getName();
+            }
+        };
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> slowUpdate = executor.submit(() -> statusDatabase.update(slowItem));
+            assertTrue(started.await(1, TimeUnit.SECONDS));
+
+            statusDatabase.update(new BasicStatus<Integer>("gpi:fast", 1));
+
+            // The later update is complete but not published before the earlier one
+            assertEquals(0, statusDatabase.getVersion());
+            assertTrue(statusDatabase.getChangedSince(0, "", 10).getItems().isEmpty());
+
+            release.countDown();
+            slowUpdate.get(1, TimeUnit.SECONDS);
+            assertEquals(2, statusDatabase.getVersion());
+            assertEquals(setOf("gpi:slow", "gpi:fast"), namesOf(statusDatabase.getChangedSince(0, "", 10).getItems()));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testGetChangedSinceInPages() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            statusDatabase.update(new BasicStatus<Integer>("gpi:" + i, i));
+        }
+
+        StatusChanges first = statusDatabase.getChangedSince(0, "", 2);
+        assertFalse(first.isComplete());
+        assertEquals(2, first.getItems().size());
+
+        StatusChanges second = statusDatabase.getChangedSince(first.getVersion(), "", 2);
+        assertFalse(second.isComplete());
+        assertEquals("gpi:2", second.getItems().get(0).getName());
+
+        StatusChanges third = statusDatabase.getChangedSince(second.getVersion(), "", 2);
+        assertTrue(third.isComplete());
+        assertEquals(1, third.getItems().size());
+        assertEquals(statusDatabase.getVersion(), third.getVersion());
+    }
+
+    @Test
+    public void testEachDatabaseHasItsOwnEpoch() throws Exception {
+        StatusDatabase restarted = new StatusDatabase();
+
+        assertEquals(statusDatabase.getChangedSince(0, "", 10).getEpoch(), statusDatabase.getChangedSince(0, "", 10).getEpoch());
+        assertNotEquals(statusDatabase.getChangedSince(0, "", 10).getEpoch(), restarted.getChangedSince(0, "", 10).getEpoch());
+    }
+
+    @Test
+    public void testConcurrentUpdatesKeepTheLastValueOfEachItem() throws Exception {
+        final int threads = 4;
+        final int updates = 1000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (int t = 0; t < threads; t++) {
+                final String name = "gpi:" + t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < updates; i++) {
+                        statusDatabase.update(new BasicStatus<Integer>(name, i));
+                        statusDatabase.update(new BasicStatus<Integer>("gpi:shared", i));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(2 * threads * updates, statusDatabase.getVersion());
+        StatusChanges changes = statusDatabase.getChangedSince(0, "", 100);
+        assertTrue(changes.isComplete());
+        assertEquals(threads + 1, changes.getItems().size());
+        for (int t = 0; t < threads; t++) {
+            assertEquals(updates - 1, statusDatabase.getStatusItem("gpi:" + t).getValue());
+        }
+        assertEquals(namesOf(statusDatabase.getAll()), namesOf(changes.getItems()));
+    }
+
+    private static Set<String> namesOf(Collection<StatusItem> items) {
+        Set<String> names = new HashSet<String>();
+        for (StatusItem item : items) {
+            names.add(item.getName());
+        }
+        return names;
+    }
 
+    private static Set<String> setOf(String... names) {
+        Set<String> set = new HashSet<String>();
+        for (String name : names) {
+            set.add(name);
+        }
+        return set;
+    }
+
+    @Test
+    public void testGetByPrefix() throws Exception {
+        for (String name : new String[]{"gpi:ao", "gpi:ao:temp", "gpi:ao:loop:gain", "gpi:aoc:temp", "gpi:cal:temp"}) {
+            statusDatabase.update(new BasicStatus<Integer>(name, 1));
+        }
+
+        assertEquals(setOf("gpi:ao", "gpi:ao:temp", "gpi:ao:loop:gain"), namesOf(statusDatabase.getByPrefix("gpi:ao")));
+        assertEquals(setOf("gpi:ao:loop:gain"), namesOf(statusDatabase.getByPrefix("gpi:ao:loop:")));
+        assertEquals(5, statusDatabase.getByPrefix("").size());
+        assertTrue(statusDatabase.getByPrefix("gpi:ifs").isEmpty());
+    }
+
+    @Test
+    public void testGetByPattern() throws Exception {
+        for (String name : new String[]{"gpi:ao:temp", "gpi:cal:temp", "gpi:cal:power", "gpi:ao:loop:temp"}) {
+            statusDatabase.update(new BasicStatus<Integer>(name, 1));
+        }
+
+        assertEquals(setOf("gpi:ao:temp", "gpi:cal:temp"), namesOf(statusDatabase.getByPattern("gpi:*:temp")));
+        assertEquals(setOf("gpi:cal:temp", "gpi:cal:power"), namesOf(statusDatabase.getByPattern("gpi:cal:*")));
+        assertEquals(setOf("gpi:ao:loop:temp"), namesOf(statusDatabase.getByPattern("*:*:*:temp")));
+        assertTrue(statusDatabase.getByPattern("gpi:*").isEmpty());
+    }
+
+    /**
+     * A prefix query finds the same items as filtering all of them by whole segments
+     */
+    @Test
+    public void testPrefixQueryMatchesAFullScan() throws Exception {
+        String[] subsystems = new String[]{"gpi:subsystem1", "gpi:subsystem10", "gpi:subsystem1:sub"};
+        for (String subsystem : subsystems) {
+            for (int j = 0; j < 20; j++) {
+                statusDatabase.update(new BasicStatus<Integer>(subsystem + ":item" + j, j));
+            }
+        }
+
+        for (String subsystem : subsystems) {
+            Set<String> scanned = new HashSet<String>();
+            for (StatusItem item : statusDatabase.getAll()) {
+                if (item.getName().startsWith(subsystem + ":")) {
+                    scanned.add(item.getName());
+                }
+            }
+            assertEquals(scanned, namesOf(statusDatabase.getByPrefix(subsystem)));
+        }
+        assertEquals(40, statusDatabase.getByPrefix("gpi:subsystem1").size());
+    }
+
+    @Test
+    public void testHistoryIsDisabledByDefault() throws Exception {
+        statusDatabase.update(item);
+
+        assertTrue(statusDatabase.getHistory(STATUS_NAME, 0).isEmpty());
+    }
+
+    @Test
+    public void testHistoryKeepsTheLastValues() throws Exception {
+        StatusDatabase database = new StatusDatabase(3);
+        for (int i = 0; i < 5; i++) {
+            database.update(new BasicStatus<Integer>(STATUS_NAME, i, new Date(1000 + i)));
+        }
+
+        List<StatusItem<Integer>> history = database.getHistory(STATUS_NAME, 0);
+        assertEquals(3, history.size());
+        assertEquals(Integer.valueOf(2), history.get(0).getValue());
+        assertEquals(Integer.valueOf(3), history.get(1).getValue());
+        assertEquals(Integer.valueOf(4), history.get(2).getValue());
+        assertEquals(new Date(1004), history.get(2).getTimestamp());
+        assertEquals(Integer.valueOf(4), database.<Integer>getStatusItem(STATUS_NAME).getValue());
+    }
+
+    @Test
+    public void testHistorySince() throws Exception {
+        StatusDatabase database = new StatusDatabase(10);
+        for (int i = 0; i < 5; i++) {
+            database.update(new BasicStatus<Double>(STATUS_NAME, i * 0.5, new Date(1000 + i)));
+        }
+
+        List<StatusItem<Double>> history = database.getHistory(STATUS_NAME, 1003);
+        assertEquals(2, history.size());
+        assertEquals(Double.valueOf(1.5), history.get(0).getValue());
+        assertEquals(Double.valueOf(2.0), history.get(1).getValue());
+        assertTrue(database.getHistory("unknown", 0).isEmpty());
+    }
+
+    @Test
+    public void testHistoryIsResetWhenTheTypeChanges() throws Exception {
+        StatusDatabase database = new StatusDatabase(10);
+        database.update(new BasicStatus<Integer>(STATUS_NAME, 1, new Date(1000)));
+        database.update(new BasicStatus<String>(STATUS_NAME, "value", new Date(1001)));
+
+        List<StatusItem<Object>> history = database.getHistory(STATUS_NAME, 0);
+        assertEquals(1, history.size());
+        assertEquals("value", history.get(0).getValue());
+    }
+
+    /**
+     * The history of each item wraps around its capacity independently of the others
+     */
+    @Test
+    public void testHistoryOfManyItemsWrapsAround() throws Exception {
+        int names = 10;
+        int capacity = 30;
+        StatusDatabase database = new StatusDatabase(capacity);
+        for (int i = 0; i < 1000; i++) {
+            database.update(new BasicStatus<Integer>(STATUS_NAME + (i % names), i, new Date(i)));
+        }
+
+        for (int n = 0; n < names; n++) {
+            List<StatusItem<Integer>> history = database.getHistory(STATUS_NAME + n, 0);
+            assertEquals(capacity, history.size());
+            for (int i = 0; i < capacity; i++) {
+                // The last values of item n, oldest first
+                assertEquals(Integer.valueOf(1000 - (capacity - i) * names + n), history.get(i).getValue());
+            }
+        }
+    }
 }
@@ -3,6 +3,7 @@ package edu.gemini.jms.activemq.provider;
 import edu.gemini.jms.api.JmsArtifact;
 import edu.gemini.jms.api.JmsProvider;
 import edu.gemini.jms.api.JmsProviderStatusListener;
+import edu.gemini.jms.api.JmsSessionPool;
 import org.apache.activemq.ActiveMQConnection;
 import org.apache.activemq.ActiveMQConnectionFactory;
 import org.apache.activemq.transport.TransportListener;
@@ -28,25 +29,39 @@ import java.util.logging.Logger;
  */
 public final class ActiveMQJmsProvider implements JmsProvider {
     private static final Logger LOG = Logger.getLogger(ActiveMQJmsProvider.class.getName());
+    public static final int DEFAULT_CONNECTION_POOL_SIZE = 4;
 
     private ActiveMQConnectionFactory _factory;
     private final List<JmsProviderStatusListener> _statusListenerHandlers = new CopyOnWriteArrayList<JmsProviderStatusListener>();
     private final List<JmsArtifact> _jmsArtifacts = new CopyOnWriteArrayList<JmsArtifact>();
 
     private final String brokerUrl;
+    private final JmsSessionPool _sessionPool;
 
     private final AtomicReference<ActiveMQConnection> baseConnection = new AtomicReference<ActiveMQConnection>();
     private final AtomicBoolean connected = new AtomicBoolean(false);
 
-    public ActiveMQJmsProvider(String url, int closeTimeout) {
+    /**
+     * @param connectionPoolSize number of connections shared by the artifacts, 0 to open a connection per artifact
+     */
+    public ActiveMQJmsProvider(String url, int closeTimeout, int connectionPoolSize) {
         this.brokerUrl = substituteProperties(url);
         // Setup the connection factory
-        LOG.info("ActiveMQ JMS Provider setup with url: " + brokerUrl + " and close timeout " + closeTimeout);
+        LOG.info("ActiveMQ JMS Provider setup with url: " + brokerUrl + ", close timeout " + closeTimeout + " and " + connectionPoolSize + " pooled connections");
         _factory = new ActiveMQConnectionFactory(brokerUrl);
         _factory.setOptimizeAcknowledge(true);
         _factory.setAlwaysSessionAsync(false);
         _factory.setCloseTimeout(closeTimeout);
         _factory.setTransportListener(new JmsTransportListener());
+        // Artifacts take their sessions from a few shared connections, if enabled
+        _sessionPool = connectionPoolSize > 0 ? new JmsSessionPool(_factory, "GMP-", connectionPoolSize) : null;
+    }
+
+    /**
+     * Builds a provider whose artifacts open a connection each
+     */
+    public ActiveMQJmsProvider(String url, int closeTimeout) {
+        this(url, closeTimeout, 0);
     }
 
     public ActiveMQJmsProvider(String url) {
@@ -95,6 +110,9 @@ public final class ActiveMQJmsProvider implements JmsProvider {
                 LOG.log(Level.SEVERE, "Failure while closing the connection to " + brokerUrl, e);
             }
         }
+        if (_sessionPool != null) {
+            _sessionPool.close();
+        }
     }
 
     /**
@@ -106,6 +124,16 @@ public final class ActiveMQJmsProvider implements JmsProvider {
         return _factory;
     }
 
+    /**
+     * Return the pool of connections shared by the JMS artifacts.
+     *
+     * @return the JmsSessionPool of this provider, or null if the connections are not pooled
+     */
+    @Override
+    public JmsSessionPool getSessionPool() {
+        return _sessionPool;
+    }
+
     public void bindJmsStatusListener(JmsProviderStatusListener providerStatusListenerListener) {
         _statusListenerHandlers.add(providerStatusListenerListener);
         LOG.info("JMS Status Listener Registered: " + providerStatusListenerListener);
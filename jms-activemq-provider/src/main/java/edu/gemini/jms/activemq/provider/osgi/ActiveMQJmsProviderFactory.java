@@ -33,6 +33,7 @@ public class ActiveMQJmsProviderFactory implements ManagedServiceFactory {
     private final BundleContext context;
     private static final String BROKER_URL_PROPERTY = "brokerUrl";
     private static final String CLOSE_TIMEOUT_PROPERTY = "closeTimeout";
+    private static final String CONNECTION_POOL_SIZE_PROPERTY = "connectionPoolSize";
 
     ActiveMQJmsProviderFactory(BundleContext context) {
         this.context = context;
@@ -56,18 +57,22 @@ public class ActiveMQJmsProviderFactory implements ManagedServiceFactory {
 
     private ActiveMQJmsProvider createService(Dictionary<String, ?> properties) {
         String url = properties.get(BROKER_URL_PROPERTY).toString();
-        Object closeTimeout = properties.get(CLOSE_TIMEOUT_PROPERTY);
-        if (closeTimeout != null) {
+        int closeTimeout = intProperty(properties, CLOSE_TIMEOUT_PROPERTY, 1000);
+        int connectionPoolSize = intProperty(properties, CONNECTION_POOL_SIZE_PROPERTY, ActiveMQJmsProvider.DEFAULT_CONNECTION_POOL_SIZE);
+        LOG.info("Build " + ActiveMQJmsProvider.class.getName() + " with url " + url + " property, timeout " + closeTimeout + " and connection pool size " + connectionPoolSize);
+        return new ActiveMQJmsProvider(url, closeTimeout, connectionPoolSize);
+    }
+
+    private int intProperty(Dictionary<String, ?> properties, String key, int defaultValue) {
+        Object value = properties.get(key);
+        if (value != null) {
             try {
-                LOG.info("Build " + ActiveMQJmsProvider.class.getName() + " with url " + url + " property and timeout " + closeTimeout);
-                return new ActiveMQJmsProvider(url, Integer.parseInt(closeTimeout.toString()));
+                return Integer.parseInt(value.toString());
             } catch (NumberFormatException e) {
-                return new ActiveMQJmsProvider(url);
+                LOG.warning("Invalid value " + value + " for " + key + ", using " + defaultValue);
             }
-        } else {
-            LOG.info("Build " + ActiveMQJmsProvider.class.getName() + " with url " + url + " property");
-            return new ActiveMQJmsProvider(url);
         }
+        return defaultValue;
     }
 
     private boolean checkProperties(Dictionary<String, ?> properties) {
@@ -7,15 +7,16 @@ import java.util.logging.Logger;
 
 /**
  * Base class to create Message Producers and Consumers in JMS.
- * Every message consumer/producer has its own connection and session
- * to the server, so if you want/need to share connections and sessions among
- * several message consumers, you need manually to create your artifacts
+ * Every message consumer/producer has its own session. The session is taken
+ * from the provider's pool of shared connections if it has one, otherwise
+ * the artifact opens its own connection to the server.
  */
 
 public abstract class BaseJmsArtifact implements JmsArtifact, ExceptionListener {
 
     protected static final Logger LOG = Logger.getLogger(BaseJmsArtifact.class.getName());
     private Connection _connection;
+    private JmsSessionPool _sessionPool;
 
     protected Session _session;
     protected String _clientName;
@@ -39,14 +40,19 @@ public abstract class BaseJmsArtifact implements JmsArtifact, ExceptionListener
      */
     public void startJms(JmsProvider provider) throws JMSException {
 
-        ConnectionFactory factory = provider.getConnectionFactory();
-
-        _connection = factory.createConnection();
-        _connection.setClientID(_clientName+ UUID.randomUUID().toString());
-        _connection.start();
-        _connection.setExceptionListener(this);
-        _session = _connection.createSession(false,
-                Session.AUTO_ACKNOWLEDGE);
+        _sessionPool = provider.getSessionPool();
+        if (_sessionPool != null) {
+            _session = _sessionPool.openSession(this);
+        } else {
+            ConnectionFactory factory = provider.getConnectionFactory();
+
+            _connection = factory.createConnection();
+            _connection.setClientID(_clientName+ UUID.randomUUID().toString());
+            _connection.start();
+            _connection.setExceptionListener(this);
+            _session = _connection.createSession(false,
+                    Session.AUTO_ACKNOWLEDGE);
+        }
 
         Destination destination = _destinationBuilder.newDestination(
                 _destinationData, _session
@@ -57,6 +63,36 @@ public abstract class BaseJmsArtifact implements JmsArtifact, ExceptionListener
         LOG.info("Started JMS Artifact [" + _clientName + "]");
     }
 
+    /**
+     * Opens another session on the connection of this artifact, for work that
+     * runs concurrently with the use of the main session
+     *
+     * @return a new session, to be closed with {@link #closeSession(javax.jms.Session)}
+     * @throws JMSException in case the session cannot be created
+     */
+    protected Session openSession() throws JMSException {
+        if (_sessionPool != null) {
+            return _sessionPool.openSession(this);
+        } else {
+            return _connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+        }
+    }
+
+    /**
+     * Closes a session opened with {@link #openSession()}
+     */
+    protected void closeSession(Session session) {
+        if (_sessionPool != null) {
+            _sessionPool.closeSession(session);
+        } else {
+            try {
+                session.close();
+            } catch (JMSException e) {
+                LOG.log(Level.WARNING, "Exception while closing a session", e);
+            }
+        }
+    }
+
     /**
      * Used to create the actual consumer or producer.
      * @param d Destination to be used by the consumer or producer.
@@ -79,10 +115,15 @@ public abstract class BaseJmsArtifact implements JmsArtifact, ExceptionListener
         try {
             destroyJmsObject();
 
-            if (_session != null)
-                _session.close();
-            if (_connection != null)
-                _connection.close();
+            if (_sessionPool != null) {
+                if (_session != null)
+                    _sessionPool.closeSession(_session);
+            } else {
+                if (_session != null)
+                    _session.close();
+                if (_connection != null)
+                    _connection.close();
+            }
         } catch (JMSException e) {
             LOG.log(Level.WARNING, "Exception while stopping JMS Artifact", e);
         }
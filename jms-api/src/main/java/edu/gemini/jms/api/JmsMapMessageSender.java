@@ -76,9 +76,16 @@ public class JmsMapMessageSender extends BaseMessageProducer implements MapMessa
     }
 
     protected Destination createDestination(DestinationData destination) throws JMSException {
+        return createDestination(destination, _session);
+    }
+
+    /**
+     * Gets the destination from the cache, or creates it with the given session
+     */
+    protected Destination createDestination(DestinationData destination, Session session) throws JMSException {
         Destination d = _destinationCache.get(destination.getName());
         if (d == null) {
-            d = _destinationBuilder.newDestination(destination, _session);
+            d = _destinationBuilder.newDestination(destination, session);
             _destinationCache.put(destination.getName(), d);
         }
         return d;
@@ -5,7 +5,9 @@ import javax.jms.JMSException;
 import javax.jms.MapMessage;
 import javax.jms.Message;
 import javax.jms.MessageConsumer;
+import javax.jms.Session;
 import javax.jms.TemporaryQueue;
+import java.util.UUID;
 
 /**
  * Base class to model a request/reply communication using JMS.
@@ -13,30 +15,115 @@ import javax.jms.TemporaryQueue;
  * Implementations of this class need to define how to reconstruct the
  * reply message in the communication as an Object with the method buildResponse
  * <br>
- * Also they need to customize what kind of consumer will be used to get the reply
+ * Also they can customize what kind of consumer will be used to get the reply
  * overriding the method createReplyConsumer. For example the reply could be a temporary
  * queue or a fixed queue with a correlationID selector
+ * <br>
+ * Implementations that don't customize it can instead receive the replies on temporary
+ * queues that are kept open and reused by later requests, see {@link #reuseReplyDestinations()}.
+ * Each of them comes with its own session, so requests can be sent from several threads at once
  */
 public abstract class JmsMapMessageSenderReply<T> extends JmsMapMessageSender
         implements MapMessageSenderReply<T> {
 
+    private volatile ReplyChannelPool _replyChannels;
+
     public JmsMapMessageSenderReply(String clientName) {
         super(clientName);
     }
 
+    @Override
+    protected void constructJmsObject(Destination d) throws JMSException {
+        super.constructJmsObject(d);
+        _replyChannels = new ReplyChannelPool(new ReplyChannelPool.Sessions() {
+            @Override
+            public Session open() throws JMSException {
+                return openSession();
+            }
+
+            @Override
+            public void close(Session session) {
+                closeSession(session);
+            }
+        });
+    }
+
+    @Override
+    protected void destroyJmsObject() throws JMSException {
+        // Temporary queues outlive the session if the connection is shared
+        if (_replyChannels != null) {
+            _replyChannels.close();
+        }
+        super.destroyJmsObject();
+    }
+
     @Override
     public T sendMessageWithReply(DestinationData destination,
                                   MapMessageBuilder messageBuilder,
                                   long timeout) throws MessagingException {
         long startTime = System.currentTimeMillis();
-        Message m = sendMapMessageWithReply(destination, messageBuilder);
-        T replyObject = waitForReply(m, timeout);
+        T replyObject;
+        if (reuseReplyDestinations()) {
+            replyObject = sendAndReceiveOnReplyChannel(destination, messageBuilder, timeout);
+        } else {
+            Message m = sendMapMessageWithReply(destination, messageBuilder);
+            replyObject = waitForReply(m, timeout);
+        }
         long endTime = System.currentTimeMillis();
         LOG.fine("Sending/reply on " + destination + " took " + (endTime - startTime) + "   [ms]");
         return replyObject;
 
     }
 
+    /**
+     * Indicates whether replies are received on reused temporary queues, matching them to the request
+     * by correlationID, or on the consumer built by createReplyConsumer for each request.
+     * Reused reply destinations bypass createReplyConsumer
+     *
+     * @return false by default
+     */
+    protected boolean reuseReplyDestinations() {
+        return false;
+    }
+
+    private T sendAndReceiveOnReplyChannel(DestinationData destinationData, MapMessageBuilder messageBuilder, long timeout) throws MessagingException {
+        if (!isConnected()) {
+            throw new MessagingException("Attempt to send a message when the sender is not ready");
+        }
+        ReplyChannelPool replyChannels = _replyChannels;
+        ReplyChannelPool.ReplyChannel channel = null;
+        boolean replied = false;
+        try {
+            // Only the channel's own session is used, so concurrent requests don't share a session
+            channel = replyChannels.acquire();
+            Destination destination = createDestination(destinationData, channel.getSession());
+            MapMessage mm = channel.getSession().createMapMessage();
+            mm.setJMSReplyTo(channel.getDestination());
+            mm.setJMSCorrelationID(UUID.randomUUID().toString());
+
+            // The builder may set its own correlationID
+            messageBuilder.constructMessageBody(mm);
+            channel.send(destination, mm);
+
+            Message reply = channel.receive(mm.getJMSCorrelationID(), timeout);
+            replied = reply != null;
+            if (!replied) {
+                LOG.severe("Reply awaited on " + channel.getDestination() + " is null, probably the response timed-out after " + timeout + " [ms]");
+            }
+            return buildResponse(reply);
+        } catch (JMSException e) {
+            throw new MessagingException("Problem sending message or receiving reply", e);
+        } finally {
+            if (channel != null) {
+                if (replied) {
+                    replyChannels.release(channel);
+                } else {
+                    replyChannels.discard(channel);
+                }
+            }
+        }
+    }
+
     private MapMessage sendMapMessageWithReply(DestinationData destinationData, MapMessageBuilder messageBuilder) throws MessagingException {
         MapMessage mm;
         try {
@@ -77,13 +164,17 @@ public abstract class JmsMapMessageSenderReply<T> extends JmsMapMessageSender
     }
 
     /**
-     * Creates a consumer that is able to accept replies to the request message
+     * Creates a consumer that is able to accept replies to the request message, when reply
+     * destinations are not reused. By default it listens on the temporary queue set as
+     * the reply destination of the request
      *
      * @param requestMessage
      * @return a Message Consumer listening for replies to the request message
      * @throws JMSException
      */
-    protected abstract MessageConsumer createReplyConsumer(Message requestMessage) throws JMSException;
+    protected MessageConsumer createReplyConsumer(Message requestMessage) throws JMSException {
+        return _session.createConsumer(requestMessage.getJMSReplyTo());
+    }
 
     /**
      * Reconstruct the reply object from the reply message
@@ -15,5 +15,13 @@ public interface JmsProvider {
      * @return a JMS ConnectionFactory
      */
     ConnectionFactory getConnectionFactory();
-    
+
+    /**
+     * Gets the pool of shared connections JMS artifacts take their sessions from
+     * @return the session pool, or null if every artifact should open its own connection
+     */
+    default JmsSessionPool getSessionPool() {
+        return null;
+    }
+
 }
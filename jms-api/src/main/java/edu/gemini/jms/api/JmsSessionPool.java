@@ -0,0 +1,276 @@
+package edu.gemini.jms.api;
+
+import com.google.common.base.Preconditions;
+
+import javax.jms.Connection;
+import javax.jms.ConnectionFactory;
+import javax.jms.ExceptionListener;
+import javax.jms.JMSException;
+import javax.jms.Session;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A small set of connections shared by all the JMS artifacts of a provider.
+ * Every artifact still gets a session of its own, as sessions must not be used
+ * concurrently, but the sessions are spread over the pooled connections
+ * instead of opening a new connection per artifact. A connection is opened for
+ * the first session on it and closed with the last one.
+ */
+public class JmsSessionPool {
+    private static final Logger LOG = Logger.getLogger(JmsSessionPool.class.getName());
+
+    private final ConnectionFactory _factory;
+    private final String _clientName;
+    private final Connection[] _connections;
+    private final int[] _sessionCounts;
+    private final Map<Session, PooledSession> _sessions = new IdentityHashMap<Session, PooledSession>();
+    private boolean _closed = false;
+
+    private static class PooledSession {
+        private final int slot;
+        private final Connection connection;
+        private final ExceptionListener listener;
+
+        private PooledSession(int slot, Connection connection, ExceptionListener listener) {
+            this.slot = slot;
+            this.connection = connection;
+            this.listener = listener;
+        }
+    }
+
+    /**
+     * @param factory Factory used to open the connections
+     * @param clientName Prefix of the client ID of the connections
+     * @param size Maximum number of connections to open
+     */
+    public JmsSessionPool(ConnectionFactory factory, String clientName, int size) {
+        Preconditions.checkArgument(factory != null, "Connection factory cannot be null");
+        Preconditions.checkArgument(size > 0, "The pool needs at least one connection");
+        _factory = factory;
+        _clientName = clientName;
+        _connections = new Connection[size];
+        _sessionCounts = new int[size];
+    }
+
+    /**
+     * Opens a non transacted, auto acknowledge session on the least used connection,
+     * opening the connection if needed. The connection is opened without holding the
+     * pool, so a slow broker doesn't keep other artifacts from getting their sessions.
+     *
+     * @param listener Notified of problems on the connection the session belongs to
+     * @return a new session, to be closed with {@link #closeSession(javax.jms.Session)}
+     * @throws JMSException in case the session cannot be created
+     */
+    public Session openSession(ExceptionListener listener) throws JMSException {
+        int slot;
+        synchronized (this) {
+            Preconditions.checkState(!_closed, "The session pool has been closed");
+            slot = leastUsedSlot();
+            // Counted from now on so the connection isn't closed underneath us
+            _sessionCounts[slot]++;
+        }
+        boolean opened = false;
+        try {
+            Connection connection = connection(slot);
+            Session session;
+            try {
+                session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            } catch (JMSException e) {
+                // The connection may have been closed underneath us, replace it
+                LOG.log(Level.WARNING, "Cannot create a session on pooled connection " + slot + ", reconnecting", e);
+                discardConnection(slot, connection, e);
+                connection = connection(slot);
+                session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            }
+            synchronized (this) {
+                _sessions.put(session, new PooledSession(slot, connection, listener));
+            }
+            opened = true;
+            return session;
+        } finally {
+            if (!opened) {
+                releaseSlot(slot);
+            }
+        }
+    }
+
+    /**
+     * Closes a session opened by this pool. The connection stays open for other
+     * artifacts, and is closed when its last session is closed.
+     *
+     * @param session the session to close
+     */
+    public void closeSession(Session session) {
+        PooledSession pooled;
+        synchronized (this) {
+            pooled = _sessions.remove(session);
+        }
+        try {
+            session.close();
+        } catch (JMSException e) {
+            LOG.log(Level.WARNING, "Exception while closing a pooled session", e);
+        }
+        if (pooled != null) {
+            releaseSlot(pooled.slot);
+        }
+    }
+
+    /**
+     * Closes all the connections of the pool, and with them any session still open.
+     */
+    public void close() {
+        List<Connection> connections = new ArrayList<Connection>();
+        synchronized (this) {
+            _closed = true;
+            for (int slot = 0; slot < _connections.length; slot++) {
+                if (_connections[slot] != null) {
+                    connections.add(_connections[slot]);
+                }
+                _connections[slot] = null;
+                _sessionCounts[slot] = 0;
+            }
+            _sessions.clear();
+        }
+        for (Connection connection : connections) {
+            closeConnection(connection);
+        }
+    }
+
+    /**
+     * @return the number of connections currently open
+     */
+    public synchronized int getConnectionCount() {
+        int count = 0;
+        for (Connection connection : _connections) {
+            if (connection != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private int leastUsedSlot() {
+        int slot = 0;
+        for (int i = 1; i < _sessionCounts.length; i++) {
+            if (_sessionCounts[i] < _sessionCounts[slot]) {
+                slot = i;
+            }
+        }
+        return slot;
+    }
+
+    private Connection connection(final int slot) throws JMSException {
+        synchronized (this) {
+            if (_connections[slot] != null) {
+                return _connections[slot];
+            }
+        }
+        Connection connection = _factory.createConnection();
+        try {
+            connection.setClientID(_clientName + UUID.randomUUID().toString());
+            connection.setExceptionListener(new ExceptionListener() {
+                @Override
+                public void onException(JMSException e) {
+                    notifyException(slot, e);
+                }
+            });
+            connection.start();
+        } catch (JMSException e) {
+            closeConnection(connection);
+            throw e;
+        }
+        Connection current;
+        synchronized (this) {
+            current = _connections[slot];
+            if (_closed) {
+                current = null;
+            } else if (current == null) {
+                _connections[slot] = connection;
+                LOG.info("Opened pooled JMS connection " + slot + " [" + _clientName + "]");
+                return connection;
+            }
+        }
+        // Another artifact opened the connection of this slot first, or the pool was closed
+        closeConnection(connection);
+        if (current == null) {
+            throw new JMSException("The session pool has been closed");
+        }
+        return current;
+    }
+
+    // Called by the sessions that are closed, or that could not be opened
+    private void releaseSlot(int slot) {
+        Connection unused = null;
+        synchronized (this) {
+            if (_sessionCounts[slot] > 0) {
+                _sessionCounts[slot]--;
+            }
+            if (_sessionCounts[slot] == 0) {
+                unused = _connections[slot];
+                _connections[slot] = null;
+            }
+        }
+        if (unused != null) {
+            LOG.info("Closing unused pooled JMS connection " + slot + " [" + _clientName + "]");
+            closeConnection(unused);
+        }
+    }
+
+    /**
+     * Closes a broken connection. Its sessions are closed with it, so their owners
+     * are notified, as with the exceptions of the connection, and the sessions are
+     * forgotten
+     */
+    private void discardConnection(int slot, Connection connection, JMSException e) {
+        List<ExceptionListener> listeners = new ArrayList<ExceptionListener>();
+        synchronized (this) {
+            if (_connections[slot] == connection) {
+                _connections[slot] = null;
+            }
+            Iterator<PooledSession> sessions = _sessions.values().iterator();
+            while (sessions.hasNext()) {
+                PooledSession pooled = sessions.next();
+                if (pooled.connection == connection) {
+                    sessions.remove();
+                    _sessionCounts[slot]--;
+                    if (pooled.listener != null) {
+                        listeners.add(pooled.listener);
+                    }
+                }
+            }
+        }
+        closeConnection(connection);
+        for (ExceptionListener listener : listeners) {
+            listener.onException(e);
+        }
+    }
+
+    private void closeConnection(Connection connection) {
+        try {
+            connection.close();
+        } catch (JMSException e) {
+            LOG.log(Level.WARNING, "Exception while closing a pooled connection", e);
+        }
+    }
+
+    private void notifyException(int slot, JMSException e) {
+        List<ExceptionListener> listeners = new ArrayList<ExceptionListener>();
+        synchronized (this) {
+            for (PooledSession pooled : _sessions.values()) {
+                if (pooled.slot == slot && pooled.listener != null) {
+                    listeners.add(pooled.listener);
+                }
+            }
+        }
+        for (ExceptionListener listener : listeners) {
+            listener.onException(e);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package edu.gemini.jms.api;
+
+import javax.jms.Destination;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+import javax.jms.TemporaryQueue;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Temporary reply queues, each with its consumer, that are kept open and reused
+ * by the requests of a {@link JmsMapMessageSenderReply}.
+ * <br>
+ * A request takes a channel for itself until its reply arrives, so concurrent
+ * requests never share one. Each channel has its own session and producer, which
+ * the request uses to build and send its message, as a session must not be used
+ * by several threads at once. Replies carrying the correlationID of an earlier
+ * request are discarded, and a channel whose request timed out is closed as
+ * its late reply could still arrive.
+ */
+class ReplyChannelPool {
+    private static final Logger LOG = Logger.getLogger(ReplyChannelPool.class.getName());
+    private final Sessions _sessions;
+    private final Deque<ReplyChannel> _idleChannels = new ArrayDeque<ReplyChannel>();
+    private boolean _closed = false;
+
+    /**
+     * Opens and closes the sessions of the channels
+     */
+    interface Sessions {
+        Session open() throws JMSException;
+
+        void close(Session session);
+    }
+
+    class ReplyChannel {
+        private final Session _session;
+        private final MessageProducer _producer;
+        private final TemporaryQueue _queue;
+        private final MessageConsumer _consumer;
+
+        private ReplyChannel(Session session, MessageProducer producer, TemporaryQueue queue, MessageConsumer consumer) {
+            _session = session;
+            _producer = producer;
+            _queue = queue;
+            _consumer = consumer;
+        }
+
+        Session getSession() {
+            return _session;
+        }
+
+        Destination getDestination() {
+            return _queue;
+        }
+
+        void send(Destination destination, Message message) throws JMSException {
+            _producer.send(destination, message);
+        }
+
+        /**
+         * Waits for the reply to the request with the given correlationID
+         *
+         * @param correlationID the correlationID of the request
+         * @param timeout time to wait in milliseconds, or 0 to wait forever
+         * @return the reply or null if it didn't arrive in time
+         */
+        Message receive(String correlationID, long timeout) throws JMSException {
+            long deadline = System.currentTimeMillis() + timeout;
+            long remaining = timeout;
+            while (true) {
+                Message reply = _consumer.receive(remaining);
+                if (reply == null || isReplyTo(reply, correlationID)) {
+                    return reply;
+                }
+                LOG.fine("Discarding stale reply with correlationID " + reply.getJMSCorrelationID());
+                if (timeout > 0) {
+                    remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        return null;
+                    }
+                }
+            }
+        }
+
+        // Replies without a correlationID can only be to the current request
+        private boolean isReplyTo(Message reply, String correlationID) throws JMSException {
+            String replyCorrelationID = reply.getJMSCorrelationID();
+            return replyCorrelationID == null || replyCorrelationID.equals(correlationID);
+        }
+
+        private void close() {
+            try {
+                _consumer.close();
+                _queue.delete();
+                _producer.close();
+            } catch (JMSException e) {
+                LOG.log(Level.WARNING, "Exception while closing a reply channel", e);
+            }
+            _sessions.close(_session);
+        }
+    }
+
+    ReplyChannelPool(Sessions sessions) {
+        _sessions = sessions;
+    }
+
+    /**
+     * Takes an idle channel, or creates a new one on a new session
+     */
+    ReplyChannel acquire() throws JMSException {
+        synchronized (_idleChannels) {
+            ReplyChannel channel = _idleChannels.poll();
+            if (channel != null) {
+                return channel;
+            }
+        }
+        Session session = _sessions.open();
+        try {
+            TemporaryQueue queue = session.createTemporaryQueue();
+            return new ReplyChannel(session, session.createProducer(null), queue, session.createConsumer(queue));
+        } catch (JMSException e) {
+            _sessions.close(session);
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a channel after its reply has been received
+     */
+    void release(ReplyChannel channel) {
+        synchronized (_idleChannels) {
+            if (!_closed) {
+                _idleChannels.push(channel);
+                return;
+            }
+        }
+        channel.close();
+    }
+
+    /**
+     * Closes a channel that cannot be reused
+     */
+    void discard(ReplyChannel channel) {
+        channel.close();
+    }
+
+    /**
+     * Closes all the idle channels, and the ones in use when they are released
+     */
+    void close() {
+        synchronized (_idleChannels) {
+            _closed = true;
+            for (ReplyChannel channel : _idleChannels) {
+                channel.close();
+            }
+            _idleChannels.clear();
+        }
+    }
+}
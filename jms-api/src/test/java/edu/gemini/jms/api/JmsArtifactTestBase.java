@@ -12,6 +12,7 @@ import javax.jms.MessageConsumer;
 import javax.jms.MessageProducer;
 import javax.jms.Queue;
 import javax.jms.Session;
+import javax.jms.TemporaryQueue;
 import javax.jms.Topic;
 
 import static org.mockito.ArgumentMatchers.*;
@@ -54,6 +55,9 @@ public class JmsArtifactTestBase {
         Topic topic = mock(Topic.class);
         when(session.createTopic(anyString())).thenReturn(topic);
 
+        TemporaryQueue temporaryQueue = mock(TemporaryQueue.class);
+        when(session.createTemporaryQueue()).thenReturn(temporaryQueue);
+
         mapMessage = Mockito.mock(MapMessage.class);
         Destination destination = mock(Destination.class);
         when(mapMessage.getJMSReplyTo()).thenReturn(destination);
@@ -0,0 +1,135 @@
+package edu.gemini.jms.api;
+
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.broker.BrokerService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.jms.Connection;
+import javax.jms.JMSException;
+import javax.jms.MapMessage;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Sends requests from several threads at once through one {@link JmsMapMessageSenderReply}
+ * connected to an embedded broker
+ */
+public class JmsMapMessageSenderReplyBrokerTest {
+    private static final String BROKER_URL = "vm://JmsMapMessageSenderReplyBrokerTest";
+    private static final DestinationData REQUESTS = new DestinationData("TEST.REQUESTS", DestinationType.QUEUE);
+    private static final int REQUEST_COUNT = 8;
+
+    private BrokerService broker;
+    private Connection responderConnection;
+    private KeySenderReply sender;
+
+    private static class KeySenderReply extends JmsMapMessageSenderReply<String> {
+        KeySenderReply() {
+            super("Concurrent sender");
+        }
+
+        @Override
+        protected boolean reuseReplyDestinations() {
+            return true;
+        }
+
+        @Override
+        protected String buildResponse(Message reply) throws JMSException {
+            return reply == null ? null : ((MapMessage) reply).getString("key");
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        broker = new BrokerService();
+        broker.addConnector(BROKER_URL);
+        broker.setPersistent(false);
+        broker.setUseJmx(false);
+        broker.start();
+
+        responderConnection = new ActiveMQConnectionFactory(BROKER_URL).createConnection();
+        startResponder(responderConnection.createSession(false, Session.AUTO_ACKNOWLEDGE));
+        responderConnection.start();
+
+        sender = new KeySenderReply();
+        sender.startJms(() -> new ActiveMQConnectionFactory(BROKER_URL));
+    }
+
+    /**
+     * Holds the requests until all of them have arrived, so they are all in flight
+     * together, and then replies to them in the opposite order
+     */
+    private void startResponder(final Session session) throws JMSException {
+        MessageConsumer consumer = session.createConsumer(session.createQueue(REQUESTS.getName()));
+        final MessageProducer producer = session.createProducer(null);
+        final List<MapMessage> requests = new ArrayList<MapMessage>();
+        consumer.setMessageListener(message -> {
+            requests.add((MapMessage) message);
+            if (requests.size() == REQUEST_COUNT) {
+                Collections.reverse(requests);
+                try {
+                    for (MapMessage request : requests) {
+                        MapMessage reply = session.createMapMessage();
+                        reply.setString("key", request.getString("key"));
+                        reply.setJMSCorrelationID(request.getJMSCorrelationID());
+                        producer.send(request.getJMSReplyTo(), reply);
+                    }
+                } catch (JMSException e) {
+                    throw new RuntimeException(e);
+                }
+                requests.clear();
+            }
+        });
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        sender.stopJms();
+        responderConnection.close();
+        broker.stop();
+    }
+
+    private List<String> sendConcurrently(ExecutorService executor) throws Exception {
+        List<Future<String>> replies = new ArrayList<Future<String>>();
+        for (int i = 0; i < REQUEST_COUNT; i++) {
+            final String key = "request-" + i;
+            replies.add(executor.submit(() -> sender.sendMessageWithReply(REQUESTS, message -> {
+                message.setString("key", key);
+                return message;
+            }, 10000)));
+        }
+        List<String> keys = new ArrayList<String>();
+        for (Future<String> reply : replies) {
+            keys.add(reply.get());
+        }
+        return keys;
+    }
+
+    @Test
+    public void testConcurrentRequestsGetTheirOwnReplies() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(REQUEST_COUNT);
+        try {
+            // The second round reuses the reply channels of the first one
+            for (int round = 0; round < 2; round++) {
+                List<String> keys = sendConcurrently(executor);
+                for (int i = 0; i < REQUEST_COUNT; i++) {
+                    assertEquals("request-" + i, keys.get(i));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -4,19 +4,24 @@ import com.google.common.collect.ImmutableMap;
 import org.junit.Before;
 import org.junit.Test;
 
+import javax.jms.Destination;
 import javax.jms.JMSException;
 import javax.jms.MapMessage;
 import javax.jms.Message;
 import javax.jms.MessageConsumer;
+import javax.jms.TemporaryQueue;
 import javax.jms.Topic;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class JmsMapMessageSenderReplyTest extends JmsArtifactTestBase {
 
@@ -68,6 +73,101 @@ public class JmsMapMessageSenderReplyTest extends JmsArtifactTestBase {
         assertTrue(called.get());
     }
 
+    @Test
+    public void testReplyDestinationIsReusedAfterAReply() throws JMSException {
+        MessageConsumer replyConsumer = mock(MessageConsumer.class);
+        when(session.createConsumer(any(Destination.class))).thenReturn(replyConsumer);
+        when(replyConsumer.receive(anyLong())).thenReturn(mock(Message.class));
+
+        JmsMapMessageSenderReply<String> sender = new ReusingSenderReply("GMP.TOPIC");
+        sender.startJms(provider);
+
+        sender.sendMessageWithReply(destinationData, mapMessageBuilder, 1000);
+        sender.sendMessageWithReply(destinationData, mapMessageBuilder, 1000);
+
+        verify(session, times(1)).createTemporaryQueue();
+        verify(session, times(1)).createConsumer(any(Destination.class));
+        verify(mapMessage, times(2)).setJMSReplyTo(any(TemporaryQueue.class));
+    }
+
+    @Test
+    public void testReplyDestinationIsDiscardedAfterATimeout() throws JMSException {
+        JmsMapMessageSenderReply<String> sender = new ReusingSenderReply("GMP.TOPIC");
+        sender.startJms(provider);
+
+        sender.sendMessageWithReply(destinationData, mapMessageBuilder, 10);
+        sender.sendMessageWithReply(destinationData, mapMessageBuilder, 10);
+
+        verify(session, times(2)).createTemporaryQueue();
+    }
+
+    @Test
+    public void testStaleRepliesAreDiscarded() throws JMSException {
+        MessageConsumer replyConsumer = mock(MessageConsumer.class);
+        when(session.createConsumer(any(Destination.class))).thenReturn(replyConsumer);
+        when(mapMessage.getJMSCorrelationID()).thenReturn("current");
+        Message staleReply = mock(Message.class);
+        when(staleReply.getJMSCorrelationID()).thenReturn("previous");
+        Message reply = mock(Message.class);
+        when(reply.getJMSCorrelationID()).thenReturn("current");
+        when(replyConsumer.receive(anyLong())).thenReturn(staleReply, reply);
+
+        JmsMapMessageSenderReply<Message> sender = new JmsMapMessageSenderReply<Message>("GMP.TOPIC") {
+            @Override
+            protected boolean reuseReplyDestinations() {
+                return true;
+            }
+
+            @Override
+            protected Message buildResponse(Message reply) {
+                return reply;
+            }
+        };
+        sender.startJms(provider);
+
+        assertSame(reply, sender.sendMessageWithReply(destinationData, mapMessageBuilder, 1000));
+    }
+
+    @Test
+    public void testCustomReplyConsumerIsUsedByDefault() throws JMSException {
+        MessageConsumer replyConsumer = mock(MessageConsumer.class);
+        when(replyConsumer.receive(anyLong())).thenReturn(mock(Message.class));
+        AtomicBoolean replyConsumerCreated = new AtomicBoolean(false);
+        JmsMapMessageSenderReply<String> sender = new StringSenderReply("GMP.TOPIC") {
+            @Override
+            protected MessageConsumer createReplyConsumer(Message requestMessage) {
+                replyConsumerCreated.set(true);
+                return replyConsumer;
+            }
+        };
+        sender.startJms(provider);
+
+        sender.sendMessageWithReply(destinationData, mapMessageBuilder, 1000);
+
+        assertTrue(replyConsumerCreated.get());
+        verify(replyConsumer).receive(1000);
+    }
+
+    /**
+     * Sender that receives its replies on reused temporary queues
+     */
+    private class ReusingSenderReply extends JmsMapMessageSenderReply<String> {
+
+        public ReusingSenderReply(String clientName) {
+            super(clientName);
+        }
+
+        @Override
+        protected boolean reuseReplyDestinations() {
+            return true;
+        }
+
+        @Override
+        protected String buildResponse(Message reply) throws JMSException {
+            return super._clientName;
+        }
+    }
+
     /**
      * Class that extends JmsMapMessageSenderReply for testing
      */
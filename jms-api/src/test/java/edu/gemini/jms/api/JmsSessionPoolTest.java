@@ -0,0 +1,170 @@
+package edu.gemini.jms.api;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import javax.jms.Connection;
+import javax.jms.ConnectionFactory;
+import javax.jms.ExceptionListener;
+import javax.jms.JMSException;
+import javax.jms.Session;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class JmsSessionPoolTest {
+    private ConnectionFactory connectionFactory;
+    private Connection connection;
+
+    @Before
+    public void setUp() throws JMSException {
+        connectionFactory = mock(ConnectionFactory.class);
+        connection = mock(Connection.class);
+        when(connectionFactory.createConnection()).thenReturn(connection);
+        when(connection.createSession(anyBoolean(), anyInt())).thenAnswer(invocation -> mock(Session.class));
+    }
+
+    @Test
+    public void testSessionsShareConnections() throws JMSException {
+        JmsSessionPool pool = new JmsSessionPool(connectionFactory, "test", 2);
+
+        for (int i = 0; i < 10; i++) {
+            pool.openSession(null);
+        }
+
+        assertEquals(2, pool.getConnectionCount());
+        verify(connectionFactory, times(2)).createConnection();
+        verify(connection, times(10)).createSession(false, Session.AUTO_ACKNOWLEDGE);
+        verify(connection, times(2)).start();
+    }
+
+    @Test
+    public void testClosingASessionKeepsTheConnection() throws JMSException {
+        JmsSessionPool pool = new JmsSessionPool(connectionFactory, "test", 1);
+
+        Session first = pool.openSession(null);
+        pool.openSession(null);
+        pool.closeSession(first);
+
+        verify(first).close();
+        verify(connection, never()).close();
+        assertEquals(1, pool.getConnectionCount());
+    }
+
+    @Test
+    public void testClosingTheLastSessionClosesTheConnection() throws JMSException {
+        JmsSessionPool pool = new JmsSessionPool(connectionFactory, "test", 1);
+
+        pool.closeSession(pool.openSession(null));
+
+        verify(connection).close();
+        assertEquals(0, pool.getConnectionCount());
+
+        pool.openSession(null);
+        verify(connectionFactory, times(2)).createConnection();
+    }
+
+    @Test
+    public void testBrokenConnectionIsReplaced() throws JMSException {
+        Connection broken = mock(Connection.class);
+        when(connectionFactory.createConnection()).thenReturn(broken, connection);
+        when(broken.createSession(anyBoolean(), anyInt())).thenThrow(new JMSException("closed"));
+        JmsSessionPool pool = new JmsSessionPool(connectionFactory, "test", 1);
+
+        pool.openSession(null);
+
+        verify(broken).close();
+        verify(connection).createSession(false, Session.AUTO_ACKNOWLEDGE);
+        assertEquals(1, pool.getConnectionCount());
+    }
+
+    @Test
+    public void testOwnersOfTheSessionsOfABrokenConnectionAreNotified() throws JMSException {
+        Connection broken = mock(Connection.class);
+        when(connectionFactory.createConnection()).thenReturn(broken, connection);
+        Session first = mock(Session.class);
+        when(broken.createSession(anyBoolean(), anyInt())).thenReturn(first).thenThrow(new JMSException("closed"));
+        JmsSessionPool pool = new JmsSessionPool(connectionFactory, "test", 1);
+        ExceptionListener listener = mock(ExceptionListener.class);
+        pool.openSession(listener);
+
+        Session second = pool.openSession(null);
+
+        verify(broken).close();
+        verify(listener).onException(any(JMSException.class));
+        // The session of the broken connection is forgotten, closing it leaves the new connection open
+        pool.closeSession(first);
+        verify(connection, never()).close();
+        pool.closeSession(second);
+        verify(connection).close();
+    }
+
+    @Test
+    public void testConnectionIsOpenedOutsideThePool() throws Exception {
+        CountDownLatch connecting = new CountDownLatch(1);
+        CountDownLatch connect = new CountDownLatch(1);
+        Connection slow = mock(Connection.class);
+        when(slow.createSession(anyBoolean(), anyInt())).thenAnswer(invocation -> mock(Session.class));
+        doAnswer(invocation -> {
+            connecting.countDown();
+            connect.await();
+            return null;
+        }).when(slow).start();
+        when(connectionFactory.createConnection()).thenReturn(slow, connection);
+        JmsSessionPool pool = new JmsSessionPool(connectionFactory, "test", 2);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Session> slowSession = executor.submit(() -> pool.openSession(null));
+            assertTrue(connecting.await(1, TimeUnit.SECONDS));
+
+            // Opened on the other connection while the first one is still connecting
+            pool.openSession(null);
+            verify(connection).createSession(false, Session.AUTO_ACKNOWLEDGE);
+
+            connect.countDown();
+            slowSession.get(1, TimeUnit.SECONDS);
+            assertEquals(2, pool.getConnectionCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testConnectionExceptionsReachTheSessionOwners() throws JMSException {
+        JmsSessionPool pool = new JmsSessionPool(connectionFactory, "test", 1);
+        ExceptionListener listener = mock(ExceptionListener.class);
+        pool.openSession(listener);
+
+        ArgumentCaptor<ExceptionListener> connectionListener = ArgumentCaptor.forClass(ExceptionListener.class);
+        verify(connection).setExceptionListener(connectionListener.capture());
+        JMSException exception = new JMSException("test");
+        connectionListener.getValue().onException(exception);
+
+        verify(listener).onException(exception);
+    }
+
+    @Test
+    public void testArtifactUsesTheProviderPool() throws JMSException {
+        JmsSessionPool pool = new JmsSessionPool(connectionFactory, "test", 1);
+        JmsProvider provider = mock(JmsProvider.class);
+        when(provider.getSessionPool()).thenReturn(pool);
+
+        BaseMessageProducer first = new BaseMessageProducer("first", new DestinationData("TOPIC1", DestinationType.TOPIC));
+        BaseMessageProducer second = new BaseMessageProducer("second", new DestinationData("TOPIC2", DestinationType.TOPIC));
+        first.startJms(provider);
+        second.startJms(provider);
+        first.stopJms();
+
+        verify(connectionFactory, times(1)).createConnection();
+        verify(connection, never()).close();
+    }
+}